@@ -1,15 +1,24 @@
 package game.framework;
 
 import game.framework.entities.Entity2D;
+import game.framework.entities.EntityList;
+import game.framework.entities.EntityPool;
+import game.framework.interfaces.ICollisionBroadphase;
 import game.framework.interfaces.IRender;
+import game.framework.planning.PathQueryService;
+import game.framework.utilities.FramePacer;
 import game.framework.utilities.GameEngineConstants;
+import game.framework.utilities.ParallelEntityUpdater;
+import game.framework.utilities.render.RenderSnapshot;
+import game.framework.utilities.render.RenderSnapshotBuffer;
 
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.text.DecimalFormat;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 /*
  * 
@@ -36,11 +45,11 @@ public abstract class GameEngine
 
   // Variables to keep track of the different game entities including enemies, enemy shots, player shots and the player ship
   private Entity2D                        player;
-  private LinkedList<Entity2D>            enemies;
-  private LinkedList<Entity2D>            playerShots;
-  private LinkedList<Entity2D>            enemyShots;
-  private LinkedList<Entity2D>            powerups;
-  private LinkedList<Entity2D>            misc;
+  private EntityList                      enemies;
+  private EntityList                      playerShots;
+  private EntityList                      enemyShots;
+  private EntityList                      powerups;
+  private EntityList                      misc;
 
   // TODO: Possibly add a power-up entity list. 
 
@@ -49,6 +58,15 @@ public abstract class GameEngine
   long                                    currentLoopTime;
   protected double                        delta;
 
+  // Used when the game loop runs the updates with a fixed timestep (times are in ns)
+  private boolean                         fixedTimestep;
+  private long                            fixedUpdatePeriod;
+  private long                            renderPeriod;
+  private int                             maxUpdatesPerFrame;
+  private long                            fixedUpdateAccumulator;
+  private long                            lastFixedUpdateTime;
+  protected double                        interpolationAlpha;                                 // Fraction of an update period that has elapsed since the last update (between 0 and 1)
+
   // Flags to indicate which entity lists to clean up (remove dead entities) during game play.
   private boolean                         cleanEnemyShotsEntityList;
   private boolean                         cleanPlayerShotsEntityList;
@@ -56,6 +74,33 @@ public abstract class GameEngine
   private boolean                         cleanPowerupsEntityList;
   private boolean                         cleanMiscEntityList;
 
+  // Optional pools that receive the dead shots when they are removed from the shot entity lists, so they can be reused
+  private EntityPool<?>                   playerShotPool;
+  private EntityPool<?>                   enemyShotPool;
+
+  /*
+   * Used to apply changes to the entity lists that are made from other threads.
+   *
+   * NOTE: Input handlers such as gameKeyPressed() run on the AWT event thread, so an entity added from one would change an
+   *       entity list while the game loop thread may be walking it. Instead, when one of the add, kill or clear methods is 
+   *       called from any thread other than the game loop thread, the change is put on this (lock free) queue and applied by 
+   *       the game loop thread at the start of the next update. Calls made from the game loop thread are applied right away.
+   */
+  private volatile Thread                 gameLoopThread;
+  private ConcurrentLinkedQueue<EntityCommand> pendingEntityCommands = new ConcurrentLinkedQueue<EntityCommand>();
+
+  // Updates large entity lists on several threads when the parallel update is enabled (null when it is disabled)
+  private volatile ParallelEntityUpdater  parallelEntityUpdater;
+
+  // Updaters replaced by another thread while the game loop may still be using them, shut down by the game loop thread
+  private ConcurrentLinkedQueue<ParallelEntityUpdater> retiredParallelEntityUpdaters = new ConcurrentLinkedQueue<ParallelEntityUpdater>();
+
+  // Solves path searches on worker threads, its results are handed to the game at the start of every update
+  private volatile PathQueryService       pathQueryService;
+
+  // Waits for the end of each game loop iteration so the game loop runs at a fixed frame rate
+  private FramePacer                      framePacer       = new FramePacer();
+
   // Statistics variables for game loop
   private long                            frameCount;                                         // Tracks the number of frames that occur each second  
   private long                            frameRate;                                          // used to display the current frame rate when debugging is enabled
@@ -74,6 +119,28 @@ public abstract class GameEngine
   private IRender                         screenRenderer;
   protected int                           screenWidth, screenHeight;
 
+  /*
+   * Used when the screen is rendered by a separate render thread.
+   *
+   * NOTE: When the render thread is enabled, the game loop no longer calls renderScreen() itself. Instead, after the entities
+   *       are updated it captures their draw state into a snapshot and publishes it. The render thread calls renderScreen() 
+   *       once for each published snapshot and gameDraw() draws the entities from the newest snapshot, so the game loop can
+   *       update the next frame while the previous one is being drawn.
+   */
+  private volatile boolean                renderThreadEnabled;
+  private volatile boolean                renderThreadRunning;
+  private volatile Thread                 renderThread;
+  private RenderSnapshotBuffer            renderSnapshots  = new RenderSnapshotBuffer();
+
+  /*
+   * Used to find the enemies each player shot may collide with.
+   *
+   * NOTE: When no broadphase is set, every player shot is tested against every enemy. When one is set (for instance a 
+   *       SpatialGridBroadphase sized from the screen width and height), it is updated from the enemy list once per frame
+   *       and after every collision, and each player shot is only tested against the enemies it returns as candidates. 
+   */
+  private ICollisionBroadphase            collisionBroadphase;
+
   // Debug Variables
   public boolean                          displayDebugInfo = false;
   private DecimalFormat                   decimalPlaces9   = new DecimalFormat("0.000000000");
@@ -122,6 +189,8 @@ public abstract class GameEngine
   public abstract void userGamePreUpdate();
 
   // Any logic that needs to occur when each entity is updated goes here.
+  // NOTE: This is always called on the game loop thread unless the parallel update is enabled with a thread safe user update
+  //       (see enableParallelUpdate()), in which case it may be called for different entities at the same time on several threads.
   public abstract void userGameUpdateEntity(Entity2D entity);
 
   // When a collision is detected between two entities, let the user handle the specific collision
@@ -166,6 +235,7 @@ public abstract class GameEngine
    */
   private void gameLoop()
   {
+    gameLoopThread = Thread.currentThread();
     gameRunning = true;
 
     // Call the user game start method to execute any user specific logic before the game loop begins   
@@ -177,20 +247,29 @@ public abstract class GameEngine
     // Game loop
     long frameRateCountStartTime = System.currentTimeMillis();
     lastLoopTime = System.currentTimeMillis();      // Used to computer the delta
+    lastFixedUpdateTime = System.nanoTime();        // Used to feed the accumulator when the fixed timestep is enabled
+    fixedUpdateAccumulator = 0;
+    framePacer.start();
     while (gameRunning)
     {
+      // Start or stop the render thread if it has been enabled or disabled
+      if (renderThreadEnabled != (renderThread != null))
+      {
+        if (renderThreadEnabled)
+        {
+          startRenderThread();
+        }
+        else
+        {
+          stopRenderThread();
+        }
+      }
+
       // Record the start time of the current loop iteration. This will be used to compute the time taken for the 
       // update and render operations, which will then be used to determine the amount of time the current loop
       // iteration will sleep in order to maintain the fixed frame rate.
       beginLoopTime = System.nanoTime();
 
-      // This section records the amount of time that has elapsed since the previous loop iteration was executed.
-      // The result (called the delta) will be used in updating each entity's position to ensure smoother animations
-      // if the time between loop iterations varies greatly.
-      currentLoopTime = System.currentTimeMillis();
-      delta = (currentLoopTime - lastLoopTime) * GameEngineConstants.MILLI_TO_BASE; // The 0.001 converts the time in ms to seconds
-      lastLoopTime = currentLoopTime;
-
       // This section serves two purposes, 1) measure the games frame rate (mostly used for debugging purposes
       // during game development) and 2) to remove any dead entities from each of the entity lists once every second 
       frameCount++;
@@ -211,24 +290,24 @@ public abstract class GameEngine
         frameRateCountStartTime = System.currentTimeMillis();
       }
 
-      /*
-       * Process user input
-       */
-      userProcessInput();
-
-      /*
-       * Pre-update
-       */
-      userGamePreUpdate();
-
-      // Plain and simple, only update the entities if the game in not paused
-      if (!gamePaused)
+      if (fixedTimestep)
       {
-        gameUpdate(delta);
+        gameLoopFixedTimestepUpdate();
+      }
+      else
+      {
+        gameLoopVariableTimestepUpdate();
       }
 
-      // Update the display with the current entity lists 
-      screenRenderer.renderScreen();
+      // Update the display with the current entity lists, or hand them to the render thread as a snapshot 
+      if (renderThread != null)
+      {
+        publishRenderSnapshot();
+      }
+      else
+      {
+        screenRenderer.renderScreen();
+      }
 
       // Record the end time of the current loop iteration and compute the time taken for the update and render operations.
       // This will be used to determine the amount of time the current loop will need to sleep in order to maintain the 
@@ -236,32 +315,218 @@ public abstract class GameEngine
       endLoopTime = System.nanoTime();
       updateAndRenderLoopTime = endLoopTime - beginLoopTime;
 
-      // If the time taken to update and render took too long (i.e., is greater than the default update period) then skip 
-      // sleeping this game loop iteration. 
-      if (updateAndRenderLoopTime > GameEngineConstants.DEFAULT_UPDATE_PERIOD)
+      // When the fixed timestep is enabled, the loop runs at the render rate and the updates are run as needed to catch up
+      long loopPeriod = (fixedTimestep ? renderPeriod : GameEngineConstants.DEFAULT_UPDATE_PERIOD);
+
+      // If the time taken to update and render took too long (i.e., is greater than the default update period) then the 
+      // frame pacer will not wait this game loop iteration. 
+      if (updateAndRenderLoopTime > loopPeriod)
       {
         // This is an indication I left in during development to alert me if the game loop is taking too much time for the 
         // render and update operations. This may be commented out when your game is ready for production releases.
-        System.out.println("Update and Render Took Too Much Time (" + (updateAndRenderLoopTime * GameEngineConstants.NANO_TO_MILLI) + "ms), Skipping sleeping this game loop iteration. Game Loop should take " + (GameEngineConstants.DEFAULT_UPDATE_PERIOD * GameEngineConstants.NANO_TO_MILLI) + "ms or less.");
+        System.out.println("Update and Render Took Too Much Time (" + (updateAndRenderLoopTime * GameEngineConstants.NANO_TO_MILLI) + "ms), Skipping sleeping this game loop iteration. Game Loop should take " + (loopPeriod * GameEngineConstants.NANO_TO_MILLI) + "ms or less.");
+      }
+
+      // Wait until the end of the frame. This provides the necessary delay and also yields control so that other threads can do work.
+      // NOTE: The measured time is in nano seconds and is converted to milliseconds for the loop statistics.
+      loopSleepTime = (long) (framePacer.waitForNextFrame(loopPeriod) * GameEngineConstants.NANO_TO_MILLI);
+    }
+
+    stopRenderThread();
+    disableParallelUpdate();
+    setPathQueryService(null);
+
+    // Changes made after the game loop has ended are applied right away by the calling thread
+    gameLoopThread = null;
+    shutdownRetiredParallelEntityUpdaters();
+
+    gameShutdown();
+  }
+
+  /*
+   * Runs a single update using the time elapsed since the previous loop iteration as the delta.
+   */
+  private void gameLoopVariableTimestepUpdate()
+  {
+    // This section records the amount of time that has elapsed since the previous loop iteration was executed.
+    // The result (called the delta) will be used in updating each entity's position to ensure smoother animations
+    // if the time between loop iterations varies greatly.
+    currentLoopTime = System.currentTimeMillis();
+    delta = (currentLoopTime - lastLoopTime) * GameEngineConstants.MILLI_TO_BASE; // The 0.001 converts the time in ms to seconds
+    lastLoopTime = currentLoopTime;
+
+    /*
+     * Process user input
+     */
+    userProcessInput();
+
+    /*
+     * Pre-update
+     */
+    userGamePreUpdate();
+
+    // Plain and simple, only update the entities if the game in not paused
+    if (!gamePaused)
+    {
+      gameUpdate(delta);
+    }
+    else
+    {
+      applyPendingEntityCommands();
+    }
+  }
+
+  /*
+   * Runs as many updates with the fixed delta as are needed to consume the time elapsed since the previous loop iteration.
+   * 
+   * NOTE: The elapsed time is measured with System.nanoTime() and added to an accumulator. Each update consumes one fixed update 
+   *       period from the accumulator, so the simulation always advances with the same delta no matter how long a frame took to 
+   *       render. If rendering falls behind, several updates are run in a row to catch up (up to the maximum number of updates 
+   *       per frame, after which the remaining time is dropped so a long stall does not cause a spiral of catch up updates). The
+   *       time left in the accumulator is used to compute the interpolation alpha for the renderer.
+   */
+  private void gameLoopFixedTimestepUpdate()
+  {
+    long currentTime = System.nanoTime();
+    long elapsedTime = currentTime - lastFixedUpdateTime;
+    lastFixedUpdateTime = currentTime;
+
+    fixedUpdateAccumulator += Math.min(elapsedTime, fixedUpdatePeriod * maxUpdatesPerFrame);
+
+    delta = fixedUpdatePeriod * GameEngineConstants.NANO_TO_BASE;
+
+    while (fixedUpdateAccumulator >= fixedUpdatePeriod)
+    {
+      userProcessInput();
+      userGamePreUpdate();
+
+      if (!gamePaused)
+      {
+        gameUpdate(delta);
       }
       else
       {
-        try
-        {
-          // Compute the amount of time to sleep. Note that the measured time is in nano seconds and must be converted to milliseconds for the sleep operation.
-          loopSleepTime = (long) ((GameEngineConstants.DEFAULT_UPDATE_PERIOD - updateAndRenderLoopTime) * GameEngineConstants.NANO_TO_MILLI);
+        applyPendingEntityCommands();
+      }
 
-          // Provides the necessary delay and also yields control so that other threads can do work.
-          Thread.sleep(loopSleepTime);
-        }
-        catch (InterruptedException ex)
-        {
-          // NOTE: If an exception occurs, do nothing.
-        }
+      fixedUpdateAccumulator -= fixedUpdatePeriod;
+    }
+
+    interpolationAlpha = (double) fixedUpdateAccumulator / fixedUpdatePeriod;
+  }
+
+  /*
+   * Capture the draw state of the entities into the next render snapshot and hand it to the render thread.
+   *
+   * NOTE: The entities are captured in the same order they are drawn by gameDraw(). When the fixed timestep is enabled, the 
+   *       interpolated positions are captured so the render thread does not need to know the interpolation alpha.
+   */
+  private void publishRenderSnapshot()
+  {
+    RenderSnapshot snapshot = renderSnapshots.getWriteSnapshot();
+
+    captureEntityList(snapshot, enemyShots);
+    captureEntityList(snapshot, enemies);
+    captureEntityList(snapshot, playerShots);
+    captureEntityList(snapshot, powerups);
+    captureEntityList(snapshot, misc);
+    captureEntity(snapshot, player);
+
+    renderSnapshots.publish();
+
+    // Wake up the render thread if it is waiting for a new snapshot
+    LockSupport.unpark(renderThread);
+  }
+
+  private void captureEntityList(RenderSnapshot snapshot, EntityList entities)
+  {
+    for (int i = 0; i < entities.size(); i++)
+    {
+      captureEntity(snapshot, entities.get(i));
+    }
+  }
+
+  private void captureEntity(RenderSnapshot snapshot, Entity2D entity)
+  {
+    if ((entity == null) || !entity.isAlive() || !entity.isVisible())
+    {
+      return;
+    }
+
+    if (fixedTimestep)
+    {
+      snapshot.add(entity, entity.getInterpolatedPositionX(interpolationAlpha), entity.getInterpolatedPositionY(interpolationAlpha), entity.getFaceAngle());
+    }
+    else
+    {
+      snapshot.add(entity, entity.getPositionX(), entity.getPositionY(), entity.getFaceAngle());
+    }
+  }
+
+  /*
+   * The render thread calls renderScreen() once for each snapshot published by the game loop and waits when there is none.
+   */
+  private void renderLoop()
+  {
+    long renderedFrameNumber = renderSnapshots.getPublishedFrameNumber();
+
+    while (renderThreadRunning)
+    {
+      long publishedFrameNumber = renderSnapshots.getPublishedFrameNumber();
+
+      if (publishedFrameNumber != renderedFrameNumber)
+      {
+        renderedFrameNumber = publishedFrameNumber;
+        screenRenderer.renderScreen();
+      }
+      else
+      {
+        // NOTE: The game loop unparks this thread after publishing a snapshot. If that happens before the thread is parked, 
+        //       park() returns right away, so a snapshot is never missed.
+        LockSupport.park(this);
       }
     }
+  }
 
-    gameShutdown();
+  private void startRenderThread()
+  {
+    renderThreadRunning = true;
+
+    Thread thread = new Thread("Render Thread")
+    {
+      @Override
+      public void run()
+      {
+        renderLoop();
+      }
+    };
+
+    // The render thread should never keep the application running after the game loop has ended
+    thread.setDaemon(true);
+    renderThread = thread;
+    thread.start();
+  }
+
+  private void stopRenderThread()
+  {
+    Thread thread = renderThread;
+
+    if (thread == null)
+    {
+      return;
+    }
+
+    renderThreadRunning = false;
+    LockSupport.unpark(thread);
+
+    try
+    {
+      thread.join();
+    }
+    catch (InterruptedException e)
+    {}
+
+    renderThread = null;
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -294,11 +559,11 @@ public abstract class GameEngine
     player.setAlive(false);
     player.setVisible(false);
 
-    enemies = new LinkedList<Entity2D>();
-    playerShots = new LinkedList<Entity2D>();
-    enemyShots = new LinkedList<Entity2D>();
-    powerups = new LinkedList<Entity2D>();
-    misc = new LinkedList<Entity2D>();
+    enemies = new EntityList();
+    playerShots = new EntityList();
+    enemyShots = new EntityList();
+    powerups = new EntityList();
+    misc = new EntityList();
     
     /*
      *  Set default values
@@ -364,6 +629,21 @@ public abstract class GameEngine
   */
   public void gameUpdate(double delta)
   {
+    /*
+    * Apply the entity changes made from other threads since the last update
+    */
+    applyPendingEntityCommands();
+    shutdownRetiredParallelEntityUpdaters();
+
+    /*
+    * Hand the paths found by the path query workers since the last update to their listeners
+    */
+    PathQueryService currentPathQueryService = pathQueryService;
+    if (currentPathQueryService != null)
+    {
+      currentPathQueryService.drainCompleted();
+    }
+
     /*
     * Pre-update
     */
@@ -376,71 +656,12 @@ public abstract class GameEngine
     * Update the positions for the different entity types 
     */
 
-    // TODO: Since these loops all seem to do the same actions, but on different lists, consider moving the logic to a method to help clean up the code. 
-
-    // Update positions for the enemies list
-    for (int i = 0; i < enemies.size(); i++)
-    {
-      Entity2D currentEntity = enemies.get(i);
-      currentEntity.updatePosition(delta);
-      currentEntity.updateRotation(delta);
-      currentEntity.updateLifetime();
-
-      // Call the user defined method to perform any specific updates on each sprite
-      userGameUpdateEntity(currentEntity);
-    }
-
-    // Update positions for the players shots
-    for (int i = 0; i < playerShots.size(); i++)
-    {
-      // Update the entity
-      Entity2D currentEntity = playerShots.get(i);
-      currentEntity.updatePosition(delta);
-      currentEntity.updateRotation(delta);
-      currentEntity.updateLifetime();
-
-      // Call the user defined method to perform any specific updates on each sprite
-      userGameUpdateEntity(currentEntity);
-    }
-
-    // Update positions for the enemy shots
-    for (int i = 0; i < enemyShots.size(); i++)
-    {
-      // Update the entity
-      Entity2D currentEntity = enemyShots.get(i);
-      currentEntity.updatePosition(delta);
-      currentEntity.updateRotation(delta);
-      currentEntity.updateLifetime();
-
-      // Call the user defined method to perform any specific updates on each sprite
-      userGameUpdateEntity(currentEntity);
-    }
-
-    // Update positions for the powerups 
-    for (int i = 0; i < powerups.size(); i++)
-    {
-      // Update the entity
-      Entity2D currentPowerup = powerups.get(i);
-      currentPowerup.updatePosition(delta);
-      currentPowerup.updateRotation(delta);
-      currentPowerup.updateLifetime();
-
-      // Call the user defined method to perform any specific updates on each sprite
-      userGameUpdateEntity(currentPowerup);
-    }
-
- // Update positions for the misc entities 
-    for (int i = 0; i < misc.size(); i++)
-    {
-      // Update the entity
-      Entity2D currentPowerup = misc.get(i);
-      currentPowerup.updatePosition(delta);
-      currentPowerup.updateRotation(delta);
-      currentPowerup.updateLifetime();
-
-      // Call the user defined method to perform any specific updates on each sprite
-      userGameUpdateEntity(currentPowerup);
-    }
+    // Update the enemies, player shots, enemy shots, powerups and misc entities
+    updateEntityList(enemies, delta);
+    updateEntityList(playerShots, delta);
+    updateEntityList(enemyShots, delta);
+    updateEntityList(powerups, delta);
+    updateEntityList(misc, delta);
     
     /*
     * Update the player
@@ -458,6 +679,32 @@ public abstract class GameEngine
     gameDetectCollisions();
   }
 
+  /*
+   * Update the position, rotation and lifetime of every entity in the list and pass each one to userGameUpdateEntity().
+   */
+  private void updateEntityList(EntityList entities, double delta)
+  {
+    // NOTE: The updater can be replaced by another thread at any time, so it is read once
+    ParallelEntityUpdater updater = parallelEntityUpdater;
+    if (updater != null)
+    {
+      updater.update(this, entities, delta);
+      return;
+    }
+
+    for (int i = 0; i < entities.size(); i++)
+    {
+      // Update the entity
+      Entity2D currentEntity = entities.get(i);
+      currentEntity.updatePosition(delta);
+      currentEntity.updateRotation(delta);
+      currentEntity.updateLifetime();
+
+      // Call the user defined method to perform any specific updates on each sprite
+      userGameUpdateEntity(currentEntity);
+    }
+  }
+
   // DONE
   /*
    * Detect the collisions between the entity lists in the following order
@@ -482,22 +729,29 @@ public abstract class GameEngine
      *  NOTE: This is put before the check if the player is dead so even after the player dies,
      *        any remaining player shots can still strike the enemy.
      */
-    for (int playerShotIndex = 0; playerShotIndex < playerShots.size(); playerShotIndex++)
+    if (collisionBroadphase != null)
     {
-      Entity2D currentPlayerShot = (Entity2D) playerShots.get(playerShotIndex);
-
-      // Second, compare the player shot vector with all enemies to check for any collisions
-      for (int enemyIndex = 0; enemyIndex < enemies.size(); enemyIndex++)
+      detectPlayerShotCollisionsUsingBroadphase();
+    }
+    else
+    {
+      for (int playerShotIndex = 0; playerShotIndex < playerShots.size(); playerShotIndex++)
       {
-        Entity2D currentEnemy = (Entity2D) enemies.get(enemyIndex);
+        Entity2D currentPlayerShot = playerShots.get(playerShotIndex);
 
-        // Only handle the collision between the player shot and enemy if they are both alive
-        if (currentEnemy.isAlive() && currentPlayerShot.isAlive())
+        // Second, compare the player shot vector with all enemies to check for any collisions
+        for (int enemyIndex = 0; enemyIndex < enemies.size(); enemyIndex++)
         {
-          if (currentPlayerShot.collidesWith(currentEnemy.getBoundingRectangle()))
+          Entity2D currentEnemy = enemies.get(enemyIndex);
+
+          // Only handle the collision between the player shot and enemy if they are both alive
+          if (currentEnemy.isAlive() && currentPlayerShot.isAlive())
           {
-            // Given this collision, both the current player shot and current enemy should be marked as "killed" in the user defined method, but it does not have to.
-            userHandleEntityCollision(currentPlayerShot, currentEnemy);            
+            if (currentPlayerShot.collidesWith(currentEnemy))
+            {
+              // Given this collision, both the current player shot and current enemy should be marked as "killed" in the user defined method, but it does not have to.
+              userHandleEntityCollision(currentPlayerShot, currentEnemy);            
+            }
           }
         }
       }
@@ -519,7 +773,7 @@ public abstract class GameEngine
       if (currentEnemyShot.isAlive())
       {
         // If the player collides with an enemy shot, exit this method after processing the collision since there is no point processing any further collisions 
-        if (player.collidesWith(currentEnemyShot.getBoundingRectangle()))
+        if (player.collidesWith(currentEnemyShot))
         {
           userHandleEntityCollision(player, currentEnemyShot);
           return;
@@ -537,7 +791,7 @@ public abstract class GameEngine
       if (currentPowerup.isAlive())
       {
         // If the player collides with 
-        if (player.collidesWith(currentPowerup.getBoundingRectangle()))
+        if (player.collidesWith(currentPowerup))
         {
           userHandleEntityCollision(player, currentPowerup);
           break;
@@ -555,7 +809,7 @@ public abstract class GameEngine
       if (currentEnemy.isAlive())
       {
         // If the player collides with 
-        if (player.collidesWith(currentEnemy.getBoundingRectangle()))
+        if (player.collidesWith(currentEnemy))
         {
           userHandleEntityCollision(player, currentEnemy);
           break;
@@ -564,6 +818,73 @@ public abstract class GameEngine
     }
   }
 
+  /*
+   * Compare the player shots to the enemies using the broadphase.
+   * 
+   * NOTE: The candidates for each player shot are visited in the order of the enemy list and are tested with the same
+   *       alive and bounding rectangle checks as the brute force comparison, so the collisions handed to the user are the
+   *       same and arrive in the same order. Since userHandleEntityCollision() may move, add or remove enemies (or move the
+   *       player shot), the broadphase is updated after every collision and the player shot is queried again, continuing
+   *       with the enemies after the one it just hit, as the brute force comparison does.
+   */
+  private void detectPlayerShotCollisionsUsingBroadphase()
+  {
+    if (playerShots.isEmpty() || enemies.isEmpty())
+    {
+      return;
+    }
+
+    collisionBroadphase.update(enemies);
+
+    for (int playerShotIndex = 0; playerShotIndex < playerShots.size(); playerShotIndex++)
+    {
+      Entity2D currentPlayerShot = playerShots.get(playerShotIndex);
+
+      // Dead player shots can not collide with anything, so there is no need to query the broadphase
+      if (!currentPlayerShot.isAlive())
+      {
+        continue;
+      }
+
+      int numCandidates = collisionBroadphase.queryCandidates(currentPlayerShot);
+      int[] candidates = collisionBroadphase.getCandidates();
+
+      for (int candidateIndex = 0; candidateIndex < numCandidates; candidateIndex++)
+      {
+        int enemyIndex = candidates[candidateIndex];
+        Entity2D currentEnemy = collisionBroadphase.getEntity(enemyIndex);
+
+        // Only handle the collision between the player shot and enemy if they are both alive
+        if (currentEnemy.isAlive() && currentPlayerShot.isAlive())
+        {
+          if (currentPlayerShot.collidesWith(currentEnemy))
+          {
+            userHandleEntityCollision(currentPlayerShot, currentEnemy);
+
+            collisionBroadphase.update(enemies);
+
+            // A player shot killed by the collision is not tested against the remaining enemies
+            if (!currentPlayerShot.isAlive())
+            {
+              break;
+            }
+
+            // Continue with the candidates after the enemy that was hit, found from where the player shot is now
+            numCandidates = collisionBroadphase.queryCandidates(currentPlayerShot);
+            candidates = collisionBroadphase.getCandidates();
+
+            candidateIndex = 0;
+            while ((candidateIndex < numCandidates) && (candidates[candidateIndex] <= enemyIndex))
+            {
+              candidateIndex++;
+            }
+            candidateIndex--;
+          }
+        }
+      }
+    }
+  }
+
   // DONE
   // Refresh the display. Called back via repaint(), which invoke the paintComponent().
 
@@ -593,11 +914,19 @@ public abstract class GameEngine
      *  Draw the entities
      */
 
+    // When the render thread is used, the entities are drawn from the newest snapshot published by the game loop
+    if (renderThread != null)
+    {
+      renderSnapshots.acquireLatest().draw(g);
+      userGamePostDraw(g);
+      return;
+    }
+
     // Draw the enemy shots 
     for (int i = 0; i < enemyShots.size(); i++)
     {
       Entity2D currentEnemyShot = enemyShots.get(i);
-      currentEnemyShot.draw(g);
+      drawEntity(g, currentEnemyShot);
     }
 
     // Draw the enemies 
@@ -606,11 +935,11 @@ public abstract class GameEngine
       try
       {
         Entity2D currentEntity = enemies.get(i);
-        currentEntity.draw(g);
+        drawEntity(g, currentEntity);
       }
       catch (NullPointerException e)
       {
-        System.out.println("One of the enemies in the enemies LinkedList<Entity> was null");
+        System.out.println("One of the enemies in the enemies entity list was null");
         System.out.println(e.getMessage());
       }
     }
@@ -619,33 +948,224 @@ public abstract class GameEngine
     for (int i = 0; i < playerShots.size(); i++)
     {
       Entity2D currentPlayerShot = playerShots.get(i);
-      currentPlayerShot.draw(g);
+      drawEntity(g, currentPlayerShot);
     }
 
     // Draw the powerups 
     for (int i = 0; i < powerups.size(); i++)
     {
       Entity2D currentPowerup = powerups.get(i);
-      currentPowerup.draw(g);
+      drawEntity(g, currentPowerup);
     }
 
     for (int i = 0; i < misc.size(); i++)
     {
       Entity2D currentPowerup = misc.get(i);
-      currentPowerup.draw(g);
+      drawEntity(g, currentPowerup);
     }
     
     // Draw the player
-    player.draw(g);
+    drawEntity(g, player);
 
     userGamePostDraw(g);
   }
 
+  /*
+   * Draw an entity on the game loop thread. When the fixed timestep is enabled, the entity is drawn with drawAt() at its position
+   * interpolated between the last two updates, the same as the render snapshots, so its motion is smooth when there are several
+   * updates per render (e.g., 240 updates and 60 renders per second).
+   */
+  private void drawEntity(Graphics2D g, Entity2D entity)
+  {
+    if (!fixedTimestep)
+    {
+      entity.draw(g);
+      return;
+    }
+
+    // NOTE: drawAt() is only called for entities that are alive and visible, the same as when a render snapshot is captured
+    if (entity.isAlive() && entity.isVisible())
+    {
+      entity.drawAt(g, entity.getInterpolatedPositionX(interpolationAlpha), entity.getInterpolatedPositionY(interpolationAlpha), entity.getFaceAngle());
+    }
+  }
+
   public void exitGame()
   {
     gameRunning = false;
   }
 
+  /*
+   * Run the updates with a fixed timestep. The entities are updated updateRate times per second with the same delta and the 
+   * screen is rendered renderRate times per second (e.g., 240 updates and 60 renders per second).
+   */
+  public void enableFixedTimestep(int updateRate, int renderRate)
+  {
+    enableFixedTimestep(updateRate, renderRate, GameEngineConstants.DEFAULT_MAX_UPDATES_PER_FRAME);
+  }
+
+  public void enableFixedTimestep(int updateRate, int renderRate, int maxUpdates)
+  {
+    if ((updateRate <= 0) || (renderRate <= 0) || (maxUpdates <= 0))
+    {
+      System.out.println("Warning: The fixed timestep update rate, render rate and maximum updates per frame must be positive (" + updateRate + ", " + renderRate + ", " + maxUpdates + "). The fixed timestep will not be enabled.");
+      return;
+    }
+
+    fixedUpdatePeriod = 1000000000L / updateRate;
+    renderPeriod = 1000000000L / renderRate;
+    maxUpdatesPerFrame = maxUpdates;
+
+    // Start with an empty accumulator so the time before the fixed timestep was enabled is not simulated
+    fixedUpdateAccumulator = 0;
+    lastFixedUpdateTime = System.nanoTime();
+    interpolationAlpha = 0;
+
+    fixedTimestep = true;
+  }
+
+  /*
+   * Return to updating the entities once per loop iteration using the elapsed time as the delta.
+   */
+  public void disableFixedTimestep()
+  {
+    fixedTimestep = false;
+    interpolationAlpha = 0;
+
+    // Start measuring the delta from now so the time spent in the fixed timestep mode is not applied to the next update
+    lastLoopTime = System.currentTimeMillis();
+  }
+
+  public boolean isFixedTimestepEnabled()
+  {
+    return fixedTimestep;
+  }
+
+  /*
+   * Returns the fraction (between 0 and 1) of a fixed update period that has elapsed since the last update. When rendering, 
+   * an entity can be drawn at getInterpolatedPositionX(alpha) and getInterpolatedPositionY(alpha) to smooth out its motion 
+   * between updates. When the fixed timestep is not enabled this is always 0.
+   */
+  public double getInterpolationAlpha()
+  {
+    return interpolationAlpha;
+  }
+
+  /*
+   * Returns the frame pacer used by the game loop so its spin budget can be changed and its pacing statistics can be read.
+   */
+  public FramePacer getFramePacer()
+  {
+    return framePacer;
+  }
+
+  /*
+   * Render the screen on a separate thread so the game loop can update the next frame while the current one is drawn. The
+   * render thread is started (or stopped) by the game loop at the beginning of its next iteration.
+   *
+   * NOTE: While the render thread is used, renderScreen() is called from the render thread (not the game loop thread), and
+   *       userGamePreDraw() and userGamePostDraw() run on whichever thread calls gameDraw(). The entities themselves are drawn
+   *       with drawAt() using the state captured at the end of each update. Any entity type that overrides draw() should also
+   *       override drawAt() so it does not read state that the game loop is changing.
+   */
+  public void enableRenderThread()
+  {
+    renderThreadEnabled = true;
+  }
+
+  public void disableRenderThread()
+  {
+    renderThreadEnabled = false;
+  }
+
+  public boolean isRenderThreadEnabled()
+  {
+    return renderThreadEnabled;
+  }
+
+  /*
+   * Update the entity lists that hold at least threshold entities on several threads. Smaller lists are still updated on the 
+   * game loop thread.
+   *
+   * NOTE: If userUpdateThreadSafe is false, userGameUpdateEntity() is still called on the game loop thread for each entity (after 
+   *       the position, rotation and lifetime of the whole list have been updated). Only pass true if userGameUpdateEntity() 
+   *       can safely be called for different entities at the same time, i.e., it only changes the entity it is given and does 
+   *       not add or remove entities or change any other game state without synchronization.
+   *
+   *       This method can be called from any thread (e.g., a key handler). The game loop uses the new setting from the next
+   *       entity list it updates, and an updater that is replaced while the game loop may be using it is shut down by the
+   *       game loop thread at the start of the next update.
+   */
+  public void enableParallelUpdate(int threshold, boolean userUpdateThreadSafe)
+  {
+    replaceParallelEntityUpdater(new ParallelEntityUpdater(threshold, userUpdateThreadSafe));
+  }
+
+  public void disableParallelUpdate()
+  {
+    replaceParallelEntityUpdater(null);
+  }
+
+  public boolean isParallelUpdateEnabled()
+  {
+    return parallelEntityUpdater != null;
+  }
+
+  private synchronized void replaceParallelEntityUpdater(ParallelEntityUpdater updater)
+  {
+    ParallelEntityUpdater previousUpdater = parallelEntityUpdater;
+    parallelEntityUpdater = updater;
+
+    if (previousUpdater == null)
+    {
+      return;
+    }
+
+    // Shutting down the pool while the game loop is updating with it would make the update fail, so another thread leaves it to the game loop
+    if (isOffGameLoopThread())
+    {
+      retiredParallelEntityUpdaters.offer(previousUpdater);
+    }
+    else
+    {
+      previousUpdater.shutdown();
+    }
+  }
+
+  /*
+   * Shut down the updaters replaced by other threads since the last update. Only the game loop thread calls this while the game loop is running.
+   */
+  private void shutdownRetiredParallelEntityUpdaters()
+  {
+    ParallelEntityUpdater updater;
+
+    while ((updater = retiredParallelEntityUpdaters.poll()) != null)
+    {
+      updater.shutdown();
+    }
+  }
+
+  /*
+   * Set the service that solves the path searches of the game on worker threads. The engine drains its completion queue at the
+   * start of every update (on the game loop thread), so the listeners of the searches can change the game state safely. The
+   * previous service (if any) is shut down, and the service is shut down when the game loop ends. Pass null to remove it.
+   */
+  public void setPathQueryService(PathQueryService service)
+  {
+    PathQueryService previousService = pathQueryService;
+    pathQueryService = service;
+
+    if ((previousService != null) && (previousService != service))
+    {
+      previousService.shutdown();
+    }
+  }
+
+  public PathQueryService getPathQueryService()
+  {
+    return pathQueryService;
+  }
+
   /////////////////////////////////////////////////////////////////////////////
   //    ____                        ____                      
   //   / ___| __ _ _ __ ___   ___  |  _ \ __ _ _   _ ___  ___ 
@@ -689,13 +1209,34 @@ public abstract class GameEngine
   //
   /////////////////////////////////////////////////////////////////////////////
 
+  /*
+   * Set the broadphase used to compare the player shots with the enemies. Passing null restores the brute force comparison.
+   */
+  public void setCollisionBroadphase(ICollisionBroadphase broadphase)
+  {
+    collisionBroadphase = broadphase;
+  }
+
+  public ICollisionBroadphase getCollisionBroadphase()
+  {
+    return collisionBroadphase;
+  }
+
   /*
    * Set a new player Entity
    */
   public void setNewPlayerEntity(Entity2D player)
   {
-    this.player = (Entity2D) player.clone();
-    this.player.setEntityType(GameEngineConstants.EntityTypes.PLAYER);
+    Entity2D newPlayer = (Entity2D) player.clone();
+    newPlayer.setEntityType(GameEngineConstants.EntityTypes.PLAYER);
+
+    if (isOffGameLoopThread())
+    {
+      pendingEntityCommands.offer(new EntityCommand(EntityCommandAction.SET_PLAYER, newPlayer, null, null));
+      return;
+    }
+
+    this.player = newPlayer;
   }
 
   /*
@@ -726,13 +1267,20 @@ public abstract class GameEngine
     addEntity(entity, GameEngineConstants.EntityTypes.MISC, misc);
   }
   
-  private void addEntity(Entity2D entity, GameEngineConstants.EntityTypes type, LinkedList<Entity2D> entityList)
+  private void addEntity(Entity2D entity, GameEngineConstants.EntityTypes type, EntityList entityList)
   {
     if (entity == null)
     {
       return;
     }
 
+    // When called from another thread (e.g., a key handler), the entity is added by the game loop thread at the start of the next update
+    if (isOffGameLoopThread())
+    {
+      pendingEntityCommands.offer(new EntityCommand(EntityCommandAction.ADD, entity, type, entityList));
+      return;
+    }
+
     // Set the type of the enemy
     entity.setEntityType(type);
 
@@ -740,6 +1288,102 @@ public abstract class GameEngine
     entityList.add(entity);
   }
 
+  /*
+   * Kill an entity. This is the same as calling kill() on the entity, except that when it is called from a thread other than the
+   * game loop thread the entity is killed at the start of the next update.
+   */
+  public void killEntity(Entity2D entity)
+  {
+    if (entity == null)
+    {
+      return;
+    }
+
+    if (isOffGameLoopThread())
+    {
+      pendingEntityCommands.offer(new EntityCommand(EntityCommandAction.KILL, entity, null, null));
+      return;
+    }
+
+    entity.kill();
+  }
+
+  /*
+   * Apply the entity changes that were queued by other threads, in the order they were made. Only the game loop thread calls this.
+   */
+  private void applyPendingEntityCommands()
+  {
+    EntityCommand command;
+
+    while ((command = pendingEntityCommands.poll()) != null)
+    {
+      switch (command.action)
+      {
+        case ADD:
+          command.entity.setEntityType(command.type);
+          command.entityList.add(command.entity);
+          break;
+
+        case KILL:
+          command.entity.kill();
+          break;
+
+        case CLEAR:
+          command.entityList.clear();
+          break;
+
+        case SET_PLAYER:
+          player = command.entity;
+          break;
+      }
+    }
+  }
+
+  /*
+   * True if the game loop is running and the caller is not the game loop thread, in which case changes to the entity lists must be queued
+   */
+  private boolean isOffGameLoopThread()
+  {
+    Thread thread = gameLoopThread;
+
+    return (thread != null) && (thread != Thread.currentThread());
+  }
+
+  private void clearEntityList(EntityList entityList)
+  {
+    if (isOffGameLoopThread())
+    {
+      pendingEntityCommands.offer(new EntityCommand(EntityCommandAction.CLEAR, null, null, entityList));
+      return;
+    }
+
+    entityList.clear();
+  }
+
+  private static enum EntityCommandAction
+  {
+    ADD, KILL, CLEAR, SET_PLAYER
+  }
+
+  /*
+   * A change to the entity lists queued by a thread other than the game loop thread
+   */
+  private static class EntityCommand
+  {
+    final EntityCommandAction             action;
+    final Entity2D                        entity;
+    final GameEngineConstants.EntityTypes type;
+    final EntityList                      entityList;
+
+    EntityCommand(EntityCommandAction action, Entity2D entity, GameEngineConstants.EntityTypes type, EntityList entityList)
+    {
+      this.action = action;
+      this.entity = entity;
+      this.type = type;
+      this.entityList = entityList;
+    }
+  }
+
   /*
    * Get the different entity lists
    */
@@ -749,57 +1393,99 @@ public abstract class GameEngine
     return player;
   }
 
-  public LinkedList<Entity2D> getEnemies()
+  /*
+   * NOTE: These return the entity lists themselves (EntityLists, which are Lists), so changes made through them change the game
+   *       as they did when the entities were stored in LinkedLists. They used to return LinkedList<Entity2D>, code that needs a
+   *       LinkedList has to copy the list. Use getEnemyList() etc. for the EntityList methods (e.g., swapRemove()).
+   */
+  @Deprecated
+  public List<Entity2D> getEnemies()
   {
     return enemies;
   }
 
-  public LinkedList<Entity2D> getEnemyShots()
+  @Deprecated
+  public List<Entity2D> getEnemyShots()
   {
     return enemyShots;
   }
 
-  public LinkedList<Entity2D> getPlayerShot()
+  @Deprecated
+  public List<Entity2D> getPlayerShot()
   {
     return playerShots;
   }
 
-  public LinkedList<Entity2D> getPowerups()
+  @Deprecated
+  public List<Entity2D> getPowerups()
   {
     return powerups;
   }
 
-  public LinkedList<Entity2D> getMiscEntities()
+  @Deprecated
+  public List<Entity2D> getMiscEntities()
   {
     return misc;
   }
-  
+
+  /*
+   * Get the different entity lists as the dense entity lists used by the engine, which also provide O(1) swapRemove() and removeDead().
+   */
+
+  public EntityList getEnemyList()
+  {
+    return enemies;
+  }
+
+  public EntityList getEnemyShotList()
+  {
+    return enemyShots;
+  }
+
+  public EntityList getPlayerShotList()
+  {
+    return playerShots;
+  }
+
+  public EntityList getPowerupList()
+  {
+    return powerups;
+  }
+
+  public EntityList getMiscEntityList()
+  {
+    return misc;
+  }
+
   /*
    * Clear the different entity lists
+   * 
+   * NOTE: Like the add methods, when these are called from a thread other than the game loop thread the list is cleared at the 
+   *       start of the next update.
    */
   public void clearEnemies()
   {
-    enemies.clear();
+    clearEntityList(enemies);
   }
 
   public void clearEnemyShot()
   {
-    enemyShots.clear();
+    clearEntityList(enemyShots);
   }
 
   public void clearPlayerShot()
   {
-    playerShots.clear();
+    clearEntityList(playerShots);
   }
 
   public void clearPowerups()
   {
-    powerups.clear();
+    clearEntityList(powerups);
   }
 
   public void clearMiscEntities()
   {
-    misc.clear();
+    clearEntityList(misc);
   }
   
   public void resetEntityLists()
@@ -871,55 +1557,65 @@ public abstract class GameEngine
   {
     if (cleanEnemyShotsEntityList)
     {
-      removeDeadEntitiesFromEntityList(enemyShots);
+      removeDeadEntitiesFromEntityList(enemyShots, enemyShotPool);
     }
 
     if (cleanPlayerShotsEntityList)
     {
-      removeDeadEntitiesFromEntityList(playerShots);
+      removeDeadEntitiesFromEntityList(playerShots, playerShotPool);
     }
 
     if (cleanEnemiesEntityList)
     {
-      removeDeadEntitiesFromEntityList(enemies);
+      removeDeadEntitiesFromEntityList(enemies, null);
     }
 
     if (cleanPowerupsEntityList)
     {
-      removeDeadEntitiesFromEntityList(powerups);
+      removeDeadEntitiesFromEntityList(powerups, null);
     }
     
     if (cleanMiscEntityList)
     {
-      removeDeadEntitiesFromEntityList(misc);
+      removeDeadEntitiesFromEntityList(misc, null);
     }
   }
 
   // DONE
   /*
-   * The dead entities are removed from the linked list as shown in the links below
-   *
-   *  Removing elements from a List
-   *  http://stackoverflow.com/questions/8174964/java-using-iterator-to-search-an-arraylist-and-delete-matching-objects
-   *
-   *  Discusses how iteratpr.remove is the safest way to remove elements from a list while iterating over it 
-   *  http://stackoverflow.com/questions/223918/efficient-equivalent-for-removing-elements-while-iterating-the-collection
-   *
-   *  Comments in this link mentions how iterator.remove is safe and the most efficient.
-   *  http://java67.blogspot.com/2012/12/difference-between-arraylist-vs-LinkedList-java.html
+   * The dead entities are removed from the entity list in a single pass that keeps the order of the remaining entities. If a pool
+   * is specified, the dead entities are released to it rather than left to the garbage collector.
+   */
+  private void removeDeadEntitiesFromEntityList(EntityList entities, EntityPool<?> pool)
+  {
+    entities.removeDead(pool);
+  }
+
+  /*
+   * Set the pools that receive the dead player and enemy shots when they are removed from their entity lists. The game can then get
+   * new shots from the pools with acquire() rather than creating them. Set a pool to null to stop pooling the shots.
    *
+   * NOTE: The pools are only filled when the dead shots are removed, so the respective removeDead...ShotsFromEntityList() method
+   *       must also be called. The pooled shots must not be referenced anywhere else by the game.
    */
-  private void removeDeadEntitiesFromEntityList(LinkedList<Entity2D> entities)
+  public void setPlayerShotPool(EntityPool<?> pool)
   {
-    Iterator<Entity2D> entityIterator = entities.iterator();
+    playerShotPool = pool;
+  }
 
-    while (entityIterator.hasNext())
-    {
-      if (!entityIterator.next().isAlive())
-      {
-        entityIterator.remove();
-      }
-    }
+  public EntityPool<?> getPlayerShotPool()
+  {
+    return playerShotPool;
+  }
+
+  public void setEnemyShotPool(EntityPool<?> pool)
+  {
+    enemyShotPool = pool;
+  }
+
+  public EntityPool<?> getEnemyShotPool()
+  {
+    return enemyShotPool;
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -958,5 +1654,9 @@ public abstract class GameEngine
     g.drawString("Delta Loop Time: " + decimalPlaces9.format(updateAndRenderLoopTime * GameEngineConstants.NANO_TO_MILLI), 20, line);
     line += 16;
     g.drawString("Loop Sleep Time: " + decimalPlaces9.format(loopSleepTime), 20, line);
+    line += 16;
+    g.drawString("Mean Pacing Error: " + decimalPlaces9.format(framePacer.getMeanPacingError() * GameEngineConstants.NANO_TO_MILLI), 20, line);
+    line += 16;
+    g.drawString("Frame Period Jitter: " + decimalPlaces9.format(framePacer.getFramePeriodStandardDeviation() * GameEngineConstants.NANO_TO_MILLI), 20, line);
   }
 }
@@ -31,6 +31,23 @@ public class Entity2D implements Cloneable
   // TODO: Not sure if this is needed.
   private static final double               DEGREES_IN_A_CIRCLE = 360;
 
+  // Remembers for each entity class whether it overrides getBoundingRectangle(), so the check is only done once per class
+  private static final ClassValue<Boolean>  OVERRIDES_BOUNDING_RECTANGLE = new ClassValue<Boolean>()
+  {
+    @Override
+    protected Boolean computeValue(Class<?> type)
+    {
+      try
+      {
+        return type.getMethod("getBoundingRectangle").getDeclaringClass() != Entity2D.class;
+      }
+      catch (NoSuchMethodException e)
+      {
+        return false;
+      }
+    }
+  };
+
   /*
    *  Class instance variables
    */
@@ -40,6 +57,7 @@ public class Entity2D implements Cloneable
   protected int                             entityId            = 0;  // Every entity should have a unique id
 
   protected Position2D                      position;                 // Position of the entity
+  protected double                          previousX, previousY;     // Position of the entity before the last call to updatePosition(), used to interpolate the rendered position
   protected Vector2D                        velocity;                 // The dx and dy of the velocity. These are added to the x-y component of the positon to move the entity 
 
   protected int                             width, height;
@@ -54,6 +72,10 @@ public class Entity2D implements Cloneable
 
   protected int                             lifeSpan, lifeAge;                 // Used if entities are to appear for a timed period (e.g., powerups)
 
+  boolean                                   pooled;                   // Set while the entity is stored in an EntityPool, so it can not be released twice
+
+  private final boolean                     boundingRectangleOverridden = OVERRIDES_BOUNDING_RECTANGLE.get(getClass());  // The collision tests then use getBoundingRectangle()
+
   // DEBUG VARIABLES
   //  private boolean                           showDirectionVector = true;
 
@@ -159,6 +181,7 @@ public class Entity2D implements Cloneable
   public void setPosition(Position2D p)
   {
     position.set(p);
+    resetInterpolation();
   }
 
   /*
@@ -167,6 +190,7 @@ public class Entity2D implements Cloneable
   public void setPosition(double x, double y)
   {
     position.set(x, y);
+    resetInterpolation();
   }
 
   /*
@@ -175,6 +199,7 @@ public class Entity2D implements Cloneable
   public void setPositionX(double x)
   {
     position.x = x;
+    previousX = x;
   }
 
   /*
@@ -183,6 +208,7 @@ public class Entity2D implements Cloneable
   public void setPositionY(double y)
   {
     position.y = y;
+    previousY = y;
   }
 
   /*
@@ -425,6 +451,34 @@ public class Entity2D implements Cloneable
   {
     return position.y + (height / 2);
   }
+
+  /*
+   * Returns the x component of the position blended between the position before and after the last update. An alpha of 0
+   * returns the previous position and an alpha of 1 returns the current position (see GameEngine.getInterpolationAlpha()).
+   */
+  public double getInterpolatedPositionX(double alpha)
+  {
+    return previousX + (position.x - previousX) * alpha;
+  }
+
+  /*
+   * Returns the y component of the position blended between the position before and after the last update.
+   */
+  public double getInterpolatedPositionY(double alpha)
+  {
+    return previousY + (position.y - previousY) * alpha;
+  }
+
+  /*
+   * Makes the previous position the same as the current position so the next rendered frame does not blend the entity across 
+   * the screen. The position setters already do this, so it only needs to be called after changing the position directly
+   * through the object returned by getPosition().
+   */
+  public void resetInterpolation()
+  {
+    previousX = position.x;
+    previousY = position.y;
+  }
   
   /////////////////////////////////////////////////////////////////////////////
   //   _____ _                 
@@ -474,13 +528,17 @@ public class Entity2D implements Cloneable
   }
 
   /*
-   *  Makes the entity alive and visible 
+   *  Makes the entity alive and visible, restarts its lifetime and stops the next rendered frame from interpolating from where
+   *  the entity was before (e.g., an entity reused from an EntityPool)
    */
   // NOTE: Needed to manipulate the alive and visible status
   public void reset()
   {
     setAlive(true);
     setVisible(true);
+
+    lifeAge = 0;
+    resetInterpolation();
   }
 
   /*
@@ -494,7 +552,10 @@ public class Entity2D implements Cloneable
   {
     try
     {
-      return super.clone();
+      Entity2D copy = (Entity2D) super.clone();
+      copy.pooled = false;
+
+      return copy;
     }
     catch (CloneNotSupportedException e)
     {
@@ -519,10 +580,48 @@ public class Entity2D implements Cloneable
   
   /*
    *  Get the current bounding rectangle of the entity based on the entity's position
+   *  
+   *  NOTE: A new rectangle is created each time this is called. The collision tests below do not call this method unless a 
+   *        subclass overrides it, they use the bounding box getters so no objects are created while checking for collisions.
    */
   public Rectangle getBoundingRectangle()
   {
-    return new Rectangle((int) position.x, (int) position.y, width, height);
+    // NOTE: An override calling super.getBoundingRectangle() gets the default box, since the getters would call the override again
+    if (boundingRectangleOverridden)
+    {
+      return new Rectangle((int) position.x, (int) position.y, width, height);
+    }
+
+    return new Rectangle(getBoundingX(), getBoundingY(), getBoundingWidth(), getBoundingHeight());
+  }
+
+  /*
+   * Bounding box getters. The bounding box is the position of the entity truncated to whole pixels and the entity's dimensions.
+   * 
+   * NOTE: The bounding box is computed from the position every time rather than being stored, since the position can be 
+   *       changed directly through the object returned by getPosition(). Subclasses that need a different bounding box (e.g.,
+   *       a smaller hit box) should override these getters, which are used by both getBoundingRectangle() and the collision tests.
+   *       A subclass that overrides getBoundingRectangle() instead still collides with that rectangle, but then every collision 
+   *       test creates a rectangle.
+   */
+  public int getBoundingX()
+  {
+    return boundingRectangleOverridden ? getBoundingRectangle().x : (int) position.x;
+  }
+
+  public int getBoundingY()
+  {
+    return boundingRectangleOverridden ? getBoundingRectangle().y : (int) position.y;
+  }
+
+  public int getBoundingWidth()
+  {
+    return boundingRectangleOverridden ? getBoundingRectangle().width : width;
+  }
+
+  public int getBoundingHeight()
+  {
+    return boundingRectangleOverridden ? getBoundingRectangle().height : height;
   }
 
   /*
@@ -530,10 +629,65 @@ public class Entity2D implements Cloneable
    * 
    * True is returned if both rectangles intersect (a collision).
    * False is returned otherwise.
+   * 
+   * NOTE: This is kept for compatibility. Use collidesWith(Entity2D) to avoid creating a rectangle for the other entity.
    */
   public boolean collidesWith(Rectangle otherEntityBoundingRectangle)
   {
-    return (otherEntityBoundingRectangle.intersects(getBoundingRectangle()));
+    return intersectsBoundingBox(otherEntityBoundingRectangle.x, otherEntityBoundingRectangle.y, otherEntityBoundingRectangle.width, otherEntityBoundingRectangle.height);
+  }
+
+  /*
+   * Checks if this entity's bounding box intersects with the other entity's bounding box without creating any objects.
+   */
+  public boolean collidesWith(Entity2D otherEntity)
+  {
+    if (otherEntity.boundingRectangleOverridden)
+    {
+      return collidesWith(otherEntity.getBoundingRectangle());
+    }
+
+    return intersectsBoundingBox(otherEntity.getBoundingX(), otherEntity.getBoundingY(), otherEntity.getBoundingWidth(), otherEntity.getBoundingHeight());
+  }
+
+  /*
+   * Checks if this entity's bounding box intersects with the specified box.
+   * 
+   * NOTE: This gives exactly the same result as java.awt.Rectangle.intersects(), including returning false for boxes without 
+   *       an area and handling boxes whose far edge overflows an int.
+   */
+  public boolean intersectsBoundingBox(int otherX, int otherY, int otherWidth, int otherHeight)
+  {
+    int thisX, thisY, thisRight, thisBottom;
+
+    if (boundingRectangleOverridden)
+    {
+      Rectangle boundingRectangle = getBoundingRectangle();
+      thisX = boundingRectangle.x;
+      thisY = boundingRectangle.y;
+      thisRight = boundingRectangle.width;
+      thisBottom = boundingRectangle.height;
+    }
+    else
+    {
+      thisX = getBoundingX();
+      thisY = getBoundingY();
+      thisRight = getBoundingWidth();
+      thisBottom = getBoundingHeight();
+    }
+
+    if ((otherWidth <= 0) || (otherHeight <= 0) || (thisRight <= 0) || (thisBottom <= 0))
+    {
+      return false;
+    }
+
+    int otherRight = otherX + otherWidth;
+    int otherBottom = otherY + otherHeight;
+    thisRight += thisX;
+    thisBottom += thisY;
+
+    // For each edge, either the far edge overflowed or the boxes overlap along that axis
+    return (((otherRight < otherX) || (otherRight > thisX)) && ((otherBottom < otherY) || (otherBottom > thisY)) && ((thisRight < thisX) || (thisRight > otherX)) && ((thisBottom < thisY) || (thisBottom > otherY)));
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -562,6 +716,9 @@ public class Entity2D implements Cloneable
    */
   public void updatePosition(double delta)
   {
+    previousX = position.x;
+    previousY = position.y;
+
     if (isAlive())
     {
       position.x += velocity.x * delta;
@@ -628,6 +785,21 @@ public class Entity2D implements Cloneable
     //    }
   }
 
+  /*
+   *  Draw the entity at the specified position and face angle rather than its current ones. This is used when the screen is 
+   *  drawn by a separate render thread from a snapshot of the entities captured by the game loop, and when the fixed timestep
+   *  is enabled, to draw the entity at its position interpolated between the last two updates.
+   *
+   *  NOTE: It is only called for entities that were alive and visible when the snapshot was captured. By default it simply 
+   *        calls draw(), which reads the current state of the entity while the game loop may be updating it. Entities drawn 
+   *        by a render thread should override this method and only use the values passed in (along with values that do not 
+   *        change during the game, such as the image or color).
+   */
+  public void drawAt(Graphics2D g, double x, double y, double angle)
+  {
+    draw(g);
+  }
+
   /////////////////////////////////////////////////////////////////////////////
   //   ____       _                   __  __      _   _               _     
   //  |  _ \  ___| |__  _   _  __ _  |  \/  | ___| |_| |__   ___   __| |___ 
@@ -14,6 +14,7 @@ public class EntityImage extends Entity2D
   protected Image           image;        // Image to display
   protected ImageObserver   imageObserver;
   protected AffineTransform at;
+  private AffineTransform   renderTransform = new AffineTransform();   // Only used by drawAt() so it does not share the transform used by draw()
 
   // TODO: Possibly remove the EntityTypes parameter
   public EntityImage(ImageObserver imageObserver, GameEngineConstants.EntityTypes type)
@@ -197,6 +198,28 @@ public class EntityImage extends Entity2D
     }
   }
 
+  /*
+   * (non-Javadoc)
+   * @see game.framework.entities.Entity2D#drawAt(java.awt.Graphics2D, double, double, double)
+   * 
+   * Same as draw() and transform(), but uses the position and face angle passed in.
+   */
+  @Override
+  public void drawAt(Graphics2D g, double x, double y, double angle)
+  {
+    if (getImage() == null)
+    {
+      throw new NullPointerException("No image has been assigned to entity.");
+    }
+
+    renderTransform.setToIdentity();
+    renderTransform.translate((int) x + width / 2, (int) y + height / 2);
+    renderTransform.rotate(Math.toRadians(angle));
+    renderTransform.translate(-width / 2, -height / 2);
+
+    g.drawImage(getImage(), renderTransform, imageObserver);
+  }
+
   /////////////////////////////////////////////////////////////////////////////
   //   ____       _                   __  __      _   _               _     
   //  |  _ \  ___| |__  _   _  __ _  |  \/  | ___| |_| |__   ___   __| |___ 
@@ -0,0 +1,216 @@
+package game.framework.entities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A dense, array backed list of entities used by the game engine for each of its entity lists.
+ *
+ *         The entities are stored in a single array so getting the entity at an index is O(1) and walking the list by index
+ *         touches memory in order. The list implements java.util.List so it can be used anywhere the old LinkedList entity
+ *         lists were used, but there are a couple of extra methods that are better suited for game loops:
+ *
+ *         - swapRemove() removes an entity in O(1) time by moving the last entity into its place (the order of the list changes).
+ *
+ *         - removeDead() removes all dead entities in a single pass while keeping the order of the remaining entities.
+ *
+ *         NOTE: Iterating by index from 0 to size() is the preferred (and stable) way to walk this list during the game loop.
+ *               Entities added while walking the list are appended to the end and will be visited by the same loop, and
+ *               entities are only removed from the list by removeDead(), which the game engine calls between frames.
+ */
+public class EntityList extends AbstractList<Entity2D> implements RandomAccess
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private Entity2D[]       entities;
+  private int              size;
+
+  public EntityList()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public EntityList(int initialCapacity)
+  {
+    entities = new Entity2D[Math.max(1, initialCapacity)];
+    size = 0;
+  }
+
+  public EntityList(Collection<? extends Entity2D> otherEntities)
+  {
+    this(otherEntities.size());
+    addAll(otherEntities);
+  }
+
+  /*
+   * Returns the entity at the specified index
+   */
+  @Override
+  public Entity2D get(int index)
+  {
+    checkIndex(index);
+    return entities[index];
+  }
+
+  /*
+   * Replaces the entity at the specified index and returns the entity that was there
+   */
+  @Override
+  public Entity2D set(int index, Entity2D entity)
+  {
+    checkIndex(index);
+
+    Entity2D previousEntity = entities[index];
+    entities[index] = entity;
+
+    return previousEntity;
+  }
+
+  @Override
+  public int size()
+  {
+    return size;
+  }
+
+  /*
+   * Appends the entity to the end of the list
+   */
+  @Override
+  public boolean add(Entity2D entity)
+  {
+    ensureCapacity(size + 1);
+    entities[size++] = entity;
+    modCount++;
+
+    return true;
+  }
+
+  /*
+   * Inserts the entity at the specified index, shifting all entities after it. Prefer add() since it does not need to move any entities.
+   */
+  @Override
+  public void add(int index, Entity2D entity)
+  {
+    if ((index < 0) || (index > size))
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    ensureCapacity(size + 1);
+    System.arraycopy(entities, index, entities, index + 1, size - index);
+    entities[index] = entity;
+    size++;
+    modCount++;
+  }
+
+  /*
+   * Removes the entity at the specified index, shifting all entities after it so the order of the list is kept.
+   *
+   * NOTE: This is O(n). When the order of the list does not matter use swapRemove().
+   */
+  @Override
+  public Entity2D remove(int index)
+  {
+    checkIndex(index);
+
+    Entity2D removedEntity = entities[index];
+    System.arraycopy(entities, index + 1, entities, index, size - index - 1);
+    entities[--size] = null;
+    modCount++;
+
+    return removedEntity;
+  }
+
+  /*
+   * Removes the entity at the specified index in O(1) time by moving the last entity in the list into its place.
+   *
+   * NOTE: When removing entities while walking the list by index, do not advance the index after calling this method
+   *       since the entity that was moved into the removed slot has not been visited yet.
+   */
+  public Entity2D swapRemove(int index)
+  {
+    checkIndex(index);
+
+    Entity2D removedEntity = entities[index];
+    entities[index] = entities[--size];
+    entities[size] = null;
+    modCount++;
+
+    return removedEntity;
+  }
+
+  /*
+   * Removes all entities that are not alive in one pass. The order of the remaining entities is kept. Returns the number of entities removed.
+   */
+  public int removeDead()
+  {
+    return removeDead(null);
+  }
+
+  /*
+   * Same as removeDead(), but each dead entity removed from the list is released to the specified pool (if it is not null) so it
+   * can be reused rather than garbage collected.
+   */
+  public int removeDead(EntityPool<?> pool)
+  {
+    int numAlive = 0;
+
+    for (int index = 0; index < size; index++)
+    {
+      Entity2D entity = entities[index];
+
+      if ((entity != null) && entity.isAlive())
+      {
+        entities[numAlive++] = entity;
+      }
+      else if ((entity != null) && (pool != null))
+      {
+        pool.release(entity);
+      }
+    }
+
+    int numRemoved = size - numAlive;
+
+    if (numRemoved > 0)
+    {
+      // Clear the references left at the end of the array so the removed entities can be garbage collected
+      Arrays.fill(entities, numAlive, size, null);
+      size = numAlive;
+      modCount++;
+    }
+
+    return numRemoved;
+  }
+
+  @Override
+  public void clear()
+  {
+    Arrays.fill(entities, 0, size, null);
+    size = 0;
+    modCount++;
+  }
+
+  /*
+   * Makes sure the list can hold the specified number of entities without growing
+   */
+  public void ensureCapacity(int minimumCapacity)
+  {
+    if (minimumCapacity > entities.length)
+    {
+      entities = Arrays.copyOf(entities, Math.max(minimumCapacity, entities.length * 2));
+    }
+  }
+
+  private void checkIndex(int index)
+  {
+    if ((index < 0) || (index >= size))
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package game.framework.entities;
+
+import game.framework.interfaces.IEntityFactory;
+
+/**
+ * 
+ * @author ggiger
+ * 
+ * @param <T>
+ * 
+ *          Provides entities to the game from a store of discarded entities. Since garbage collection can be costly (especially
+ *          while playing a game), when an entity is no longer needed, rather than removing it from the list and letting the GC
+ *          return it to the heap, it can be released to the pool. When a new entity is needed, acquire() hands out a discarded
+ *          entity if there is one and only asks the factory for a new instance when the pool is empty.
+ * 
+ *          The discarded entities are kept in an array with a fixed capacity. Entities released while the pool is full are
+ *          simply dropped and left to the GC, so the pool never holds on to more memory than it was created with.
+ * 
+ *          Every entity handed out by acquire() has its reset() method called, which makes it alive and visible again, restarts
+ *          its lifetime and clears its interpolation. Entities
+ *          that have any other state that needs to be reinitialized should override reset() (and call super.reset()). The
+ *          position, velocity, etc. are not changed, so they should be set by the caller as they would be for a new entity.
+ * 
+ *          NOTE: The pool is not synchronized and is meant to be used from the game loop. Once an entity has been released, the
+ *                game should not keep any other reference to it since it will be handed out again by a later call to acquire().
+ */
+public class EntityPool<T extends Entity2D>
+{
+  public static final int   DEFAULT_CAPACITY = 256;
+
+  private Class<T>          entityClass;
+  private IEntityFactory<T> factory;
+
+  // The discarded entities, the top of the stack is at entities[count - 1]
+  private Entity2D[]        entities;
+  private int               count;
+
+  // Statistics, a hit is an acquire() that reused a discarded entity, a miss had to create a new one
+  private long              numHits;
+  private long              numMisses;
+  private long              numDropped;
+
+  public EntityPool(Class<T> entityClass, IEntityFactory<T> factory)
+  {
+    this(entityClass, factory, DEFAULT_CAPACITY);
+  }
+
+  public EntityPool(Class<T> entityClass, IEntityFactory<T> factory, int capacity)
+  {
+    if ((entityClass == null) || (factory == null))
+    {
+      throw new IllegalArgumentException("The entity class and factory of an entity pool can not be null.");
+    }
+
+    this.entityClass = entityClass;
+    this.factory = factory;
+    entities = new Entity2D[Math.max(1, capacity)];
+    count = 0;
+  }
+
+  /*
+   * Creates entities with the factory and stores them in the pool until it holds the specified number of entities (or is full).
+   * Call this while the game is loading so that the first few acquire() calls during game play do not need to create any objects.
+   */
+  public void prewarm(int numEntities)
+  {
+    int target = Math.min(numEntities, entities.length);
+
+    while (count < target)
+    {
+      Entity2D entity = factory.createEntity();
+      entity.pooled = true;
+      entities[count++] = entity;
+    }
+  }
+
+  /*
+   * Returns a discarded entity from the pool, or a new entity from the factory if the pool is empty. The entity is reset before
+   * it is returned.
+   */
+  public T acquire()
+  {
+    T entity;
+
+    if (count > 0)
+    {
+      entity = entityClass.cast(entities[--count]);
+      entities[count] = null;
+      entity.pooled = false;
+      numHits++;
+    }
+    else
+    {
+      entity = factory.createEntity();
+      numMisses++;
+    }
+
+    entity.reset();
+
+    return entity;
+  }
+
+  /*
+   * Stores a discarded entity in the pool. Returns false if the entity was not stored, which happens when the pool is full, when
+   * the entity is not of the type of entity held by this pool or when the entity is already stored in a pool (releasing it twice
+   * would hand the same entity out twice).
+   */
+  public boolean release(Entity2D entity)
+  {
+    if ((entity == null) || !entityClass.isInstance(entity) || entity.pooled)
+    {
+      return false;
+    }
+
+    if (count == entities.length)
+    {
+      numDropped++;
+      return false;
+    }
+
+    entities[count++] = entity;
+    entity.pooled = true;
+
+    return true;
+  }
+
+  /*
+   * Drops all of the discarded entities so they can be garbage collected
+   */
+  public void clear()
+  {
+    for (int index = 0; index < count; index++)
+    {
+      entities[index].pooled = false;
+      entities[index] = null;
+    }
+
+    count = 0;
+  }
+
+  /*
+   * The number of discarded entities available in the pool
+   */
+  public int size()
+  {
+    return count;
+  }
+
+  public int getCapacity()
+  {
+    return entities.length;
+  }
+
+  /*
+   * Statistics getters
+   */
+  public long getNumHits()
+  {
+    return numHits;
+  }
+
+  public long getNumMisses()
+  {
+    return numMisses;
+  }
+
+  // The number of entities that were released while the pool was full
+  public long getNumDropped()
+  {
+    return numDropped;
+  }
+
+  public double getHitRate()
+  {
+    long numAcquired = numHits + numMisses;
+
+    return (numAcquired > 0) ? (double) numHits / numAcquired : 0;
+  }
+
+  public void resetStatistics()
+  {
+    numHits = 0;
+    numMisses = 0;
+    numDropped = 0;
+  }
+
+  public String toString()
+  {
+    return "Pooled: " + count + "/" + entities.length + ", Hits: " + numHits + ", Misses: " + numMisses + ", Dropped: " + numDropped;
+  }
+}
@@ -0,0 +1,486 @@
+package game.framework.entities;
+
+import game.framework.utilities.GameEngineConstants;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Optional structure of arrays storage for a group of simple entities (e.g., thousands of bullets).
+ *
+ *         Rather than each entity being a separate object with its own Position2D and Vector2D objects, the state of every
+ *         entity in the group is stored in primitive arrays indexed by a slot number. The update kernels walk these arrays
+ *         in a single pass, which touches memory in order and avoids a virtual call per entity per update.
+ *
+ *         The update kernels give exactly the same results as calling updatePosition(), updateRotation() and updateLifetime()
+ *         on an Entity2D with the same state. An EntityStoreView can be used to access a slot through the Entity2D methods so
+ *         existing game code (e.g., userGameUpdateEntity() and userHandleEntityCollision()) can work with stored entities.
+ *
+ *         NOTE: Slots are reused. When an entity is removed its slot is put on a free list and handed out again by the next
+ *               call to add(), so a slot number should not be kept after the entity in that slot has been removed.
+ */
+public class EntityStore
+{
+  private static final int DEFAULT_CAPACITY = 64;
+
+  // Entity state, indexed by slot
+  private double[]         x, y;
+  private double[]         velocityX, velocityY;
+  private double[]         faceAngle, rotationRate;
+  private int[]            width, height;
+  private int[]            lifeAge, lifeSpan;
+
+  // One bit per slot. A slot is in use if it holds an entity, an entity can be in use but not alive.
+  private long[]           usedBits;
+  private long[]           aliveBits;
+  private long[]           visibleBits;
+
+  // Slots freed by remove() that can be handed out again
+  private int[]            freeSlots;
+  private int              numFreeSlots;
+
+  private int              highestSlot;                                                   // One past the highest slot handed out so far
+  private int              numEntities;
+
+  public EntityStore()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public EntityStore(int initialCapacity)
+  {
+    allocate(Math.max(1, initialCapacity));
+    clear();
+  }
+
+  /*
+   * Adds a new entity that is alive and visible with all other values set to zero. Returns the slot of the entity.
+   */
+  public int add()
+  {
+    int slot;
+
+    if (numFreeSlots > 0)
+    {
+      slot = freeSlots[--numFreeSlots];
+    }
+    else
+    {
+      if (highestSlot == x.length)
+      {
+        allocate(x.length * 2);
+      }
+
+      slot = highestSlot++;
+    }
+
+    x[slot] = 0;
+    y[slot] = 0;
+    velocityX[slot] = 0;
+    velocityY[slot] = 0;
+    faceAngle[slot] = 0;
+    rotationRate[slot] = 0;
+    width[slot] = 0;
+    height[slot] = 0;
+    lifeAge[slot] = 0;
+    lifeSpan[slot] = 0;
+
+    setBit(usedBits, slot, true);
+    setBit(aliveBits, slot, true);
+    setBit(visibleBits, slot, true);
+
+    numEntities++;
+
+    return slot;
+  }
+
+  /*
+   * Adds a new entity with the state of the specified entity. Returns the slot of the entity.
+   */
+  public int add(Entity2D entity)
+  {
+    int slot = add();
+
+    x[slot] = entity.getPositionX();
+    y[slot] = entity.getPositionY();
+    velocityX[slot] = entity.getVelocityX();
+    velocityY[slot] = entity.getVelocityY();
+    faceAngle[slot] = entity.getFaceAngle();
+    rotationRate[slot] = entity.getRotationRate();
+    width[slot] = entity.getBoundingWidth();
+    height[slot] = entity.getBoundingHeight();
+    lifeAge[slot] = entity.getLifeage();
+    lifeSpan[slot] = entity.getLifespan();
+
+    setBit(aliveBits, slot, entity.isAlive());
+    setBit(visibleBits, slot, entity.isVisible());
+
+    return slot;
+  }
+
+  /*
+   * Removes the entity in the specified slot so the slot can be reused
+   */
+  public void remove(int slot)
+  {
+    if (!isUsed(slot))
+    {
+      return;
+    }
+
+    setBit(usedBits, slot, false);
+    setBit(aliveBits, slot, false);
+    setBit(visibleBits, slot, false);
+
+    freeSlots[numFreeSlots++] = slot;
+    numEntities--;
+  }
+
+  /*
+   * Removes every entity that is not alive. Returns the number of entities removed.
+   */
+  public int removeDead()
+  {
+    int numRemoved = 0;
+
+    for (int word = 0; word < usedBits.length; word++)
+    {
+      long deadBits = usedBits[word] & ~aliveBits[word];
+
+      while (deadBits != 0)
+      {
+        int slot = (word << 6) + Long.numberOfTrailingZeros(deadBits);
+        deadBits &= deadBits - 1;
+
+        remove(slot);
+        numRemoved++;
+      }
+    }
+
+    return numRemoved;
+  }
+
+  /*
+   * Removes all entities
+   */
+  public void clear()
+  {
+    Arrays.fill(usedBits, 0);
+    Arrays.fill(aliveBits, 0);
+    Arrays.fill(visibleBits, 0);
+
+    highestSlot = 0;
+    numFreeSlots = 0;
+    numEntities = 0;
+  }
+
+  /*
+   * The number of entities in the store
+   */
+  public int size()
+  {
+    return numEntities;
+  }
+
+  /*
+   * Slots are always less than this value, so it can be used as the upper bound when walking the slots
+   */
+  public int getSlotLimit()
+  {
+    return highestSlot;
+  }
+
+  public boolean isUsed(int slot)
+  {
+    return (slot >= 0) && (slot < highestSlot) && getBit(usedBits, slot);
+  }
+
+  /*
+   * Updates the position, rotation and lifetime of every entity in a single pass. This is the same as calling updatePosition(),
+   * updateRotation() and updateLifetime() (in that order) on each entity.
+   */
+  public void update(double delta)
+  {
+    for (int word = 0; word < usedBits.length; word++)
+    {
+      long bits = usedBits[word];
+
+      while (bits != 0)
+      {
+        int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+
+        if (getBit(aliveBits, slot))
+        {
+          x[slot] += velocityX[slot] * delta;
+          y[slot] += velocityY[slot] * delta;
+          rotate(slot, delta);
+        }
+
+        age(slot);
+      }
+    }
+  }
+
+  /*
+   * Updates the position of every entity that is alive
+   */
+  public void updatePositions(double delta)
+  {
+    for (int word = 0; word < aliveBits.length; word++)
+    {
+      long bits = aliveBits[word];
+
+      while (bits != 0)
+      {
+        int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+
+        x[slot] += velocityX[slot] * delta;
+        y[slot] += velocityY[slot] * delta;
+      }
+    }
+  }
+
+  /*
+   * Updates the face angle of every entity that is alive
+   */
+  public void updateRotations(double delta)
+  {
+    for (int word = 0; word < aliveBits.length; word++)
+    {
+      long bits = aliveBits[word];
+
+      while (bits != 0)
+      {
+        int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+
+        rotate(slot, delta);
+      }
+    }
+  }
+
+  /*
+   * Updates the life age of every entity, killing the ones that have reached their life span
+   */
+  public void updateLifetimes()
+  {
+    for (int word = 0; word < usedBits.length; word++)
+    {
+      long bits = usedBits[word];
+
+      while (bits != 0)
+      {
+        int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+
+        age(slot);
+      }
+    }
+  }
+
+  /*
+   * Same as Entity2D.updateRotation() for an entity that is alive
+   */
+  void rotate(int slot, double delta)
+  {
+    double rotation = rotationRate[slot] * delta;
+
+    faceAngle[slot] += rotation;
+
+    if (faceAngle[slot] < 0)
+    {
+      faceAngle[slot] = GameEngineConstants.DEGREES_IN_A_CIRCLE + rotation;
+    }
+
+    if (faceAngle[slot] > GameEngineConstants.DEGREES_IN_A_CIRCLE)
+    {
+      faceAngle[slot] = rotation;
+    }
+  }
+
+  /*
+   * Same as Entity2D.updateLifetime()
+   */
+  void age(int slot)
+  {
+    // if life span is used, it must be > 0
+    if (lifeSpan[slot] > 0)
+    {
+      lifeAge[slot]++;
+      if (lifeAge[slot] > lifeSpan[slot])
+      {
+        setBit(aliveBits, slot, false);
+        lifeAge[slot] = 0;
+      }
+    }
+  }
+
+  public double getX(int slot)
+  {
+    return x[slot];
+  }
+
+  public double getY(int slot)
+  {
+    return y[slot];
+  }
+
+  public void setPosition(int slot, double positionX, double positionY)
+  {
+    x[slot] = positionX;
+    y[slot] = positionY;
+  }
+
+  public double getVelocityX(int slot)
+  {
+    return velocityX[slot];
+  }
+
+  public double getVelocityY(int slot)
+  {
+    return velocityY[slot];
+  }
+
+  public void setVelocity(int slot, double dx, double dy)
+  {
+    velocityX[slot] = dx;
+    velocityY[slot] = dy;
+  }
+
+  public double getFaceAngle(int slot)
+  {
+    return faceAngle[slot];
+  }
+
+  public void setFaceAngle(int slot, double angle)
+  {
+    faceAngle[slot] = angle;
+  }
+
+  public double getRotationRate(int slot)
+  {
+    return rotationRate[slot];
+  }
+
+  public void setRotationRate(int slot, double rate)
+  {
+    rotationRate[slot] = rate;
+  }
+
+  public int getWidth(int slot)
+  {
+    return width[slot];
+  }
+
+  public int getHeight(int slot)
+  {
+    return height[slot];
+  }
+
+  public void setDimensions(int slot, int w, int h)
+  {
+    width[slot] = w;
+    height[slot] = h;
+  }
+
+  public int getLifeage(int slot)
+  {
+    return lifeAge[slot];
+  }
+
+  public void setLifeage(int slot, int age)
+  {
+    lifeAge[slot] = age;
+  }
+
+  public int getLifespan(int slot)
+  {
+    return lifeSpan[slot];
+  }
+
+  public void setLifespan(int slot, int life)
+  {
+    lifeSpan[slot] = life;
+  }
+
+  public boolean isAlive(int slot)
+  {
+    return getBit(aliveBits, slot);
+  }
+
+  public void setAlive(int slot, boolean alive)
+  {
+    setBit(aliveBits, slot, alive);
+  }
+
+  public boolean isVisible(int slot)
+  {
+    return getBit(visibleBits, slot);
+  }
+
+  public void setVisible(int slot, boolean visible)
+  {
+    setBit(visibleBits, slot, visible);
+  }
+
+  private static boolean getBit(long[] bits, int index)
+  {
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private static void setBit(long[] bits, int index, boolean value)
+  {
+    if (value)
+    {
+      bits[index >>> 6] |= (1L << index);
+    }
+    else
+    {
+      bits[index >>> 6] &= ~(1L << index);
+    }
+  }
+
+  /*
+   * Grows the arrays to hold the specified number of slots, keeping the existing entities
+   */
+  private void allocate(int capacity)
+  {
+    if (x == null)
+    {
+      x = new double[capacity];
+      y = new double[capacity];
+      velocityX = new double[capacity];
+      velocityY = new double[capacity];
+      faceAngle = new double[capacity];
+      rotationRate = new double[capacity];
+      width = new int[capacity];
+      height = new int[capacity];
+      lifeAge = new int[capacity];
+      lifeSpan = new int[capacity];
+      freeSlots = new int[capacity];
+      usedBits = new long[(capacity + 63) >>> 6];
+      aliveBits = new long[usedBits.length];
+      visibleBits = new long[usedBits.length];
+      return;
+    }
+
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    velocityX = Arrays.copyOf(velocityX, capacity);
+    velocityY = Arrays.copyOf(velocityY, capacity);
+    faceAngle = Arrays.copyOf(faceAngle, capacity);
+    rotationRate = Arrays.copyOf(rotationRate, capacity);
+    width = Arrays.copyOf(width, capacity);
+    height = Arrays.copyOf(height, capacity);
+    lifeAge = Arrays.copyOf(lifeAge, capacity);
+    lifeSpan = Arrays.copyOf(lifeSpan, capacity);
+    freeSlots = Arrays.copyOf(freeSlots, capacity);
+    usedBits = Arrays.copyOf(usedBits, (capacity + 63) >>> 6);
+    aliveBits = Arrays.copyOf(aliveBits, usedBits.length);
+    visibleBits = Arrays.copyOf(visibleBits, usedBits.length);
+  }
+}
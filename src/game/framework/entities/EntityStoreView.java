@@ -0,0 +1,343 @@
+package game.framework.entities;
+
+import game.framework.primitives.Position2D;
+import game.framework.primitives.Vector2D;
+import game.framework.utilities.GameEngineConstants;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         An Entity2D that reads and writes the state of one slot of an EntityStore rather than its own fields.
+ *
+ *         The view can be pointed at a different slot at any time with setSlot(), so one view can be reused to walk every entity
+ *         in a store without creating any objects. Code written against the Entity2D methods (getPositionX(), setVelocity(),
+ *         kill(), collidesWith(), etc.) works on the stored entity through the view.
+ *
+ *         NOTE: getPosition() and getVelocity() return objects owned by the view that are filled in from the store when they are
+ *               called. Changing those objects does not change the store, use the setters instead. The entity id and type belong
+ *               to the view, not to the slot, and the view does not draw anything.
+ */
+public class EntityStoreView extends Entity2D
+{
+  private EntityStore store;
+  private int         slot;
+
+  public EntityStoreView(EntityStore store)
+  {
+    this(store, GameEngineConstants.EntityTypes.UNDEFINED);
+  }
+
+  public EntityStoreView(EntityStore store, GameEngineConstants.EntityTypes type)
+  {
+    super(type);
+    this.store = store;
+    this.slot = -1;
+  }
+
+  /*
+   * Point the view at the entity in the specified slot
+   */
+  public EntityStoreView setSlot(int slot)
+  {
+    this.slot = slot;
+    return this;
+  }
+
+  public int getSlot()
+  {
+    return slot;
+  }
+
+  public EntityStore getStore()
+  {
+    return store;
+  }
+
+  /*
+   * Setters
+   */
+  @Override
+  public void setAlive(boolean alive)
+  {
+    store.setAlive(slot, alive);
+  }
+
+  @Override
+  public void setVisible(boolean visible)
+  {
+    store.setVisible(slot, visible);
+  }
+
+  @Override
+  public void setPosition(Position2D p)
+  {
+    store.setPosition(slot, p.x, p.y);
+  }
+
+  @Override
+  public void setPosition(double x, double y)
+  {
+    store.setPosition(slot, x, y);
+  }
+
+  @Override
+  public void setPositionX(double x)
+  {
+    store.setPosition(slot, x, store.getY(slot));
+  }
+
+  @Override
+  public void setPositionY(double y)
+  {
+    store.setPosition(slot, store.getX(slot), y);
+  }
+
+  @Override
+  public void setDimensions(int w, int h)
+  {
+    store.setDimensions(slot, w, h);
+  }
+
+  @Override
+  public void setVelocity(double x, double y)
+  {
+    store.setVelocity(slot, x, y);
+  }
+
+  @Override
+  public void setVelocity(Vector2D v)
+  {
+    store.setVelocity(slot, v.x, v.y);
+  }
+
+  @Override
+  public void setVelocityX(double x)
+  {
+    store.setVelocity(slot, x, store.getVelocityY(slot));
+  }
+
+  @Override
+  public void setVelocityY(double y)
+  {
+    store.setVelocity(slot, store.getVelocityX(slot), y);
+  }
+
+  @Override
+  public void setFaceAngle(double angle)
+  {
+    store.setFaceAngle(slot, angle);
+  }
+
+  @Override
+  public void setRotationRate(double rate)
+  {
+    store.setRotationRate(slot, rate);
+  }
+
+  @Override
+  public void setLifespan(int life)
+  {
+    store.setLifespan(slot, life);
+  }
+
+  @Override
+  public void setLifeage(int age)
+  {
+    store.setLifeage(slot, age);
+  }
+
+  /*
+   * Getters
+   */
+  @Override
+  public Position2D getPosition()
+  {
+    position.set(store.getX(slot), store.getY(slot));
+    return position;
+  }
+
+  @Override
+  public double getPositionX()
+  {
+    return store.getX(slot);
+  }
+
+  @Override
+  public double getPositionY()
+  {
+    return store.getY(slot);
+  }
+
+  @Override
+  public Vector2D getVelocity()
+  {
+    velocity.set(store.getVelocityX(slot), store.getVelocityY(slot));
+    return velocity;
+  }
+
+  @Override
+  public double getVelocityX()
+  {
+    return store.getVelocityX(slot);
+  }
+
+  @Override
+  public double getVelocityY()
+  {
+    return store.getVelocityY(slot);
+  }
+
+  @Override
+  public double getFaceAngle()
+  {
+    return store.getFaceAngle(slot);
+  }
+
+  @Override
+  public double getRotationRate()
+  {
+    return store.getRotationRate(slot);
+  }
+
+  @Override
+  public int getLifespan()
+  {
+    return store.getLifespan(slot);
+  }
+
+  @Override
+  public int getLifeage()
+  {
+    return store.getLifeage(slot);
+  }
+
+  @Override
+  public int getWidth()
+  {
+    return store.getWidth(slot);
+  }
+
+  @Override
+  public int getHeight()
+  {
+    return store.getHeight(slot);
+  }
+
+  @Override
+  public Position2D getCenter()
+  {
+    return new Position2D(getCenterX(), getCenterY());
+  }
+
+  @Override
+  public double getCenterX()
+  {
+    return store.getX(slot) + (store.getWidth(slot) / 2);
+  }
+
+  @Override
+  public double getCenterY()
+  {
+    return store.getY(slot) + (store.getHeight(slot) / 2);
+  }
+
+  @Override
+  public double getInterpolatedPositionX(double alpha)
+  {
+    return store.getX(slot);
+  }
+
+  @Override
+  public double getInterpolatedPositionY(double alpha)
+  {
+    return store.getY(slot);
+  }
+
+  /*
+   * Flags
+   */
+  @Override
+  public boolean isAlive()
+  {
+    return store.isAlive(slot);
+  }
+
+  @Override
+  public boolean isVisible()
+  {
+    return store.isVisible(slot);
+  }
+
+  /*
+   * Collision methods
+   */
+  @Override
+  public int getBoundingX()
+  {
+    return (int) store.getX(slot);
+  }
+
+  @Override
+  public int getBoundingY()
+  {
+    return (int) store.getY(slot);
+  }
+
+  @Override
+  public int getBoundingWidth()
+  {
+    return store.getWidth(slot);
+  }
+
+  @Override
+  public int getBoundingHeight()
+  {
+    return store.getHeight(slot);
+  }
+
+  /*
+   * Update logic
+   */
+  @Override
+  public void updatePosition(double delta)
+  {
+    if (isAlive())
+    {
+      store.setPosition(slot, store.getX(slot) + store.getVelocityX(slot) * delta, store.getY(slot) + store.getVelocityY(slot) * delta);
+    }
+  }
+
+  @Override
+  public void updateRotation(double delta)
+  {
+    if (isAlive())
+    {
+      store.rotate(slot, delta);
+    }
+  }
+
+  @Override
+  public void updateLifetime()
+  {
+    store.age(slot);
+  }
+
+  public String toString()
+  {
+    String entitySnapshot = "";
+
+    entitySnapshot += "Slot: " + slot + "\n";
+    entitySnapshot += "EntityType: " + entityType + "\n";
+    entitySnapshot += "Alive: " + isAlive() + "\n";
+    entitySnapshot += "Visible: " + isVisible() + "\n";
+    entitySnapshot += "Position: " + getPosition() + "\n";
+    entitySnapshot += "Velocity: " + getVelocity() + "\n";
+    entitySnapshot += "Width: " + getWidth() + "\n";
+    entitySnapshot += "Height: " + getHeight() + "\n";
+    entitySnapshot += "Face Angle: " + getFaceAngle() + "\n";
+    entitySnapshot += "Rotation Rate: " + getRotationRate() + "\n";
+
+    return entitySnapshot;
+  }
+}
@@ -64,8 +64,14 @@ public class EntityLine extends EntityShape
   {
     if (isAlive() && isVisible())
     {
-      g.setColor(color);
-      g.drawLine((int) position.x, (int) position.y, width, height);
+      drawAt(g, position.x, position.y, getFaceAngle());
     }
   }
+
+  @Override
+  public void drawAt(Graphics2D g, double x, double y, double angle)
+  {
+    g.setColor(color);
+    g.drawLine((int) x, (int) y, width, height);
+  }
 }
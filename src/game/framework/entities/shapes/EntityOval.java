@@ -64,15 +64,21 @@ public class EntityOval extends EntityShape
   {
     if (isAlive() && isVisible())
     {
-      g.setColor(color);
-      if (fill)
-      {        
-        g.fillOval((int) position.x, (int) position.y, width, height);        
-      }
-      else
-      {
-        g.fillOval((int) position.x, (int) position.y, width, height);
-      }
+      drawAt(g, position.x, position.y, getFaceAngle());
+    }
+  }
+
+  @Override
+  public void drawAt(Graphics2D g, double x, double y, double angle)
+  {
+    g.setColor(color);
+    if (fill)
+    {        
+      g.fillOval((int) x, (int) y, width, height);        
+    }
+    else
+    {
+      g.fillOval((int) x, (int) y, width, height);
     }
   }
 }
@@ -64,15 +64,21 @@ public class EntityRectangle extends EntityShape
   {
     if (isAlive() && isVisible())
     {
-      g.setColor(color);
-      if (fill)
-      {
-        g.fillRect((int) position.x, (int) position.y, width, height);
-      }
-      else
-      {
-        g.drawRect((int) position.x, (int) position.y, width, height);
-      }
+      drawAt(g, position.x, position.y, getFaceAngle());
+    }
+  }
+
+  @Override
+  public void drawAt(Graphics2D g, double x, double y, double angle)
+  {
+    g.setColor(color);
+    if (fill)
+    {
+      g.fillRect((int) x, (int) y, width, height);
+    }
+    else
+    {
+      g.drawRect((int) x, (int) y, width, height);
     }
   }
 }
@@ -0,0 +1,32 @@
+package game.framework.interfaces;
+
+import game.framework.entities.Entity2D;
+
+import java.util.List;
+
+/*
+ * A broadphase is used by the game engine to reduce the number of entity pairs that need to be tested for a collision.
+ *
+ * NOTE: The game engine updates the broadphase once per frame from one of its entity lists and then asks it, for each
+ *       entity in another list, which entities from the updated list are close enough to possibly collide. Only those
+ *       candidates are tested with the exact bounding rectangle test, so a broadphase must never leave out an entity
+ *       whose bounding rectangle intersects the bounding rectangle of the queried entity. The broadphase is updated again
+ *       after every collision handed to the user, since the user may move, add or remove entities.
+ */
+public interface ICollisionBroadphase
+{
+  // Rebuild the broadphase from the current positions of the entities in the list.
+  public void rebuild(List<Entity2D> entities);
+
+  // Bring the broadphase up to date with the current positions of the entities in the list (which may have been moved, added or removed since the last rebuild or update), only changing what moved.
+  public void update(List<Entity2D> entities);
+
+  // Find the entities (from the last rebuild or update) that may collide with the specified entity. Returns the number of candidates found.
+  public int queryCandidates(Entity2D entity);
+
+  // The list indices of the candidates found by the last query, sorted in ascending order. Only the first N entries are valid, where N is the value returned by queryCandidates().
+  public int[] getCandidates();
+
+  // Returns the entity at the specified list index from the last rebuild or update.
+  public Entity2D getEntity(int index);
+}
@@ -0,0 +1,14 @@
+package game.framework.interfaces;
+
+import game.framework.entities.Entity2D;
+
+/*
+ * Creates new entities for an EntityPool when the pool does not have a discarded entity to hand out.
+ *
+ * NOTE: The pool calls reset() on every entity it hands out (new or reused), so the factory only needs to create the entity
+ *       and set up anything that stays the same for the life of the object (e.g., its image or dimensions).
+ */
+public interface IEntityFactory<T extends Entity2D>
+{
+  public T createEntity();
+}
@@ -1,5 +1,6 @@
 package game.framework.planning;
 
+import game.framework.planning.interfaces.IHeuristic;
 import game.framework.planning.interfaces.graph.IEdge;
 import game.framework.planning.primitive.Tuple;
 import game.framework.planning.utils.AStarPriorityQueue;
@@ -33,6 +34,9 @@ public class AStar
   private int                         _mSource;
   private int                         _mTarget;
 
+  // The estimate of the cost from a node to the target, the straight line distance if null
+  private IHeuristic                  _mHeuristic;
+
   AStarPriorityQueue<Integer, Double> _openSet;
 
   // The closed set is implemented as a HashSet storing the id of the nodes already visited.
@@ -53,11 +57,25 @@ public class AStar
   // Path variables
   private List<Integer>               _pathOfNodeIds = new ArrayList<Integer>();
 
+  // The state of the search, so it can be run a little at a time with Search(maxExpandedNodes, maxNanoseconds)
+  private SearchStatus                _mStatus       = SearchStatus.NOT_FOUND;
+  private boolean                     _mInitialized  = false;
+  private int                         _mNumExpandedNodes;
+
   public AStar(Graph graph, int source, int target)
+  {
+    this(graph, source, target, null);
+  }
+
+  /*
+   * Search with a heuristic other than the straight line distance (e.g., a LandmarkHeuristic built for the graph)
+   */
+  public AStar(Graph graph, int source, int target, IHeuristic heuristic)
   {
     _mGraph = graph;
     _mSource = source;
     _mTarget = target;
+    _mHeuristic = heuristic;
 
     if (_mGraph == null)
     {
@@ -84,6 +102,8 @@ public class AStar
     _mFCosts = new HashMap<Integer, Double>(_mGraph.numNodes() / 2);
     _mGCosts = new HashMap<Integer, Double>(_mGraph.numNodes() / 2);
 
+    _mStatus = SearchStatus.IN_PROGRESS;
+
     //Search();
   }
 
@@ -103,8 +123,14 @@ public class AStar
 
   private void initialize()
   {
+    // The target can not be reached if the heuristic of the source is infinite
+    if (heuristic(_mSource) == Double.POSITIVE_INFINITY)
+    {
+      return;
+    }
+
     _mGCosts.put(_mSource, 0.0);
-    _mFCosts.put(_mSource, _mGCosts.get(_mSource) + _mGraph.getNode(_mSource).positionGet().distance(_mGraph.getNode(_mTarget).positionGet()));
+    _mFCosts.put(_mSource, _mGCosts.get(_mSource) + heuristic(_mSource));
 
     _openSet.add(_mSource, _mFCosts.get(_mSource));
     
@@ -114,108 +140,176 @@ public class AStar
 
   public void Search()
   {
-    initialize();
-//    _mGCosts.put(_mSource, 0.0);
-//    _mFCosts.put(_mSource, _mGCosts.get(_mSource) + _mGraph.getNode(_mSource).positionGet().distance(_mGraph.getNode(_mTarget).positionGet()));
-//
-//    _openSet.add(_mSource, _mFCosts.get(_mSource));
-//    // TODO: Add ACTION here that changes the color of the nodes associated with the path
-
-    while (!_openSet.isEmpty())
+    Search(Integer.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /*
+   * Run the search until it finishes or until maxExpandedNodes nodes have been expanded or maxNanoseconds have passed, whichever
+   * comes first. Returns IN_PROGRESS if the search has not finished, in which case calling this method again (e.g., in the next
+   * frame) continues the search where it left off. Once the search returns FOUND, the path can be read with getPathAsListOfNodeIds().
+   *
+   * NOTE: At least one node is expanded per call, so a search always makes progress.
+   */
+  public SearchStatus Search(int maxExpandedNodes, long maxNanoseconds)
+  {
+    if (_mStatus != SearchStatus.IN_PROGRESS)
     {
-      Tuple<Integer, Double> nextLowestNodeFScorePair = _openSet.remove();
-      int currentNodeIndex = nextLowestNodeFScorePair.getFirst();
+      return _mStatus;
+    }
 
-      // If current node index with next lowest F score is the same as the target index, a path was found.
-      if (currentNodeIndex == _mTarget)
+    if (!_mInitialized)
+    {
+      initialize();
+      _mInitialized = true;
+    }
+
+    long startTime = System.nanoTime();
+
+    for (int numExpandedNodes = 0; _mStatus == SearchStatus.IN_PROGRESS; numExpandedNodes++)
+    {
+      if ((numExpandedNodes > 0) && ((numExpandedNodes >= maxExpandedNodes) || (System.nanoTime() - startTime >= maxNanoseconds)))
       {
-        // TODO: Call method that will reconstruct path
-        _pathOfNodeIds.clear();
-        reconstructPath(_mTarget);
-        // Collections.reverse(_pathOfNodeIds);
         break;
       }
 
-      // Add the index of the current node to the closed list
-      // NOTE: Only the index for the node needs to be stored since it can be used to get the actual node from the graph
-      _closedSet.add(currentNodeIndex);
+      _mStatus = step();
+    }
+
+    return _mStatus;
+  }
+
+  public SearchStatus getStatus()
+  {
+    return _mStatus;
+  }
+
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  /*
+   * Expand the node with the lowest F score. Returns FOUND if the node is the target, NOT_FOUND if the open list is empty or
+   * IN_PROGRESS otherwise.
+   */
+  private SearchStatus step()
+  {
+    if (_openSet.isEmpty())
+    {
+      return SearchStatus.NOT_FOUND;
+    }
+
+    Tuple<Integer, Double> nextLowestNodeFScorePair = _openSet.remove();
+    int currentNodeIndex = nextLowestNodeFScorePair.getFirst();
+
+    // If current node index with next lowest F score is the same as the target index, a path was found.
+    if (currentNodeIndex == _mTarget)
+    {
+      // TODO: Call method that will reconstruct path
+      _pathOfNodeIds.clear();
+      reconstructPath(_mTarget);
+      // Collections.reverse(_pathOfNodeIds);
+      return SearchStatus.FOUND;
+    }
+
+    // Add the index of the current node to the closed list
+    // NOTE: Only the index for the node needs to be stored since it can be used to get the actual node from the graph
+    _closedSet.add(currentNodeIndex);
+    _mNumExpandedNodes++;
+    
+    // These methods make custom additions to the nodes and edges if required by the users application.
+    updateNodeWhenAddedToClosedList(currentNodeIndex);
+
+    // TODO: Get the neighbors of the current node
+    GraphEdgeIterator edgeIterator = new GraphEdgeIterator(_mGraph, currentNodeIndex);
+    while (edgeIterator.hasNext())
+    {
+      IEdge edgeToCurrentNeighbor = (IEdge) edgeIterator.next();
+      int currentNeighborIndex = edgeToCurrentNeighbor.getDestination();
       
-      // These methods make custom additions to the nodes and edges if required by the users application.
-      updateNodeWhenAddedToClosedList(currentNodeIndex);
+      // NOTE: The edge cost was already computed when the graph was made. This works in this case since the neighbors are adjacent.
+      double tentativeGScore = _mGCosts.get(currentNodeIndex) + edgeToCurrentNeighbor.getCost();
 
-      // TODO: Get the neighbors of the current node
-      GraphEdgeIterator edgeIterator = new GraphEdgeIterator(_mGraph, currentNodeIndex);
-      while (edgeIterator.hasNext())
+      if (_closedSet.contains(currentNeighborIndex))
       {
-        IEdge edgeToCurrentNeighbor = (IEdge) edgeIterator.next();
-        int currentNeighborIndex = edgeToCurrentNeighbor.getDestination();
-        
-        // NOTE: The edge cost was already computed when the graph was made. This works in this case since the neighbors are adjacent.
-        double tentativeGScore = _mGCosts.get(currentNodeIndex) + edgeToCurrentNeighbor.getCost();
-
-        if (_closedSet.contains(currentNeighborIndex))
+        if (tentativeGScore >= _mGCosts.get(currentNeighborIndex))
         {
-          if (tentativeGScore >= _mGCosts.get(currentNeighborIndex))
-          {
-            // GAME STATE TRANSITION: Neighbor exists in closed set and tentative GCost is not less than current GCost of neighbor.
-            // REPORT TO USER: Skipping Node since no cheaper costs exists to the target through this node.
-            // ANIMATION: Highlight Neighbor and display test message that this node will be skipped b/c no cheaper path exists
-            //            between start and this node at the moment.
-            // USER ACTION: Pause execution until user chooses to continue.
-            // POST ACTION: Remove node highlight and restore node to previous color
-            continue;
-          }
+          // GAME STATE TRANSITION: Neighbor exists in closed set and tentative GCost is not less than current GCost of neighbor.
+          // REPORT TO USER: Skipping Node since no cheaper costs exists to the target through this node.
+          // ANIMATION: Highlight Neighbor and display test message that this node will be skipped b/c no cheaper path exists
+          //            between start and this node at the moment.
+          // USER ACTION: Pause execution until user chooses to continue.
+          // POST ACTION: Remove node highlight and restore node to previous color
+          continue;
         }
+      }
+
+      // NOTE: A heuristic is infinite for a node the target can not be reached from (see IHeuristic), so the node is skipped
+      if ((_mHeuristic != null) && (heuristic(currentNeighborIndex) == Double.POSITIVE_INFINITY))
+      {
+        continue;
+      }
 
-        // Check if current current neighbor index already exists in open list
-        // NOTE: Java has "short circuit" evaluation, that is, in the case below if the first condition is true it does not evaluate 
-        //       the rest of the condition. Given the condition below, there exists a potential for a NullPointerException. If the 
-        //       first condition does not evaluate to true, the second condition will throw a null pointer exception if the
-        //       key currentNeighborIndex does not exist in the _mGCosts Hash Map since tentativeGScore < null does not make sense.        
-        if ((!_openSet.contains(currentNeighborIndex)) || (tentativeGScore < _mGCosts.get(currentNeighborIndex)))
+      // Check if current current neighbor index already exists in open list
+      // NOTE: Java has "short circuit" evaluation, that is, in the case below if the first condition is true it does not evaluate 
+      //       the rest of the condition. Given the condition below, there exists a potential for a NullPointerException. If the 
+      //       first condition does not evaluate to true, the second condition will throw a null pointer exception if the
+      //       key currentNeighborIndex does not exist in the _mGCosts Hash Map since tentativeGScore < null does not make sense.        
+      if ((!_openSet.contains(currentNeighborIndex)) || (tentativeGScore < _mGCosts.get(currentNeighborIndex)))
+      {
+        // GAME STATE TRANSITION: Neighbor does not exist in the open list
+        // REPORT TO USER: The neighbor (with index) does not exist in the open list.
+        // ANIMATION: This node will be highlighted and the message will be displayed that this node does not exist in the open list.
+        // USER ACTION: Have user proceed to the next step by pressing desired key.
+        // REPORT TO USER: The node will be added to the open list
+        // ANIMATION: This node will be changed from its non-open list membership status color to its open list membership status color 
+        //            and the message will be displayed that this node was added to the open list.
+        // USER ACTION: Have user proceed to the next step by pressing desired key.
+        // REPORT TO USER: The node's G and F score will be updated with the new value.
+        // ANIMATION: Show the old G and F value.
+        // USER ACTION: Have the user press the desired key to update the G and F score values.
+        // ANIMATION: Show the G and F entries for this node being updated with the new values.
+        //
+        // OR
+        //
+        // GAME STATE TRANSITION: The current tentative G score from start through this neighbor node is less than its previously 
+        //                        recorded G score value in the G List.
+        // REPORT TO USER: The tentative G Score value for neighbor node (with index) is less than its previous recorded value.  
+        // ANIMATION: Highlight neighbor and display text message that the new G and F score of this node will update b/c a cheaper path exists from start to this node
+        // USER ACTION: Have the user press the desired key to update the G and F score values.
+        // REPORT TO USER: The node's G and F score will be updated with the new value.
+        // ANIMATION: Show the old G and F value.
+        // USER ACTION: Have the user press the desired key to update the G and F score values.
+        // ANIMATION: Show the G and F entries for this node being updated with the new values.
+        //
+        _cameFrom.put(currentNeighborIndex, currentNodeIndex);
+        _mGCosts.put(currentNeighborIndex, tentativeGScore);
+        _mFCosts.put(currentNeighborIndex, _mGCosts.get(currentNeighborIndex) + heuristic(currentNeighborIndex));
+
+        if (!_openSet.contains(currentNeighborIndex))
         {
-          // GAME STATE TRANSITION: Neighbor does not exist in the open list
-          // REPORT TO USER: The neighbor (with index) does not exist in the open list.
-          // ANIMATION: This node will be highlighted and the message will be displayed that this node does not exist in the open list.
-          // USER ACTION: Have user proceed to the next step by pressing desired key.
-          // REPORT TO USER: The node will be added to the open list
-          // ANIMATION: This node will be changed from its non-open list membership status color to its open list membership status color 
-          //            and the message will be displayed that this node was added to the open list.
-          // USER ACTION: Have user proceed to the next step by pressing desired key.
-          // REPORT TO USER: The node's G and F score will be updated with the new value.
-          // ANIMATION: Show the old G and F value.
-          // USER ACTION: Have the user press the desired key to update the G and F score values.
-          // ANIMATION: Show the G and F entries for this node being updated with the new values.
-          //
-          // OR
-          //
-          // GAME STATE TRANSITION: The current tentative G score from start through this neighbor node is less than its previously 
-          //                        recorded G score value in the G List.
-          // REPORT TO USER: The tentative G Score value for neighbor node (with index) is less than its previous recorded value.  
-          // ANIMATION: Highlight neighbor and display text message that the new G and F score of this node will update b/c a cheaper path exists from start to this node
-          // USER ACTION: Have the user press the desired key to update the G and F score values.
-          // REPORT TO USER: The node's G and F score will be updated with the new value.
-          // ANIMATION: Show the old G and F value.
-          // USER ACTION: Have the user press the desired key to update the G and F score values.
-          // ANIMATION: Show the G and F entries for this node being updated with the new values.
-          //
-          _cameFrom.put(currentNeighborIndex, currentNodeIndex);
-          _mGCosts.put(currentNeighborIndex, tentativeGScore);
-          _mFCosts.put(currentNeighborIndex, _mGCosts.get(currentNeighborIndex) + _mGraph.getNode(currentNeighborIndex).positionGet().distance(_mGraph.getNode(_mTarget).positionGet()));
-
-          if (!_openSet.contains(currentNeighborIndex))
-          {
-            _openSet.add(currentNeighborIndex, _mFCosts.get(currentNeighborIndex));
-            
-            // These methods make custom additions to the nodes and edges if required by the users application.
-            updateNodeWhenAddedToOpenList(currentNeighborIndex);
-            updateEdgeOfNodeWhenAddedToOpenList(edgeToCurrentNeighbor.getSource(), currentNeighborIndex);
-          }
+          _openSet.add(currentNeighborIndex, _mFCosts.get(currentNeighborIndex));
+          
+          // These methods make custom additions to the nodes and edges if required by the users application.
+          updateNodeWhenAddedToOpenList(currentNeighborIndex);
+          updateEdgeOfNodeWhenAddedToOpenList(edgeToCurrentNeighbor.getSource(), currentNeighborIndex);
         }
-        // ELSE: Report to the user that the node already exists in the open list and that the score from start through 
-        //       this node will not be cheaper, hence it will be ignored for now. 
       }
+      // ELSE: Report to the user that the node already exists in the open list and that the score from start through 
+      //       this node will not be cheaper, hence it will be ignored for now. 
     }
+
+    return SearchStatus.IN_PROGRESS;
+  }
+
+  private double heuristic(int nodeIndex)
+  {
+    if (_mHeuristic != null)
+    {
+      return _mHeuristic.estimateCost(nodeIndex, _mTarget);
+    }
+
+    return _mGraph.getNode(nodeIndex).positionGet().distance(_mGraph.getNode(_mTarget).positionGet());
   }
 
   private void updateNodeWhenAddedToOpenList(int nodeIndex)
@@ -245,58 +339,6 @@ public class AStar
     _mGraph.getEdge(nodeSource, nodeDestination).update(TYPE_ASTAR_EDGE, ACTION_COLOR_EDGE_OF_SEARCHED_NODES);
   }
   
-//  private boolean step()
-//  {
-//    Tuple<Integer, Double> nextLowestNodeFScorePair = _openSet.remove();
-//    int currentNodeIndex = nextLowestNodeFScorePair.getFirst();
-//
-//    // If current node index with next lowest F score is the same as the target index, a path was found.
-//    if (currentNodeIndex == _mTarget)
-//    {
-//      // TODO: Call method that will reconstruct path
-//      _pathOfNodeIds.clear();
-//      reconstructPath(_mTarget);
-//      // Collections.reverse(_pathOfNodeIds);
-//      break;
-//    }
-//
-//    // Add the index of the current node to the closed list
-//    // NOTE: Only the index for the node needs to be stored since it can be used to get the actual node from the graph
-//    _closedSet.add(currentNodeIndex);
-//
-//    // TODO: Get the neighbors of the current node
-//    GraphEdgeIterator edgeIterator = new GraphEdgeIterator(_mGraph, currentNodeIndex);
-//    while (edgeIterator.hasNext())
-//    {
-//      IEdge edgeToCurrentNeighbor = (IEdge) edgeIterator.next();
-//      int currentNeighborIndex = edgeToCurrentNeighbor.getDestination();
-//
-//      // NOTE: The edge cost was already computed when the graph was made. This works in this case since the neighbors are adjacent.
-//      double tentativeGScore = _mGCosts.get(currentNodeIndex) + edgeToCurrentNeighbor.getCost();
-//
-//      if (_closedSet.contains(currentNeighborIndex))
-//      {
-//        if (tentativeGScore >= _mGCosts.get(currentNeighborIndex))
-//        {
-//          continue;
-//        }
-//      }
-//
-//      // Check if current current neighbor index already exists in open list
-//      if ((!_openSet.contains(currentNeighborIndex)) || (tentativeGScore < _mGCosts.get(currentNeighborIndex)))
-//      {
-//        _cameFrom.put(currentNeighborIndex, currentNodeIndex);
-//        _mGCosts.put(currentNeighborIndex, tentativeGScore);
-//        _mFCosts.put(currentNeighborIndex, _mGCosts.get(currentNeighborIndex) + _mGraph.getNode(currentNeighborIndex).positionGet().distance(_mGraph.getNode(_mTarget).positionGet()));
-//
-//        if (!_openSet.contains(currentNeighborIndex))
-//        {
-//          _openSet.add(currentNeighborIndex, _mFCosts.get(currentNeighborIndex));
-//        }
-//      }
-//    }
-//  }
-  
   // private void displayCameFromList()
   // {
   // for (Map.Entry entry : _cameFrom.entrySet())
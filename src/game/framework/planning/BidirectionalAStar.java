@@ -0,0 +1,396 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IHeuristic;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * A bidirectional A* search, which searches forward from the source and backward from the target at the same time until the two
+ * searches meet. In long corridors and mazes a single A* search spreads over a wide frontier as it gets further from the source,
+ * while two searches that each cover half of the distance usually expand far fewer nodes.
+ *
+ * Both searches use the same node indices, so the nodes reached by both are found by looking up the other search's arrays. The
+ * cheapest path seen through any node reached by both searches is kept, and the search stops once no node left in either open
+ * list can lead to a cheaper one.
+ *
+ * To make that stopping rule correct, both searches use the same (balanced) heuristic: the forward search adds p(n) and the
+ * backward search adds -p(n) to the cost of a node, with p(n) = (h(n, target) - h(n, source)) / 2, where h is the straight line
+ * distance or the IHeuristic given to the constructor. The cost of any path through a node is then the sum of its forward and backward keys, so once the lowest keys of the
+ * two open lists add up to at least the cost of the best path found, no cheaper path can exist and that path is returned.
+ *
+ * NOTE: The backward search follows the edges leaving each node, so the graph must be undirected (every edge has an opposite edge
+ *       with the same cost), as in a GraphUndirected. One instance can be used for any number of searches on the same graph, but
+ *       only by one thread at a time.
+ */
+public class BidirectionalAStar
+{
+  private IIndexedGraph _mGraph;
+  private IHeuristic    _mHeuristic;
+  private int           _mSource, _mTarget;
+
+  private Frontier      _mForward;
+  private Frontier      _mBackward;
+
+  private double        _mSourceX, _mSourceY;
+  private double        _mTargetX, _mTargetY;
+
+  // The cheapest path found so far goes through the meeting node
+  private double        _mBestPathCost;
+  private int           _mMeetingNode;
+
+  private int[]         _mNeighborIndices = new int[8];
+  private double[]      _mEdgeCosts       = new double[8];
+
+  // The path found by the last search
+  private int[]         _mPath            = new int[16];
+  private int           _mPathLength;
+  private int           _mNumExpandedNodes;
+
+  public BidirectionalAStar(IIndexedGraph graph)
+  {
+    this(graph, null);
+  }
+
+  /*
+   * Search with a heuristic other than the straight line distance, or the straight line distance if the heuristic is null
+   */
+  public BidirectionalAStar(IIndexedGraph graph, IHeuristic heuristic)
+  {
+    _mGraph = graph;
+    _mHeuristic = heuristic;
+    _mForward = new Frontier(graph.getNodeCapacity());
+    _mBackward = new Frontier(graph.getNodeCapacity());
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  /*
+   * Search for the cheapest path from the source node to the target node. Returns true if a path was found.
+   */
+  public boolean Search(int source, int target)
+  {
+    int nodeCapacity = _mGraph.getNodeCapacity();
+    _mForward.reset(nodeCapacity);
+    _mBackward.reset(nodeCapacity);
+
+    _mBestPathCost = Double.POSITIVE_INFINITY;
+    _mMeetingNode = -1;
+    _mPathLength = 0;
+    _mNumExpandedNodes = 0;
+
+    if (!_mGraph.isNodePresent(source) || !_mGraph.isNodePresent(target))
+    {
+      return false;
+    }
+
+    // The target can not be reached if the heuristic of the source is infinite
+    if ((_mHeuristic != null) && (_mHeuristic.estimateCost(source, target) == Double.POSITIVE_INFINITY))
+    {
+      return false;
+    }
+
+    _mSource = source;
+    _mTarget = target;
+    _mSourceX = _mGraph.getNodeX(source);
+    _mSourceY = _mGraph.getNodeY(source);
+    _mTargetX = _mGraph.getNodeX(target);
+    _mTargetY = _mGraph.getNodeY(target);
+
+    double sourcePotential = potential(source);
+    double targetPotential = potential(target);
+
+    _mForward.visit(source, 0.0, -1);
+    _mForward.openSet.add(source, sourcePotential);
+    _mBackward.visit(target, 0.0, -1);
+    _mBackward.openSet.add(target, -targetPotential);
+    updateBestPath(source);
+
+    while (!_mForward.openSet.isEmpty() && !_mBackward.openSet.isEmpty())
+    {
+      // Stop once no node in either open list can be on a path cheaper than the best one found
+      if (_mForward.openSet.peekKey() + _mBackward.openSet.peekKey() >= _mBestPathCost)
+      {
+        break;
+      }
+
+      // Expand the side with the smaller open list, which keeps the two frontiers about the same size
+      if (_mForward.openSet.size() <= _mBackward.openSet.size())
+      {
+        expand(_mForward, _mBackward, 1.0);
+      }
+      else
+      {
+        expand(_mBackward, _mForward, -1.0);
+      }
+    }
+
+    if (_mMeetingNode == -1)
+    {
+      return false;
+    }
+
+    copyPath();
+
+    return true;
+  }
+
+  /*
+   * Results of the last search
+   */
+  public int getPathLength()
+  {
+    return _mPathLength;
+  }
+
+  // The node indices of the path from the source to the target. Only the first getPathLength() entries are valid.
+  public int[] getPath()
+  {
+    return _mPath;
+  }
+
+  // The total edge cost of the path, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mBestPathCost;
+  }
+
+  // The total number of nodes expanded by both searches
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  // The node where the forward and backward halves of the path meet, or -1 if no path was found
+  public int getMeetingNode()
+  {
+    return _mMeetingNode;
+  }
+
+  public ArrayList<Integer> getPathAsListOfNodeIds()
+  {
+    ArrayList<Integer> pathOfNodeIds = new ArrayList<Integer>(_mPathLength);
+
+    for (int i = 0; i < _mPathLength; i++)
+    {
+      pathOfNodeIds.add(_mPath[i]);
+    }
+
+    return pathOfNodeIds;
+  }
+
+  /*
+   * Expand the node with the lowest key of one side. The sign is 1 for the forward search and -1 for the backward search.
+   */
+  private void expand(Frontier frontier, Frontier otherFrontier, double potentialSign)
+  {
+    int currentNodeIndex = frontier.openSet.remove();
+    frontier.closed[currentNodeIndex] = true;
+    _mNumExpandedNodes++;
+
+    double currentGCost = frontier.gCosts[currentNodeIndex];
+    int numNeighbors = readNeighbors(currentNodeIndex);
+
+    for (int i = 0; i < numNeighbors; i++)
+    {
+      int neighborIndex = _mNeighborIndices[i];
+      double tentativeGScore = currentGCost + _mEdgeCosts[i];
+
+      if (frontier.isVisited(neighborIndex))
+      {
+        // The neighbor has been reached before, skip it unless this path to it is cheaper
+        if (tentativeGScore >= frontier.gCosts[neighborIndex])
+        {
+          continue;
+        }
+
+        double key = tentativeGScore + potentialSign * potential(neighborIndex);
+        frontier.gCosts[neighborIndex] = tentativeGScore;
+        frontier.parents[neighborIndex] = currentNodeIndex;
+
+        if (frontier.closed[neighborIndex])
+        {
+          // NOTE: This only happens when the heuristic is not quite consistent (e.g., edge costs rounded to float), the same
+          //       as IndexedAStar, the node is opened again so the cheaper path is not lost
+          frontier.closed[neighborIndex] = false;
+          frontier.openSet.add(neighborIndex, key);
+        }
+        else
+        {
+          frontier.openSet.decreaseKey(neighborIndex, key);
+        }
+      }
+      else
+      {
+        frontier.visit(neighborIndex, tentativeGScore, currentNodeIndex);
+        frontier.openSet.add(neighborIndex, tentativeGScore + potentialSign * potential(neighborIndex));
+      }
+
+      if (otherFrontier.isVisited(neighborIndex))
+      {
+        updateBestPath(neighborIndex);
+      }
+    }
+  }
+
+  /*
+   * Keep the path through the node if it is cheaper than the best one found. The node must have been reached by both searches.
+   */
+  private void updateBestPath(int nodeIndex)
+  {
+    if (!_mForward.isVisited(nodeIndex) || !_mBackward.isVisited(nodeIndex))
+    {
+      return;
+    }
+
+    double pathCost = _mForward.gCosts[nodeIndex] + _mBackward.gCosts[nodeIndex];
+
+    if (pathCost < _mBestPathCost)
+    {
+      _mBestPathCost = pathCost;
+      _mMeetingNode = nodeIndex;
+    }
+  }
+
+  /*
+   * Join the forward path from the source to the meeting node and the backward path from the meeting node to the target
+   */
+  private void copyPath()
+  {
+    int length = 0;
+    for (int nodeIndex = _mMeetingNode; nodeIndex != -1; nodeIndex = _mForward.parents[nodeIndex])
+    {
+      length++;
+    }
+    for (int nodeIndex = _mBackward.parents[_mMeetingNode]; nodeIndex != -1; nodeIndex = _mBackward.parents[nodeIndex])
+    {
+      length++;
+    }
+
+    if (length > _mPath.length)
+    {
+      _mPath = new int[Math.max(length, _mPath.length * 2)];
+    }
+
+    int position = 0;
+    for (int nodeIndex = _mMeetingNode; nodeIndex != -1; nodeIndex = _mForward.parents[nodeIndex])
+    {
+      _mPath[position++] = nodeIndex;
+    }
+
+    // The forward half was copied from the meeting node back to the source, so reverse it
+    for (int i = 0, j = position - 1; i < j; i++, j--)
+    {
+      int swap = _mPath[i];
+      _mPath[i] = _mPath[j];
+      _mPath[j] = swap;
+    }
+
+    for (int nodeIndex = _mBackward.parents[_mMeetingNode]; nodeIndex != -1; nodeIndex = _mBackward.parents[nodeIndex])
+    {
+      _mPath[position++] = nodeIndex;
+    }
+
+    _mPathLength = length;
+  }
+
+  /*
+   * The balanced heuristic of the node, added to the keys of the forward search and subtracted from the keys of the backward search
+   */
+  private double potential(int nodeIndex)
+  {
+    if (_mHeuristic != null)
+    {
+      return 0.5 * (_mHeuristic.estimateCost(nodeIndex, _mTarget) - _mHeuristic.estimateCost(nodeIndex, _mSource));
+    }
+
+    double x = _mGraph.getNodeX(nodeIndex);
+    double y = _mGraph.getNodeY(nodeIndex);
+    double toTarget = Math.sqrt((x - _mTargetX) * (x - _mTargetX) + (y - _mTargetY) * (y - _mTargetY));
+    double toSource = Math.sqrt((x - _mSourceX) * (x - _mSourceX) + (y - _mSourceY) * (y - _mSourceY));
+
+    return 0.5 * (toTarget - toSource);
+  }
+
+  /*
+   * Read the neighbors of the node into the neighbor buffers, growing them if needed. Returns the number of neighbors.
+   */
+  private int readNeighbors(int nodeIndex)
+  {
+    int numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+
+    if (numNeighbors > _mNeighborIndices.length)
+    {
+      _mNeighborIndices = new int[numNeighbors];
+      _mEdgeCosts = new double[numNeighbors];
+      numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+    }
+
+    return numNeighbors;
+  }
+
+  /*
+   * The per node data and open list of one of the two searches. As in PathSearchContext, the data of a node is only valid if the
+   * node was stamped with the current generation, so starting a new search is O(1).
+   */
+  private static class Frontier
+  {
+    double[]       gCosts;
+    int[]          parents;
+    int[]          stamps;
+    boolean[]      closed;
+    int            generation;
+    IndexedMinHeap openSet;
+
+    Frontier(int capacity)
+    {
+      capacity = Math.max(1, capacity);
+      gCosts = new double[capacity];
+      parents = new int[capacity];
+      stamps = new int[capacity];
+      closed = new boolean[capacity];
+      openSet = new IndexedMinHeap(capacity);
+    }
+
+    void reset(int nodeCapacity)
+    {
+      if (nodeCapacity > stamps.length)
+      {
+        gCosts = Arrays.copyOf(gCosts, nodeCapacity);
+        parents = Arrays.copyOf(parents, nodeCapacity);
+        stamps = Arrays.copyOf(stamps, nodeCapacity);
+        closed = Arrays.copyOf(closed, nodeCapacity);
+        openSet.ensureCapacity(nodeCapacity);
+      }
+
+      generation++;
+
+      // If the generation ever wraps around, clear the stamps so a stamp from an old search can not match the new generation
+      if (generation == 0)
+      {
+        Arrays.fill(stamps, 0);
+        generation = 1;
+      }
+
+      openSet.clear();
+    }
+
+    boolean isVisited(int nodeIndex)
+    {
+      return stamps[nodeIndex] == generation;
+    }
+
+    void visit(int nodeIndex, double gCost, int parent)
+    {
+      stamps[nodeIndex] = generation;
+      gCosts[nodeIndex] = gCost;
+      parents[nodeIndex] = parent;
+      closed[nodeIndex] = false;
+    }
+  }
+}
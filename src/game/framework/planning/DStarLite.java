@@ -0,0 +1,645 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IGraphChangeListener;
+
+import java.util.Arrays;
+
+/*
+ * D* Lite (Koenig and Likhachev) incremental path planning for an agent moving to a fixed goal on a graph that changes.
+ *
+ * The search runs backwards from the goal to the agent and keeps its costs between plans. When edges change (doors closing,
+ * walls being destroyed, etc.) only the nodes whose cost to the goal is affected by the change are searched again, and when the
+ * agent moves, the search tree is reused as it is, rather than starting a new A* search every time.
+ *
+ * The planner registers itself as a change listener of the graph, so it is told about every change without checking the graph.
+ * The changes are only recorded when they happen and are repaired by the next call to plan(). A typical agent calls plan() once,
+ * then each time it reaches a node calls setStart() with the node and plan() again, and moves to getNextNode().
+ *
+ * Each node has two costs to the goal: G, the cost found so far, and RHS, the cost through the best neighbor (one step ahead of
+ * G). A node whose two costs differ is inconsistent and is put in the open list with a key of two numbers, which are compared in
+ * order. The search stops once the start node is consistent and no node in the open list can lower its cost.
+ *
+ * NOTE: The graph must be undirected (every edge has an opposite edge with the same cost), since the backward search moves along
+ *       edges in the opposite direction. The heuristic is the straight line distance between the node positions, the same as AStar.
+ *       Call detach() when the planner is no longer needed so the graph stops notifying it.
+ */
+public class DStarLite implements IGraphChangeListener
+{
+  // NOTE: Edge costs are often distances rounded to float (see Position2D.distance()), which can be a little shorter than the
+  //       straight line distance in double. The search relies on ties between keys, so the heuristic is scaled down enough to
+  //       never be more than an edge cost.
+  private static final double HEURISTIC_SCALE = 1.0 - 1e-6;
+
+  private Graph    _mGraph;
+  private int      _mStart;
+  private int      _mGoal;
+
+  // The start node when the keys were last computed and the total distance the start has moved since the search began
+  private int      _mLastStart;
+  private double   _mKeyModifier;
+
+  // The costs of each node (infinity for nodes that have not been reached)
+  private double[] _mGCosts   = new double[0];
+  private double[] _mRHSCosts = new double[0];
+
+  private KeyHeap  _mOpenSet  = new KeyHeap(1);
+
+  // Nodes whose edges changed since the last plan, their RHS costs are computed again by the next plan
+  private int[]    _mChangedNodes = new int[16];
+  private int      _mNumChangedNodes;
+
+  // Two sets of neighbor buffers, since the neighbors of a neighbor are read while walking the neighbors of a node
+  private int[]    _mNeighborIndices       = new int[8];
+  private double[] _mEdgeCosts             = new double[8];
+  private int[]    _mInnerNeighborIndices  = new int[8];
+  private double[] _mInnerEdgeCosts        = new double[8];
+
+  private int      _mNumExpandedNodes;
+
+  public DStarLite(Graph graph, int start, int goal)
+  {
+    _mGraph = graph;
+    _mStart = start;
+    _mGoal = goal;
+
+    _mGraph.addChangeListener(this);
+    initialize();
+  }
+
+  /*
+   * Stop listening to the changes of the graph
+   */
+  public void detach()
+  {
+    _mGraph.removeChangeListener(this);
+  }
+
+  public Graph getGraph()
+  {
+    return _mGraph;
+  }
+
+  public int getStart()
+  {
+    return _mStart;
+  }
+
+  public int getGoal()
+  {
+    return _mGoal;
+  }
+
+  /*
+   * Move the agent to a new node. The search is not changed until the next plan().
+   */
+  public void setStart(int start)
+  {
+    _mStart = start;
+  }
+
+  /*
+   * Change the goal. Since the search runs from the goal, this starts a new search.
+   */
+  public void setGoal(int goal)
+  {
+    _mGoal = goal;
+    initialize();
+  }
+
+  /*
+   * Repair the search after the changes of the graph and the moves of the start since the last plan. Returns true if the goal can
+   * be reached from the start.
+   */
+  public boolean plan()
+  {
+    _mNumExpandedNodes = 0;
+    ensureCapacity(_mGraph.getNodeCapacity());
+
+    // NOTE: The changes recorded since the last plan are kept, they are applied by the first plan with a start and goal present
+    if (!_mGraph.isNodePresent(_mStart) || !_mGraph.isNodePresent(_mGoal))
+    {
+      return false;
+    }
+
+    // The search was never started from the goal (the start or goal was missing) or the goal was removed and added back since
+    if (_mRHSCosts[_mGoal] != 0.0)
+    {
+      initialize();
+    }
+
+    // The keys in the open list were computed with the heuristic to the old start. Adding the distance the start moved keeps
+    // every new key comparable with them without going through the open list.
+    if (_mStart != _mLastStart)
+    {
+      if (_mGraph.isNodePresent(_mLastStart))
+      {
+        _mKeyModifier += heuristic(_mLastStart, _mStart);
+      }
+      _mLastStart = _mStart;
+    }
+
+    for (int i = 0; i < _mNumChangedNodes; i++)
+    {
+      int nodeIndex = _mChangedNodes[i];
+
+      if (nodeIndex != _mGoal)
+      {
+        _mRHSCosts[nodeIndex] = bestNeighborCost(nodeIndex);
+      }
+
+      updateNode(nodeIndex);
+    }
+    _mNumChangedNodes = 0;
+
+    computeShortestPath();
+
+    return _mRHSCosts[_mStart] != Double.POSITIVE_INFINITY;
+  }
+
+  /*
+   * The node to move to from the start, or -1 if the start is the goal or can not reach it. Only valid after plan().
+   */
+  public int getNextNode()
+  {
+    if ((_mStart == _mGoal) || (rhsCost(_mStart) == Double.POSITIVE_INFINITY))
+    {
+      return -1;
+    }
+
+    int nextNode = -1;
+    double nextCost = Double.POSITIVE_INFINITY;
+    int numNeighbors = readNeighbors(_mStart, false);
+
+    for (int i = 0; i < numNeighbors; i++)
+    {
+      double cost = _mEdgeCosts[i] + gCost(_mNeighborIndices[i]);
+
+      if (cost < nextCost)
+      {
+        nextCost = cost;
+        nextNode = _mNeighborIndices[i];
+      }
+    }
+
+    return nextNode;
+  }
+
+  /*
+   * Follow the best neighbors from the start to the goal and copy the nodes (start first) into the path array. Returns the number of
+   * nodes in the path or -1 if there is no path. Only the first pathOut.length nodes are copied if the array is too small.
+   */
+  public int getPath(int[] pathOut)
+  {
+    if (rhsCost(_mStart) == Double.POSITIVE_INFINITY)
+    {
+      return -1;
+    }
+
+    int savedStart = _mStart;
+    int length = 0;
+
+    // NOTE: The costs strictly decrease along the path, but a limit guards against a loop of zero cost edges
+    for (int nodeIndex = _mStart; (nodeIndex != -1) && (length <= _mGCosts.length); nodeIndex = getNextNode())
+    {
+      if (length < pathOut.length)
+      {
+        pathOut[length] = nodeIndex;
+      }
+
+      length++;
+      _mStart = nodeIndex;
+    }
+
+    _mStart = savedStart;
+
+    return length;
+  }
+
+  // The cost of the cheapest path from the start to the goal, or infinity if there is none. Only valid after plan().
+  public double getPathCost()
+  {
+    return rhsCost(_mStart);
+  }
+
+  // The number of nodes expanded by the last plan
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  /*
+   * IGraphChangeListener methods. The cost of reaching the goal through the changed edge only matters to the node the edge leaves,
+   * so that node is recorded and its RHS cost is computed again by the next plan.
+   */
+  @Override
+  public void edgeChanged(int from, int to)
+  {
+    addChangedNode(from);
+  }
+
+  @Override
+  public void nodeChanged(int nodeIndex)
+  {
+    addChangedNode(nodeIndex);
+  }
+
+  /*
+   * Start a new search from the goal
+   */
+  private void initialize()
+  {
+    ensureCapacity(_mGraph.getNodeCapacity());
+
+    Arrays.fill(_mGCosts, Double.POSITIVE_INFINITY);
+    Arrays.fill(_mRHSCosts, Double.POSITIVE_INFINITY);
+    _mOpenSet.clear();
+    _mNumChangedNodes = 0;
+    _mKeyModifier = 0.0;
+    _mLastStart = _mStart;
+
+    if (_mGraph.isNodePresent(_mGoal) && _mGraph.isNodePresent(_mStart))
+    {
+      _mRHSCosts[_mGoal] = 0.0;
+      _mOpenSet.add(_mGoal, heuristic(_mStart, _mGoal), 0.0);
+    }
+  }
+
+  private void computeShortestPath()
+  {
+    while (!_mOpenSet.isEmpty())
+    {
+      double startKey2 = Math.min(_mGCosts[_mStart], _mRHSCosts[_mStart]);
+      double startKey1 = startKey2 + _mKeyModifier;
+
+      // NOTE: The start may be left with a G cost higher than its RHS cost, the RHS cost is already the cost of the cheapest path
+      if (!KeyHeap.isLess(_mOpenSet.peekKey1(), _mOpenSet.peekKey2(), startKey1, startKey2) && (_mRHSCosts[_mStart] <= _mGCosts[_mStart]))
+      {
+        break;
+      }
+
+      double oldKey1 = _mOpenSet.peekKey1();
+      double oldKey2 = _mOpenSet.peekKey2();
+      int nodeIndex = _mOpenSet.peek();
+      double newKey2 = Math.min(_mGCosts[nodeIndex], _mRHSCosts[nodeIndex]);
+      double newKey1 = newKey2 + heuristic(_mStart, nodeIndex) + _mKeyModifier;
+
+      _mNumExpandedNodes++;
+
+      if (KeyHeap.isLess(oldKey1, oldKey2, newKey1, newKey2))
+      {
+        // The key is out of date because the start moved, put the node back with its new key
+        _mOpenSet.update(nodeIndex, newKey1, newKey2);
+      }
+      else if (_mGCosts[nodeIndex] > _mRHSCosts[nodeIndex])
+      {
+        // The cost of the node went down, pass the lower cost on to its neighbors
+        _mGCosts[nodeIndex] = _mRHSCosts[nodeIndex];
+        _mOpenSet.remove(nodeIndex);
+
+        int numNeighbors = readNeighbors(nodeIndex, false);
+        for (int i = 0; i < numNeighbors; i++)
+        {
+          int neighborIndex = _mNeighborIndices[i];
+
+          if (neighborIndex != _mGoal)
+          {
+            _mRHSCosts[neighborIndex] = Math.min(_mRHSCosts[neighborIndex], _mEdgeCosts[i] + _mGCosts[nodeIndex]);
+          }
+
+          updateNode(neighborIndex);
+        }
+      }
+      else
+      {
+        // The cost of the node went up, so the node and every neighbor that used it as its best neighbor need new RHS costs
+        double oldGCost = _mGCosts[nodeIndex];
+        _mGCosts[nodeIndex] = Double.POSITIVE_INFINITY;
+
+        int numNeighbors = readNeighbors(nodeIndex, false);
+        for (int i = 0; i < numNeighbors; i++)
+        {
+          int neighborIndex = _mNeighborIndices[i];
+
+          if ((neighborIndex != _mGoal) && (_mRHSCosts[neighborIndex] == _mEdgeCosts[i] + oldGCost))
+          {
+            _mRHSCosts[neighborIndex] = bestNeighborCost(neighborIndex);
+          }
+
+          updateNode(neighborIndex);
+        }
+
+        if (nodeIndex != _mGoal)
+        {
+          _mRHSCosts[nodeIndex] = bestNeighborCost(nodeIndex);
+        }
+
+        updateNode(nodeIndex);
+      }
+    }
+  }
+
+  /*
+   * Put the node in the open list if it is inconsistent, otherwise take it out
+   */
+  private void updateNode(int nodeIndex)
+  {
+    if (!_mGraph.isNodePresent(nodeIndex))
+    {
+      // A removed node can not be reached, its neighbors were told about its removed edges and are updated on their own
+      _mGCosts[nodeIndex] = Double.POSITIVE_INFINITY;
+      _mRHSCosts[nodeIndex] = Double.POSITIVE_INFINITY;
+
+      if (_mOpenSet.contains(nodeIndex))
+      {
+        _mOpenSet.remove(nodeIndex);
+      }
+      return;
+    }
+
+    double gCost = _mGCosts[nodeIndex];
+    double rhsCost = _mRHSCosts[nodeIndex];
+
+    if (gCost != rhsCost)
+    {
+      double key2 = Math.min(gCost, rhsCost);
+      double key1 = key2 + heuristic(_mStart, nodeIndex) + _mKeyModifier;
+
+      if (_mOpenSet.contains(nodeIndex))
+      {
+        _mOpenSet.update(nodeIndex, key1, key2);
+      }
+      else
+      {
+        _mOpenSet.add(nodeIndex, key1, key2);
+      }
+    }
+    else if (_mOpenSet.contains(nodeIndex))
+    {
+      _mOpenSet.remove(nodeIndex);
+    }
+  }
+
+  /*
+   * The lowest cost of reaching the goal through any neighbor of the node, or infinity if the node was removed
+   */
+  private double bestNeighborCost(int nodeIndex)
+  {
+    if (!_mGraph.isNodePresent(nodeIndex))
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    double bestCost = Double.POSITIVE_INFINITY;
+    int numNeighbors = readNeighbors(nodeIndex, true);
+
+    for (int i = 0; i < numNeighbors; i++)
+    {
+      bestCost = Math.min(bestCost, _mInnerEdgeCosts[i] + _mGCosts[_mInnerNeighborIndices[i]]);
+    }
+
+    return bestCost;
+  }
+
+  private double gCost(int nodeIndex)
+  {
+    return ((nodeIndex >= 0) && (nodeIndex < _mGCosts.length)) ? _mGCosts[nodeIndex] : Double.POSITIVE_INFINITY;
+  }
+
+  private double rhsCost(int nodeIndex)
+  {
+    return ((nodeIndex >= 0) && (nodeIndex < _mRHSCosts.length)) ? _mRHSCosts[nodeIndex] : Double.POSITIVE_INFINITY;
+  }
+
+  private double heuristic(int from, int to)
+  {
+    double dx = _mGraph.getNodeX(from) - _mGraph.getNodeX(to);
+    double dy = _mGraph.getNodeY(from) - _mGraph.getNodeY(to);
+
+    return Math.sqrt(dx * dx + dy * dy) * HEURISTIC_SCALE;
+  }
+
+  private void addChangedNode(int nodeIndex)
+  {
+    if (_mNumChangedNodes == _mChangedNodes.length)
+    {
+      _mChangedNodes = Arrays.copyOf(_mChangedNodes, _mChangedNodes.length * 2);
+    }
+
+    _mChangedNodes[_mNumChangedNodes++] = nodeIndex;
+  }
+
+  /*
+   * Read the neighbors of the node into the outer or inner neighbor buffers, growing them if needed. Returns the number of neighbors.
+   */
+  private int readNeighbors(int nodeIndex, boolean inner)
+  {
+    int[] neighborIndices = inner ? _mInnerNeighborIndices : _mNeighborIndices;
+    double[] edgeCosts = inner ? _mInnerEdgeCosts : _mEdgeCosts;
+    int numNeighbors = _mGraph.getNeighbors(nodeIndex, neighborIndices, edgeCosts);
+
+    if (numNeighbors > neighborIndices.length)
+    {
+      neighborIndices = new int[numNeighbors];
+      edgeCosts = new double[numNeighbors];
+      numNeighbors = _mGraph.getNeighbors(nodeIndex, neighborIndices, edgeCosts);
+
+      if (inner)
+      {
+        _mInnerNeighborIndices = neighborIndices;
+        _mInnerEdgeCosts = edgeCosts;
+      }
+      else
+      {
+        _mNeighborIndices = neighborIndices;
+        _mEdgeCosts = edgeCosts;
+      }
+    }
+
+    return numNeighbors;
+  }
+
+  /*
+   * Grow the cost arrays when nodes were added to the graph, the new nodes have not been reached
+   */
+  private void ensureCapacity(int nodeCapacity)
+  {
+    if (nodeCapacity > _mGCosts.length)
+    {
+      int oldCapacity = _mGCosts.length;
+      int capacity = Math.max(nodeCapacity, oldCapacity + (oldCapacity >> 1));
+
+      _mGCosts = Arrays.copyOf(_mGCosts, capacity);
+      _mRHSCosts = Arrays.copyOf(_mRHSCosts, capacity);
+      Arrays.fill(_mGCosts, oldCapacity, capacity, Double.POSITIVE_INFINITY);
+      Arrays.fill(_mRHSCosts, oldCapacity, capacity, Double.POSITIVE_INFINITY);
+
+      _mOpenSet.ensureCapacity(capacity);
+    }
+  }
+
+  /*
+   * An indexed binary min heap of node indices ordered by a key of two numbers compared in order (the second number breaks ties of
+   * the first), which supports changing the key of any node in the heap.
+   */
+  private static class KeyHeap
+  {
+    private int[]    heap;
+    private double[] keys1, keys2;
+    private int[]    positions;
+    private int      size;
+
+    KeyHeap(int capacity)
+    {
+      heap = new int[Math.max(1, capacity)];
+      keys1 = new double[heap.length];
+      keys2 = new double[heap.length];
+      positions = new int[heap.length];
+      Arrays.fill(positions, -1);
+    }
+
+    static boolean isLess(double keyA1, double keyA2, double keyB1, double keyB2)
+    {
+      return (keyA1 < keyB1) || ((keyA1 == keyB1) && (keyA2 < keyB2));
+    }
+
+    void ensureCapacity(int capacity)
+    {
+      if (capacity > heap.length)
+      {
+        int oldCapacity = heap.length;
+
+        heap = Arrays.copyOf(heap, capacity);
+        keys1 = Arrays.copyOf(keys1, capacity);
+        keys2 = Arrays.copyOf(keys2, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldCapacity, capacity, -1);
+      }
+    }
+
+    boolean isEmpty()
+    {
+      return size == 0;
+    }
+
+    void clear()
+    {
+      for (int i = 0; i < size; i++)
+      {
+        positions[heap[i]] = -1;
+      }
+      size = 0;
+    }
+
+    boolean contains(int item)
+    {
+      return positions[item] >= 0;
+    }
+
+    int peek()
+    {
+      return heap[0];
+    }
+
+    double peekKey1()
+    {
+      return keys1[heap[0]];
+    }
+
+    double peekKey2()
+    {
+      return keys2[heap[0]];
+    }
+
+    void add(int item, double key1, double key2)
+    {
+      keys1[item] = key1;
+      keys2[item] = key2;
+      heap[size] = item;
+      positions[item] = size;
+      siftUp(size++);
+    }
+
+    void update(int item, double key1, double key2)
+    {
+      keys1[item] = key1;
+      keys2[item] = key2;
+      siftUp(positions[item]);
+      siftDown(positions[item]);
+    }
+
+    void remove(int item)
+    {
+      int position = positions[item];
+      int lastItem = heap[--size];
+      positions[item] = -1;
+
+      if (position < size)
+      {
+        heap[position] = lastItem;
+        positions[lastItem] = position;
+        siftUp(position);
+        siftDown(positions[lastItem]);
+      }
+    }
+
+    private boolean isLess(int itemA, int itemB)
+    {
+      return isLess(keys1[itemA], keys2[itemA], keys1[itemB], keys2[itemB]);
+    }
+
+    private void siftUp(int position)
+    {
+      int item = heap[position];
+
+      while (position > 0)
+      {
+        int parentPosition = (position - 1) >>> 1;
+        int parentItem = heap[parentPosition];
+
+        if (!isLess(item, parentItem))
+        {
+          break;
+        }
+
+        heap[position] = parentItem;
+        positions[parentItem] = position;
+        position = parentPosition;
+      }
+
+      heap[position] = item;
+      positions[item] = position;
+    }
+
+    private void siftDown(int position)
+    {
+      int item = heap[position];
+
+      while (true)
+      {
+        int childPosition = 2 * position + 1;
+
+        if (childPosition >= size)
+        {
+          break;
+        }
+
+        if ((childPosition + 1 < size) && isLess(heap[childPosition + 1], heap[childPosition]))
+        {
+          childPosition++;
+        }
+
+        if (!isLess(heap[childPosition], item))
+        {
+          break;
+        }
+
+        heap[position] = heap[childPosition];
+        positions[heap[position]] = position;
+        position = childPosition;
+      }
+
+      heap[position] = item;
+      positions[item] = position;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IHeuristic;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+
+/*
+ * The straight line distance between the positions of two nodes, the heuristic used by the searches when none is given. It never
+ * overestimates as long as no edge costs less than the distance between its nodes.
+ */
+public class EuclideanHeuristic implements IHeuristic
+{
+  private IIndexedGraph _mGraph;
+
+  public EuclideanHeuristic(IIndexedGraph graph)
+  {
+    _mGraph = graph;
+  }
+
+  public double estimateCost(int nodeIndex, int targetIndex)
+  {
+    double dx = _mGraph.getNodeX(nodeIndex) - _mGraph.getNodeX(targetIndex);
+    double dy = _mGraph.getNodeY(nodeIndex) - _mGraph.getNodeY(targetIndex);
+
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
@@ -0,0 +1,260 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/*
+ * A flow field (also called a Dijkstra map) for any number of agents moving to the same target.
+ *
+ * Rather than running one A* search per agent, a single Dijkstra search is run outward from the target over the whole graph. It
+ * records, for every node, the cost of the cheapest path to the target (the integration field) and the neighbor to move to next
+ * along that path. Any agent can then look up its next node with getNextNode() in O(1), so the cost of pathfinding per frame stays
+ * the same no matter how many agents follow the field.
+ *
+ * The field can be built all at once with build(), or a little at a time with setTarget() and update(), which is meant for a target
+ * that moves (e.g., the player). The new field is built into a second set of arrays while the agents keep using the current one,
+ * and the two are swapped when the new field is finished. Until then, the agents keep moving to where the target was. When the
+ * target has only moved a short distance d, following the old field and then the last bit of the way costs at most d more than
+ * the new cheapest path, so the agents never head the wrong way for long.
+ *
+ * NOTE: The search runs from the target over the edges leaving each node, so the cost from a node to the target is only right if
+ *       every edge has an opposite edge with the same cost, as in a GraphUndirected (or a graph frozen from one). The field is not
+ *       updated when the graph changes, build it again after changing the graph.
+ */
+public class FlowField
+{
+  private IIndexedGraph  _mGraph;
+
+  // The field used by getNextNode() and getDistance()
+  private double[]       _mDistances       = new double[0];
+  private int[]          _mNextNodes       = new int[0];
+  private int            _mTarget          = -1;
+
+  // The field being built by update(), swapped with the one above when it is finished
+  private double[]       _mBuildDistances  = new double[0];
+  private int[]          _mBuildNextNodes  = new int[0];
+  private int            _mBuildTarget     = -1;
+  private boolean        _mBuilding;
+
+  private IndexedMinHeap _mOpenSet;
+  private int[]          _mNeighborIndices = new int[8];
+  private double[]       _mEdgeCosts       = new double[8];
+
+  private int            _mNumSettledNodes;
+
+  public FlowField(IIndexedGraph graph)
+  {
+    _mGraph = graph;
+    _mOpenSet = new IndexedMinHeap(graph.getNodeCapacity());
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  /*
+   * Build the field for the target right away. Any build started by setTarget() is dropped.
+   */
+  public void build(int target)
+  {
+    startBuild(target);
+    update(Integer.MAX_VALUE);
+  }
+
+  /*
+   * Start building the field for a new target. The field is built by the following calls to update() and is used once it is
+   * finished, until then the field of the previous target is used. Setting the target the field is already built for (or being
+   * built for) does nothing.
+   */
+  public void setTarget(int target)
+  {
+    if ((_mBuilding && (target == _mBuildTarget)) || (!_mBuilding && (target == _mTarget)))
+    {
+      return;
+    }
+
+    startBuild(target);
+  }
+
+  /*
+   * Continue building the field for at most the specified number of nodes (e.g., once per frame). Returns true once the field for
+   * the last target set is finished and in use.
+   */
+  public boolean update(int maxSettledNodes)
+  {
+    if (!_mBuilding)
+    {
+      return true;
+    }
+
+    double[] distances = _mBuildDistances;
+    int[] nextNodes = _mBuildNextNodes;
+    IndexedMinHeap openSet = _mOpenSet;
+
+    for (int numSettledNodes = 0; !openSet.isEmpty(); numSettledNodes++)
+    {
+      if ((numSettledNodes > 0) && (numSettledNodes >= maxSettledNodes))
+      {
+        return false;
+      }
+
+      // The node with the lowest cost in the open list can not be reached any cheaper, so its cost and next node are final
+      int currentNodeIndex = openSet.remove();
+      double currentDistance = distances[currentNodeIndex];
+      _mNumSettledNodes++;
+
+      int numNeighbors = readNeighbors(currentNodeIndex);
+
+      for (int i = 0; i < numNeighbors; i++)
+      {
+        int neighborIndex = _mNeighborIndices[i];
+        double distance = currentDistance + _mEdgeCosts[i];
+
+        if (distance < distances[neighborIndex])
+        {
+          distances[neighborIndex] = distance;
+          nextNodes[neighborIndex] = currentNodeIndex;
+          openSet.addOrDecreaseKey(neighborIndex, distance);
+        }
+      }
+    }
+
+    // The new field is finished, so swap it in for the agents to use
+    double[] swapDistances = _mDistances;
+    int[] swapNextNodes = _mNextNodes;
+
+    _mDistances = _mBuildDistances;
+    _mNextNodes = _mBuildNextNodes;
+    _mTarget = _mBuildTarget;
+
+    _mBuildDistances = swapDistances;
+    _mBuildNextNodes = swapNextNodes;
+    _mBuilding = false;
+
+    return true;
+  }
+
+  /*
+   * The node to move to from the specified node to get to the target, or -1 if the node is the target, can not reach the target
+   * or no field has been built yet
+   */
+  public int getNextNode(int nodeIndex)
+  {
+    if ((nodeIndex < 0) || (nodeIndex >= _mNextNodes.length))
+    {
+      return -1;
+    }
+
+    return _mNextNodes[nodeIndex];
+  }
+
+  /*
+   * The cost of the cheapest path from the specified node to the target, or infinity if the node can not reach the target
+   */
+  public double getDistance(int nodeIndex)
+  {
+    if ((nodeIndex < 0) || (nodeIndex >= _mDistances.length))
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    return _mDistances[nodeIndex];
+  }
+
+  public boolean isReachable(int nodeIndex)
+  {
+    return getDistance(nodeIndex) != Double.POSITIVE_INFINITY;
+  }
+
+  /*
+   * Follow the field from the specified node and copy the nodes of the path to the target (the node itself first) into the path
+   * array. Returns the number of nodes in the path or -1 if the node can not reach the target. Only the first pathOut.length nodes
+   * are copied if the array is too small.
+   */
+  public int getPath(int nodeIndex, int[] pathOut)
+  {
+    if (!isReachable(nodeIndex))
+    {
+      return -1;
+    }
+
+    int length = 0;
+    for (int pathNode = nodeIndex; pathNode != -1; pathNode = _mNextNodes[pathNode])
+    {
+      if (length < pathOut.length)
+      {
+        pathOut[length] = pathNode;
+      }
+
+      length++;
+    }
+
+    return length;
+  }
+
+  // The target of the field in use, or -1 if no field has been built yet
+  public int getTarget()
+  {
+    return _mTarget;
+  }
+
+  // True while a field started by setTarget() is still being built
+  public boolean isBuilding()
+  {
+    return _mBuilding;
+  }
+
+  // The total number of nodes settled by all builds so far, useful for measuring the cost of the field
+  public int getNumSettledNodes()
+  {
+    return _mNumSettledNodes;
+  }
+
+  /*
+   * Clear the build arrays and put the target in the open list
+   */
+  private void startBuild(int target)
+  {
+    int nodeCapacity = _mGraph.getNodeCapacity();
+
+    if (_mBuildDistances.length != nodeCapacity)
+    {
+      _mBuildDistances = new double[nodeCapacity];
+      _mBuildNextNodes = new int[nodeCapacity];
+      _mOpenSet.ensureCapacity(nodeCapacity);
+    }
+
+    Arrays.fill(_mBuildDistances, Double.POSITIVE_INFINITY);
+    Arrays.fill(_mBuildNextNodes, -1);
+    _mOpenSet.clear();
+
+    _mBuildTarget = target;
+    _mBuilding = true;
+
+    if (_mGraph.isNodePresent(target))
+    {
+      _mBuildDistances[target] = 0.0;
+      _mOpenSet.add(target, 0.0);
+    }
+  }
+
+  /*
+   * Read the neighbors of the node into the neighbor buffers, growing them if needed. Returns the number of neighbors.
+   */
+  private int readNeighbors(int nodeIndex)
+  {
+    int numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+
+    if (numNeighbors > _mNeighborIndices.length)
+    {
+      _mNeighborIndices = new int[numNeighbors];
+      _mEdgeCosts = new double[numNeighbors];
+      numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+    }
+
+    return numNeighbors;
+  }
+}
@@ -1,16 +1,18 @@
 package game.framework.planning;
 
 import game.framework.planning.interfaces.graph.IEdge;
+import game.framework.planning.interfaces.graph.IGraphChangeListener;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
 import game.framework.planning.interfaces.graph.INode;
+import game.framework.planning.utils.EdgeIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 
-public abstract class Graph
+public abstract class Graph implements IIndexedGraph
 {
   // TODO: This graph uses an adjacency list implementation, but it should be abstracted once more level to hide the specific graph implementation.
 
@@ -25,20 +27,28 @@ public abstract class Graph
   protected HashMap<Integer, List<IEdge>> adjacentcyListEdges = new HashMap<Integer, List<IEdge>>();
 
   /*
-   *  Classic adjacency list construct where each row is indexed by the node id and each entry is a set of adjacent node ids
-   *  TODO: Incorporate this into the current graph implementation.  
+   *  Index of every edge in the adjacency lists by its source and destination node ids, so uniqueEdge() is O(1). It is null until
+   *  the first lookup, so building a graph only appends to the adjacency lists, and it is then built once from all the edges.
+   *  After that, every edge added to or removed from an adjacency list must also be added to or removed from the index.
    */
-  protected HashMap<Integer, HashSet<Integer>> adjacentcyListNodes = new HashMap<Integer, HashSet<Integer>>();
+  protected EdgeIndex                          edgeIndex;
 
   protected int                                _numActiveNodes;                                               // Bookkeeping to track number of active nodes
   protected int                                _mNextFreeNodeIndex;
+  protected int                                _mNodeCapacity;                                                // One more than the largest node index ever added
 
   protected static int                         invalid_node_index  = -1;
 
+  // Notified after every change to the nodes or edges of the graph
+  protected ArrayList<IGraphChangeListener>    changeListeners     = new ArrayList<IGraphChangeListener>();
+
+  protected long                               _mVersion;                                                     // Incremented by every change to the graph
+
   public Graph()
   {
     _mNextFreeNodeIndex = 0;
     _numActiveNodes = 0;
+    _mNodeCapacity = 0;
   }
 
   /**
@@ -176,37 +186,159 @@ public abstract class Graph
    * 
    *         TODO Should this method be private? If the method is public, then this method may need to test if both nodes already exist
    * 
-   *         TODO Find a more efficient way to implement finding the "To" node when looking for the edge. Currently it is linear time O(n).
+   *         NOTE: The edge is found in O(1) with the edge index rather than by searching the edge list of the source node. The
+   *               index is built on the first call.
    * 
    */
+  protected IEdge uniqueEdge(int source, int destination)
+  {
+    if (edgeIndex == null)
+    {
+      buildEdgeIndex();
+    }
 
-  /* TODO: Possibly use a data structure like the one below fot the method uniqueEdge
-   * 
-   *   private HashMap<Integer, HashSet<Integer>> _nodeNeighbors     = new HashMap<Integer, HashSet<Integer>>();
-   *   
-   * Stores a set of node indices that are connected (via edges) to the particular node index.
-   * 
-   * This will be used for quick lookup when determining which nodes are connected to the specified node.
-   * For instance the uniqueEdge method. 
+    return edgeIndex.get(source, destination);
+  }
+
+  /*
+   * Same as uniqueEdge(), but searches the edge list of the source node while the edge index has not been built yet. Used when
+   * adding and removing edges, so building a graph does not pay for maintaining the index edge by edge.
    */
-  // TODO: NOT SURE WHERE THIS WILL GO.
-  protected IEdge uniqueEdge(int source, int destination)
+  protected IEdge findEdge(int source, int destination)
   {
-    IEdge existingEdge = null;
-    Iterator<IEdge> edgesIterator = adjacentcyListEdges.get(source).iterator();
+    if (edgeIndex != null)
+    {
+      return edgeIndex.get(source, destination);
+    }
 
-    while (edgesIterator.hasNext())
+    List<IEdge> sourceEdges = adjacentcyListEdges.get(source);
+    for (int i = 0; i < sourceEdges.size(); i++)
     {
-      IEdge edge = edgesIterator.next();
+      IEdge edge = sourceEdges.get(i);
 
       if (edge.getDestination() == destination)
       {
-        existingEdge = edge;
-        break;
+        return edge;
       }
     }
 
-    return existingEdge;
+    return null;
+  }
+
+  /*
+   * Index all the edges in the adjacency lists, with the index sized for them up front
+   */
+  private void buildEdgeIndex()
+  {
+    int numEdges = 0;
+    for (List<IEdge> nodeEdges : adjacentcyListEdges.values())
+    {
+      numEdges += nodeEdges.size();
+    }
+
+    edgeIndex = new EdgeIndex(numEdges, _mNodeCapacity);
+
+    for (List<IEdge> nodeEdges : adjacentcyListEdges.values())
+    {
+      for (int i = 0; i < nodeEdges.size(); i++)
+      {
+        edgeIndex.put(nodeEdges.get(i));
+      }
+    }
+  }
+
+  /*
+   * IIndexedGraph methods, used by the search algorithms that keep their node data in arrays (e.g., IndexedAStar)
+   */
+  public int getNodeCapacity()
+  {
+    return _mNodeCapacity;
+  }
+
+  public double getNodeX(int nodeIndex)
+  {
+    return nodes.get(nodeIndex).positionGet().x;
+  }
+
+  public double getNodeY(int nodeIndex)
+  {
+    return nodes.get(nodeIndex).positionGet().y;
+  }
+
+  public int getNeighbors(int nodeIndex, int[] neighborIndices, double[] edgeCosts)
+  {
+    List<IEdge> nodeEdges = adjacentcyListEdges.get(nodeIndex);
+
+    if (nodeEdges == null)
+    {
+      return 0;
+    }
+
+    int numEdges = nodeEdges.size();
+    int numToCopy = Math.min(numEdges, Math.min(neighborIndices.length, edgeCosts.length));
+
+    for (int i = 0; i < numToCopy; i++)
+    {
+      IEdge edge = nodeEdges.get(i);
+      neighborIndices[i] = edge.getDestination();
+      edgeCosts[i] = edge.getCost();
+    }
+
+    return numEdges;
+  }
+
+  /*
+   * Create an immutable compressed sparse row copy of the graph, which uses much less memory and is faster to search. Use it for
+   * graphs that will not change anymore (e.g., once a level's navigation graph has been built).
+   */
+  public GraphCSR freeze()
+  {
+    return new GraphCSR(this);
+  }
+
+  /*
+   * The version of the graph, which changes every time a node or edge is added or removed or an edge cost is changed. Anything
+   * computed from the graph (e.g., a cached path) is out of date if the version changed since it was computed.
+   */
+  public long getVersion()
+  {
+    return _mVersion;
+  }
+
+  /*
+   * Change listeners, notified after every node or edge is added or removed and every edge cost is changed
+   */
+  public void addChangeListener(IGraphChangeListener listener)
+  {
+    if (!changeListeners.contains(listener))
+    {
+      changeListeners.add(listener);
+    }
+  }
+
+  public void removeChangeListener(IGraphChangeListener listener)
+  {
+    changeListeners.remove(listener);
+  }
+
+  protected void fireEdgeChanged(int from, int to)
+  {
+    _mVersion++;
+
+    for (int i = 0; i < changeListeners.size(); i++)
+    {
+      changeListeners.get(i).edgeChanged(from, to);
+    }
+  }
+
+  protected void fireNodeChanged(int nodeIndex)
+  {
+    _mVersion++;
+
+    for (int i = 0; i < changeListeners.size(); i++)
+    {
+      changeListeners.get(i).nodeChanged(nodeIndex);
+    }
   }
 
   abstract public boolean isUndirected();
@@ -0,0 +1,165 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IEdge;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.interfaces.graph.INode;
+
+import java.util.List;
+
+/*
+ * An immutable copy of a graph stored in compressed sparse row (CSR) form, created with Graph.freeze().
+ *
+ * The edges leaving node n are stored in the range [offsets[n], offsets[n + 1]) of the targets and costs arrays, and the node
+ * positions are stored in parallel x and y arrays. There is no object per node or edge, so the graph takes a fraction of the
+ * memory of the Graph it was created from and the neighbors of a node are read from consecutive array entries.
+ *
+ * This is meant for graphs that do not change while the game is running (e.g., the navigation graph of a level). Changes made to
+ * the original graph after it was frozen are not seen by the frozen copy, freeze() the graph again to pick them up.
+ *
+ * NOTE: The node indices are the same as the indices in the original graph. Indices of removed nodes are kept as nodes that are
+ *       not present and have no edges.
+ */
+public class GraphCSR implements IIndexedGraph
+{
+  private final int       _mNodeCapacity;
+  private final int       _mNumNodes;
+  private final boolean[] _mPresent;
+  private final double[]  _mX;
+  private final double[]  _mY;
+
+  private final int[]     _mOffsets;
+  private final int[]     _mTargets;
+  private final double[]  _mCosts;
+
+  /*
+   * Copy the nodes and edges of the graph
+   */
+  public GraphCSR(Graph graph)
+  {
+    _mNodeCapacity = graph.getNodeCapacity();
+    _mPresent = new boolean[_mNodeCapacity];
+    _mX = new double[_mNodeCapacity];
+    _mY = new double[_mNodeCapacity];
+    _mOffsets = new int[_mNodeCapacity + 1];
+
+    // First, copy the nodes and count the edges of each node
+    int numNodes = 0;
+    int numEdges = 0;
+    for (int nodeIndex = 0; nodeIndex < _mNodeCapacity; nodeIndex++)
+    {
+      _mOffsets[nodeIndex] = numEdges;
+
+      if (!graph.isNodePresent(nodeIndex))
+      {
+        continue;
+      }
+
+      INode node = graph.getNode(nodeIndex);
+      _mPresent[nodeIndex] = true;
+      _mX[nodeIndex] = node.positionGet().x;
+      _mY[nodeIndex] = node.positionGet().y;
+      numNodes++;
+
+      List<IEdge> nodeEdges = graph.getNodeEdges(nodeIndex);
+      if (nodeEdges != null)
+      {
+        numEdges += nodeEdges.size();
+      }
+    }
+    _mOffsets[_mNodeCapacity] = numEdges;
+    _mNumNodes = numNodes;
+
+    // Second, copy the edges of each node into its range of the edge arrays
+    _mTargets = new int[numEdges];
+    _mCosts = new double[numEdges];
+    for (int nodeIndex = 0; nodeIndex < _mNodeCapacity; nodeIndex++)
+    {
+      if (!_mPresent[nodeIndex])
+      {
+        continue;
+      }
+
+      List<IEdge> nodeEdges = graph.getNodeEdges(nodeIndex);
+      if (nodeEdges == null)
+      {
+        continue;
+      }
+
+      int edge = _mOffsets[nodeIndex];
+      for (int i = 0; i < nodeEdges.size(); i++)
+      {
+        _mTargets[edge] = nodeEdges.get(i).getDestination();
+        _mCosts[edge] = nodeEdges.get(i).getCost();
+        edge++;
+      }
+    }
+  }
+
+  /*
+   * IIndexedGraph methods
+   */
+  public int getNodeCapacity()
+  {
+    return _mNodeCapacity;
+  }
+
+  public boolean isNodePresent(int nodeIndex)
+  {
+    return (nodeIndex >= 0) && (nodeIndex < _mNodeCapacity) && _mPresent[nodeIndex];
+  }
+
+  public double getNodeX(int nodeIndex)
+  {
+    return _mX[nodeIndex];
+  }
+
+  public double getNodeY(int nodeIndex)
+  {
+    return _mY[nodeIndex];
+  }
+
+  public int getNeighbors(int nodeIndex, int[] neighborIndices, double[] edgeCosts)
+  {
+    int start = _mOffsets[nodeIndex];
+    int numEdges = _mOffsets[nodeIndex + 1] - start;
+    int numToCopy = Math.min(numEdges, Math.min(neighborIndices.length, edgeCosts.length));
+
+    System.arraycopy(_mTargets, start, neighborIndices, 0, numToCopy);
+    System.arraycopy(_mCosts, start, edgeCosts, 0, numToCopy);
+
+    return numEdges;
+  }
+
+  /*
+   * Direct access to the edge arrays. The edges of a node are the edge indices in [getFirstEdge(n), getFirstEdge(n + 1)).
+   */
+  public int getFirstEdge(int nodeIndex)
+  {
+    return _mOffsets[nodeIndex];
+  }
+
+  public int getEdgeTarget(int edgeIndex)
+  {
+    return _mTargets[edgeIndex];
+  }
+
+  public double getEdgeCost(int edgeIndex)
+  {
+    return _mCosts[edgeIndex];
+  }
+
+  public int numNodes()
+  {
+    return _mNumNodes;
+  }
+
+  public int numEdges()
+  {
+    return _mTargets.length;
+  }
+
+  public String toString()
+  {
+    return "GraphCSR: " + _mNumNodes + " nodes, " + _mTargets.length + " edges";
+  }
+}
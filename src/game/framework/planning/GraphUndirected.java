@@ -42,11 +42,12 @@ public class GraphUndirected extends Graph
     // Add the node to the hash map and assign an empty edge list to that node in the corresponding graph edge adjacency list
     nodes.put(node.getIndex(), node);
     _numActiveNodes++;  // NOTE: This will need to be decremented when everytime a node is removed
+    _mNodeCapacity = Math.max(_mNodeCapacity, node.getIndex() + 1);
 
     // TODO: Determine if ArrayList is the best List implementation to use for the edges
     adjacentcyListEdges.put(node.getIndex(), new ArrayList<IEdge>(0));
 
-    // TODO: Add logic here to update the adjacentcyListNodes hash map
+    fireNodeChanged(node.getIndex());
 
     // Since the node did not previously exist, return the index of the new node and increment it.
     return _mNextFreeNodeIndex++;
@@ -80,6 +81,14 @@ public class GraphUndirected extends Graph
     }
 
     // Third, clear the list of edges from the adjacency list of edges of the node to delete
+    for (IEdge edge : nodeEdges)
+    {
+      if (edgeIndex != null)
+      {
+        edgeIndex.remove(nodeIndex, edge.getDestination());
+      }
+      fireEdgeChanged(nodeIndex, edge.getDestination());
+    }
     adjacentcyListEdges.get(nodeIndex).clear();
 
     // Forth, remove the node from the list. The node object is removed from the actual hashmap,
@@ -88,6 +97,8 @@ public class GraphUndirected extends Graph
 
     // Last, update the number of active nodes
     _numActiveNodes--;
+
+    fireNodeChanged(nodeIndex);
   }
 
   // DONE, BUT NEEDS TO BE TESTED
@@ -111,7 +122,7 @@ public class GraphUndirected extends Graph
     /*
      *  First, making sure it is unique (i.e., it does not already exist) add the edge 
      */
-    IEdge existingEdge = uniqueEdge(sourceIndex, destinationIndex);
+    IEdge existingEdge = findEdge(sourceIndex, destinationIndex);
 
     // If the edge does not already exist, add the edge
     if (existingEdge == null)
@@ -119,7 +130,10 @@ public class GraphUndirected extends Graph
 //      System.out.println("Edge " + edge + " does not already exist in the graph. Adding edge.");
 //      System.out.println("\nDEBUG: Size of _mEdges(" + sourceIndex + "): " + adjacentcyListEdges.get(sourceIndex).size() + " BEFORE Adding Edge.\n");
       adjacentcyListEdges.get(sourceIndex).add(edge);
-      // TODO: Add logic here to update the adjacentcyListNodes hash map
+      if (edgeIndex != null)
+      {
+        edgeIndex.put(edge);
+      }
 //      System.out.println("\nDEBUG: Size of _mEdges(" + sourceIndex + "): " + adjacentcyListEdges.get(sourceIndex).size() + " AFTER Adding Edge.\n");
     }
     else
@@ -133,7 +147,7 @@ public class GraphUndirected extends Graph
 
     // Add another edge in the opposite direction (e.g., (destination node id, source node id) )
     // Check to make sure the edge is unique before adding
-    IEdge returningEdge = uniqueEdge(destinationIndex, sourceIndex);
+    IEdge returningEdge = findEdge(destinationIndex, sourceIndex);
     if (returningEdge == null)
     {
       // Create a new edge and make it point from the From node back to the To node.
@@ -144,7 +158,10 @@ public class GraphUndirected extends Graph
 //      System.out.println("Digraph Edge " + newEdge + " does not already exist in the graph. Adding edge.");
 //      System.out.println("Edge " + edge + " does not already exist in the graph. Adding edge.");
       adjacentcyListEdges.get(destinationIndex).add(newEdge);
-      // TODO: Add logic here to update the adjacentcyListNodes hash map
+      if (edgeIndex != null)
+      {
+        edgeIndex.put(newEdge);
+      }
 //      System.out.println("\nDEBUG: Size of _mEdges(" + sourceIndex + "): " + adjacentcyListEdges.get(sourceIndex).size() + " AFTER Adding Edge.\n");
     }
     else
@@ -154,6 +171,9 @@ public class GraphUndirected extends Graph
       returningEdge.setCost(edge.getCost());
     }
 
+    fireEdgeChanged(sourceIndex, destinationIndex);
+    fireEdgeChanged(destinationIndex, sourceIndex);
+
     // Debugging code that needs to go away 
     //    System.out.println("RECAP:");
     //    System.out.println();
@@ -191,11 +211,16 @@ public class GraphUndirected extends Graph
     }
 
     // Check if the edge does not exist
-    IEdge edgeToRemove = uniqueEdge(source, destination);
+    IEdge edgeToRemove = findEdge(source, destination);
     if (edgeToRemove != null)
     {
       // TODO: Is there a more efficient way to remove an edge using another list implementation or different data structure?
       adjacentcyListEdges.get(source).remove(edgeToRemove);
+      if (edgeIndex != null)
+      {
+        edgeIndex.remove(source, destination);
+      }
+      fireEdgeChanged(source, destination);
     }
   }
 
@@ -226,6 +251,9 @@ public class GraphUndirected extends Graph
     edgeToUpdate.setCost(cost);
     oppositeEdgeToUpdate.setCost(cost);
 
+    fireEdgeChanged(source, destination);
+    fireEdgeChanged(destination, source);
+
     return true;
   }
 
@@ -0,0 +1,243 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IGraphChangeListener;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.primitives.Position2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * A grid graph that stores no node or edge objects, meant for large tile maps (e.g., 1024 x 1024 or more).
+ *
+ * Each cell of a WalkabilityGrid is a node, with the same index and position as the node GraphGenerator.generateGridGraph() would
+ * create for it, and walkable cells are the nodes present in the graph. The neighbors of a cell are computed from its row and column
+ * when getNeighbors() is called, so the graph takes one bit per cell, plus one byte per cell once a cell is given a cost. A 1024 x
+ * 1024 map takes 128 KB (1.1 MB with costs), compared to millions of node and edge objects in a Graph.
+ *
+ * Every cell has a cost from 1 to 255 (1 by default), and the cost of an edge is the distance between the two cells times the mean
+ * of their costs, so rough terrain can be made more expensive to walk through. Since every cost is at least 1, the straight line
+ * distance used as the heuristic by the searches never overestimates.
+ *
+ * The graph can be searched by anything that takes an IIndexedGraph (IndexedAStar, FlowField, HierarchicalPathfinder, etc.).
+ * Changing a cell notifies the change listeners, so a HierarchicalPathfinder registered with addChangeListener() stays up to date.
+ *
+ * NOTE: As with the graphs from GraphGenerator, a diagonal move only needs the cell it enters to be walkable (it can cut the corner
+ *       of a blocked cell). Every edge costs the same in both directions, which the searches that assume an undirected graph
+ *       (FlowField, HierarchicalPathfinder, BidirectionalAStar and LandmarkHeuristic) rely on.
+ */
+public class GridGraph implements IIndexedGraph
+{
+  public static final int                 DEFAULT_CELL_COST = 1;
+  public static final int                 MAX_CELL_COST     = 255;
+
+  // The row and column offsets of the neighbors, the first four are the orthogonal neighbors
+  private static final int[]              NEIGHBOR_ROWS     = { 0, 1, 0, -1, 1, 1, -1, -1 };
+  private static final int[]              NEIGHBOR_COLS     = { 1, 0, -1, 0, 1, -1, -1, 1 };
+
+  private WalkabilityGrid                 _mGrid;
+  private int                             _mRows, _mCols;
+  private int                             _mNumNeighborDirections;
+
+  // The distance of a move in each neighbor direction
+  private double[]                        _mNeighborDistances;
+
+  // The cost of each cell (unsigned), only created once a cell is given a cost other than the default
+  private byte[]                          _mCellCosts;
+
+  private ArrayList<IGraphChangeListener> changeListeners   = new ArrayList<IGraphChangeListener>();
+
+  /*
+   * Create a graph over the cells of the walkability grid. The grid is used directly (not copied), so change it through the graph
+   * so the change listeners are notified.
+   */
+  public GridGraph(WalkabilityGrid grid, boolean fourNeighbors)
+  {
+    _mGrid = grid;
+    _mRows = grid.getRows();
+    _mCols = grid.getCols();
+    _mNumNeighborDirections = fourNeighbors ? 4 : 8;
+
+    double colSpacing = grid.getColSpacing();
+    double rowSpacing = grid.getRowSpacing();
+
+    _mNeighborDistances = new double[_mNumNeighborDirections];
+    for (int direction = 0; direction < _mNumNeighborDirections; direction++)
+    {
+      double dx = NEIGHBOR_COLS[direction] * colSpacing;
+      double dy = NEIGHBOR_ROWS[direction] * rowSpacing;
+
+      // NOTE: Computed the same way as the heuristic of the searches, so a straight run of moves never costs less than the heuristic
+      _mNeighborDistances[direction] = Math.sqrt(dx * dx + dy * dy);
+    }
+  }
+
+  public WalkabilityGrid getGrid()
+  {
+    return _mGrid;
+  }
+
+  public boolean isFourNeighbors()
+  {
+    return _mNumNeighborDirections == 4;
+  }
+
+  /*
+   * IIndexedGraph methods
+   */
+  public int getNodeCapacity()
+  {
+    return _mRows * _mCols;
+  }
+
+  public boolean isNodePresent(int nodeIndex)
+  {
+    return _mGrid.isWalkable(nodeIndex);
+  }
+
+  public double getNodeX(int nodeIndex)
+  {
+    return _mGrid.getCellX(nodeIndex);
+  }
+
+  public double getNodeY(int nodeIndex)
+  {
+    return _mGrid.getCellY(nodeIndex);
+  }
+
+  public int getNeighbors(int nodeIndex, int[] neighborIndices, double[] edgeCosts)
+  {
+    if (!_mGrid.isWalkable(nodeIndex))
+    {
+      return 0;
+    }
+
+    int row = nodeIndex / _mCols;
+    int col = nodeIndex - row * _mCols;
+    int cellCost = getCellCost(nodeIndex);
+    int numNeighbors = 0;
+
+    for (int direction = 0; direction < _mNumNeighborDirections; direction++)
+    {
+      int neighborRow = row + NEIGHBOR_ROWS[direction];
+      int neighborCol = col + NEIGHBOR_COLS[direction];
+
+      if (!_mGrid.isWalkable(neighborRow, neighborCol))
+      {
+        continue;
+      }
+
+      if (numNeighbors < neighborIndices.length)
+      {
+        int neighborIndex = neighborRow * _mCols + neighborCol;
+
+        neighborIndices[numNeighbors] = neighborIndex;
+        // NOTE: The mean of the costs of both cells, so the edge costs the same in both directions
+        edgeCosts[numNeighbors] = _mNeighborDistances[direction] * (cellCost + getCellCost(neighborIndex)) * 0.5;
+      }
+
+      numNeighbors++;
+    }
+
+    return numNeighbors;
+  }
+
+  /*
+   * The position of the node, a new object is created for every call
+   */
+  public Position2D getNodePosition(int nodeIndex)
+  {
+    return new Position2D(_mGrid.getCellX(nodeIndex), _mGrid.getCellY(nodeIndex));
+  }
+
+  public int getNodeIndex(int row, int col)
+  {
+    return _mGrid.getCellIndex(row, col);
+  }
+
+  /*
+   * The node of the cell that contains the position, or -1 if the position is outside of the grid. Each node is the center of its
+   * cell.
+   */
+  public int getNodeIndexAt(double x, double y)
+  {
+    int col = (int) Math.floor((x - _mGrid.getCellX(0)) / _mGrid.getColSpacing() + 0.5);
+    int row = (int) Math.floor((y - _mGrid.getCellY(0)) / _mGrid.getRowSpacing() + 0.5);
+
+    if ((row < 0) || (row >= _mRows) || (col < 0) || (col >= _mCols))
+    {
+      return -1;
+    }
+
+    return row * _mCols + col;
+  }
+
+  /*
+   * Block or unblock a cell, which removes or adds its node
+   */
+  public void setWalkable(int row, int col, boolean walkable)
+  {
+    if (_mGrid.isWalkable(row, col) != walkable)
+    {
+      _mGrid.setWalkable(row, col, walkable);
+      fireNodeChanged(row * _mCols + col);
+    }
+  }
+
+  public int getCellCost(int nodeIndex)
+  {
+    return (_mCellCosts == null) ? DEFAULT_CELL_COST : (_mCellCosts[nodeIndex] & 0xFF);
+  }
+
+  /*
+   * Set the cost of a cell, from 1 to MAX_CELL_COST. The edges to and from the cell cost their distance times the mean of the cost
+   * of the cell and the cost of the other cell.
+   */
+  public void setCellCost(int row, int col, int cost)
+  {
+    if ((cost < 1) || (cost > MAX_CELL_COST))
+    {
+      throw new IllegalArgumentException("The cost of a cell must be from 1 to " + MAX_CELL_COST + " (" + cost + ").");
+    }
+
+    int nodeIndex = _mGrid.getCellIndex(row, col);
+
+    if (getCellCost(nodeIndex) == cost)
+    {
+      return;
+    }
+
+    if (_mCellCosts == null)
+    {
+      _mCellCosts = new byte[_mRows * _mCols];
+      Arrays.fill(_mCellCosts, (byte) DEFAULT_CELL_COST);
+    }
+
+    _mCellCosts[nodeIndex] = (byte) cost;
+    fireNodeChanged(nodeIndex);
+  }
+
+  /*
+   * Change listeners, notified after a cell is blocked or unblocked or its cost is changed
+   */
+  public void addChangeListener(IGraphChangeListener listener)
+  {
+    if (!changeListeners.contains(listener))
+    {
+      changeListeners.add(listener);
+    }
+  }
+
+  public void removeChangeListener(IGraphChangeListener listener)
+  {
+    changeListeners.remove(listener);
+  }
+
+  private void fireNodeChanged(int nodeIndex)
+  {
+    for (int i = 0; i < changeListeners.size(); i++)
+    {
+      changeListeners.get(i).nodeChanged(nodeIndex);
+    }
+  }
+}
@@ -0,0 +1,1137 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IGraphChangeListener;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Hierarchical path planning (HPA*, Botea, Mueller and Schaeffer) for the grid graphs created by GraphGenerator.generateGridGraph().
+ *
+ * The grid is split into square clusters of clusterSize x clusterSize nodes. Wherever edges cross the border between two clusters,
+ * each run of crossing edges (an entrance) gets one transition (two for runs of MAX_SINGLE_TRANSITION_RUN edges or more). The nodes
+ * on either side of a transition are the nodes of a much smaller abstract graph, where nodes of the same cluster are connected by
+ * the cost of the cheapest path between them inside the cluster and the two nodes of a transition by the edge that crosses the
+ * border. This abstract graph is built once and kept.
+ *
+ * A search connects the source and target to the transitions of their clusters, runs A* over the abstract graph and then only
+ * refines the parts of the path it needs into nodes of the grid, either all at once with getPath() or one segment at a time with
+ * refineSegment() (e.g., only the next segment an agent is about to walk). The paths inside a cluster between two transitions are
+ * cached per cluster, so agents that travel through the same clusters reuse them.
+ *
+ * When the graph changes, edgeChanged() or nodeChanged() must be called, which happens automatically if the planner is registered
+ * with Graph.addChangeListener(). Only the clusters (and borders) touched by the change are marked and rebuilt before the next
+ * search, the rest of the abstract graph and the path caches of the other clusters are kept.
+ *
+ * NOTE: The paths are close to optimal but not always optimal, since a path can only cross a border at a transition. The graph
+ *       must be undirected (every edge has an opposite edge with the same cost) and its node indices must be row * cols + col, the
+ *       same as a grid graph from GraphGenerator. Edges that cross a border diagonally (at the corner of a cluster, or where both
+ *       cut corners are blocked) get a transition of their own, so any two nodes connected in the graph are also connected in the
+ *       abstract graph.
+ */
+public class HierarchicalPathfinder implements IGraphChangeListener
+{
+  public static final int        DEFAULT_CLUSTER_SIZE      = 16;
+
+  // A run of crossing edges shorter than this gets a single transition in its middle, longer runs get one at each end
+  public static final int        MAX_SINGLE_TRANSITION_RUN = 6;
+
+  private IIndexedGraph          _mGraph;
+  private int                    _mRows, _mCols;
+  private int                    _mClusterSize;
+  private int                    _mClusterRows, _mClusterCols;
+
+  private Cluster[]              _mClusters;
+
+  // The borders to the east and south of each cluster and the corner at its south east, null where there is no other cluster
+  private Border[]               _mEastBorders;
+  private Border[]               _mSouthBorders;
+  private Border[]               _mCornerBorders;
+
+  // The abstract graph: the node of each abstract node, its cluster, and the edges to other clusters in compressed rows
+  private boolean                _mAbstractGraphDirty      = true;
+  private int                    _mNumAbstractNodes;
+  private int[]                  _mAbstractNodes           = new int[0];
+  private int[]                  _mAbstractClusters        = new int[0];
+  private HashMap<Integer, Integer> _mAbstractIds          = new HashMap<Integer, Integer>();
+  private int[]                  _mInterOffsets            = new int[1];
+  private int[]                  _mInterTargets            = new int[0];
+  private double[]               _mInterCosts              = new double[0];
+
+  // Scratch memory for the abstract search (two more entries than abstract nodes for the source and target)
+  private double[]               _mAbstractGCosts          = new double[0];
+  private int[]                  _mAbstractParents         = new int[0];
+  private boolean[]              _mAbstractClosed          = new boolean[0];
+  private IndexedMinHeap         _mAbstractOpenSet         = new IndexedMinHeap(1);
+
+  // Scratch memory for searches inside a cluster, indexed by the position of the node in the cluster
+  private double[]               _mLocalCosts;
+  private int[]                  _mLocalParents;
+  private IndexedMinHeap         _mLocalOpenSet;
+  private int[]                  _mNeighborIndices         = new int[8];
+  private double[]               _mEdgeCosts               = new double[8];
+
+  // The costs from the source to the transitions of its cluster and from the transitions of the target's cluster to the target
+  private double[]               _mSourceCosts             = new double[0];
+  private double[]               _mTargetCosts             = new double[0];
+
+  // Results of the last search
+  private int[]                  _mWaypoints               = new int[16];
+  private int                    _mNumWaypoints;
+  private double                 _mPathCost                = Double.POSITIVE_INFINITY;
+  private int                    _mNumExpandedNodes;
+  private int[]                  _mPath                    = new int[16];
+  private int                    _mPathLength              = -1;
+
+  public HierarchicalPathfinder(IIndexedGraph graph, int rows, int cols)
+  {
+    this(graph, rows, cols, DEFAULT_CLUSTER_SIZE);
+  }
+
+  public HierarchicalPathfinder(IIndexedGraph graph, int rows, int cols, int clusterSize)
+  {
+    if ((rows <= 0) || (cols <= 0) || (clusterSize <= 0))
+    {
+      throw new IllegalArgumentException("The number of rows, columns and the cluster size must be positive (" + rows + ", " + cols + ", " + clusterSize + ").");
+    }
+
+    _mGraph = graph;
+    _mRows = rows;
+    _mCols = cols;
+    _mClusterSize = clusterSize;
+    _mClusterRows = (rows + clusterSize - 1) / clusterSize;
+    _mClusterCols = (cols + clusterSize - 1) / clusterSize;
+
+    int numClusters = _mClusterRows * _mClusterCols;
+    _mClusters = new Cluster[numClusters];
+    _mEastBorders = new Border[numClusters];
+    _mSouthBorders = new Border[numClusters];
+    _mCornerBorders = new Border[numClusters];
+
+    for (int clusterRow = 0; clusterRow < _mClusterRows; clusterRow++)
+    {
+      for (int clusterCol = 0; clusterCol < _mClusterCols; clusterCol++)
+      {
+        int clusterIndex = clusterRow * _mClusterCols + clusterCol;
+        _mClusters[clusterIndex] = new Cluster(clusterRow * clusterSize, clusterCol * clusterSize);
+
+        if (clusterCol + 1 < _mClusterCols)
+        {
+          _mEastBorders[clusterIndex] = new Border();
+        }
+        if (clusterRow + 1 < _mClusterRows)
+        {
+          _mSouthBorders[clusterIndex] = new Border();
+        }
+        if ((clusterCol + 1 < _mClusterCols) && (clusterRow + 1 < _mClusterRows))
+        {
+          _mCornerBorders[clusterIndex] = new Border();
+        }
+      }
+    }
+
+    _mLocalCosts = new double[clusterSize * clusterSize];
+    _mLocalParents = new int[clusterSize * clusterSize];
+    _mLocalOpenSet = new IndexedMinHeap(clusterSize * clusterSize);
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  public int getClusterSize()
+  {
+    return _mClusterSize;
+  }
+
+  /*
+   * Tell the planner that the edge between two nodes was added, removed or had its cost changed. Only the cluster (or the border
+   * between the clusters) of the edge is rebuilt before the next search.
+   */
+  @Override
+  public void edgeChanged(int from, int to)
+  {
+    int fromCluster = clusterOf(from);
+    int toCluster = clusterOf(to);
+
+    if ((fromCluster < 0) || (toCluster < 0))
+    {
+      return;
+    }
+
+    if (fromCluster == toCluster)
+    {
+      _mClusters[fromCluster].dirty = true;
+      _mAbstractGraphDirty = true;
+      return;
+    }
+
+    // The edge crosses a border, mark every border between the two clusters so its transitions are found again
+    int fromClusterRow = fromCluster / _mClusterCols, fromClusterCol = fromCluster % _mClusterCols;
+    int toClusterRow = toCluster / _mClusterCols, toClusterCol = toCluster % _mClusterCols;
+    int topRow = Math.min(fromClusterRow, toClusterRow);
+    int leftCol = Math.min(fromClusterCol, toClusterCol);
+
+    if (fromClusterRow == toClusterRow)
+    {
+      markBorderDirty(_mEastBorders[topRow * _mClusterCols + leftCol]);
+    }
+    else if (fromClusterCol == toClusterCol)
+    {
+      markBorderDirty(_mSouthBorders[topRow * _mClusterCols + leftCol]);
+    }
+    else
+    {
+      markBorderDirty(_mCornerBorders[topRow * _mClusterCols + leftCol]);
+    }
+  }
+
+  /*
+   * Tell the planner that a node was added or removed. The cluster of the node and all the borders around it are rebuilt before
+   * the next search.
+   */
+  @Override
+  public void nodeChanged(int nodeIndex)
+  {
+    int clusterIndex = clusterOf(nodeIndex);
+
+    if (clusterIndex < 0)
+    {
+      return;
+    }
+
+    int clusterRow = clusterIndex / _mClusterCols;
+    int clusterCol = clusterIndex % _mClusterCols;
+
+    _mClusters[clusterIndex].dirty = true;
+    _mAbstractGraphDirty = true;
+
+    for (int row = clusterRow - 1; row <= clusterRow; row++)
+    {
+      for (int col = clusterCol - 1; col <= clusterCol; col++)
+      {
+        if ((row < 0) || (col < 0))
+        {
+          continue;
+        }
+
+        int neighborIndex = row * _mClusterCols + col;
+
+        if (row == clusterRow)
+        {
+          markBorderDirty(_mEastBorders[neighborIndex]);
+        }
+        if (col == clusterCol)
+        {
+          markBorderDirty(_mSouthBorders[neighborIndex]);
+        }
+        markBorderDirty(_mCornerBorders[neighborIndex]);
+      }
+    }
+  }
+
+  /*
+   * Rebuild the whole abstract graph before the next search (e.g., after changing many parts of the graph at once)
+   */
+  public void invalidateAll()
+  {
+    for (int clusterIndex = 0; clusterIndex < _mClusters.length; clusterIndex++)
+    {
+      _mClusters[clusterIndex].dirty = true;
+      markBorderDirty(_mEastBorders[clusterIndex]);
+      markBorderDirty(_mSouthBorders[clusterIndex]);
+      markBorderDirty(_mCornerBorders[clusterIndex]);
+    }
+  }
+
+  /*
+   * Rebuild the parts of the abstract graph that were changed. This is done by Search(), but can be called ahead of time (e.g.,
+   * while a level is loading) so the first search does not have to.
+   */
+  public void rebuild()
+  {
+    if (!_mAbstractGraphDirty)
+    {
+      return;
+    }
+
+    // First, find the transitions of the borders that changed
+    for (int clusterIndex = 0; clusterIndex < _mClusters.length; clusterIndex++)
+    {
+      int clusterRow = clusterIndex / _mClusterCols;
+      int clusterCol = clusterIndex % _mClusterCols;
+      Cluster cluster = _mClusters[clusterIndex];
+
+      if ((_mEastBorders[clusterIndex] != null) && _mEastBorders[clusterIndex].dirty)
+      {
+        scanBorder(_mEastBorders[clusterIndex], cluster.startRow, cluster.startCol + _mClusterSize - 1, 1, 0, 0, 1);
+        markTouchedClusters(clusterRow, clusterCol, clusterRow, clusterCol + 1);
+      }
+
+      if ((_mSouthBorders[clusterIndex] != null) && _mSouthBorders[clusterIndex].dirty)
+      {
+        scanBorder(_mSouthBorders[clusterIndex], cluster.startRow + _mClusterSize - 1, cluster.startCol, 0, 1, 1, 0);
+        markTouchedClusters(clusterRow, clusterCol, clusterRow + 1, clusterCol);
+      }
+
+      if ((_mCornerBorders[clusterIndex] != null) && _mCornerBorders[clusterIndex].dirty)
+      {
+        scanCorner(_mCornerBorders[clusterIndex], cluster.startRow + _mClusterSize - 1, cluster.startCol + _mClusterSize - 1);
+        markTouchedClusters(clusterRow, clusterCol, clusterRow + 1, clusterCol + 1);
+      }
+    }
+
+    // Second, find the transitions of each changed cluster and the cost of the paths between them
+    for (int clusterIndex = 0; clusterIndex < _mClusters.length; clusterIndex++)
+    {
+      Cluster cluster = _mClusters[clusterIndex];
+
+      if (!cluster.dirty)
+      {
+        continue;
+      }
+
+      cluster.entrances = collectEntrances(clusterIndex);
+      computeEntranceCosts(cluster);
+      cluster.pathCache.clear();
+      cluster.dirty = false;
+    }
+
+    // Last, number the abstract nodes and build the edges between the clusters
+    buildAbstractGraph();
+    _mAbstractGraphDirty = false;
+  }
+
+  /*
+   * Search for a path from the source node to the target node. Returns true if a path was found. Only the abstract path (the
+   * source, the transitions along the way and the target) is found, the nodes in between are filled in by getPath() or
+   * refineSegment().
+   */
+  public boolean Search(int source, int target)
+  {
+    rebuild();
+
+    _mNumWaypoints = 0;
+    _mPathCost = Double.POSITIVE_INFINITY;
+    _mNumExpandedNodes = 0;
+    _mPathLength = -1;
+
+    int sourceCluster = clusterOf(source);
+    int targetCluster = clusterOf(target);
+
+    if ((sourceCluster < 0) || (targetCluster < 0) || !_mGraph.isNodePresent(source) || !_mGraph.isNodePresent(target))
+    {
+      return false;
+    }
+
+    // Connect the source and the target to the transitions of their clusters
+    Cluster sourceClusterData = _mClusters[sourceCluster];
+    Cluster targetClusterData = _mClusters[targetCluster];
+
+    searchCluster(sourceClusterData, source, -1);
+    _mSourceCosts = copyEntranceCosts(sourceClusterData, _mSourceCosts);
+    double directCost = (sourceCluster == targetCluster) ? _mLocalCosts[localIndex(sourceClusterData, target)] : Double.POSITIVE_INFINITY;
+
+    searchCluster(targetClusterData, target, -1);
+    _mTargetCosts = copyEntranceCosts(targetClusterData, _mTargetCosts);
+
+    // A* over the abstract graph, where the source and target get the two ids after the abstract nodes
+    int sourceId = _mNumAbstractNodes;
+    int targetId = _mNumAbstractNodes + 1;
+    double targetX = _mGraph.getNodeX(target);
+    double targetY = _mGraph.getNodeY(target);
+
+    Arrays.fill(_mAbstractGCosts, Double.POSITIVE_INFINITY);
+    Arrays.fill(_mAbstractParents, -1);
+    Arrays.fill(_mAbstractClosed, false);
+    _mAbstractOpenSet.clear();
+
+    _mAbstractGCosts[sourceId] = 0.0;
+    _mAbstractOpenSet.add(sourceId, 0.0);
+
+    while (!_mAbstractOpenSet.isEmpty())
+    {
+      int currentId = _mAbstractOpenSet.remove();
+
+      if (currentId == targetId)
+      {
+        buildWaypoints(source, target);
+        return true;
+      }
+
+      _mAbstractClosed[currentId] = true;
+      _mNumExpandedNodes++;
+
+      double currentGCost = _mAbstractGCosts[currentId];
+
+      if (currentId == sourceId)
+      {
+        for (int i = 0; i < sourceClusterData.entrances.length; i++)
+        {
+          relax(currentId, sourceClusterData.firstAbstractId + i, currentGCost + _mSourceCosts[i], targetX, targetY);
+        }
+
+        relax(currentId, targetId, currentGCost + directCost, targetX, targetY);
+        continue;
+      }
+
+      int clusterIndex = _mAbstractClusters[currentId];
+      Cluster cluster = _mClusters[clusterIndex];
+      int numEntrances = cluster.entrances.length;
+      int slot = currentId - cluster.firstAbstractId;
+
+      // Other transitions of the same cluster
+      for (int i = 0; i < numEntrances; i++)
+      {
+        if (i != slot)
+        {
+          relax(currentId, cluster.firstAbstractId + i, currentGCost + cluster.entranceCosts[slot * numEntrances + i], targetX, targetY);
+        }
+      }
+
+      // Transitions of the neighboring clusters
+      for (int edge = _mInterOffsets[currentId]; edge < _mInterOffsets[currentId + 1]; edge++)
+      {
+        relax(currentId, _mInterTargets[edge], currentGCost + _mInterCosts[edge], targetX, targetY);
+      }
+
+      if (clusterIndex == targetCluster)
+      {
+        relax(currentId, targetId, currentGCost + _mTargetCosts[slot], targetX, targetY);
+      }
+    }
+
+    return false;
+  }
+
+  /*
+   * Results of the last search
+   */
+
+  // The total edge cost of the path, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mPathCost;
+  }
+
+  // The number of abstract nodes expanded by the last search
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  // The number of nodes of the abstract path (the source, the transitions and the target), or 0 if no path was found
+  public int getNumWaypoints()
+  {
+    return _mNumWaypoints;
+  }
+
+  // The nodes of the abstract path. Only the first getNumWaypoints() entries are valid.
+  public int[] getWaypoints()
+  {
+    return _mWaypoints;
+  }
+
+  /*
+   * Fill in the nodes of one segment of the abstract path (between waypoints segment and segment + 1) and copy them into the path
+   * array, both waypoints included. Returns the number of nodes in the segment. Only the first pathOut.length nodes are copied if
+   * the array is too small.
+   */
+  public int refineSegment(int segment, int[] pathOut)
+  {
+    if ((segment < 0) || (segment + 1 >= _mNumWaypoints))
+    {
+      throw new IndexOutOfBoundsException("Segment: " + segment + ", Number of Segments: " + Math.max(0, _mNumWaypoints - 1));
+    }
+
+    int[] segmentPath = segmentPath(_mWaypoints[segment], _mWaypoints[segment + 1]);
+    System.arraycopy(segmentPath, 0, pathOut, 0, Math.min(segmentPath.length, pathOut.length));
+
+    return segmentPath.length;
+  }
+
+  /*
+   * The number of nodes of the full path, refining every segment the first time it is called after a search
+   */
+  public int getPathLength()
+  {
+    refinePath();
+    return _mPathLength;
+  }
+
+  // The nodes of the full path from the source to the target. Only the first getPathLength() entries are valid.
+  public int[] getPath()
+  {
+    refinePath();
+    return _mPath;
+  }
+
+  /*
+   * Statistics
+   */
+  public int getNumAbstractNodes()
+  {
+    rebuild();
+    return _mNumAbstractNodes;
+  }
+
+  public int getNumCachedPaths()
+  {
+    int numCachedPaths = 0;
+
+    for (Cluster cluster : _mClusters)
+    {
+      numCachedPaths += cluster.pathCache.size();
+    }
+
+    return numCachedPaths;
+  }
+
+  private void relax(int fromId, int toId, double gCost, double targetX, double targetY)
+  {
+    if ((gCost >= _mAbstractGCosts[toId]) || _mAbstractClosed[toId])
+    {
+      return;
+    }
+
+    double hCost = 0.0;
+    if (toId < _mNumAbstractNodes)
+    {
+      double dx = _mGraph.getNodeX(_mAbstractNodes[toId]) - targetX;
+      double dy = _mGraph.getNodeY(_mAbstractNodes[toId]) - targetY;
+      hCost = Math.sqrt(dx * dx + dy * dy);
+    }
+
+    _mAbstractGCosts[toId] = gCost;
+    _mAbstractParents[toId] = fromId;
+    _mAbstractOpenSet.addOrDecreaseKey(toId, gCost + hCost);
+  }
+
+  /*
+   * Walk back from the target of the abstract search and store the node of each abstract node on the path
+   */
+  private void buildWaypoints(int source, int target)
+  {
+    int sourceId = _mNumAbstractNodes;
+    int targetId = _mNumAbstractNodes + 1;
+
+    int numIds = 0;
+    for (int id = targetId; id != -1; id = _mAbstractParents[id])
+    {
+      numIds++;
+    }
+
+    if (numIds > _mWaypoints.length)
+    {
+      _mWaypoints = new int[Math.max(numIds, _mWaypoints.length * 2)];
+    }
+
+    int position = numIds;
+    for (int id = targetId; id != -1; id = _mAbstractParents[id])
+    {
+      _mWaypoints[--position] = (id == sourceId) ? source : ((id == targetId) ? target : _mAbstractNodes[id]);
+    }
+
+    // The source or target may be a transition itself, in which case it appears twice in a row
+    _mNumWaypoints = 0;
+    for (int i = 0; i < numIds; i++)
+    {
+      if ((_mNumWaypoints == 0) || (_mWaypoints[_mNumWaypoints - 1] != _mWaypoints[i]))
+      {
+        _mWaypoints[_mNumWaypoints++] = _mWaypoints[i];
+      }
+    }
+
+    _mPathCost = _mAbstractGCosts[targetId];
+  }
+
+  /*
+   * Fill in every segment of the abstract path
+   */
+  private void refinePath()
+  {
+    if (_mPathLength >= 0)
+    {
+      return;
+    }
+
+    _mPathLength = 0;
+
+    if (_mNumWaypoints == 0)
+    {
+      return;
+    }
+
+    _mPath[_mPathLength++] = _mWaypoints[0];
+
+    for (int segment = 0; segment + 1 < _mNumWaypoints; segment++)
+    {
+      int[] segmentPath = segmentPath(_mWaypoints[segment], _mWaypoints[segment + 1]);
+
+      if (_mPathLength + segmentPath.length > _mPath.length)
+      {
+        _mPath = Arrays.copyOf(_mPath, Math.max(_mPathLength + segmentPath.length, _mPath.length * 2));
+      }
+
+      // The first node of the segment is the last node of the previous one
+      System.arraycopy(segmentPath, 1, _mPath, _mPathLength, segmentPath.length - 1);
+      _mPathLength += segmentPath.length - 1;
+    }
+  }
+
+  /*
+   * The nodes from one waypoint to the next. Waypoints in different clusters are the two ends of a transition, the path between
+   * waypoints in the same cluster is found inside the cluster and cached if both are transitions.
+   */
+  private int[] segmentPath(int from, int to)
+  {
+    int clusterIndex = clusterOf(from);
+
+    if (clusterIndex != clusterOf(to))
+    {
+      return new int[] { from, to };
+    }
+
+    Cluster cluster = _mClusters[clusterIndex];
+    boolean cacheable = _mAbstractIds.containsKey(from) && _mAbstractIds.containsKey(to);
+    Long key = (((long) from) << 32) | (to & 0xffffffffL);
+
+    if (cacheable)
+    {
+      int[] cachedPath = cluster.pathCache.get(key);
+      if (cachedPath != null)
+      {
+        return cachedPath;
+      }
+    }
+
+    searchCluster(cluster, from, to);
+
+    int targetLocalIndex = localIndex(cluster, to);
+    int length = 0;
+    for (int localIndex = targetLocalIndex; localIndex != -1; localIndex = _mLocalParents[localIndex])
+    {
+      length++;
+    }
+
+    int[] path = new int[length];
+    for (int localIndex = targetLocalIndex; localIndex != -1; localIndex = _mLocalParents[localIndex])
+    {
+      path[--length] = nodeOf(cluster, localIndex);
+    }
+
+    if (cacheable)
+    {
+      cluster.pathCache.put(key, path);
+    }
+
+    return path;
+  }
+
+  /*
+   * Dijkstra's search from the source node that never leaves its cluster. Stops once the target is reached, or searches the whole
+   * cluster if the target is -1. The costs and parents are left in the local arrays.
+   */
+  private void searchCluster(Cluster cluster, int source, int target)
+  {
+    Arrays.fill(_mLocalCosts, Double.POSITIVE_INFINITY);
+    Arrays.fill(_mLocalParents, -1);
+    _mLocalOpenSet.clear();
+
+    int sourceLocalIndex = localIndex(cluster, source);
+    _mLocalCosts[sourceLocalIndex] = 0.0;
+    _mLocalOpenSet.add(sourceLocalIndex, 0.0);
+
+    while (!_mLocalOpenSet.isEmpty())
+    {
+      int currentLocalIndex = _mLocalOpenSet.remove();
+      int currentNode = nodeOf(cluster, currentLocalIndex);
+
+      if (currentNode == target)
+      {
+        return;
+      }
+
+      double currentCost = _mLocalCosts[currentLocalIndex];
+      int numNeighbors = readNeighbors(currentNode);
+
+      for (int i = 0; i < numNeighbors; i++)
+      {
+        int neighborIndex = _mNeighborIndices[i];
+
+        if (clusterOf(neighborIndex) != cluster.index)
+        {
+          continue;
+        }
+
+        int neighborLocalIndex = localIndex(cluster, neighborIndex);
+        double cost = currentCost + _mEdgeCosts[i];
+
+        if (cost < _mLocalCosts[neighborLocalIndex])
+        {
+          _mLocalCosts[neighborLocalIndex] = cost;
+          _mLocalParents[neighborLocalIndex] = currentLocalIndex;
+          _mLocalOpenSet.addOrDecreaseKey(neighborLocalIndex, cost);
+        }
+      }
+    }
+  }
+
+  /*
+   * Copy the costs of the last cluster search to each transition of the cluster
+   */
+  private double[] copyEntranceCosts(Cluster cluster, double[] costs)
+  {
+    if (costs.length < cluster.entrances.length)
+    {
+      costs = new double[cluster.entrances.length];
+    }
+
+    for (int i = 0; i < cluster.entrances.length; i++)
+    {
+      costs[i] = _mLocalCosts[localIndex(cluster, cluster.entrances[i])];
+    }
+
+    return costs;
+  }
+
+  /*
+   * The cost of the cheapest path inside the cluster between every pair of its transitions
+   */
+  private void computeEntranceCosts(Cluster cluster)
+  {
+    int numEntrances = cluster.entrances.length;
+    cluster.entranceCosts = new double[numEntrances * numEntrances];
+
+    for (int i = 0; i < numEntrances; i++)
+    {
+      searchCluster(cluster, cluster.entrances[i], -1);
+
+      for (int j = 0; j < numEntrances; j++)
+      {
+        cluster.entranceCosts[i * numEntrances + j] = _mLocalCosts[localIndex(cluster, cluster.entrances[j])];
+      }
+    }
+  }
+
+  /*
+   * Find the transitions along a border. The border is walked from (row, col) in steps of (stepRow, stepCol) and each crossing edge
+   * goes from a node on the border to the node (crossRow, crossCol) away from it.
+   *
+   * NOTE: On an 8 connected grid, a diagonal edge can also cross the border. It only gets a transition of its own when neither of
+   *       the straight crossings next to it connects its two nodes along the border (e.g., both cut corners are blocked), since
+   *       otherwise the run of straight crossings already connects them. The diagonals at the ends of the border go to the corner
+   *       clusters and are found by scanCorner().
+   */
+  private void scanBorder(Border border, int row, int col, int stepRow, int stepCol, int crossRow, int crossCol)
+  {
+    border.clear();
+
+    int runStart = -1;
+    for (int step = 0; step <= _mClusterSize; step++)
+    {
+      boolean open = (step < _mClusterSize) && isCrossingOpen(row + step * stepRow, col + step * stepCol, crossRow, crossCol);
+
+      if (open && (runStart < 0))
+      {
+        runStart = step;
+      }
+      else if (!open && (runStart >= 0))
+      {
+        int runEnd = step - 1;
+
+        if (runEnd - runStart + 1 < MAX_SINGLE_TRANSITION_RUN)
+        {
+          int middle = (runStart + runEnd) / 2;
+          addTransition(border, row + middle * stepRow, col + middle * stepCol, crossRow, crossCol);
+        }
+        else
+        {
+          addTransition(border, row + runStart * stepRow, col + runStart * stepCol, crossRow, crossCol);
+          addTransition(border, row + runEnd * stepRow, col + runEnd * stepCol, crossRow, crossCol);
+        }
+
+        runStart = -1;
+      }
+    }
+
+    for (int step = 0; step < _mClusterSize; step++)
+    {
+      int borderRow = row + step * stepRow;
+      int borderCol = col + step * stepCol;
+
+      for (int side = -1; side <= 1; side += 2)
+      {
+        if ((step + side < 0) || (step + side >= _mClusterSize))
+        {
+          continue;
+        }
+
+        int diagonalRow = crossRow + side * stepRow;
+        int diagonalCol = crossCol + side * stepCol;
+
+        if (!isCrossingOpen(borderRow, borderCol, diagonalRow, diagonalCol))
+        {
+          continue;
+        }
+
+        // Either cross straight and then move along the far side, or move along the near side and then cross straight
+        boolean coveredHere = isCrossingOpen(borderRow, borderCol, crossRow, crossCol) && isCrossingOpen(borderRow + crossRow, borderCol + crossCol, side * stepRow, side * stepCol);
+        boolean coveredNext = isCrossingOpen(borderRow, borderCol, side * stepRow, side * stepCol) && isCrossingOpen(borderRow + side * stepRow, borderCol + side * stepCol, crossRow, crossCol);
+
+        if (!coveredHere && !coveredNext)
+        {
+          addTransition(border, borderRow, borderCol, diagonalRow, diagonalCol);
+        }
+      }
+    }
+
+    border.dirty = false;
+  }
+
+  /*
+   * Find the transitions of the two diagonal edges that cross the corner whose north west node is (row, col)
+   */
+  private void scanCorner(Border border, int row, int col)
+  {
+    border.clear();
+
+    if (isCrossingOpen(row, col, 1, 1))
+    {
+      addTransition(border, row, col, 1, 1);
+    }
+    if (isCrossingOpen(row, col + 1, 1, -1))
+    {
+      addTransition(border, row, col + 1, 1, -1);
+    }
+
+    border.dirty = false;
+  }
+
+  private boolean isCrossingOpen(int row, int col, int crossRow, int crossCol)
+  {
+    if ((row < 0) || (col < 0) || (row >= _mRows) || (col >= _mCols) || (row + crossRow < 0) || (row + crossRow >= _mRows) || (col + crossCol < 0) || (col + crossCol >= _mCols))
+    {
+      return false;
+    }
+
+    int from = row * _mCols + col;
+    int to = (row + crossRow) * _mCols + col + crossCol;
+
+    return _mGraph.isNodePresent(from) && _mGraph.isNodePresent(to) && (edgeCost(from, to) != Double.POSITIVE_INFINITY);
+  }
+
+  private void addTransition(Border border, int row, int col, int crossRow, int crossCol)
+  {
+    int from = row * _mCols + col;
+    int to = (row + crossRow) * _mCols + col + crossCol;
+
+    border.add(from, to, edgeCost(from, to), edgeCost(to, from));
+  }
+
+  /*
+   * Mark the clusters on both sides of a border that was scanned again. The transitions of the clusters are only found again (and
+   * the costs between them computed again) if they changed.
+   */
+  private void markTouchedClusters(int clusterRowA, int clusterColA, int clusterRowB, int clusterColB)
+  {
+    markClusterIfEntrancesChanged(clusterRowA * _mClusterCols + clusterColA);
+    markClusterIfEntrancesChanged(clusterRowB * _mClusterCols + clusterColB);
+
+    // The two other clusters at a corner may be connected by the other diagonal
+    if ((clusterRowA != clusterRowB) && (clusterColA != clusterColB))
+    {
+      markClusterIfEntrancesChanged(clusterRowA * _mClusterCols + clusterColB);
+      markClusterIfEntrancesChanged(clusterRowB * _mClusterCols + clusterColA);
+    }
+  }
+
+  private void markClusterIfEntrancesChanged(int clusterIndex)
+  {
+    Cluster cluster = _mClusters[clusterIndex];
+
+    if (!cluster.dirty && !Arrays.equals(cluster.entrances, collectEntrances(clusterIndex)))
+    {
+      cluster.dirty = true;
+    }
+  }
+
+  /*
+   * The nodes of the cluster that are the end of a transition on any of its borders, sorted and without duplicates
+   */
+  private int[] collectEntrances(int clusterIndex)
+  {
+    int clusterRow = clusterIndex / _mClusterCols;
+    int clusterCol = clusterIndex % _mClusterCols;
+
+    int[] entrances = new int[0];
+    int numEntrances = 0;
+
+    for (int row = clusterRow - 1; row <= clusterRow; row++)
+    {
+      for (int col = clusterCol - 1; col <= clusterCol; col++)
+      {
+        if ((row < 0) || (col < 0))
+        {
+          continue;
+        }
+
+        int neighborIndex = row * _mClusterCols + col;
+        Border[] borders = { (row == clusterRow) ? _mEastBorders[neighborIndex] : null, (col == clusterCol) ? _mSouthBorders[neighborIndex] : null, _mCornerBorders[neighborIndex] };
+
+        for (Border border : borders)
+        {
+          if (border == null)
+          {
+            continue;
+          }
+
+          for (int i = 0; i < border.numNodes; i++)
+          {
+            if (clusterOf(border.nodes[i]) == clusterIndex)
+            {
+              if (numEntrances == entrances.length)
+              {
+                entrances = Arrays.copyOf(entrances, Math.max(8, entrances.length * 2));
+              }
+              entrances[numEntrances++] = border.nodes[i];
+            }
+          }
+        }
+      }
+    }
+
+    Arrays.sort(entrances, 0, numEntrances);
+
+    int numUnique = 0;
+    for (int i = 0; i < numEntrances; i++)
+    {
+      if ((numUnique == 0) || (entrances[numUnique - 1] != entrances[i]))
+      {
+        entrances[numUnique++] = entrances[i];
+      }
+    }
+
+    return Arrays.copyOf(entrances, numUnique);
+  }
+
+  /*
+   * Number the transitions of every cluster and build the edges between the clusters
+   */
+  private void buildAbstractGraph()
+  {
+    _mNumAbstractNodes = 0;
+    for (Cluster cluster : _mClusters)
+    {
+      cluster.firstAbstractId = _mNumAbstractNodes;
+      _mNumAbstractNodes += cluster.entrances.length;
+    }
+
+    _mAbstractNodes = new int[_mNumAbstractNodes];
+    _mAbstractClusters = new int[_mNumAbstractNodes];
+    _mAbstractIds.clear();
+
+    for (Cluster cluster : _mClusters)
+    {
+      for (int i = 0; i < cluster.entrances.length; i++)
+      {
+        int id = cluster.firstAbstractId + i;
+        _mAbstractNodes[id] = cluster.entrances[i];
+        _mAbstractClusters[id] = cluster.index;
+        _mAbstractIds.put(cluster.entrances[i], id);
+      }
+    }
+
+    // Count the edges leaving each abstract node, then turn the counts into offsets and fill in the edges
+    _mInterOffsets = new int[_mNumAbstractNodes + 1];
+    for (int pass = 0; pass < 2; pass++)
+    {
+      for (int clusterIndex = 0; clusterIndex < _mClusters.length; clusterIndex++)
+      {
+        addInterEdges(_mEastBorders[clusterIndex], pass);
+        addInterEdges(_mSouthBorders[clusterIndex], pass);
+        addInterEdges(_mCornerBorders[clusterIndex], pass);
+      }
+
+      if (pass == 0)
+      {
+        for (int id = 0; id < _mNumAbstractNodes; id++)
+        {
+          _mInterOffsets[id + 1] += _mInterOffsets[id];
+        }
+
+        _mInterTargets = new int[_mInterOffsets[_mNumAbstractNodes]];
+        _mInterCosts = new double[_mInterTargets.length];
+      }
+    }
+
+    // The offsets were used as write positions, shift them back
+    for (int id = _mNumAbstractNodes; id > 0; id--)
+    {
+      _mInterOffsets[id] = _mInterOffsets[id - 1];
+    }
+    _mInterOffsets[0] = 0;
+
+    int numIds = _mNumAbstractNodes + 2;
+    _mAbstractGCosts = new double[numIds];
+    _mAbstractParents = new int[numIds];
+    _mAbstractClosed = new boolean[numIds];
+    _mAbstractOpenSet = new IndexedMinHeap(numIds);
+  }
+
+  private void addInterEdges(Border border, int pass)
+  {
+    if (border == null)
+    {
+      return;
+    }
+
+    for (int i = 0; i < border.numNodes; i += 2)
+    {
+      int idA = _mAbstractIds.get(border.nodes[i]);
+      int idB = _mAbstractIds.get(border.nodes[i + 1]);
+
+      addInterEdge(idA, idB, border.costs[i], pass);
+      addInterEdge(idB, idA, border.costs[i + 1], pass);
+    }
+  }
+
+  private void addInterEdge(int fromId, int toId, double cost, int pass)
+  {
+    if (cost == Double.POSITIVE_INFINITY)
+    {
+      return;
+    }
+
+    if (pass == 0)
+    {
+      _mInterOffsets[fromId + 1]++;
+    }
+    else
+    {
+      int edge = _mInterOffsets[fromId]++;
+      _mInterTargets[edge] = toId;
+      _mInterCosts[edge] = cost;
+    }
+  }
+
+  private void markBorderDirty(Border border)
+  {
+    if (border != null)
+    {
+      border.dirty = true;
+      _mAbstractGraphDirty = true;
+    }
+  }
+
+  /*
+   * The cost of the edge from one node to another, or infinity if there is no such edge
+   */
+  private double edgeCost(int from, int to)
+  {
+    int numNeighbors = readNeighbors(from);
+
+    for (int i = 0; i < numNeighbors; i++)
+    {
+      if (_mNeighborIndices[i] == to)
+      {
+        return _mEdgeCosts[i];
+      }
+    }
+
+    return Double.POSITIVE_INFINITY;
+  }
+
+  private int readNeighbors(int nodeIndex)
+  {
+    int numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+
+    if (numNeighbors > _mNeighborIndices.length)
+    {
+      _mNeighborIndices = new int[numNeighbors];
+      _mEdgeCosts = new double[numNeighbors];
+      numNeighbors = _mGraph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+    }
+
+    return numNeighbors;
+  }
+
+  /*
+   * The cluster of a node, or -1 if the node is outside of the grid
+   */
+  private int clusterOf(int nodeIndex)
+  {
+    if ((nodeIndex < 0) || (nodeIndex >= _mRows * _mCols))
+    {
+      return -1;
+    }
+
+    return ((nodeIndex / _mCols) / _mClusterSize) * _mClusterCols + (nodeIndex % _mCols) / _mClusterSize;
+  }
+
+  private int localIndex(Cluster cluster, int nodeIndex)
+  {
+    return ((nodeIndex / _mCols) - cluster.startRow) * _mClusterSize + (nodeIndex % _mCols) - cluster.startCol;
+  }
+
+  private int nodeOf(Cluster cluster, int localIndex)
+  {
+    return (cluster.startRow + localIndex / _mClusterSize) * _mCols + cluster.startCol + localIndex % _mClusterSize;
+  }
+
+  /*
+   * A square block of the grid, its transitions, the costs between them and the cached paths between them
+   */
+  private class Cluster
+  {
+    int                    index;
+    int                    startRow, startCol;
+    boolean                dirty           = true;
+
+    int[]                  entrances       = new int[0];
+    double[]               entranceCosts   = new double[0];                      // entranceCosts[i * entrances.length + j] is the cost from i to j
+    int                    firstAbstractId;
+
+    HashMap<Long, int[]>   pathCache       = new HashMap<Long, int[]>();
+
+    Cluster(int startRow, int startCol)
+    {
+      this.index = (startRow / _mClusterSize) * _mClusterCols + startCol / _mClusterSize;
+      this.startRow = startRow;
+      this.startCol = startCol;
+    }
+  }
+
+  /*
+   * The transitions across a border, stored as pairs of nodes with the cost of the edge in each direction
+   */
+  private static class Border
+  {
+    int[]    nodes = new int[4];
+    double[] costs = new double[4];
+    int      numNodes;
+    boolean  dirty = true;
+
+    void clear()
+    {
+      numNodes = 0;
+    }
+
+    void add(int from, int to, double cost, double oppositeCost)
+    {
+      if (numNodes + 2 > nodes.length)
+      {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        costs = Arrays.copyOf(costs, costs.length * 2);
+      }
+
+      nodes[numNodes] = from;
+      costs[numNodes++] = cost;
+      nodes[numNodes] = to;
+      costs[numNodes++] = oppositeCost;
+    }
+  }
+}
@@ -0,0 +1,337 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IHeuristic;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.ArrayList;
+
+/*
+ * An A* search that keeps all of its per node data in primitive arrays indexed by node index.
+ *
+ * Compared to AStar, which stores its costs in hash maps of boxed values and creates a Tuple for every node added to its open
+ * list, this search does not create any objects while it runs:
+ *
+ * - The G costs and parents are stored in double[] and int[] arrays sized to the node capacity of the graph.
+ *
+ * - The open list is an IndexedMinHeap of node indices, so a node that is reached by a cheaper path has its F cost lowered in
+ *   place (decrease-key) rather than being added a second time.
+ *
+ * - Rather than clearing the arrays before each search, every search gets a new generation number. A node's G cost and parent
+ *   are only valid if the node was stamped with the current generation, so starting a new search is O(1).
+ *
+ * The arrays are held by a PathSearchContext. Each instance of this class has its own context, while PathSearchContext.search()
+ * can be used to run searches with a shared (e.g., per thread) context instead.
+ *
+ * A search can also be run a little at a time with start() and resume(), which stops once a budget of node expansions or time is
+ * used up and picks up where it left off on the next call (see PathSearchScheduler for running many searches under one budget).
+ *
+ * The heuristic is the straight line distance between the node positions, the same as AStar, unless another IHeuristic (e.g., a
+ * LandmarkHeuristic) is given to the constructor. Unlike AStar, this search does not
+ * call update() on the nodes and edges, so it is meant for games rather than for displaying the progress of the search.
+ *
+ * NOTE: One instance can be used for any number of searches on the same graph, but only by one thread at a time.
+ */
+public class IndexedAStar
+{
+  // The number of node expansions between reads of the clock when a search has a time budget
+  static final int          TIME_CHECK_INTERVAL = 16;
+
+  private IIndexedGraph     _mGraph;
+  private PathSearchContext _mContext;
+  private IHeuristic        _mHeuristic;
+
+  // The path found by the last search
+  private int[]             _mPath = new int[16];
+  private int               _mPathLength;
+
+  public IndexedAStar(IIndexedGraph graph)
+  {
+    this(graph, null);
+  }
+
+  /*
+   * Search with a heuristic other than the straight line distance, or the straight line distance if the heuristic is null
+   */
+  public IndexedAStar(IIndexedGraph graph, IHeuristic heuristic)
+  {
+    _mGraph = graph;
+    _mHeuristic = heuristic;
+    _mContext = new PathSearchContext(graph.getNodeCapacity());
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  public IHeuristic getHeuristic()
+  {
+    return _mHeuristic;
+  }
+
+  /*
+   * Search for the cheapest path from the source node to the target node. Returns true if a path was found.
+   */
+  public boolean Search(int source, int target)
+  {
+    start(source, target);
+
+    return resume(Integer.MAX_VALUE, Long.MAX_VALUE) == SearchStatus.FOUND;
+  }
+
+  /*
+   * Start a search from the source node to the target node without expanding any nodes. Call resume() (e.g., once per frame) to
+   * run the search a little at a time.
+   */
+  public void start(int source, int target)
+  {
+    _mPathLength = 0;
+    start(_mGraph, _mContext, source, target, _mHeuristic);
+  }
+
+  /*
+   * Continue the search started by start() until it finishes or has expanded maxExpandedNodes nodes or run for maxNanoseconds,
+   * whichever comes first. Returns IN_PROGRESS if the search has not finished yet, otherwise FOUND or NOT_FOUND, after which the
+   * path can be read the same as after Search().
+   */
+  public SearchStatus resume(int maxExpandedNodes, long maxNanoseconds)
+  {
+    SearchStatus status = resume(_mGraph, _mContext, maxExpandedNodes, maxNanoseconds);
+
+    if ((status == SearchStatus.FOUND) && (_mPathLength == 0))
+    {
+      copyPath();
+    }
+
+    return status;
+  }
+
+  public SearchStatus getStatus()
+  {
+    return _mContext.getStatus();
+  }
+
+  /*
+   * Copy the path out of the context, growing the path array if it is too small
+   */
+  private void copyPath()
+  {
+    _mPathLength = _mContext.copyPath(_mPath);
+
+    // Grow the path array if it was too small and copy the path again
+    if (_mPathLength > _mPath.length)
+    {
+      _mPath = new int[Math.max(_mPathLength, _mPath.length * 2)];
+      _mContext.copyPath(_mPath);
+    }
+  }
+
+  /*
+   * Results of the last search
+   */
+  public int getPathLength()
+  {
+    return _mPathLength;
+  }
+
+  // The node indices of the path from the source to the target. Only the first getPathLength() entries are valid.
+  public int[] getPath()
+  {
+    return _mPath;
+  }
+
+  // The total edge cost of the path, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mContext.getPathCost();
+  }
+
+  public int getNumExpandedNodes()
+  {
+    return _mContext.getNumExpandedNodes();
+  }
+
+  public ArrayList<Integer> getPathAsListOfNodeIds()
+  {
+    ArrayList<Integer> pathOfNodeIds = new ArrayList<Integer>(_mPathLength);
+
+    for (int i = 0; i < _mPathLength; i++)
+    {
+      pathOfNodeIds.add(_mPath[i]);
+    }
+
+    return pathOfNodeIds;
+  }
+
+  /*
+   * Run A* from the source node to the target node using the scratch memory of the context. Returns true if a path was found, in
+   * which case the path can be copied out of the context with copyPath().
+   */
+  static boolean search(IIndexedGraph graph, PathSearchContext context, int source, int target)
+  {
+    start(graph, context, source, target);
+
+    return resume(graph, context, Integer.MAX_VALUE, Long.MAX_VALUE) == SearchStatus.FOUND;
+  }
+
+  /*
+   * Start a search from the source node to the target node without expanding any nodes. The status of the context is IN_PROGRESS
+   * unless the source or target node does not exist (or the heuristic shows the target can not be reached).
+   */
+  static void start(IIndexedGraph graph, PathSearchContext context, int source, int target)
+  {
+    start(graph, context, source, target, null);
+  }
+
+  /*
+   * Start a search that uses the heuristic, or the straight line distance if the heuristic is null
+   */
+  static void start(IIndexedGraph graph, PathSearchContext context, int source, int target, IHeuristic heuristic)
+  {
+    context.reset(graph.getNodeCapacity());
+    context._mHeuristic = heuristic;
+
+    if (!graph.isNodePresent(source) || !graph.isNodePresent(target))
+    {
+      return;
+    }
+
+    context._mTarget = target;
+    context._mTargetX = graph.getNodeX(target);
+    context._mTargetY = graph.getNodeY(target);
+
+    double sourceHCost = heuristic(graph, heuristic, source, target, context._mTargetX, context._mTargetY);
+
+    // The target can not be reached if the heuristic of the source is infinite
+    if (sourceHCost == Double.POSITIVE_INFINITY)
+    {
+      return;
+    }
+
+    context._mStatus = SearchStatus.IN_PROGRESS;
+
+    context.visit(source, 0.0, sourceHCost, -1);
+    context._mOpenSet.add(source, sourceHCost);
+  }
+
+  /*
+   * Continue the search of the context until a path is found, the open list runs out, or the budget is used up, whichever comes
+   * first. Returns IN_PROGRESS if the budget ran out, in which case the search can be resumed later (e.g., in the next frame).
+   *
+   * NOTE: At least one node is expanded per call. The clock is only read every TIME_CHECK_INTERVAL expansions, so the time
+   *       budget can be overrun by the time it takes to expand that many nodes. Pass Long.MAX_VALUE to only limit the number of
+   *       expansions and Integer.MAX_VALUE to only limit the time.
+   */
+  static SearchStatus resume(IIndexedGraph graph, PathSearchContext context, int maxExpandedNodes, long maxNanoseconds)
+  {
+    if (context._mStatus != SearchStatus.IN_PROGRESS)
+    {
+      return context._mStatus;
+    }
+
+    boolean timeLimited = maxNanoseconds != Long.MAX_VALUE;
+    long startTime = timeLimited ? System.nanoTime() : 0;
+
+    int target = context._mTarget;
+    IHeuristic heuristic = context._mHeuristic;
+    double targetX = context._mTargetX;
+    double targetY = context._mTargetY;
+
+    double[] gCosts = context._mGCosts;
+    double[] hCosts = context._mHCosts;
+    int[] parents = context._mParents;
+    boolean[] closed = context._mClosed;
+    IndexedMinHeap openSet = context._mOpenSet;
+
+    for (int numExpandedNodes = 0; !openSet.isEmpty(); numExpandedNodes++)
+    {
+      if (numExpandedNodes > 0)
+      {
+        if ((numExpandedNodes >= maxExpandedNodes) || (timeLimited && ((numExpandedNodes % TIME_CHECK_INTERVAL) == 0) && (System.nanoTime() - startTime >= maxNanoseconds)))
+        {
+          return SearchStatus.IN_PROGRESS;
+        }
+      }
+
+      int currentNodeIndex = openSet.remove();
+
+      // If current node index with next lowest F score is the same as the target index, a path was found.
+      if (currentNodeIndex == target)
+      {
+        context._mPathFound = true;
+        context._mStatus = SearchStatus.FOUND;
+        return SearchStatus.FOUND;
+      }
+
+      closed[currentNodeIndex] = true;
+      context._mNumExpandedNodes++;
+
+      double currentGCost = gCosts[currentNodeIndex];
+      int numNeighbors = context.readNeighbors(graph, currentNodeIndex);
+      int[] neighborIndices = context._mNeighborIndices;
+      double[] edgeCosts = context._mEdgeCosts;
+
+      for (int i = 0; i < numNeighbors; i++)
+      {
+        int neighborIndex = neighborIndices[i];
+        double tentativeGScore = currentGCost + edgeCosts[i];
+
+        if (context.isVisited(neighborIndex))
+        {
+          // The neighbor has been reached before, skip it unless this path to it is cheaper
+          if (tentativeGScore >= gCosts[neighborIndex])
+          {
+            continue;
+          }
+
+          double fScore = tentativeGScore + hCosts[neighborIndex];
+          gCosts[neighborIndex] = tentativeGScore;
+          parents[neighborIndex] = currentNodeIndex;
+
+          if (closed[neighborIndex])
+          {
+            // NOTE: This only happens when the heuristic overestimates the cost of some edge (i.e., it is not consistent).
+            //       The same as AStar, the node is opened again so the cheaper path is not lost.
+            closed[neighborIndex] = false;
+            openSet.add(neighborIndex, fScore);
+          }
+          else
+          {
+            openSet.decreaseKey(neighborIndex, fScore);
+          }
+        }
+        else
+        {
+          double hCost = heuristic(graph, heuristic, neighborIndex, target, targetX, targetY);
+
+          // NOTE: A heuristic is infinite for a node the target can not be reached from (see IHeuristic). Such a node is never
+          //       added to the open list, otherwise all of their F costs would be infinite and they would be expanded in any order.
+          if (hCost == Double.POSITIVE_INFINITY)
+          {
+            continue;
+          }
+
+          context.visit(neighborIndex, tentativeGScore, hCost, currentNodeIndex);
+          openSet.add(neighborIndex, tentativeGScore + hCost);
+        }
+      }
+    }
+
+    context._mStatus = SearchStatus.NOT_FOUND;
+    return SearchStatus.NOT_FOUND;
+  }
+
+  private static double heuristic(IIndexedGraph graph, IHeuristic heuristic, int nodeIndex, int target, double targetX, double targetY)
+  {
+    if (heuristic != null)
+    {
+      return heuristic.estimateCost(nodeIndex, target);
+    }
+
+    double dx = graph.getNodeX(nodeIndex) - targetX;
+    double dy = graph.getNodeY(nodeIndex) - targetY;
+
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
@@ -0,0 +1,508 @@
+package game.framework.planning;
+
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.ArrayList;
+
+/*
+ * Jump Point Search (Harabor and Grastien) for uniform cost grids, i.e., the grid graphs created by GraphGenerator.generateGridGraph()
+ * with obstacles made by removing nodes, or any other WalkabilityGrid.
+ *
+ * On a grid, A* expands every cell of the large areas where many paths have the same cost. Jump Point Search only adds the cells
+ * where the optimal path may have to change direction (the jump points) to the open list. From each expanded cell it moves in a
+ * straight line (the jump) past every cell that any other path of the same cost could also reach, and stops when it reaches the
+ * target, a cell next to an obstacle (a forced neighbor) or, for diagonal and horizontal jumps, a cell from which a jump in one of
+ * the directions that make up the move finds a jump point. The path found has the same cost as the one found by A*, but far fewer
+ * cells are expanded.
+ *
+ * Both kinds of grid graph GraphGenerator can build are supported:
+ *
+ * - 8 neighbors: every diagonal move between walkable cells is allowed, even when both cells next to the move are blocked. This is
+ *   the same as a grid graph from GraphGenerator, which connects every pair of diagonal nodes and only removes the nodes of obstacles.
+ *
+ * - 4 neighbors: only horizontal and vertical moves are allowed. Horizontal jumps look for jump points above and below every cell
+ *   they pass and vertical jumps stop where a horizontal opening appears beside them.
+ *
+ * The cost of a move is the distance between the cell positions, rounded to a float the same as Position2D.distance(), so the path
+ * costs are the same as the ones of the grid graph. The heuristic is the octile distance (or Manhattan distance for 4 neighbors),
+ * which never overestimates the cost of a path on the grid.
+ *
+ * The node indices are the same as the ones of the grid graph (row * cols + col). The search uses the arrays of a PathSearchContext,
+ * so once they are large enough a search does not create any objects.
+ *
+ * NOTE: One instance can be used for any number of searches on the same grid, but only by one thread at a time. Changing the
+ *       walkability of a cell between searches is fine since nothing is precomputed.
+ */
+public class JumpPointSearch
+{
+  private WalkabilityGrid   _mGrid;
+  private boolean           _mFourNeighbors;
+  private PathSearchContext _mContext;
+
+  // The cost of a move in each direction
+  private double            _mColCost, _mRowCost, _mDiagonalCost;
+
+  // The target of the current search
+  private int               _mTargetRow, _mTargetCol;
+
+  // The path found by the last search with every cell along the path, not only the jump points
+  private int[]             _mPath = new int[16];
+  private int               _mPathLength;
+  private double            _mPathCost;
+
+  public JumpPointSearch(WalkabilityGrid grid, boolean fourNeighbors)
+  {
+    _mGrid = grid;
+    _mFourNeighbors = fourNeighbors;
+    _mContext = new PathSearchContext(grid.getNumCells());
+
+    double colSpacing = grid.getColSpacing();
+    double rowSpacing = grid.getRowSpacing();
+
+    _mColCost = (float) Math.abs(colSpacing);
+    _mRowCost = (float) Math.abs(rowSpacing);
+    _mDiagonalCost = (float) Math.sqrt(colSpacing * colSpacing + rowSpacing * rowSpacing);
+  }
+
+  public WalkabilityGrid getGrid()
+  {
+    return _mGrid;
+  }
+
+  public boolean isFourNeighbors()
+  {
+    return _mFourNeighbors;
+  }
+
+  /*
+   * Search for the cheapest path from the source cell to the target cell. Returns true if a path was found.
+   */
+  public boolean Search(int source, int target)
+  {
+    PathSearchContext context = _mContext;
+    context.reset(_mGrid.getNumCells());
+
+    _mPathLength = 0;
+    _mPathCost = Double.POSITIVE_INFINITY;
+
+    if (!_mGrid.isWalkable(source) || !_mGrid.isWalkable(target))
+    {
+      return false;
+    }
+
+    _mTargetRow = _mGrid.getRow(target);
+    _mTargetCol = _mGrid.getCol(target);
+
+    int[] parents = context._mParents;
+    IndexedMinHeap openSet = context._mOpenSet;
+
+    context.visit(source, 0.0, heuristic(_mGrid.getRow(source), _mGrid.getCol(source)), -1);
+    openSet.add(source, context._mHCosts[source]);
+
+    while (!openSet.isEmpty())
+    {
+      int currentNodeIndex = openSet.remove();
+
+      if (currentNodeIndex == target)
+      {
+        context._mTarget = target;
+        context._mPathFound = true;
+        context._mStatus = SearchStatus.FOUND;
+        buildPath();
+        return true;
+      }
+
+      context._mClosed[currentNodeIndex] = true;
+      context._mNumExpandedNodes++;
+
+      int row = _mGrid.getRow(currentNodeIndex);
+      int col = _mGrid.getCol(currentNodeIndex);
+      int parent = parents[currentNodeIndex];
+
+      if (parent == -1)
+      {
+        // The source cell has no direction of travel, so every direction is searched
+        for (int dRow = -1; dRow <= 1; dRow++)
+        {
+          for (int dCol = -1; dCol <= 1; dCol++)
+          {
+            if (((dRow != 0) || (dCol != 0)) && (!_mFourNeighbors || (dRow == 0) || (dCol == 0)))
+            {
+              jumpAndAdd(currentNodeIndex, row, col, dRow, dCol);
+            }
+          }
+        }
+      }
+      else if (_mFourNeighbors)
+      {
+        expandFourNeighbors(currentNodeIndex, row, col, Integer.signum(row - _mGrid.getRow(parent)), Integer.signum(col - _mGrid.getCol(parent)));
+      }
+      else
+      {
+        expandEightNeighbors(currentNodeIndex, row, col, Integer.signum(row - _mGrid.getRow(parent)), Integer.signum(col - _mGrid.getCol(parent)));
+      }
+    }
+
+    return false;
+  }
+
+  /*
+   * Results of the last search
+   */
+  public int getPathLength()
+  {
+    return _mPathLength;
+  }
+
+  // The cells of the path from the source to the target. Only the first getPathLength() entries are valid.
+  public int[] getPath()
+  {
+    return _mPath;
+  }
+
+  // The total cost of the path, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mPathCost;
+  }
+
+  // The number of jump points expanded by the last search
+  public int getNumExpandedNodes()
+  {
+    return _mContext.getNumExpandedNodes();
+  }
+
+  public ArrayList<Integer> getPathAsListOfNodeIds()
+  {
+    ArrayList<Integer> pathOfNodeIds = new ArrayList<Integer>(_mPathLength);
+
+    for (int i = 0; i < _mPathLength; i++)
+    {
+      pathOfNodeIds.add(_mPath[i]);
+    }
+
+    return pathOfNodeIds;
+  }
+
+  /*
+   * Search the natural and forced neighbors of a cell reached by moving in the direction (dRow, dCol) on an 8 neighbor grid
+   */
+  private void expandEightNeighbors(int nodeIndex, int row, int col, int dRow, int dCol)
+  {
+    if ((dRow != 0) && (dCol != 0))
+    {
+      jumpAndAdd(nodeIndex, row, col, 0, dCol);
+      jumpAndAdd(nodeIndex, row, col, dRow, 0);
+      jumpAndAdd(nodeIndex, row, col, dRow, dCol);
+
+      if (!_mGrid.isWalkable(row, col - dCol))
+      {
+        jumpAndAdd(nodeIndex, row, col, dRow, -dCol);
+      }
+      if (!_mGrid.isWalkable(row - dRow, col))
+      {
+        jumpAndAdd(nodeIndex, row, col, -dRow, dCol);
+      }
+    }
+    else if (dCol != 0)
+    {
+      jumpAndAdd(nodeIndex, row, col, 0, dCol);
+
+      if (!_mGrid.isWalkable(row + 1, col))
+      {
+        jumpAndAdd(nodeIndex, row, col, 1, dCol);
+      }
+      if (!_mGrid.isWalkable(row - 1, col))
+      {
+        jumpAndAdd(nodeIndex, row, col, -1, dCol);
+      }
+    }
+    else
+    {
+      jumpAndAdd(nodeIndex, row, col, dRow, 0);
+
+      if (!_mGrid.isWalkable(row, col + 1))
+      {
+        jumpAndAdd(nodeIndex, row, col, dRow, 1);
+      }
+      if (!_mGrid.isWalkable(row, col - 1))
+      {
+        jumpAndAdd(nodeIndex, row, col, dRow, -1);
+      }
+    }
+  }
+
+  /*
+   * Search the natural and forced neighbors of a cell reached by moving in the direction (dRow, dCol) on a 4 neighbor grid
+   */
+  private void expandFourNeighbors(int nodeIndex, int row, int col, int dRow, int dCol)
+  {
+    if (dCol != 0)
+    {
+      jumpAndAdd(nodeIndex, row, col, 0, dCol);
+      jumpAndAdd(nodeIndex, row, col, 1, 0);
+      jumpAndAdd(nodeIndex, row, col, -1, 0);
+    }
+    else
+    {
+      jumpAndAdd(nodeIndex, row, col, dRow, 0);
+
+      if (_mGrid.isWalkable(row, col + 1) && !_mGrid.isWalkable(row - dRow, col + 1))
+      {
+        jumpAndAdd(nodeIndex, row, col, 0, 1);
+      }
+      if (_mGrid.isWalkable(row, col - 1) && !_mGrid.isWalkable(row - dRow, col - 1))
+      {
+        jumpAndAdd(nodeIndex, row, col, 0, -1);
+      }
+    }
+  }
+
+  /*
+   * Jump from the cell in the direction (dRow, dCol) and add the jump point found (if any) to the open list
+   */
+  private void jumpAndAdd(int nodeIndex, int row, int col, int dRow, int dCol)
+  {
+    int jumpPoint;
+
+    if (_mFourNeighbors)
+    {
+      jumpPoint = (dCol != 0) ? jumpHorizontalFour(row, col, dCol) : jumpVerticalFour(row, col, dRow);
+    }
+    else
+    {
+      jumpPoint = ((dRow != 0) && (dCol != 0)) ? jumpDiagonal(row, col, dRow, dCol) : jumpStraight(row, col, dRow, dCol);
+    }
+
+    if (jumpPoint == -1)
+    {
+      return;
+    }
+
+    PathSearchContext context = _mContext;
+
+    // Every cell between the two jump points is in a straight line, so the cost is the number of steps times the cost of one step
+    int jumpRow = _mGrid.getRow(jumpPoint);
+    int jumpCol = _mGrid.getCol(jumpPoint);
+    int numSteps = Math.max(Math.abs(jumpRow - row), Math.abs(jumpCol - col));
+    double stepCost = ((dRow != 0) && (dCol != 0)) ? _mDiagonalCost : ((dCol != 0) ? _mColCost : _mRowCost);
+    double tentativeGScore = context._mGCosts[nodeIndex] + numSteps * stepCost;
+
+    if (context.isVisited(jumpPoint))
+    {
+      if (tentativeGScore >= context._mGCosts[jumpPoint])
+      {
+        return;
+      }
+
+      double fScore = tentativeGScore + context._mHCosts[jumpPoint];
+      context._mGCosts[jumpPoint] = tentativeGScore;
+      context._mParents[jumpPoint] = nodeIndex;
+
+      if (context._mClosed[jumpPoint])
+      {
+        context._mClosed[jumpPoint] = false;
+        context._mOpenSet.add(jumpPoint, fScore);
+      }
+      else
+      {
+        context._mOpenSet.decreaseKey(jumpPoint, fScore);
+      }
+    }
+    else
+    {
+      double hCost = heuristic(jumpRow, jumpCol);
+      context.visit(jumpPoint, tentativeGScore, hCost, nodeIndex);
+      context._mOpenSet.add(jumpPoint, tentativeGScore + hCost);
+    }
+  }
+
+  /*
+   * Jump horizontally or vertically on an 8 neighbor grid. Returns the jump point or -1 if an obstacle or the edge of the grid is hit first.
+   */
+  private int jumpStraight(int row, int col, int dRow, int dCol)
+  {
+    while (true)
+    {
+      row += dRow;
+      col += dCol;
+
+      if (!_mGrid.isWalkable(row, col))
+      {
+        return -1;
+      }
+
+      if ((row == _mTargetRow) && (col == _mTargetCol))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+
+      // Stop next to an obstacle, since the cell diagonally past it can only be reached optimally through this cell
+      if (dCol != 0)
+      {
+        if ((!_mGrid.isWalkable(row + 1, col) && _mGrid.isWalkable(row + 1, col + dCol)) || (!_mGrid.isWalkable(row - 1, col) && _mGrid.isWalkable(row - 1, col + dCol)))
+        {
+          return _mGrid.getCellIndex(row, col);
+        }
+      }
+      else
+      {
+        if ((!_mGrid.isWalkable(row, col + 1) && _mGrid.isWalkable(row + dRow, col + 1)) || (!_mGrid.isWalkable(row, col - 1) && _mGrid.isWalkable(row + dRow, col - 1)))
+        {
+          return _mGrid.getCellIndex(row, col);
+        }
+      }
+    }
+  }
+
+  /*
+   * Jump diagonally on an 8 neighbor grid. Returns the jump point or -1 if an obstacle or the edge of the grid is hit first.
+   */
+  private int jumpDiagonal(int row, int col, int dRow, int dCol)
+  {
+    while (true)
+    {
+      row += dRow;
+      col += dCol;
+
+      if (!_mGrid.isWalkable(row, col))
+      {
+        return -1;
+      }
+
+      if ((row == _mTargetRow) && (col == _mTargetCol))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+
+      if ((!_mGrid.isWalkable(row, col - dCol) && _mGrid.isWalkable(row + dRow, col - dCol)) || (!_mGrid.isWalkable(row - dRow, col) && _mGrid.isWalkable(row - dRow, col + dCol)))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+
+      // Stop if a straight jump in either direction that makes up the diagonal move finds a jump point
+      if ((jumpStraight(row, col, 0, dCol) != -1) || (jumpStraight(row, col, dRow, 0) != -1))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+    }
+  }
+
+  /*
+   * Jump horizontally on a 4 neighbor grid, stopping at any cell from which a vertical jump finds a jump point
+   */
+  private int jumpHorizontalFour(int row, int col, int dCol)
+  {
+    while (true)
+    {
+      col += dCol;
+
+      if (!_mGrid.isWalkable(row, col))
+      {
+        return -1;
+      }
+
+      if (((row == _mTargetRow) && (col == _mTargetCol)) || (jumpVerticalFour(row, col, 1) != -1) || (jumpVerticalFour(row, col, -1) != -1))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+    }
+  }
+
+  /*
+   * Jump vertically on a 4 neighbor grid, stopping where a cell beside the jump becomes walkable after being blocked
+   */
+  private int jumpVerticalFour(int row, int col, int dRow)
+  {
+    while (true)
+    {
+      row += dRow;
+
+      if (!_mGrid.isWalkable(row, col))
+      {
+        return -1;
+      }
+
+      if ((row == _mTargetRow) && (col == _mTargetCol))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+
+      if ((_mGrid.isWalkable(row, col + 1) && !_mGrid.isWalkable(row - dRow, col + 1)) || (_mGrid.isWalkable(row, col - 1) && !_mGrid.isWalkable(row - dRow, col - 1)))
+      {
+        return _mGrid.getCellIndex(row, col);
+      }
+    }
+  }
+
+  /*
+   * The octile distance to the target, or the Manhattan distance on a 4 neighbor grid
+   */
+  private double heuristic(int row, int col)
+  {
+    int numRows = Math.abs(_mTargetRow - row);
+    int numCols = Math.abs(_mTargetCol - col);
+
+    if (_mFourNeighbors)
+    {
+      return numCols * _mColCost + numRows * _mRowCost;
+    }
+
+    int numDiagonals = Math.min(numRows, numCols);
+    return numDiagonals * _mDiagonalCost + (numCols - numDiagonals) * _mColCost + (numRows - numDiagonals) * _mRowCost;
+  }
+
+  /*
+   * Fill in the cells between the jump points of the path found and add up the cost of every step in order, the same as the cost of
+   * the path in the grid graph.
+   */
+  private void buildPath()
+  {
+    PathSearchContext context = _mContext;
+    int[] parents = context._mParents;
+
+    // Count the cells of the path first
+    int length = 1;
+    for (int nodeIndex = context._mTarget; parents[nodeIndex] != -1; nodeIndex = parents[nodeIndex])
+    {
+      int parent = parents[nodeIndex];
+      length += Math.max(Math.abs(_mGrid.getRow(nodeIndex) - _mGrid.getRow(parent)), Math.abs(_mGrid.getCol(nodeIndex) - _mGrid.getCol(parent)));
+    }
+
+    if (length > _mPath.length)
+    {
+      _mPath = new int[Math.max(length, _mPath.length * 2)];
+    }
+
+    // Walk back from the target, stepping one cell at a time towards each parent jump point
+    int position = length - 1;
+    _mPath[position] = context._mTarget;
+
+    for (int nodeIndex = context._mTarget; parents[nodeIndex] != -1; nodeIndex = parents[nodeIndex])
+    {
+      int parent = parents[nodeIndex];
+      int row = _mGrid.getRow(nodeIndex);
+      int col = _mGrid.getCol(nodeIndex);
+      int dRow = Integer.signum(_mGrid.getRow(parent) - row);
+      int dCol = Integer.signum(_mGrid.getCol(parent) - col);
+
+      while ((row != _mGrid.getRow(parent)) || (col != _mGrid.getCol(parent)))
+      {
+        row += dRow;
+        col += dCol;
+        _mPath[--position] = _mGrid.getCellIndex(row, col);
+      }
+    }
+
+    _mPathLength = length;
+
+    _mPathCost = 0.0;
+    for (int i = 1; i < length; i++)
+    {
+      boolean changesRow = _mGrid.getRow(_mPath[i]) != _mGrid.getRow(_mPath[i - 1]);
+      boolean changesCol = _mGrid.getCol(_mPath[i]) != _mGrid.getCol(_mPath[i - 1]);
+
+      _mPathCost += (changesRow && changesCol) ? _mDiagonalCost : (changesCol ? _mColCost : _mRowCost);
+    }
+  }
+}
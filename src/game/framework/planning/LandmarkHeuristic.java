@@ -0,0 +1,384 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IHeuristic;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/*
+ * A landmark (ALT) heuristic, which is much closer to the real path cost than the straight line distance on maps with walls.
+ *
+ * A few nodes are picked as landmarks and the cost of the cheapest path from every landmark to every node is computed once, with
+ * Dijkstra's algorithm. By the triangle inequality, the cost of a path from a node n to a target t is at least
+ * |d(L, t) - d(L, n)| for any landmark L, and the heuristic is the largest of these bounds (or the straight line distance, if it is
+ * larger). Behind a wall, where the straight line distance is far too low, the landmark bounds still follow the corridors, so a
+ * search expands far fewer nodes.
+ *
+ * The landmarks are picked far apart: the first is the node furthest from an arbitrary node, and each next one is the node
+ * furthest from all the landmarks picked so far, so they end up near the edges and corners of the map.
+ *
+ * The distances are kept in one float array with the distances of each node next to each other, so reading the distances of a
+ * node and the target only touches two cache lines. The table takes 4 bytes per node per landmark (e.g., 64 MB for 16 landmarks on
+ * a 1024 x 1024 grid) and can be saved to a file with save() and read back with load(), so it only has to be built once per level.
+ *
+ * NOTE: The distances are only valid for the graph they were computed on. Removing nodes or raising edge costs keeps the heuristic
+ *       admissible (only weaker), but adding nodes or edges or lowering edge costs can make it overestimate, so it should be
+ *       rebuilt once the graph has changed that way. The graph must be undirected. Nodes that can not be reached from any landmark
+ *       (e.g., a separate island) only get the straight line distance.
+ */
+public class LandmarkHeuristic implements IHeuristic
+{
+  public static final int     DEFAULT_NUM_LANDMARKS = 8;
+
+  // The first int of a saved table ("LMRK") and the version of the file format
+  private static final int    FILE_MAGIC            = 0x4C4D524B;
+  private static final int    FILE_VERSION          = 1;
+
+  private IIndexedGraph       _mGraph;
+  private int                 _mNodeCapacity;
+  private int[]               _mLandmarks;
+  private int                 _mNumLandmarks;
+
+  // The distance from landmark k to node n is at [n * _mNumLandmarks + k], infinity if there is no path
+  private float[]             _mDistances;
+
+  // Subtracted from every estimate, so the rounding of the distances to float can not make the heuristic overestimate
+  private double              _mRoundingSlack;
+
+  /*
+   * Pick the landmarks and compute their distances to every node of the graph (one Dijkstra search over the whole graph per
+   * landmark, plus one to find the first landmark)
+   */
+  public LandmarkHeuristic(IIndexedGraph graph, int numLandmarks)
+  {
+    if (numLandmarks < 1)
+    {
+      throw new IllegalArgumentException("A landmark heuristic needs at least one landmark (" + numLandmarks + ").");
+    }
+
+    _mGraph = graph;
+    _mNodeCapacity = graph.getNodeCapacity();
+
+    int firstNode = 0;
+    while ((firstNode < _mNodeCapacity) && !graph.isNodePresent(firstNode))
+    {
+      firstNode++;
+    }
+
+    if (firstNode == _mNodeCapacity)
+    {
+      throw new IllegalArgumentException("A landmark heuristic can not be built for a graph without nodes.");
+    }
+
+    double[] distances = new double[_mNodeCapacity];
+    double[] distancesToClosestLandmark = new double[_mNodeCapacity];
+    Arrays.fill(distancesToClosestLandmark, Double.POSITIVE_INFINITY);
+
+    IndexedMinHeap openSet = new IndexedMinHeap(_mNodeCapacity);
+    boolean[] closed = new boolean[_mNodeCapacity];
+
+    computeDistances(firstNode, distances, openSet, closed);
+    int nextLandmark = findFurthestNode(distances);
+
+    _mLandmarks = new int[numLandmarks];
+    _mDistances = new float[_mNodeCapacity * numLandmarks];
+
+    double maxDistance = 0.0;
+
+    for (int k = 0; k < numLandmarks; k++)
+    {
+      _mLandmarks[k] = nextLandmark;
+      computeDistances(nextLandmark, distances, openSet, closed);
+
+      for (int nodeIndex = 0; nodeIndex < _mNodeCapacity; nodeIndex++)
+      {
+        double distance = distances[nodeIndex];
+        _mDistances[nodeIndex * numLandmarks + k] = (float) distance;
+
+        if (distance < distancesToClosestLandmark[nodeIndex])
+        {
+          distancesToClosestLandmark[nodeIndex] = distance;
+        }
+
+        if ((distance != Double.POSITIVE_INFINITY) && (distance > maxDistance))
+        {
+          maxDistance = distance;
+        }
+      }
+
+      nextLandmark = findFurthestNode(distancesToClosestLandmark);
+    }
+
+    _mNumLandmarks = numLandmarks;
+    _mRoundingSlack = roundingSlack(maxDistance);
+  }
+
+  public LandmarkHeuristic(IIndexedGraph graph)
+  {
+    this(graph, DEFAULT_NUM_LANDMARKS);
+  }
+
+  /*
+   * Used by load()
+   */
+  private LandmarkHeuristic(IIndexedGraph graph, int[] landmarks, float[] distances)
+  {
+    _mGraph = graph;
+    _mNodeCapacity = graph.getNodeCapacity();
+    _mLandmarks = landmarks;
+    _mNumLandmarks = landmarks.length;
+    _mDistances = distances;
+
+    double maxDistance = 0.0;
+    for (int i = 0; i < distances.length; i++)
+    {
+      if ((distances[i] != Float.POSITIVE_INFINITY) && (distances[i] > maxDistance))
+      {
+        maxDistance = distances[i];
+      }
+    }
+
+    _mRoundingSlack = roundingSlack(maxDistance);
+  }
+
+  public double estimateCost(int nodeIndex, int targetIndex)
+  {
+    float[] distances = _mDistances;
+    int numLandmarks = _mNumLandmarks;
+    int nodeOffset = nodeIndex * numLandmarks;
+    int targetOffset = targetIndex * numLandmarks;
+
+    float bound = 0.0f;
+
+    // NOTE: If only one of the two nodes can be reached from a landmark, there is no path between them and the bound is infinity,
+    //       which is correct. If neither can be reached, the difference is NaN and the comparison skips it.
+    for (int k = 0; k < numLandmarks; k++)
+    {
+      float difference = distances[targetOffset + k] - distances[nodeOffset + k];
+
+      if (difference < 0.0f)
+      {
+        difference = -difference;
+      }
+
+      if (difference > bound)
+      {
+        bound = difference;
+      }
+    }
+
+    double dx = _mGraph.getNodeX(nodeIndex) - _mGraph.getNodeX(targetIndex);
+    double dy = _mGraph.getNodeY(nodeIndex) - _mGraph.getNodeY(targetIndex);
+    double straightLineDistance = Math.sqrt(dx * dx + dy * dy);
+
+    return Math.max(straightLineDistance, bound - _mRoundingSlack);
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  public int getNumLandmarks()
+  {
+    return _mNumLandmarks;
+  }
+
+  public int getLandmark(int k)
+  {
+    return _mLandmarks[k];
+  }
+
+  // The cost of the cheapest path from landmark k to the node, infinity if there is none
+  public double getLandmarkDistance(int k, int nodeIndex)
+  {
+    return _mDistances[nodeIndex * _mNumLandmarks + k];
+  }
+
+  /*
+   * Save the landmarks and distances to a file, to be read back with load() for the same graph
+   */
+  public void save(File file) throws IOException
+  {
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+
+    try
+    {
+      output.writeInt(FILE_MAGIC);
+      output.writeInt(FILE_VERSION);
+      output.writeInt(_mNodeCapacity);
+      output.writeInt(_mNumLandmarks);
+
+      for (int k = 0; k < _mNumLandmarks; k++)
+      {
+        output.writeInt(_mLandmarks[k]);
+      }
+
+      // Convert the distances to bytes a block at a time rather than writing them one float at a time
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+      int floatsPerBlock = buffer.capacity() / 4;
+
+      for (int i = 0; i < _mDistances.length; i += floatsPerBlock)
+      {
+        int count = Math.min(floatsPerBlock, _mDistances.length - i);
+
+        buffer.clear();
+        buffer.asFloatBuffer().put(_mDistances, i, count);
+        output.write(buffer.array(), 0, count * 4);
+      }
+    }
+    finally
+    {
+      output.close();
+    }
+  }
+
+  /*
+   * Read a table saved with save(). Throws an IOException if the file is not a landmark table or was saved for a graph with a
+   * different node capacity.
+   */
+  public static LandmarkHeuristic load(File file, IIndexedGraph graph) throws IOException
+  {
+    DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+
+    try
+    {
+      if (input.readInt() != FILE_MAGIC)
+      {
+        throw new IOException("Not a landmark table: " + file);
+      }
+
+      int version = input.readInt();
+      if (version != FILE_VERSION)
+      {
+        throw new IOException("Unsupported landmark table version " + version + ": " + file);
+      }
+
+      int nodeCapacity = input.readInt();
+      int numLandmarks = input.readInt();
+
+      if (nodeCapacity != graph.getNodeCapacity())
+      {
+        throw new IOException("The landmark table was saved for a graph with " + nodeCapacity + " nodes, not " + graph.getNodeCapacity() + ": " + file);
+      }
+
+      if (numLandmarks < 1)
+      {
+        throw new IOException("Invalid number of landmarks " + numLandmarks + ": " + file);
+      }
+
+      int[] landmarks = new int[numLandmarks];
+      for (int k = 0; k < numLandmarks; k++)
+      {
+        landmarks[k] = input.readInt();
+      }
+
+      float[] distances = new float[nodeCapacity * numLandmarks];
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+      int floatsPerBlock = buffer.capacity() / 4;
+
+      for (int i = 0; i < distances.length; i += floatsPerBlock)
+      {
+        int count = Math.min(floatsPerBlock, distances.length - i);
+
+        input.readFully(buffer.array(), 0, count * 4);
+        buffer.clear();
+        buffer.asFloatBuffer().get(distances, i, count);
+      }
+
+      return new LandmarkHeuristic(graph, landmarks, distances);
+    }
+    finally
+    {
+      input.close();
+    }
+  }
+
+  /*
+   * Dijkstra's algorithm from the source node to every node of the graph. Nodes that can not be reached get infinity.
+   */
+  private void computeDistances(int source, double[] distances, IndexedMinHeap openSet, boolean[] closed)
+  {
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(closed, false);
+    openSet.clear();
+
+    int[] neighborIndices = new int[8];
+    double[] edgeCosts = new double[8];
+
+    distances[source] = 0.0;
+    openSet.add(source, 0.0);
+
+    while (!openSet.isEmpty())
+    {
+      int currentNodeIndex = openSet.remove();
+      closed[currentNodeIndex] = true;
+
+      double currentDistance = distances[currentNodeIndex];
+      int numNeighbors = _mGraph.getNeighbors(currentNodeIndex, neighborIndices, edgeCosts);
+
+      if (numNeighbors > neighborIndices.length)
+      {
+        neighborIndices = new int[numNeighbors];
+        edgeCosts = new double[numNeighbors];
+        numNeighbors = _mGraph.getNeighbors(currentNodeIndex, neighborIndices, edgeCosts);
+      }
+
+      for (int i = 0; i < numNeighbors; i++)
+      {
+        int neighborIndex = neighborIndices[i];
+        double distance = currentDistance + edgeCosts[i];
+
+        if (closed[neighborIndex] || (distance >= distances[neighborIndex]))
+        {
+          continue;
+        }
+
+        distances[neighborIndex] = distance;
+        openSet.addOrDecreaseKey(neighborIndex, distance);
+      }
+    }
+  }
+
+  /*
+   * The node with the largest finite distance
+   */
+  private int findFurthestNode(double[] distances)
+  {
+    int furthestNode = -1;
+    double furthestDistance = -1.0;
+
+    for (int nodeIndex = 0; nodeIndex < distances.length; nodeIndex++)
+    {
+      double distance = distances[nodeIndex];
+
+      if ((distance != Double.POSITIVE_INFINITY) && (distance > furthestDistance))
+      {
+        furthestDistance = distance;
+        furthestNode = nodeIndex;
+      }
+    }
+
+    return furthestNode;
+  }
+
+  /*
+   * Each distance rounded to float is off by at most half a float ulp of the largest distance, so a difference of two of them is
+   * off by at most one ulp
+   */
+  private static double roundingSlack(double maxDistance)
+  {
+    return Math.ulp((float) maxDistance);
+  }
+}
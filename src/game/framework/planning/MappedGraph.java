@@ -0,0 +1,366 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * A read only graph stored in a binary file, which is memory mapped rather than read so it can be searched as soon as it is
+ * opened.
+ *
+ * Building the navigation graph of a large level with GraphGenerator and AddEdge() creates millions of node and edge objects and
+ * can take seconds. Instead, the graph can be written once (e.g., when the level is made) with write(), and opened when the level
+ * is loaded. Opening only maps the file into memory, nothing is parsed or copied, and the operating system reads the pages of the
+ * file as the searches touch them, so only the parts of the map that are searched are read from disk.
+ *
+ * The file holds the same data as a GraphCSR, every section starting at a multiple of 8 bytes (all values are little endian):
+ *
+ *   header    magic "NAVG", version, node capacity, number of nodes, number of edges, section offsets (HEADER_SIZE bytes)
+ *   x, y      double[node capacity] each, the node positions
+ *   costs     double[number of edges], the edge costs
+ *   offsets   int[node capacity + 1], the edges leaving node n are in [offsets[n], offsets[n + 1])
+ *   targets   int[number of edges], the destination node of each edge
+ *   present   one bit per node index, set if the node is present
+ *
+ * The node indices are the same as in the graph that was written. The values are read straight from the mapped file, which can be
+ * done by several threads at once (e.g., the workers of a PathQueryService).
+ *
+ * NOTE: A mapped file can not be larger than 2 GB (about 60 million edges). The mapping stays valid until the MappedGraph is
+ *       garbage collected, so the file can not be deleted or replaced on some platforms (e.g., Windows) while it is open.
+ */
+public class MappedGraph implements IIndexedGraph
+{
+  // The first int of a graph file ("NAVG") and the version of the file format
+  private static final int       FILE_MAGIC   = 0x4E415647;
+  private static final int       FILE_VERSION = 1;
+  private static final int       HEADER_SIZE  = 64;
+
+  private final MappedByteBuffer _mBuffer;
+  private final int              _mNodeCapacity;
+  private final int              _mNumNodes;
+  private final int              _mNumEdges;
+
+  // The byte offset of each section in the file
+  private final int              _mXOffset;
+  private final int              _mYOffset;
+  private final int              _mCostsOffset;
+  private final int              _mOffsetsOffset;
+  private final int              _mTargetsOffset;
+  private final int              _mPresentOffset;
+
+  /*
+   * Map a file written by write(). Throws an IOException if the file is not a graph file.
+   */
+  public MappedGraph(File file) throws IOException
+  {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+    try
+    {
+      FileChannel channel = randomAccessFile.getChannel();
+
+      if (channel.size() < HEADER_SIZE)
+      {
+        throw new IOException("Not a graph file: " + file);
+      }
+
+      if (channel.size() > Integer.MAX_VALUE)
+      {
+        throw new IOException("The graph file is too large to be mapped (" + channel.size() + " bytes): " + file);
+      }
+
+      // NOTE: The mapping stays valid after the channel is closed
+      _mBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      _mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    finally
+    {
+      randomAccessFile.close();
+    }
+
+    if (_mBuffer.getInt(0) != FILE_MAGIC)
+    {
+      throw new IOException("Not a graph file: " + file);
+    }
+
+    int version = _mBuffer.getInt(4);
+    if (version != FILE_VERSION)
+    {
+      throw new IOException("Unsupported graph file version " + version + ": " + file);
+    }
+
+    _mNodeCapacity = _mBuffer.getInt(8);
+    _mNumNodes = _mBuffer.getInt(12);
+    _mNumEdges = _mBuffer.getInt(16);
+    _mXOffset = _mBuffer.getInt(20);
+    _mYOffset = _mBuffer.getInt(24);
+    _mCostsOffset = _mBuffer.getInt(28);
+    _mOffsetsOffset = _mBuffer.getInt(32);
+    _mTargetsOffset = _mBuffer.getInt(36);
+    _mPresentOffset = _mBuffer.getInt(40);
+
+    if (_mPresentOffset + (_mNodeCapacity + 7) / 8 > _mBuffer.capacity())
+    {
+      throw new IOException("The graph file is truncated: " + file);
+    }
+  }
+
+  /*
+   * Write the nodes and edges of the graph (a Graph, GraphCSR, GridGraph, etc.) to a file that can be opened with the constructor
+   */
+  public static void write(IIndexedGraph graph, File file) throws IOException
+  {
+    int nodeCapacity = graph.getNodeCapacity();
+    int[] neighborIndices = new int[8];
+    double[] edgeCosts = new double[8];
+
+    // First, count the nodes and edges so the size of each section is known
+    int numNodes = 0;
+    long numEdges = 0;
+    for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+    {
+      if (graph.isNodePresent(nodeIndex))
+      {
+        numNodes++;
+        numEdges += graph.getNeighbors(nodeIndex, neighborIndices, edgeCosts);
+      }
+    }
+
+    long xOffset = HEADER_SIZE;
+    long yOffset = xOffset + 8L * nodeCapacity;
+    long costsOffset = yOffset + 8L * nodeCapacity;
+    long offsetsOffset = costsOffset + 8L * numEdges;
+    long targetsOffset = align(offsetsOffset + 4L * (nodeCapacity + 1));
+    long presentOffset = align(targetsOffset + 4L * numEdges);
+    long fileSize = presentOffset + (nodeCapacity + 7) / 8;
+
+    if (fileSize > Integer.MAX_VALUE)
+    {
+      throw new IOException("The graph is too large for a graph file (" + numEdges + " edges).");
+    }
+
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+    try
+    {
+      randomAccessFile.setLength(0);
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(FILE_MAGIC);
+      buffer.putInt(FILE_VERSION);
+      buffer.putInt(nodeCapacity);
+      buffer.putInt(numNodes);
+      buffer.putInt((int) numEdges);
+      buffer.putInt((int) xOffset);
+      buffer.putInt((int) yOffset);
+      buffer.putInt((int) costsOffset);
+      buffer.putInt((int) offsetsOffset);
+      buffer.putInt((int) targetsOffset);
+      buffer.putInt((int) presentOffset);
+      pad(buffer, channel, HEADER_SIZE);
+
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+      {
+        putDouble(buffer, channel, graph.isNodePresent(nodeIndex) ? graph.getNodeX(nodeIndex) : 0.0);
+      }
+
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+      {
+        putDouble(buffer, channel, graph.isNodePresent(nodeIndex) ? graph.getNodeY(nodeIndex) : 0.0);
+      }
+
+      // The costs and targets sections both need the edges of every node, so the neighbors are read once for each section
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+      {
+        int numNeighbors = readNeighbors(graph, nodeIndex, neighborIndices, edgeCosts);
+        if (numNeighbors > neighborIndices.length)
+        {
+          neighborIndices = new int[numNeighbors];
+          edgeCosts = new double[numNeighbors];
+          readNeighbors(graph, nodeIndex, neighborIndices, edgeCosts);
+        }
+
+        for (int i = 0; i < numNeighbors; i++)
+        {
+          putDouble(buffer, channel, edgeCosts[i]);
+        }
+      }
+
+      int edgeOffset = 0;
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+      {
+        putInt(buffer, channel, edgeOffset);
+        edgeOffset += readNeighbors(graph, nodeIndex, neighborIndices, edgeCosts);
+      }
+      putInt(buffer, channel, edgeOffset);
+      pad(buffer, channel, targetsOffset);
+
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex++)
+      {
+        int numNeighbors = readNeighbors(graph, nodeIndex, neighborIndices, edgeCosts);
+
+        for (int i = 0; i < numNeighbors; i++)
+        {
+          putInt(buffer, channel, neighborIndices[i]);
+        }
+      }
+      pad(buffer, channel, presentOffset);
+
+      for (int nodeIndex = 0; nodeIndex < nodeCapacity; nodeIndex += 8)
+      {
+        int bits = 0;
+        for (int bit = 0; (bit < 8) && (nodeIndex + bit < nodeCapacity); bit++)
+        {
+          if (graph.isNodePresent(nodeIndex + bit))
+          {
+            bits |= 1 << bit;
+          }
+        }
+
+        if (!buffer.hasRemaining())
+        {
+          flush(buffer, channel);
+        }
+        buffer.put((byte) bits);
+      }
+
+      flush(buffer, channel);
+    }
+    finally
+    {
+      randomAccessFile.close();
+    }
+  }
+
+  /*
+   * IIndexedGraph methods
+   */
+  public int getNodeCapacity()
+  {
+    return _mNodeCapacity;
+  }
+
+  public boolean isNodePresent(int nodeIndex)
+  {
+    if ((nodeIndex < 0) || (nodeIndex >= _mNodeCapacity))
+    {
+      return false;
+    }
+
+    return (_mBuffer.get(_mPresentOffset + (nodeIndex >>> 3)) & (1 << (nodeIndex & 7))) != 0;
+  }
+
+  public double getNodeX(int nodeIndex)
+  {
+    return _mBuffer.getDouble(_mXOffset + 8 * nodeIndex);
+  }
+
+  public double getNodeY(int nodeIndex)
+  {
+    return _mBuffer.getDouble(_mYOffset + 8 * nodeIndex);
+  }
+
+  public int getNeighbors(int nodeIndex, int[] neighborIndices, double[] edgeCosts)
+  {
+    int start = _mBuffer.getInt(_mOffsetsOffset + 4 * nodeIndex);
+    int numEdges = _mBuffer.getInt(_mOffsetsOffset + 4 * (nodeIndex + 1)) - start;
+    int numToCopy = Math.min(numEdges, Math.min(neighborIndices.length, edgeCosts.length));
+
+    int targetPosition = _mTargetsOffset + 4 * start;
+    int costPosition = _mCostsOffset + 8 * start;
+
+    for (int i = 0; i < numToCopy; i++)
+    {
+      neighborIndices[i] = _mBuffer.getInt(targetPosition + 4 * i);
+      edgeCosts[i] = _mBuffer.getDouble(costPosition + 8 * i);
+    }
+
+    return numEdges;
+  }
+
+  public int numNodes()
+  {
+    return _mNumNodes;
+  }
+
+  public int numEdges()
+  {
+    return _mNumEdges;
+  }
+
+  /*
+   * Ask the operating system to read the whole file into memory now, rather than page by page as it is searched (e.g., during a
+   * loading screen)
+   */
+  public void preload()
+  {
+    _mBuffer.load();
+  }
+
+  public String toString()
+  {
+    return "MappedGraph: " + _mNumNodes + " nodes, " + _mNumEdges + " edges";
+  }
+
+  // Removed nodes have no edges in the file, whatever the graph returns for them
+  private static int readNeighbors(IIndexedGraph graph, int nodeIndex, int[] neighborIndices, double[] edgeCosts)
+  {
+    return graph.isNodePresent(nodeIndex) ? graph.getNeighbors(nodeIndex, neighborIndices, edgeCosts) : 0;
+  }
+
+  private static long align(long offset)
+  {
+    return (offset + 7) & ~7L;
+  }
+
+  /*
+   * Helpers to write through the buffer, which is written to the channel whenever it is full
+   */
+  private static void putInt(ByteBuffer buffer, FileChannel channel, int value) throws IOException
+  {
+    if (buffer.remaining() < 4)
+    {
+      flush(buffer, channel);
+    }
+    buffer.putInt(value);
+  }
+
+  private static void putDouble(ByteBuffer buffer, FileChannel channel, double value) throws IOException
+  {
+    if (buffer.remaining() < 8)
+    {
+      flush(buffer, channel);
+    }
+    buffer.putDouble(value);
+  }
+
+  // Write zeros until the file position (including what is in the buffer) reaches the offset
+  private static void pad(ByteBuffer buffer, FileChannel channel, long offset) throws IOException
+  {
+    while (channel.position() + buffer.position() < offset)
+    {
+      if (!buffer.hasRemaining())
+      {
+        flush(buffer, channel);
+      }
+      buffer.put((byte) 0);
+    }
+  }
+
+  private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException
+  {
+    buffer.flip();
+    while (buffer.hasRemaining())
+    {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
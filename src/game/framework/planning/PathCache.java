@@ -0,0 +1,255 @@
+package game.framework.planning;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * A bounded cache of paths in front of AStar, for agents that ask for the same source to target paths over and over (e.g., patrol
+ * routes or spawners heading to the last cell the player was seen in).
+ *
+ * The paths are kept in least recently used order. When the cache holds more than its maximum number of paths or its paths take
+ * more than its memory limit, the least recently used paths are dropped. Searches that found no path are cached as well, so an
+ * agent asking for an unreachable target does not run a full search every time.
+ *
+ * Every change to the graph changes its version (see Graph.getVersion()), and the whole cache is cleared the first time it is used
+ * after the version changed, since any change can make any cached path wrong or no longer the cheapest. A path is therefore never
+ * returned for a graph it was not found on.
+ *
+ * NOTE: Changing the cost of an edge object directly (with IEdge.setCost()) is not seen by the graph, use Graph.updateEdgeCost()
+ *       so the cache is cleared. The paths returned are shared by every caller asking for the same path and must not be changed.
+ */
+public class PathCache
+{
+  public static final int  DEFAULT_MAX_PATHS        = 1024;
+  public static final long DEFAULT_MAX_MEMORY_BYTES = 1024 * 1024;
+
+  // Estimated memory of one cached path without its nodes (the map entry, the key, the entry object and the array header)
+  private static final int PATH_OVERHEAD_BYTES      = 96;
+
+  private static final int[] NO_PATH                = new int[0];
+
+  private Graph                      _mGraph;
+  private int                        _mMaxPaths;
+  private long                       _mMaxMemoryBytes;
+
+  // The cached paths in least recently used order (the first entry is the least recently used)
+  private LinkedHashMap<Long, int[]> _mPaths;
+  private long                       _mMemoryBytes;
+  private long                       _mGraphVersion;
+
+  private long                       _mNumHits;
+  private long                       _mNumMisses;
+  private long                       _mNumEvictions;
+  private long                       _mNumInvalidations;
+
+  public PathCache(Graph graph)
+  {
+    this(graph, DEFAULT_MAX_PATHS, DEFAULT_MAX_MEMORY_BYTES);
+  }
+
+  public PathCache(Graph graph, int maxPaths, long maxMemoryBytes)
+  {
+    if ((maxPaths < 1) || (maxMemoryBytes < 1))
+    {
+      throw new IllegalArgumentException("The cache must be able to hold at least one path (maxPaths: " + maxPaths + ", maxMemoryBytes: " + maxMemoryBytes + ")");
+    }
+
+    _mGraph = graph;
+    _mMaxPaths = maxPaths;
+    _mMaxMemoryBytes = maxMemoryBytes;
+    _mPaths = new LinkedHashMap<Long, int[]>(16, 0.75f, true);
+    _mGraphVersion = graph.getVersion();
+  }
+
+  public Graph getGraph()
+  {
+    return _mGraph;
+  }
+
+  /*
+   * Returns the path from the source to the target (source first), or null if there is no path. The path is taken from the cache if
+   * it is there, otherwise it is searched for with AStar and added to the cache.
+   */
+  public int[] getPath(int source, int target)
+  {
+    checkGraphVersion();
+
+    Long key = getKey(source, target);
+    int[] path = _mPaths.get(key);
+
+    if (path != null)
+    {
+      _mNumHits++;
+    }
+    else
+    {
+      _mNumMisses++;
+      path = search(source, target);
+      add(key, path);
+    }
+
+    return (path == NO_PATH) ? null : path;
+  }
+
+  /*
+   * Returns the cached path from the source to the target without searching, or null if it is not cached or there is no path.
+   * This does not count as a hit or a miss.
+   */
+  public int[] peekPath(int source, int target)
+  {
+    checkGraphVersion();
+
+    int[] path = _mPaths.get(getKey(source, target));
+
+    return (path == NO_PATH) ? null : path;
+  }
+
+  /*
+   * Drop every cached path
+   */
+  public void clear()
+  {
+    _mPaths.clear();
+    _mMemoryBytes = 0;
+  }
+
+  public int size()
+  {
+    return _mPaths.size();
+  }
+
+  // The estimated memory taken by the cached paths
+  public long getMemoryBytes()
+  {
+    return _mMemoryBytes;
+  }
+
+  public int getMaxPaths()
+  {
+    return _mMaxPaths;
+  }
+
+  public long getMaxMemoryBytes()
+  {
+    return _mMaxMemoryBytes;
+  }
+
+  /*
+   * Statistics, counted since the cache was created or resetStatistics() was last called
+   */
+  public long getNumHits()
+  {
+    return _mNumHits;
+  }
+
+  public long getNumMisses()
+  {
+    return _mNumMisses;
+  }
+
+  // The fraction of the getPath() calls answered from the cache (0 if getPath() has not been called)
+  public double getHitRate()
+  {
+    long numRequests = _mNumHits + _mNumMisses;
+
+    return (numRequests == 0) ? 0.0 : (double) _mNumHits / numRequests;
+  }
+
+  // The number of paths dropped to stay within the limits
+  public long getNumEvictions()
+  {
+    return _mNumEvictions;
+  }
+
+  // The number of times the cache was cleared because the graph changed
+  public long getNumInvalidations()
+  {
+    return _mNumInvalidations;
+  }
+
+  public void resetStatistics()
+  {
+    _mNumHits = 0;
+    _mNumMisses = 0;
+    _mNumEvictions = 0;
+    _mNumInvalidations = 0;
+  }
+
+  /*
+   * Clear the cache if the graph changed since the paths were found
+   */
+  private void checkGraphVersion()
+  {
+    long graphVersion = _mGraph.getVersion();
+
+    if (graphVersion != _mGraphVersion)
+    {
+      if (!_mPaths.isEmpty())
+      {
+        _mNumInvalidations++;
+      }
+
+      clear();
+      _mGraphVersion = graphVersion;
+    }
+  }
+
+  private int[] search(int source, int target)
+  {
+    AStar aStar = new AStar(_mGraph, source, target);
+    if (aStar.Search(Integer.MAX_VALUE, Long.MAX_VALUE) != SearchStatus.FOUND)
+    {
+      return NO_PATH;
+    }
+
+    ArrayList<Integer> pathOfNodeIds = aStar.getPathAsListOfNodeIds();
+    int[] path = new int[pathOfNodeIds.size()];
+
+    for (int i = 0; i < path.length; i++)
+    {
+      path[i] = pathOfNodeIds.get(i);
+    }
+
+    return path;
+  }
+
+  /*
+   * Add the path and drop the least recently used paths until the cache is within its limits again. A path too large for the memory
+   * limit on its own is not cached.
+   */
+  private void add(Long key, int[] path)
+  {
+    long pathBytes = getMemoryBytes(path);
+
+    if (pathBytes > _mMaxMemoryBytes)
+    {
+      return;
+    }
+
+    _mPaths.put(key, path);
+    _mMemoryBytes += pathBytes;
+
+    Iterator<Map.Entry<Long, int[]>> iteratorPaths = _mPaths.entrySet().iterator();
+
+    while ((_mPaths.size() > _mMaxPaths) || (_mMemoryBytes > _mMaxMemoryBytes))
+    {
+      int[] evictedPath = iteratorPaths.next().getValue();
+      iteratorPaths.remove();
+
+      _mMemoryBytes -= getMemoryBytes(evictedPath);
+      _mNumEvictions++;
+    }
+  }
+
+  private static long getMemoryBytes(int[] path)
+  {
+    return PATH_OVERHEAD_BYTES + 4L * path.length;
+  }
+
+  private static Long getKey(int source, int target)
+  {
+    return ((long) source << 32) | (target & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,235 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IPathQueryListener;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Solves path searches on a pool of worker threads so pathfinding does not take time from the game loop thread.
+ *
+ * Searches are submitted with submit() (one at a time or in batches), which returns a PathRequest right away. The searches are run
+ * in parallel by the workers, each with its own PathSearchContext, and every finished request is put in a completion queue. The
+ * queue is drained on the game loop thread by drainCompleted(), which marks each request as done and calls its listener. When the
+ * service is set on the GameEngine with setPathQueryService(), the engine drains the queue at the start of every update, so the
+ * results of the searches submitted in one frame are handed to the game in a following frame.
+ *
+ * The searches read the graph from several threads at once while the game keeps running, so the graph must not change while the
+ * service uses it. Pass an immutable snapshot, e.g. graph.freeze(), and when the level changes call setGraph() with a new
+ * snapshot. Searches already submitted keep using the snapshot they were submitted with.
+ *
+ * NOTE: A PathRequest must only be read on the game loop thread, and only once it is done (its fields are filled in by a worker,
+ *       and drainCompleted() makes them visible to the draining thread). Cancelling a request that is being searched does not stop
+ *       the search, but the result is dropped and its listener is not called.
+ */
+public class PathQueryService
+{
+  private IIndexedGraph                      _mGraph;
+  private ExecutorService                    _mWorkers;
+  private int                                _mNumWorkers;
+
+  private ConcurrentLinkedQueue<PathRequest> _mCompletedRequests = new ConcurrentLinkedQueue<PathRequest>();
+
+  // The number of requests submitted and not yet drained
+  private AtomicInteger                      _mNumPendingRequests = new AtomicInteger();
+
+  public PathQueryService(IIndexedGraph graph)
+  {
+    this(graph, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  public PathQueryService(IIndexedGraph graph, int numWorkers)
+  {
+    _mGraph = graph;
+    _mNumWorkers = Math.max(1, numWorkers);
+
+    // The workers should never keep the application running after the game loop has ended
+    final AtomicInteger numThreads = new AtomicInteger();
+    _mWorkers = Executors.newFixedThreadPool(_mNumWorkers, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable runnable)
+      {
+        Thread thread = new Thread(runnable, "Path Query Worker " + numThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  /*
+   * Use a new snapshot of the graph for the searches submitted from now on
+   */
+  public void setGraph(IIndexedGraph graph)
+  {
+    _mGraph = graph;
+  }
+
+  public int getNumWorkers()
+  {
+    return _mNumWorkers;
+  }
+
+  /*
+   * Queue a search from the source node to the target node. The listener (which can be null) is called by drainCompleted() once
+   * the search has finished.
+   */
+  public PathRequest submit(int source, int target, IPathQueryListener listener)
+  {
+    PathRequest request = new PathRequest(source, target);
+    request._mListener = listener;
+
+    _mNumPendingRequests.incrementAndGet();
+    _mWorkers.execute(new SearchTask(_mGraph, request));
+
+    return request;
+  }
+
+  /*
+   * Queue a search for each (sources[i], targets[i]) pair, all reporting to the same listener
+   */
+  public PathRequest[] submit(int[] sources, int[] targets, IPathQueryListener listener)
+  {
+    if (sources.length != targets.length)
+    {
+      throw new IllegalArgumentException("A batch needs one target per source (" + sources.length + " sources, " + targets.length + " targets).");
+    }
+
+    PathRequest[] requests = new PathRequest[sources.length];
+
+    for (int i = 0; i < sources.length; i++)
+    {
+      requests[i] = submit(sources[i], targets[i], listener);
+    }
+
+    return requests;
+  }
+
+  /*
+   * Drop the result of a search that has not been drained yet. The status of the request becomes NOT_FOUND.
+   */
+  public void cancel(PathRequest request)
+  {
+    if (!request.isDone())
+    {
+      request._mCancelled = true;
+      request._mStatus = SearchStatus.NOT_FOUND;
+    }
+  }
+
+  /*
+   * Hand the finished searches to the calling thread: every request in the completion queue is marked as done and its listener
+   * is called, unless it was cancelled. Returns the number of requests drained.
+   */
+  public int drainCompleted()
+  {
+    int numDrained = 0;
+    PathRequest request;
+
+    while ((request = _mCompletedRequests.poll()) != null)
+    {
+      _mNumPendingRequests.decrementAndGet();
+      numDrained++;
+
+      if (request._mCancelled)
+      {
+        continue;
+      }
+
+      request._mStatus = request._mResultStatus;
+
+      if (request._mListener != null)
+      {
+        request._mListener.pathQueryCompleted(request);
+      }
+    }
+
+    return numDrained;
+  }
+
+  // The number of searches submitted that have not been drained yet (waiting, being searched or in the completion queue)
+  public int getNumPendingRequests()
+  {
+    return _mNumPendingRequests.get();
+  }
+
+  /*
+   * Stop the worker threads. Searches that have not started are dropped. The service can not be used after it has been shut down.
+   */
+  public void shutdown()
+  {
+    _mWorkers.shutdownNow();
+  }
+
+  public boolean isShutdown()
+  {
+    return _mWorkers.isShutdown();
+  }
+
+  /*
+   * Searches the graph for one request on a worker thread with the context owned by that thread
+   */
+  private class SearchTask implements Runnable
+  {
+    private IIndexedGraph graph;
+    private PathRequest   request;
+
+    SearchTask(IIndexedGraph graph, PathRequest request)
+    {
+      this.graph = graph;
+      this.request = request;
+    }
+
+    @Override
+    public void run()
+    {
+      // NOTE: The cancelled flag may not be seen right away by a worker, which only means a search is run for nothing
+      if (!request._mCancelled)
+      {
+        search();
+      }
+      else
+      {
+        request._mResultStatus = SearchStatus.NOT_FOUND;
+      }
+
+      _mCompletedRequests.add(request);
+    }
+
+    private void search()
+    {
+      PathSearchContext context = PathSearchContext.forCurrentThread();
+
+      try
+      {
+        if (IndexedAStar.search(graph, context, request._mSource, request._mTarget))
+        {
+          request._mPath = new int[context.copyPath(request._mPath)];
+          context.copyPath(request._mPath);
+          request._mPathCost = context.getPathCost();
+          request._mResultStatus = SearchStatus.FOUND;
+        }
+        else
+        {
+          request._mResultStatus = SearchStatus.NOT_FOUND;
+        }
+
+        request._mNumExpandedNodes = context.getNumExpandedNodes();
+      }
+      catch (RuntimeException e)
+      {
+        // A bad request (e.g., a node index outside of the graph) must not be lost, it is reported as not found
+        request._mResultStatus = SearchStatus.NOT_FOUND;
+      }
+    }
+  }
+}
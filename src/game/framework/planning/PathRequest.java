@@ -0,0 +1,91 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IPathQueryListener;
+
+/*
+ * A path search submitted to a PathSearchScheduler or a PathQueryService. The request is returned by submit() right away and its
+ * status changes from IN_PROGRESS to FOUND or NOT_FOUND during a later call to PathSearchScheduler.update() (or
+ * PathQueryService.drainCompleted()), after which the path can be read.
+ */
+public class PathRequest
+{
+  int                _mSource;
+  int                _mTarget;
+  SearchStatus       _mStatus   = SearchStatus.IN_PROGRESS;
+  boolean            _mCancelled;
+
+  // The scratch memory of the search while it is active, null while the request is waiting or after it is done
+  PathSearchContext  _mContext;
+
+  // Results, only valid once the request is done
+  int[]              _mPath     = new int[0];
+  double             _mPathCost = Double.POSITIVE_INFINITY;
+  int                _mNumExpandedNodes;
+
+  // The number of frames (calls to update()) the search was run in and the last one, used to count each frame once
+  int                _mNumFrames;
+  long               _mLastFrame = -1;
+
+  // The status found by a PathQueryService worker, which only becomes the status of the request when it is drained
+  SearchStatus       _mResultStatus;
+  IPathQueryListener _mListener;
+
+  PathRequest(int source, int target)
+  {
+    _mSource = source;
+    _mTarget = target;
+  }
+
+  public int getSource()
+  {
+    return _mSource;
+  }
+
+  public int getTarget()
+  {
+    return _mTarget;
+  }
+
+  public SearchStatus getStatus()
+  {
+    return _mStatus;
+  }
+
+  public boolean isDone()
+  {
+    return _mStatus != SearchStatus.IN_PROGRESS;
+  }
+
+  public boolean isCancelled()
+  {
+    return _mCancelled;
+  }
+
+  // The node indices of the path from the source to the target, empty if no path was found
+  public int[] getPath()
+  {
+    return _mPath;
+  }
+
+  public int getPathLength()
+  {
+    return _mPath.length;
+  }
+
+  // The total edge cost of the path, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mPathCost;
+  }
+
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  // The number of frames the search was spread over
+  public int getNumFrames()
+  {
+    return _mNumFrames;
+  }
+}
@@ -0,0 +1,225 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.IHeuristic;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.utils.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/*
+ * The scratch memory used by an A* search (G and H costs, parents, the open list, etc.), kept so it can be reused by any number
+ * of searches rather than being allocated for every search the way AStar does.
+ *
+ * Starting a new search is O(1). Every search gets a new generation number and the per node data is only valid for nodes
+ * stamped with the current generation, so the arrays never have to be cleared. The arrays only grow when a graph with more
+ * nodes than any graph searched before is searched. Once they are large enough, a search does not create any objects and the
+ * path is copied into an int array supplied by the caller.
+ *
+ * NOTE: A context must only be used by one thread at a time. forCurrentThread() returns a context owned by the calling thread,
+ *       which is the simplest way to run many searches from several threads (e.g., the game loop and AI worker threads).
+ */
+public class PathSearchContext
+{
+  private static final int                      DEFAULT_CAPACITY = 1024;
+
+  private static final ThreadLocal<PathSearchContext> threadContexts = new ThreadLocal<PathSearchContext>()
+  {
+    @Override
+    protected PathSearchContext initialValue()
+    {
+      return new PathSearchContext();
+    }
+  };
+
+  // Per node data, only valid for nodes whose stamp equals the current generation
+  double[]                                      _mGCosts;
+  double[]                                      _mHCosts;
+  int[]                                         _mParents;
+  int[]                                         _mStamps;
+  boolean[]                                     _mClosed;
+  int                                           _mGeneration;
+
+  IndexedMinHeap                                _mOpenSet;
+
+  // Buffers used to read the neighbors of a node from the graph
+  int[]                                         _mNeighborIndices = new int[8];
+  double[]                                      _mEdgeCosts       = new double[8];
+
+  // The target of the current search and its position
+  int                                           _mTarget;
+  double                                        _mTargetX, _mTargetY;
+
+  // The heuristic of the current search, the straight line distance if null
+  IHeuristic                                    _mHeuristic;
+
+  // Results of the last search
+  SearchStatus                                  _mStatus          = SearchStatus.NOT_FOUND;
+  boolean                                       _mPathFound;
+  int                                           _mNumExpandedNodes;
+
+  public PathSearchContext()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public PathSearchContext(int initialCapacity)
+  {
+    int capacity = Math.max(1, initialCapacity);
+
+    _mGCosts = new double[capacity];
+    _mHCosts = new double[capacity];
+    _mParents = new int[capacity];
+    _mStamps = new int[capacity];
+    _mClosed = new boolean[capacity];
+    _mGeneration = 0;
+
+    _mOpenSet = new IndexedMinHeap(capacity);
+  }
+
+  /*
+   * Returns the context owned by the calling thread, creating it the first time it is requested
+   */
+  public static PathSearchContext forCurrentThread()
+  {
+    return threadContexts.get();
+  }
+
+  /*
+   * Search the graph for the cheapest path from the source node to the target node with A* and copy the node indices of the path
+   * (source first) into the path array. Returns the number of nodes in the path, or -1 if there is no path.
+   *
+   * NOTE: If the path array is too small, only the first pathOut.length nodes of the path are copied, but the full number of
+   *       nodes is still returned so the caller can grow the array and call copyPath().
+   */
+  public int search(IIndexedGraph graph, int source, int target, int[] pathOut)
+  {
+    if (!IndexedAStar.search(graph, this, source, target))
+    {
+      return -1;
+    }
+
+    return copyPath(pathOut);
+  }
+
+  /*
+   * Start a new search of a graph with the specified node capacity. The data of the previous search is discarded in O(1) time.
+   */
+  public void reset(int nodeCapacity)
+  {
+    // The arrays only need to grow when a larger graph is searched
+    if (nodeCapacity > _mStamps.length)
+    {
+      int capacity = Math.max(nodeCapacity, _mStamps.length + (_mStamps.length >> 1));
+
+      _mGCosts = Arrays.copyOf(_mGCosts, capacity);
+      _mHCosts = Arrays.copyOf(_mHCosts, capacity);
+      _mParents = Arrays.copyOf(_mParents, capacity);
+      _mStamps = Arrays.copyOf(_mStamps, capacity);
+      _mClosed = Arrays.copyOf(_mClosed, capacity);
+      _mOpenSet.ensureCapacity(capacity);
+    }
+
+    _mGeneration++;
+
+    // If the generation ever wraps around, clear the stamps so a stamp from an old search can not match the new generation
+    if (_mGeneration == 0)
+    {
+      Arrays.fill(_mStamps, 0);
+      _mGeneration = 1;
+    }
+
+    _mOpenSet.clear();
+    _mStatus = SearchStatus.NOT_FOUND;
+    _mPathFound = false;
+    _mNumExpandedNodes = 0;
+    _mTarget = -1;
+    _mHeuristic = null;
+  }
+
+  /*
+   * Copy the path found by the last search into the path array. Returns the number of nodes in the path or -1 if no path was found.
+   * Only the first pathOut.length nodes are copied if the array is too small.
+   */
+  public int copyPath(int[] pathOut)
+  {
+    if (!_mPathFound)
+    {
+      return -1;
+    }
+
+    int length = 0;
+    for (int nodeIndex = _mTarget; nodeIndex != -1; nodeIndex = _mParents[nodeIndex])
+    {
+      length++;
+    }
+
+    // Walk back from the target, only storing the nodes whose position fits in the array
+    int position = length;
+    for (int nodeIndex = _mTarget; nodeIndex != -1; nodeIndex = _mParents[nodeIndex])
+    {
+      position--;
+      if (position < pathOut.length)
+      {
+        pathOut[position] = nodeIndex;
+      }
+    }
+
+    return length;
+  }
+
+  // IN_PROGRESS while a search started with IndexedAStar.start() has not finished
+  public SearchStatus getStatus()
+  {
+    return _mStatus;
+  }
+
+  public boolean isPathFound()
+  {
+    return _mPathFound;
+  }
+
+  // The total edge cost of the path found by the last search, or infinity if no path was found
+  public double getPathCost()
+  {
+    return _mPathFound ? _mGCosts[_mTarget] : Double.POSITIVE_INFINITY;
+  }
+
+  public int getNumExpandedNodes()
+  {
+    return _mNumExpandedNodes;
+  }
+
+  /*
+   * Record the G cost and parent of a node reached for the first time in the current search
+   */
+  void visit(int nodeIndex, double gCost, double hCost, int parent)
+  {
+    _mStamps[nodeIndex] = _mGeneration;
+    _mGCosts[nodeIndex] = gCost;
+    _mHCosts[nodeIndex] = hCost;
+    _mParents[nodeIndex] = parent;
+    _mClosed[nodeIndex] = false;
+  }
+
+  boolean isVisited(int nodeIndex)
+  {
+    return _mStamps[nodeIndex] == _mGeneration;
+  }
+
+  /*
+   * Read the neighbors of the node into the neighbor buffers, growing them if needed. Returns the number of neighbors.
+   */
+  int readNeighbors(IIndexedGraph graph, int nodeIndex)
+  {
+    int numNeighbors = graph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+
+    if (numNeighbors > _mNeighborIndices.length)
+    {
+      _mNeighborIndices = new int[numNeighbors];
+      _mEdgeCosts = new double[numNeighbors];
+      numNeighbors = graph.getNeighbors(nodeIndex, _mNeighborIndices, _mEdgeCosts);
+    }
+
+    return numNeighbors;
+  }
+}
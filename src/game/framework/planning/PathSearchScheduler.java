@@ -0,0 +1,228 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+
+import java.util.ArrayDeque;
+
+/*
+ * Runs the path searches of many agents a little at a time so that pathfinding never takes more than a fixed budget per frame.
+ *
+ * Searches are submitted with submit(), which returns a PathRequest right away. The game calls update() once per frame (e.g., from
+ * userGameUpdate()) with the number of node expansions and the time the searches may use in that frame. update() runs the active
+ * searches in turn, a slice of at most MAX_SLICE expansions each, until the budget is used up. A search that runs out of budget is
+ * picked up in the next frame where it left off, so a long path on a large map is spread over several frames rather than causing
+ * a frame spike.
+ *
+ * Only maxActiveSearches searches are run at the same time and the others wait in the order they were submitted. Each active
+ * search needs its own PathSearchContext (a few arrays the size of the graph), so the contexts are kept and reused by the next
+ * searches, and limiting the active searches limits the memory used no matter how many agents request paths.
+ *
+ * NOTE: The scheduler is meant to be used from the game loop thread only. The graph must not change while searches are active,
+ *       cancel the requests (or clear() the scheduler) and submit them again after changing it.
+ */
+public class PathSearchScheduler
+{
+  public static final int          DEFAULT_MAX_ACTIVE_SEARCHES = 4;
+
+  // The largest number of expansions a search runs before the next active search gets its turn
+  public static final int          MAX_SLICE                   = 256;
+
+  private IIndexedGraph            _mGraph;
+
+  private ArrayDeque<PathRequest>  _mPendingRequests           = new ArrayDeque<PathRequest>();
+
+  // The searches being run, the next one to run and the contexts that are not used by any of them
+  private PathRequest[]            _mActiveRequests;
+  private int                      _mNumActiveRequests;
+  private int                      _mNextActiveRequest;
+  private PathSearchContext[]      _mFreeContexts;
+  private int                      _mNumFreeContexts;
+
+  private long                     _mFrameNumber;
+
+  public PathSearchScheduler(IIndexedGraph graph)
+  {
+    this(graph, DEFAULT_MAX_ACTIVE_SEARCHES);
+  }
+
+  public PathSearchScheduler(IIndexedGraph graph, int maxActiveSearches)
+  {
+    _mGraph = graph;
+    _mActiveRequests = new PathRequest[Math.max(1, maxActiveSearches)];
+    _mFreeContexts = new PathSearchContext[_mActiveRequests.length];
+  }
+
+  public IIndexedGraph getGraph()
+  {
+    return _mGraph;
+  }
+
+  /*
+   * Queue a search from the source node to the target node. The search starts in a later call to update().
+   */
+  public PathRequest submit(int source, int target)
+  {
+    PathRequest request = new PathRequest(source, target);
+    _mPendingRequests.add(request);
+
+    return request;
+  }
+
+  /*
+   * Stop a search that has not finished. The status of the request becomes NOT_FOUND.
+   */
+  public void cancel(PathRequest request)
+  {
+    if (request.isDone())
+    {
+      return;
+    }
+
+    if (!_mPendingRequests.remove(request))
+    {
+      for (int i = 0; i < _mNumActiveRequests; i++)
+      {
+        if (_mActiveRequests[i] == request)
+        {
+          removeActiveRequest(i);
+          break;
+        }
+      }
+    }
+
+    request._mCancelled = true;
+    request._mStatus = SearchStatus.NOT_FOUND;
+  }
+
+  /*
+   * Cancel every search that has not finished
+   */
+  public void clear()
+  {
+    while (_mNumActiveRequests > 0)
+    {
+      cancel(_mActiveRequests[0]);
+    }
+
+    while (!_mPendingRequests.isEmpty())
+    {
+      cancel(_mPendingRequests.peek());
+    }
+  }
+
+  /*
+   * Run the searches until the budget of this frame is used up or every search has finished. Pass Integer.MAX_VALUE or
+   * Long.MAX_VALUE to not limit the number of expansions or the time. Returns the number of searches that finished.
+   *
+   * NOTE: The time budget is checked between slices (and every few expansions within a slice), so it can be overrun by a few
+   *       expansions. At least one node is expanded per call while there are searches, so every search finishes eventually.
+   */
+  public int update(int maxExpandedNodes, long maxNanoseconds)
+  {
+    _mFrameNumber++;
+
+    boolean timeLimited = maxNanoseconds != Long.MAX_VALUE;
+    long startTime = timeLimited ? System.nanoTime() : 0;
+    int remainingExpansions = Math.max(1, maxExpandedNodes);
+    int numFinished = 0;
+
+    activatePendingRequests();
+
+    while ((_mNumActiveRequests > 0) && (remainingExpansions > 0))
+    {
+      long remainingTime = Long.MAX_VALUE;
+      if (timeLimited)
+      {
+        remainingTime = maxNanoseconds - (System.nanoTime() - startTime);
+        if (remainingTime <= 0)
+        {
+          break;
+        }
+      }
+
+      // Give the next search its slice, splitting the remaining expansions evenly between the active searches
+      if (_mNextActiveRequest >= _mNumActiveRequests)
+      {
+        _mNextActiveRequest = 0;
+      }
+
+      PathRequest request = _mActiveRequests[_mNextActiveRequest];
+      PathSearchContext context = request._mContext;
+      int slice = Math.max(1, Math.min(MAX_SLICE, remainingExpansions / _mNumActiveRequests));
+
+      if (request._mLastFrame != _mFrameNumber)
+      {
+        request._mLastFrame = _mFrameNumber;
+        request._mNumFrames++;
+      }
+
+      int numExpandedBefore = context._mNumExpandedNodes;
+      SearchStatus status = IndexedAStar.resume(_mGraph, context, slice, remainingTime);
+      remainingExpansions -= Math.max(1, context._mNumExpandedNodes - numExpandedBefore);
+
+      if (status == SearchStatus.IN_PROGRESS)
+      {
+        _mNextActiveRequest++;
+        continue;
+      }
+
+      // The search finished, copy its results into the request and hand its context to the next waiting search
+      request._mNumExpandedNodes = context._mNumExpandedNodes;
+
+      if (status == SearchStatus.FOUND)
+      {
+        request._mPath = new int[context.copyPath(request._mPath)];
+        context.copyPath(request._mPath);
+        request._mPathCost = context.getPathCost();
+      }
+
+      request._mStatus = status;
+      removeActiveRequest(_mNextActiveRequest);
+      activatePendingRequests();
+      numFinished++;
+    }
+
+    return numFinished;
+  }
+
+  public int getNumPendingSearches()
+  {
+    return _mPendingRequests.size();
+  }
+
+  public int getNumActiveSearches()
+  {
+    return _mNumActiveRequests;
+  }
+
+  /*
+   * Start waiting searches while there is room for more active searches
+   */
+  private void activatePendingRequests()
+  {
+    while ((_mNumActiveRequests < _mActiveRequests.length) && !_mPendingRequests.isEmpty())
+    {
+      PathRequest request = _mPendingRequests.poll();
+
+      PathSearchContext context = (_mNumFreeContexts > 0) ? _mFreeContexts[--_mNumFreeContexts] : new PathSearchContext(_mGraph.getNodeCapacity());
+      IndexedAStar.start(_mGraph, context, request._mSource, request._mTarget);
+
+      request._mContext = context;
+      _mActiveRequests[_mNumActiveRequests++] = request;
+    }
+  }
+
+  /*
+   * Remove an active search, keeping the order of the others so the turns stay fair, and keep its context for the next search
+   */
+  private void removeActiveRequest(int index)
+  {
+    PathRequest request = _mActiveRequests[index];
+
+    _mFreeContexts[_mNumFreeContexts++] = request._mContext;
+    request._mContext = null;
+
+    System.arraycopy(_mActiveRequests, index + 1, _mActiveRequests, index, _mNumActiveRequests - index - 1);
+    _mActiveRequests[--_mNumActiveRequests] = null;
+  }
+}
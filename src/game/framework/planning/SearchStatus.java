@@ -0,0 +1,11 @@
+package game.framework.planning;
+
+/*
+ * The state of a search that can be run a little at a time (e.g., a few hundred node expansions per frame)
+ */
+public enum SearchStatus
+{
+  IN_PROGRESS, // The search ran out of its budget and can be resumed
+  FOUND,       // A path to the target was found
+  NOT_FOUND    // There is no path to the target (or the source or target node does not exist)
+}
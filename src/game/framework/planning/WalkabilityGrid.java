@@ -0,0 +1,162 @@
+package game.framework.planning;
+
+/*
+ * A grid of cells that are either walkable or blocked, stored as one bit per cell.
+ *
+ * The cells are laid out the same way GraphGenerator lays out the nodes of a grid graph: the cell in row r and column c has the
+ * index r * cols + c and its position is (startCol + c * colSpacing, startRow + r * rowSpacing). A grid graph from GraphGenerator
+ * can be turned into a walkability grid with fromGridGraph(), where a cell is walkable if its node is present in the graph.
+ */
+public class WalkabilityGrid
+{
+  private int    _mRows, _mCols;
+  private double _mStartCol, _mStartRow;
+  private double _mColSpacing, _mRowSpacing;
+  private long[] _mWalkable;
+
+  /*
+   * Create a grid with the cells one unit apart where every cell is walkable
+   */
+  public WalkabilityGrid(int rows, int cols)
+  {
+    this(rows, cols, 0, 0, 1, 1);
+  }
+
+  /*
+   * Create a grid where every cell is walkable. The parameters are the same as the ones given to GraphGenerator.generateGridGraph().
+   */
+  public WalkabilityGrid(int rows, int cols, double startCol, double startRow, double colSpacing, double rowSpacing)
+  {
+    if ((rows <= 0) || (cols <= 0))
+    {
+      throw new IllegalArgumentException("The number of rows and columns of a walkability grid must be positive (" + rows + ", " + cols + ").");
+    }
+
+    _mRows = rows;
+    _mCols = cols;
+    _mStartCol = startCol;
+    _mStartRow = startRow;
+    _mColSpacing = colSpacing;
+    _mRowSpacing = rowSpacing;
+
+    int numCells = rows * cols;
+    _mWalkable = new long[(numCells + 63) >>> 6];
+
+    // Set the bits of every cell, but leave the unused bits of the last word clear
+    for (int word = 0; word < _mWalkable.length; word++)
+    {
+      _mWalkable[word] = -1L;
+    }
+    if ((numCells & 63) != 0)
+    {
+      _mWalkable[_mWalkable.length - 1] = (1L << (numCells & 63)) - 1;
+    }
+  }
+
+  /*
+   * Create a grid that matches a grid graph created by GraphGenerator.generateGridGraph() with the same parameters. A cell is
+   * walkable if the node with the same index is present in the graph, so removing nodes from the graph creates obstacles.
+   */
+  public static WalkabilityGrid fromGridGraph(Graph graph, int startCol, int startRow, int nodeSpacingCol, int nodeSpacingRow, int rows, int cols)
+  {
+    WalkabilityGrid grid = new WalkabilityGrid(rows, cols, startCol, startRow, nodeSpacingCol, nodeSpacingRow);
+
+    for (int cell = 0; cell < rows * cols; cell++)
+    {
+      if (!graph.isNodePresent(cell))
+      {
+        grid._mWalkable[cell >>> 6] &= ~(1L << cell);
+      }
+    }
+
+    return grid;
+  }
+
+  public int getRows()
+  {
+    return _mRows;
+  }
+
+  public int getCols()
+  {
+    return _mCols;
+  }
+
+  public int getNumCells()
+  {
+    return _mRows * _mCols;
+  }
+
+  public double getColSpacing()
+  {
+    return _mColSpacing;
+  }
+
+  public double getRowSpacing()
+  {
+    return _mRowSpacing;
+  }
+
+  public int getCellIndex(int row, int col)
+  {
+    return row * _mCols + col;
+  }
+
+  public int getRow(int cellIndex)
+  {
+    return cellIndex / _mCols;
+  }
+
+  public int getCol(int cellIndex)
+  {
+    return cellIndex % _mCols;
+  }
+
+  public double getCellX(int cellIndex)
+  {
+    return _mStartCol + getCol(cellIndex) * _mColSpacing;
+  }
+
+  public double getCellY(int cellIndex)
+  {
+    return _mStartRow + getRow(cellIndex) * _mRowSpacing;
+  }
+
+  /*
+   * Returns false for cells outside of the grid, so the border of the grid acts like a wall
+   */
+  public boolean isWalkable(int row, int col)
+  {
+    if ((row < 0) || (row >= _mRows) || (col < 0) || (col >= _mCols))
+    {
+      return false;
+    }
+
+    int cell = row * _mCols + col;
+    return (_mWalkable[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  public boolean isWalkable(int cellIndex)
+  {
+    if ((cellIndex < 0) || (cellIndex >= _mRows * _mCols))
+    {
+      return false;
+    }
+
+    return (_mWalkable[cellIndex >>> 6] & (1L << cellIndex)) != 0;
+  }
+
+  public void setWalkable(int row, int col, boolean walkable)
+  {
+    int cell = row * _mCols + col;
+
+    if (walkable)
+    {
+      _mWalkable[cell >>> 6] |= (1L << cell);
+    }
+    else
+    {
+      _mWalkable[cell >>> 6] &= ~(1L << cell);
+    }
+  }
+}
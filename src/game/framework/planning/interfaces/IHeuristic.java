@@ -0,0 +1,15 @@
+package game.framework.planning.interfaces;
+
+/*
+ * An estimate of the cost of the cheapest path between two nodes, used by the searches to decide which node to expand next.
+ *
+ * The estimate must never be more than the cost of the cheapest path (it must be admissible), or the searches can return a path
+ * that is not the cheapest. A heuristic is made for one graph and takes the node indices of that graph. It can return infinity when
+ * it knows there is no path from the node to the target, and the searches then skip the node.
+ *
+ * NOTE: The searches call estimateCost() once for every node they reach, so it should be fast and must not create objects.
+ */
+public interface IHeuristic
+{
+  public double estimateCost(int nodeIndex, int targetIndex);
+}
@@ -0,0 +1,14 @@
+package game.framework.planning.interfaces;
+
+import game.framework.planning.PathRequest;
+
+/*
+ * Receives the results of the path searches submitted to a PathQueryService.
+ *
+ * NOTE: pathQueryCompleted() is called on the thread that drains the completion queue (the game loop thread when the service is
+ *       set on the GameEngine), never on a worker thread, so it can change the game state without synchronization.
+ */
+public interface IPathQueryListener
+{
+  public void pathQueryCompleted(PathRequest request);
+}
@@ -0,0 +1,17 @@
+package game.framework.planning.interfaces.graph;
+
+/*
+ * Notified by a Graph right after it changes, so planners that keep data about the graph (e.g., DStarLite and
+ * HierarchicalPathfinder) can update only the parts affected by the change rather than checking the whole graph.
+ *
+ * NOTE: The methods are called on the thread that changed the graph, in the middle of the change (e.g., once per edge while a
+ *       node is being removed). Listeners should only record what changed and do the actual work the next time they are used.
+ */
+public interface IGraphChangeListener
+{
+  // The edge from one node to another was added, removed or had its cost changed
+  public void edgeChanged(int from, int to);
+
+  // The node was added or removed. The edges of a removed node are reported to edgeChanged() as well.
+  public void nodeChanged(int nodeIndex);
+}
@@ -0,0 +1,28 @@
+package game.framework.planning.interfaces.graph;
+
+/*
+ * A read only view of a graph whose nodes are identified by int indices, used by the search algorithms that store their
+ * per node data in arrays indexed by node index (e.g., IndexedAStar).
+ *
+ * NOTE: Every node index is in the range [0, getNodeCapacity()), but not every index in that range has to be a node
+ *       (nodes can be removed from a graph), so isNodePresent() must be checked for indices that did not come from getNeighbors().
+ */
+public interface IIndexedGraph
+{
+  // One more than the largest node index in the graph. Search algorithms size their arrays with this value.
+  public int getNodeCapacity();
+
+  public boolean isNodePresent(int nodeIndex);
+
+  // The position of the node, used by the heuristic
+  public double getNodeX(int nodeIndex);
+
+  public double getNodeY(int nodeIndex);
+
+  /*
+   * Copies the destination node index and cost of each edge leaving the specified node into the arrays and returns the number of
+   * edges. If the arrays are too small, only the first array length edges are copied, but the total number of edges is still
+   * returned so the caller can grow the arrays and try again.
+   */
+  public int getNeighbors(int nodeIndex, int[] neighborIndices, double[] edgeCosts);
+}
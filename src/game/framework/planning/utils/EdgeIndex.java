@@ -0,0 +1,235 @@
+package game.framework.planning.utils;
+
+import game.framework.planning.interfaces.graph.IEdge;
+
+import java.util.Arrays;
+
+/*
+ * A hash map from a (source, destination) pair of node indices to the edge between them, used by Graph to find an edge in O(1)
+ * rather than searching the edge list of the source node.
+ *
+ * The two node indices are packed into one long key, and the keys and edges are stored in two parallel arrays with open addressing
+ * (linear probing), so no objects are created when edges are added, found or removed. Removing an edge shifts the following
+ * entries of its probe sequence back rather than leaving a marker, so lookups never slow down after many edges were removed.
+ *
+ * The edges of a node are placed in a run of slots starting at the node index times the stride, which is set to twice the
+ * average number of edges per node each time the table grows. The edges of a node then share a cache line or two, and nodes with
+ * nearby indices (e.g., the cells of a grid built row by row) use nearby slots, which is much faster than spreading the edges over
+ * the whole table when it is large.
+ *
+ * NOTE: Node indices must not be negative.
+ *
+ * NOTE: When the number of edges is known up front (e.g., when indexing a graph that was already built), create the index with
+ *       that size so it is allocated once with the right stride rather than grown by doubling.
+ */
+public class EdgeIndex
+{
+  private static final long  EMPTY_KEY        = -1L;
+  private static final int   DEFAULT_CAPACITY = 16;
+  private static final float MAX_LOAD_FACTOR  = 0.5f;
+
+  private long[]  keys;
+  private IEdge[] edges;
+  private int     mask;                 // The capacity minus one, the capacity is always a power of two
+  private int     size;
+  private int     resizeThreshold;
+  private int     stride          = 16;   // The number of slots per source node
+  private int     maxSource;
+
+  public EdgeIndex()
+  {
+    allocate(DEFAULT_CAPACITY);
+  }
+
+  /*
+   * An index sized for the specified number of edges whose source node indices are all less than the node capacity
+   */
+  public EdgeIndex(int expectedEdges, int nodeCapacity)
+  {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity * MAX_LOAD_FACTOR < expectedEdges)
+    {
+      capacity *= 2;
+    }
+
+    stride = (int) Math.max(2L, (2L * expectedEdges + nodeCapacity - 1) / Math.max(1, nodeCapacity));
+
+    allocate(capacity);
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /*
+   * Returns the edge from the source to the destination node, or null if there is none
+   */
+  public IEdge get(int source, int destination)
+  {
+    long key = getKey(source, destination);
+
+    for (int slot = homeSlot(key); keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask)
+    {
+      if (keys[slot] == key)
+      {
+        return edges[slot];
+      }
+    }
+
+    return null;
+  }
+
+  public boolean contains(int source, int destination)
+  {
+    return get(source, destination) != null;
+  }
+
+  /*
+   * Add the edge (or replace the edge already stored for its source and destination). Returns the edge that was replaced, or null.
+   */
+  public IEdge put(IEdge edge)
+  {
+    long key = getKey(edge.getSource(), edge.getDestination());
+    int slot = homeSlot(key);
+
+    for (; keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask)
+    {
+      if (keys[slot] == key)
+      {
+        IEdge previousEdge = edges[slot];
+        edges[slot] = edge;
+
+        return previousEdge;
+      }
+    }
+
+    keys[slot] = key;
+    edges[slot] = edge;
+    maxSource = Math.max(maxSource, edge.getSource());
+
+    if (++size > resizeThreshold)
+    {
+      resize(keys.length * 2);
+    }
+
+    return null;
+  }
+
+  /*
+   * Remove the edge from the source to the destination node. Returns the edge removed, or null if there was none.
+   */
+  public IEdge remove(int source, int destination)
+  {
+    long key = getKey(source, destination);
+
+    for (int slot = homeSlot(key); keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask)
+    {
+      if (keys[slot] == key)
+      {
+        IEdge removedEdge = edges[slot];
+        shiftBack(slot);
+        size--;
+
+        return removedEdge;
+      }
+    }
+
+    return null;
+  }
+
+  public void clear()
+  {
+    Arrays.fill(keys, EMPTY_KEY);
+    Arrays.fill(edges, null);
+    size = 0;
+  }
+
+  /*
+   * Empty the slot and move back any following entries of the probe sequence that can no longer be reached because of the gap
+   */
+  private void shiftBack(int emptySlot)
+  {
+    int slot = emptySlot;
+
+    while (true)
+    {
+      slot = (slot + 1) & mask;
+      long key = keys[slot];
+
+      if (key == EMPTY_KEY)
+      {
+        break;
+      }
+
+      // The entry can be moved into the empty slot if its home slot is not between the empty slot and its slot (cyclically)
+      int homeSlot = homeSlot(key);
+      if (((slot - homeSlot) & mask) >= ((slot - emptySlot) & mask))
+      {
+        keys[emptySlot] = key;
+        edges[emptySlot] = edges[slot];
+        emptySlot = slot;
+      }
+    }
+
+    keys[emptySlot] = EMPTY_KEY;
+    edges[emptySlot] = null;
+  }
+
+  private void resize(int capacity)
+  {
+    long[] oldKeys = keys;
+    IEdge[] oldEdges = edges;
+
+    // Give each node twice its average number of edges, the runs of all the nodes then fill about half of the new table
+    stride = (int) Math.max(2L, (2L * size + maxSource) / (maxSource + 1L));
+
+    allocate(capacity);
+
+    for (int i = 0; i < oldKeys.length; i++)
+    {
+      if (oldKeys[i] != EMPTY_KEY)
+      {
+        int slot = homeSlot(oldKeys[i]);
+        while (keys[slot] != EMPTY_KEY)
+        {
+          slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = oldKeys[i];
+        edges[slot] = oldEdges[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new long[capacity];
+    edges = new IEdge[capacity];
+    Arrays.fill(keys, EMPTY_KEY);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+  }
+
+  private static long getKey(int source, int destination)
+  {
+    return ((long) source << 32) | (destination & 0xFFFFFFFFL);
+  }
+
+  /*
+   * The first slot to look at for the key, in the run of slots of its source node. The destination is hashed to pick the slot in
+   * the run, so the neighbors of a node (which often have nearby indices) do not all start at the same slot.
+   */
+  private int homeSlot(long key)
+  {
+    int source = (int) (key >>> 32);
+    long destinationHash = (((int) key) * 0x9E3779B9) & 0xFFFFFFFFL;
+
+    return (source * stride + (int) ((destinationHash * stride) >>> 32)) & mask;
+  }
+}
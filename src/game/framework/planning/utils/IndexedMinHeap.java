@@ -0,0 +1,204 @@
+package game.framework.planning.utils;
+
+import java.util.Arrays;
+
+/*
+ * A binary min heap of int items (e.g., node indices) ordered by a double key that supports decrease-key.
+ *
+ * The heap keeps the position of every item in the heap in an array indexed by the item, so contains() and decreaseKey() are
+ * O(1) and O(log n) without searching the heap. No objects are created when items are added or removed, which is what makes this
+ * heap faster than a PriorityQueue of Tuple objects for the open list of A*.
+ *
+ * NOTE: The items must be in the range [0, capacity). The position array is never cleared, an item is only in the heap if its
+ *       recorded position is inside the heap and the heap holds that item at that position, so clear() is O(1).
+ */
+public class IndexedMinHeap
+{
+  private int[]    heap;          // The items in heap order
+  private double[] keys;          // The key of each item, indexed by item
+  private int[]    positions;     // The position of each item in the heap, indexed by item
+  private int      size;
+
+  public IndexedMinHeap(int capacity)
+  {
+    heap = new int[Math.max(1, capacity)];
+    keys = new double[heap.length];
+    positions = new int[heap.length];
+    size = 0;
+  }
+
+  /*
+   * Makes sure the heap can hold all items in the range [0, capacity)
+   */
+  public void ensureCapacity(int capacity)
+  {
+    if (capacity > heap.length)
+    {
+      heap = Arrays.copyOf(heap, capacity);
+      keys = Arrays.copyOf(keys, capacity);
+      positions = Arrays.copyOf(positions, capacity);
+    }
+  }
+
+  public int getCapacity()
+  {
+    return heap.length;
+  }
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public void clear()
+  {
+    size = 0;
+  }
+
+  public boolean contains(int item)
+  {
+    int position = positions[item];
+
+    return (position < size) && (heap[position] == item);
+  }
+
+  public double getKey(int item)
+  {
+    return keys[item];
+  }
+
+  /*
+   * Add an item that is not already in the heap
+   */
+  public void add(int item, double key)
+  {
+    keys[item] = key;
+    heap[size] = item;
+    positions[item] = size;
+    size++;
+
+    siftUp(size - 1);
+  }
+
+  /*
+   * Lower the key of an item that is already in the heap. Keys that are not lower are ignored.
+   */
+  public void decreaseKey(int item, double key)
+  {
+    if (key < keys[item])
+    {
+      keys[item] = key;
+      siftUp(positions[item]);
+    }
+  }
+
+  /*
+   * Add the item, or lower its key if it is already in the heap
+   */
+  public void addOrDecreaseKey(int item, double key)
+  {
+    if (contains(item))
+    {
+      decreaseKey(item, key);
+    }
+    else
+    {
+      add(item, key);
+    }
+  }
+
+  /*
+   * The item with the lowest key, the heap must not be empty
+   */
+  public int peek()
+  {
+    return heap[0];
+  }
+
+  public double peekKey()
+  {
+    return keys[heap[0]];
+  }
+
+  /*
+   * Remove and return the item with the lowest key, the heap must not be empty
+   */
+  public int remove()
+  {
+    int item = heap[0];
+
+    size--;
+    if (size > 0)
+    {
+      heap[0] = heap[size];
+      positions[heap[0]] = 0;
+      siftDown(0);
+    }
+
+    // Make sure contains() is false for the removed item even if another item ends up at the same position later
+    positions[item] = Integer.MAX_VALUE;
+
+    return item;
+  }
+
+  private void siftUp(int position)
+  {
+    int item = heap[position];
+    double key = keys[item];
+
+    while (position > 0)
+    {
+      int parentPosition = (position - 1) >>> 1;
+      int parent = heap[parentPosition];
+
+      if (keys[parent] <= key)
+      {
+        break;
+      }
+
+      heap[position] = parent;
+      positions[parent] = position;
+      position = parentPosition;
+    }
+
+    heap[position] = item;
+    positions[item] = position;
+  }
+
+  private void siftDown(int position)
+  {
+    int item = heap[position];
+    double key = keys[item];
+    int half = size >>> 1;
+
+    while (position < half)
+    {
+      int childPosition = 2 * position + 1;
+      int child = heap[childPosition];
+
+      int rightPosition = childPosition + 1;
+      if ((rightPosition < size) && (keys[heap[rightPosition]] < keys[child]))
+      {
+        childPosition = rightPosition;
+        child = heap[childPosition];
+      }
+
+      if (key <= keys[child])
+      {
+        break;
+      }
+
+      heap[position] = child;
+      positions[child] = position;
+      position = childPosition;
+    }
+
+    heap[position] = item;
+    positions[item] = position;
+  }
+}
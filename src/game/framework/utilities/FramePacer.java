@@ -0,0 +1,233 @@
+package game.framework.utilities;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Keeps the game loop running at a fixed frame period by waiting until the deadline of the next frame.
+ *
+ *         Thread.sleep() only takes whole milliseconds and the operating system may wake the thread up a millisecond or more
+ *         after the requested time, so sleeping for the time left in the frame makes every frame a little too long or too
+ *         short. Instead, this class keeps an absolute deadline for each frame (measured with System.nanoTime()) and waits in
+ *         two phases:
+ *
+ *         1) The thread is parked with LockSupport.parkNanos() until the deadline is within the spin budget.
+ *
+ *         2) The remaining time is spent yielding the processor in a loop until the deadline is reached.
+ *
+ *         The spin budget should be a little larger than the wake up latency of the operating system. A larger spin budget
+ *         makes the frames more precise at the cost of more processor time spent in the yield loop.
+ *
+ *         The difference between the time the wait ended and the deadline (the pacing error) and the measured frame periods are
+ *         recorded so they can be displayed or logged while tuning the game.
+ */
+public class FramePacer
+{
+  public static final long DEFAULT_SPIN_BUDGET = 2000000L;                                      // nanoseconds
+
+  private long             spinBudget;
+
+  // The deadline of the current frame and the time the previous wait ended
+  private long             frameDeadline;
+  private long             lastWakeTime;
+  private boolean          started;
+
+  // Statistics for the pacing error (time the wait ended minus the deadline) in nanoseconds
+  private long             numFrames;
+  private long             numMissedDeadlines;
+  private double           meanPacingError;
+  private double           sumSquaredPacingErrorDifferences;                                    // Running sum used to compute the variance (Welford's method)
+  private long             maxPacingError;
+
+  // Statistics for the measured frame period in nanoseconds
+  private long             numFramePeriods;
+  private double           meanFramePeriod;
+  private double           sumSquaredFramePeriodDifferences;
+  private long             minFramePeriod;
+  private long             maxFramePeriod;
+
+  public FramePacer()
+  {
+    this(DEFAULT_SPIN_BUDGET);
+  }
+
+  public FramePacer(long spinBudget)
+  {
+    setSpinBudget(spinBudget);
+    resetStatistics();
+  }
+
+  /*
+   * Set the amount of time (in ns) before the deadline where the pacer stops parking the thread and starts yielding.
+   */
+  public void setSpinBudget(long spinBudget)
+  {
+    this.spinBudget = Math.max(0, spinBudget);
+  }
+
+  public long getSpinBudget()
+  {
+    return spinBudget;
+  }
+
+  /*
+   * Start pacing from the current time. The next call to waitForNextFrame() waits one frame period from now.
+   */
+  public void start()
+  {
+    frameDeadline = System.nanoTime();
+    lastWakeTime = frameDeadline;
+    started = true;
+  }
+
+  /*
+   * Wait until the end of the current frame. The deadline of each frame is one frame period after the deadline of the
+   * previous frame, so small errors do not add up over time. If the frame already took longer than its period, the
+   * deadline is missed, the method returns right away and the deadlines are restarted from the current time rather than
+   * trying to make up for the lost time with shorter frames.
+   *
+   * Returns the amount of time (in ns) spent waiting.
+   */
+  public long waitForNextFrame(long framePeriod)
+  {
+    if (!started)
+    {
+      start();
+    }
+
+    long beginWaitTime = System.nanoTime();
+    frameDeadline += framePeriod;
+
+    if (beginWaitTime >= frameDeadline)
+    {
+      // The deadline was missed, the pacing error is how late the frame ended. The deadlines are then restarted from now.
+      numMissedDeadlines++;
+      recordFrame(beginWaitTime, beginWaitTime - frameDeadline);
+      frameDeadline = beginWaitTime;
+      return 0;
+    }
+
+    // First, park the thread until the deadline is within the spin budget
+    long remainingTime = frameDeadline - beginWaitTime;
+    while (remainingTime > spinBudget)
+    {
+      LockSupport.parkNanos(remainingTime - spinBudget);
+
+      // NOTE: Parking returns right away while the thread is interrupted. The interrupt is cleared and ignored here, the
+      //       same way the game loop used to ignore the InterruptedException thrown by Thread.sleep().
+      Thread.interrupted();
+
+      remainingTime = frameDeadline - System.nanoTime();
+    }
+
+    // Last, yield until the deadline is reached
+    long currentTime = System.nanoTime();
+    while (currentTime < frameDeadline)
+    {
+      Thread.yield();
+      currentTime = System.nanoTime();
+    }
+
+    recordFrame(currentTime, currentTime - frameDeadline);
+
+    return currentTime - beginWaitTime;
+  }
+
+  /*
+   * Update the statistics using the time the wait ended and the pacing error of the frame
+   */
+  private void recordFrame(long wakeTime, long pacingError)
+  {
+    numFrames++;
+    double previousMean = meanPacingError;
+    meanPacingError += (pacingError - previousMean) / numFrames;
+    sumSquaredPacingErrorDifferences += (pacingError - previousMean) * (pacingError - meanPacingError);
+    maxPacingError = Math.max(maxPacingError, pacingError);
+
+    long framePeriod = wakeTime - lastWakeTime;
+    lastWakeTime = wakeTime;
+
+    numFramePeriods++;
+    previousMean = meanFramePeriod;
+    meanFramePeriod += (framePeriod - previousMean) / numFramePeriods;
+    sumSquaredFramePeriodDifferences += (framePeriod - previousMean) * (framePeriod - meanFramePeriod);
+    minFramePeriod = Math.min(minFramePeriod, framePeriod);
+    maxFramePeriod = Math.max(maxFramePeriod, framePeriod);
+  }
+
+  /*
+   * Clear the pacing statistics
+   */
+  public void resetStatistics()
+  {
+    numFrames = 0;
+    numMissedDeadlines = 0;
+    meanPacingError = 0;
+    sumSquaredPacingErrorDifferences = 0;
+    maxPacingError = 0;
+
+    numFramePeriods = 0;
+    meanFramePeriod = 0;
+    sumSquaredFramePeriodDifferences = 0;
+    minFramePeriod = Long.MAX_VALUE;
+    maxFramePeriod = 0;
+  }
+
+  /*
+   * Statistics getters (all times are in ns)
+   */
+  public long getNumFrames()
+  {
+    return numFrames;
+  }
+
+  public long getNumMissedDeadlines()
+  {
+    return numMissedDeadlines;
+  }
+
+  public double getMeanPacingError()
+  {
+    return meanPacingError;
+  }
+
+  public long getMaxPacingError()
+  {
+    return maxPacingError;
+  }
+
+  public double getPacingErrorStandardDeviation()
+  {
+    return (numFrames > 1) ? Math.sqrt(sumSquaredPacingErrorDifferences / (numFrames - 1)) : 0;
+  }
+
+  public double getMeanFramePeriod()
+  {
+    return meanFramePeriod;
+  }
+
+  public long getMinFramePeriod()
+  {
+    return (numFramePeriods > 0) ? minFramePeriod : 0;
+  }
+
+  public long getMaxFramePeriod()
+  {
+    return maxFramePeriod;
+  }
+
+  /*
+   * The standard deviation of the measured frame periods, i.e., the frame period jitter
+   */
+  public double getFramePeriodStandardDeviation()
+  {
+    return (numFramePeriods > 1) ? Math.sqrt(sumSquaredFramePeriodDifferences / (numFramePeriods - 1)) : 0;
+  }
+
+  public String toString()
+  {
+    return "Frames: " + numFrames + ", Missed Deadlines: " + numMissedDeadlines + ", Mean Pacing Error: " + (meanPacingError * GameEngineConstants.NANO_TO_MILLI) + "ms, Max Pacing Error: " + (maxPacingError * GameEngineConstants.NANO_TO_MILLI) + "ms, Frame Period Jitter: " + (getFramePeriodStandardDeviation() * GameEngineConstants.NANO_TO_MILLI) + "ms";
+  }
+}
@@ -11,6 +11,7 @@ public class GameEngineConstants
   public static final int    DEFAULT_CANVAS_HEIGHT    = 600;
   public static final int    DEFAULT_UPDATE_RATE      = 100;                              // number of game update per second
   public static final long   DEFAULT_UPDATE_PERIOD    = 1000000000L / DEFAULT_UPDATE_RATE;                                                                                                                          // nanoseconds
+  public static final int    DEFAULT_MAX_UPDATES_PER_FRAME = 5;                            // max number of fixed timestep updates run to catch up before a frame is rendered
   public static final Color  DEFAULT_BACKGROUND_COLOR = Color.BLACK;
 
   // General constants
@@ -26,6 +27,7 @@ public class GameEngineConstants
   // Some conversion factors used in the game
   public static final double NANO_TO_MILLI            = 0.000001;
   public static final double MILLI_TO_BASE            = 0.001;
+  public static final double NANO_TO_BASE             = 0.000000001;
 
   // Represents the default states of the game.
   public static enum GameState
@@ -0,0 +1,169 @@
+package game.framework.utilities;
+
+import game.framework.GameEngine;
+import game.framework.entities.Entity2D;
+import game.framework.entities.EntityList;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Updates the position, rotation and lifetime of the entities in an entity list on several threads.
+ *
+ *         The list is split in halves on a ForkJoinPool until each chunk holds no more entities than the threshold, and each
+ *         chunk is updated on its own worker thread. Lists with fewer entities than the threshold are updated on the calling
+ *         thread since splitting them costs more than it saves.
+ *
+ *         The built in updates are independent per entity, so they are safe to run in parallel. The user defined
+ *         GameEngine.userGameUpdateEntity() usually is not (e.g., it may add a shot to an entity list or change the score), so
+ *         by default it is called on the calling thread for each entity after the parallel updates have finished, in list order.
+ *         If the game's userGameUpdateEntity() only changes the entity it is given and any shared state it touches is thread
+ *         safe, it can be allowed to run on the worker threads as part of each chunk.
+ *
+ *         NOTE: Entities added to the list while the user updates are run (on the calling thread) are updated and passed to
+ *               userGameUpdateEntity() right away, the same as the sequential game loop does for entities added during the update.
+ */
+public class ParallelEntityUpdater
+{
+  public static final int DEFAULT_THRESHOLD = 8192;
+
+  private ForkJoinPool    pool;
+  private int             threshold;
+  private boolean         userUpdateThreadSafe;
+
+  public ParallelEntityUpdater()
+  {
+    this(DEFAULT_THRESHOLD, false);
+  }
+
+  public ParallelEntityUpdater(int threshold, boolean userUpdateThreadSafe)
+  {
+    this(threshold, userUpdateThreadSafe, Runtime.getRuntime().availableProcessors());
+  }
+
+  public ParallelEntityUpdater(int threshold, boolean userUpdateThreadSafe, int parallelism)
+  {
+    this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    this.threshold = Math.max(1, threshold);
+    this.userUpdateThreadSafe = userUpdateThreadSafe;
+  }
+
+  /*
+   * Update every entity in the list and pass it to the user defined update method of the game
+   */
+  public void update(GameEngine game, EntityList entities, double delta)
+  {
+    int size = entities.size();
+
+    if (size < threshold)
+    {
+      updateSequentially(game, entities, 0, delta);
+      return;
+    }
+
+    pool.invoke(new UpdateTask(game, entities, 0, size, delta));
+
+    if (!userUpdateThreadSafe)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        game.userGameUpdateEntity(entities.get(i));
+      }
+
+      // Entities added by the user update are handled the same way the sequential update handles them
+      updateSequentially(game, entities, size, delta);
+    }
+  }
+
+  /*
+   * Stop the worker threads. The updater can not be used after it has been shut down.
+   */
+  public void shutdown()
+  {
+    pool.shutdown();
+  }
+
+  public int getThreshold()
+  {
+    return threshold;
+  }
+
+  public int getParallelism()
+  {
+    return pool.getParallelism();
+  }
+
+  public boolean isUserUpdateThreadSafe()
+  {
+    return userUpdateThreadSafe;
+  }
+
+  /*
+   * Update the entities from the start index to the end of the list on the calling thread, which includes any entities added
+   * while the list is being updated.
+   */
+  private static void updateSequentially(GameEngine game, EntityList entities, int start, double delta)
+  {
+    for (int i = start; i < entities.size(); i++)
+    {
+      Entity2D currentEntity = entities.get(i);
+      updateEntity(currentEntity, delta);
+      game.userGameUpdateEntity(currentEntity);
+    }
+  }
+
+  private static void updateEntity(Entity2D entity, double delta)
+  {
+    entity.updatePosition(delta);
+    entity.updateRotation(delta);
+    entity.updateLifetime();
+  }
+
+  /*
+   * Updates the entities in the range [start, end) of the list, splitting the range in halves until it is no larger than the threshold
+   */
+  private class UpdateTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private GameEngine        game;
+    private EntityList        entities;
+    private int               start, end;
+    private double            delta;
+
+    UpdateTask(GameEngine game, EntityList entities, int start, int end, double delta)
+    {
+      this.game = game;
+      this.entities = entities;
+      this.start = start;
+      this.end = end;
+      this.delta = delta;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (end - start <= threshold)
+      {
+        for (int i = start; i < end; i++)
+        {
+          Entity2D currentEntity = entities.get(i);
+          updateEntity(currentEntity, delta);
+
+          if (userUpdateThreadSafe)
+          {
+            game.userGameUpdateEntity(currentEntity);
+          }
+        }
+
+        return;
+      }
+
+      int middle = (start + end) >>> 1;
+      invokeAll(new UpdateTask(game, entities, start, middle, delta), new UpdateTask(game, entities, middle, end, delta));
+    }
+  }
+}
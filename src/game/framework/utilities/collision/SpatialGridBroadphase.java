@@ -0,0 +1,359 @@
+package game.framework.utilities.collision;
+
+import game.framework.entities.Entity2D;
+import game.framework.interfaces.ICollisionBroadphase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A uniform grid broadphase that covers the game screen. Every entity is placed into each grid cell that its bounding box
+ *         overlaps and only entities that share at least one cell with the queried entity are returned as collision candidates.
+ *
+ *         Entities that are partially or completely off screen are placed into the border cells of the grid. Since clamping the cell
+ *         range of a bounding box to the grid keeps overlapping ranges overlapping, no collision is ever missed for entities
+ *         outside of the screen, they are simply tested against more candidates.
+ *
+ *         The grid is updated incrementally: update() computes the cell range of every entity and only moves the entities whose
+ *         range changed (or whose list index now holds another entity) between the cells. Most entities stay inside the same cells
+ *         from one frame to the next, so they cost one range check.
+ *
+ *         NOTE: The entries of each cell and the candidate array are reused, so once they have grown to fit the largest entity
+ *               list no memory is allocated by either update() or queryCandidates().
+ */
+public class SpatialGridBroadphase implements ICollisionBroadphase
+{
+  public static final int DEFAULT_CELL_SIZE      = 64;
+
+  private static final int INITIAL_CELL_CAPACITY = 4;
+
+  private int             cellSize;
+  private int             columns, rows;
+
+  // The entities from the last update, stored by their index in the list
+  private Entity2D[]      entities        = new Entity2D[0];
+  private int             entityCount;
+
+  // The bounding box of each entity from the last update, so an entity that did not move is found without computing its cells
+  private int[]           entityX         = new int[0];
+  private int[]           entityY         = new int[0];
+  private int[]           entityWidth     = new int[0];
+  private int[]           entityHeight    = new int[0];
+
+  // The range of cells covered by each entity from the last update. An entity without any area has an empty range (min > max).
+  private int[]           entityMinColumn = new int[0];
+  private int[]           entityMaxColumn = new int[0];
+  private int[]           entityMinRow    = new int[0];
+  private int[]           entityMaxRow    = new int[0];
+
+  // The entity indices in each cell, in no particular order. Only the first cellCounts[c] entries of cellEntries[c] are valid.
+  private int[][]         cellEntries;
+  private int[]           cellCounts;
+
+  // Used to avoid returning an entity more than once when it overlaps several of the cells covered by the queried entity
+  private int[]           queryStamp      = new int[0];
+  private int             currentStamp;
+
+  private int[]           candidates      = new int[0];
+
+  public SpatialGridBroadphase(int screenWidth, int screenHeight)
+  {
+    this(screenWidth, screenHeight, DEFAULT_CELL_SIZE);
+  }
+
+  public SpatialGridBroadphase(int screenWidth, int screenHeight, int cellSize)
+  {
+    // Fall back to the default cell size if the one specified does not make sense
+    this.cellSize = (cellSize > 0) ? cellSize : DEFAULT_CELL_SIZE;
+
+    columns = Math.max(1, (screenWidth + this.cellSize - 1) / this.cellSize);
+    rows = Math.max(1, (screenHeight + this.cellSize - 1) / this.cellSize);
+
+    cellEntries = new int[columns * rows][];
+    cellCounts = new int[columns * rows];
+  }
+
+  /*
+   * Empty the grid and place every entity of the list into it.
+   */
+  @Override
+  public void rebuild(List<Entity2D> entityList)
+  {
+    Arrays.fill(cellCounts, 0);
+    Arrays.fill(entities, 0, entityCount, null);
+    entityCount = 0;
+
+    update(entityList);
+  }
+
+  /*
+   * Bring the grid up to date with the current bounding boxes of the entities. An entity is only moved between cells when its
+   * cell range changed since the last update, entities added to the end of the list are placed into the grid and entities past
+   * the end of the list are taken out of it.
+   */
+  @Override
+  public void update(List<Entity2D> entityList)
+  {
+    int size = entityList.size();
+    ensureEntityCapacity(size);
+
+    // NOTE: The engine's entity lists are read by index, any other list through its iterator
+    if (entityList instanceof RandomAccess)
+    {
+      for (int index = 0; index < size; index++)
+      {
+        updateEntity(index, entityList.get(index));
+      }
+    }
+    else
+    {
+      int index = 0;
+      for (Entity2D entity : entityList)
+      {
+        updateEntity(index++, entity);
+      }
+    }
+
+    // The list got shorter, so take the indices past its end out of the grid
+    for (int index = size; index < entityCount; index++)
+    {
+      removeFromCells(index);
+      entities[index] = null;
+    }
+
+    entityCount = size;
+  }
+
+  /*
+   * Move the entity at the list index to the cells its bounding box covers now
+   */
+  private void updateEntity(int index, Entity2D entity)
+  {
+    int boundingX = entity.getBoundingX();
+    int boundingY = entity.getBoundingY();
+    int boundingWidth = entity.getBoundingWidth();
+    int boundingHeight = entity.getBoundingHeight();
+
+    // Most entities have the same bounding box as in the last update (e.g., after a collision), so they are skipped first
+    if ((index < entityCount) && (entities[index] == entity) && (boundingX == entityX[index]) && (boundingY == entityY[index]) && (boundingWidth == entityWidth[index]) && (boundingHeight == entityHeight[index]))
+    {
+      return;
+    }
+
+    entities[index] = entity;
+    entityX[index] = boundingX;
+    entityY[index] = boundingY;
+    entityWidth[index] = boundingWidth;
+    entityHeight[index] = boundingHeight;
+
+    int minColumn, maxColumn, minRow, maxRow;
+
+    // Bounding boxes without an area never intersect anything, so they are not placed into the grid
+    if ((boundingWidth <= 0) || (boundingHeight <= 0))
+    {
+      minColumn = 0;
+      maxColumn = -1;
+      minRow = 0;
+      maxRow = -1;
+    }
+    else
+    {
+      minColumn = clampColumn(cellOf(boundingX));
+      maxColumn = clampColumn(cellOf((long) boundingX + boundingWidth - 1));
+      minRow = clampRow(cellOf(boundingY));
+      maxRow = clampRow(cellOf((long) boundingY + boundingHeight - 1));
+    }
+
+    if (index >= entityCount)
+    {
+      setCellRange(index, minColumn, maxColumn, minRow, maxRow);
+      addToCells(index);
+    }
+    else if ((minColumn != entityMinColumn[index]) || (maxColumn != entityMaxColumn[index]) || (minRow != entityMinRow[index]) || (maxRow != entityMaxRow[index]))
+    {
+      removeFromCells(index);
+      setCellRange(index, minColumn, maxColumn, minRow, maxRow);
+      addToCells(index);
+    }
+  }
+
+  /*
+   * Collect the indices of all entities that share at least one cell with the specified entity.
+   */
+  @Override
+  public int queryCandidates(Entity2D entity)
+  {
+    int boundingX = entity.getBoundingX();
+    int boundingY = entity.getBoundingY();
+    int boundingWidth = entity.getBoundingWidth();
+    int boundingHeight = entity.getBoundingHeight();
+
+    if ((boundingWidth <= 0) || (boundingHeight <= 0))
+    {
+      return 0;
+    }
+
+    int minColumn = clampColumn(cellOf(boundingX));
+    int maxColumn = clampColumn(cellOf((long) boundingX + boundingWidth - 1));
+    int minRow = clampRow(cellOf(boundingY));
+    int maxRow = clampRow(cellOf((long) boundingY + boundingHeight - 1));
+
+    // Start a new query. If the stamp ever wraps around, clear the stamps so old queries can not be mistaken for the current one.
+    if (++currentStamp == 0)
+    {
+      Arrays.fill(queryStamp, 0);
+      currentStamp = 1;
+    }
+
+    int candidateCount = 0;
+    for (int row = minRow; row <= maxRow; row++)
+    {
+      for (int column = minColumn; column <= maxColumn; column++)
+      {
+        int cell = row * columns + column;
+        int[] entries = cellEntries[cell];
+
+        for (int entry = 0; entry < cellCounts[cell]; entry++)
+        {
+          int index = entries[entry];
+          if (queryStamp[index] != currentStamp)
+          {
+            queryStamp[index] = currentStamp;
+            candidates[candidateCount++] = index;
+          }
+        }
+      }
+    }
+
+    // The entries of a cell are not kept in list order, so the candidates are sorted to be visited in the order of the list
+    if (candidateCount > 1)
+    {
+      Arrays.sort(candidates, 0, candidateCount);
+    }
+
+    return candidateCount;
+  }
+
+  @Override
+  public int[] getCandidates()
+  {
+    return candidates;
+  }
+
+  @Override
+  public Entity2D getEntity(int index)
+  {
+    return entities[index];
+  }
+
+  private void setCellRange(int index, int minColumn, int maxColumn, int minRow, int maxRow)
+  {
+    entityMinColumn[index] = minColumn;
+    entityMaxColumn[index] = maxColumn;
+    entityMinRow[index] = minRow;
+    entityMaxRow[index] = maxRow;
+  }
+
+  private void addToCells(int index)
+  {
+    for (int row = entityMinRow[index]; row <= entityMaxRow[index]; row++)
+    {
+      for (int column = entityMinColumn[index]; column <= entityMaxColumn[index]; column++)
+      {
+        int cell = row * columns + column;
+        int[] entries = cellEntries[cell];
+
+        if (entries == null)
+        {
+          entries = cellEntries[cell] = new int[INITIAL_CELL_CAPACITY];
+        }
+        else if (cellCounts[cell] == entries.length)
+        {
+          entries = cellEntries[cell] = Arrays.copyOf(entries, entries.length * 2);
+        }
+
+        entries[cellCounts[cell]++] = index;
+      }
+    }
+  }
+
+  /*
+   * Take the entity out of the cells of its last cell range. The last entry of a cell takes the place of the removed one.
+   */
+  private void removeFromCells(int index)
+  {
+    for (int row = entityMinRow[index]; row <= entityMaxRow[index]; row++)
+    {
+      for (int column = entityMinColumn[index]; column <= entityMaxColumn[index]; column++)
+      {
+        int cell = row * columns + column;
+        int[] entries = cellEntries[cell];
+
+        for (int entry = 0; entry < cellCounts[cell]; entry++)
+        {
+          if (entries[entry] == index)
+          {
+            entries[entry] = entries[--cellCounts[cell]];
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * Returns the cell that contains the specified screen coordinate. Rounds towards negative infinity so that negative
+   * coordinates are handled correctly.
+   */
+  private long cellOf(long coordinate)
+  {
+    long cell = coordinate / cellSize;
+
+    if ((coordinate < 0) && (cell * cellSize != coordinate))
+    {
+      cell--;
+    }
+
+    return cell;
+  }
+
+  private int clampColumn(long column)
+  {
+    return (int) Math.max(0, Math.min(columns - 1, column));
+  }
+
+  private int clampRow(long row)
+  {
+    return (int) Math.max(0, Math.min(rows - 1, row));
+  }
+
+  /*
+   * Grow the arrays kept per entity, keeping the entities and cell ranges of the last update
+   */
+  private void ensureEntityCapacity(int size)
+  {
+    if (entities.length >= size)
+    {
+      return;
+    }
+
+    int capacity = Math.max(size, entities.length * 2);
+
+    entities = Arrays.copyOf(entities, capacity);
+    entityX = Arrays.copyOf(entityX, capacity);
+    entityY = Arrays.copyOf(entityY, capacity);
+    entityWidth = Arrays.copyOf(entityWidth, capacity);
+    entityHeight = Arrays.copyOf(entityHeight, capacity);
+    entityMinColumn = Arrays.copyOf(entityMinColumn, capacity);
+    entityMaxColumn = Arrays.copyOf(entityMaxColumn, capacity);
+    entityMinRow = Arrays.copyOf(entityMinRow, capacity);
+    entityMaxRow = Arrays.copyOf(entityMaxRow, capacity);
+    queryStamp = new int[capacity];
+    candidates = new int[capacity];
+    currentStamp = 0;
+  }
+}
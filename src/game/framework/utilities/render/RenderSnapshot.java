@@ -0,0 +1,120 @@
+package game.framework.utilities.render;
+
+import game.framework.entities.Entity2D;
+
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         The draw state of every entity to be drawn in one frame, captured by the game loop after the entities are updated.
+ *
+ *         For each entity the snapshot keeps a reference to the entity (used to draw its image or shape) along with the position and
+ *         face angle it had when the snapshot was captured. Drawing the snapshot calls drawAt() on each entity with the captured
+ *         values, so the entities can keep being updated by the game loop while the snapshot is drawn by another thread.
+ *
+ *         Only entities that are alive and visible are added to a snapshot. The entities are drawn in the order they were added.
+ */
+public class RenderSnapshot
+{
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private Entity2D[]       entities;
+  private double[]         x, y;
+  private double[]         faceAngle;
+  private int              count;
+
+  // The number of the frame the snapshot was captured in, 0 if it has never been published
+  volatile long            frameNumber;
+
+  public RenderSnapshot()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public RenderSnapshot(int initialCapacity)
+  {
+    int capacity = Math.max(1, initialCapacity);
+
+    entities = new Entity2D[capacity];
+    x = new double[capacity];
+    y = new double[capacity];
+    faceAngle = new double[capacity];
+    count = 0;
+  }
+
+  /*
+   * Add an entity to the snapshot with the position and face angle it should be drawn at
+   */
+  public void add(Entity2D entity, double positionX, double positionY, double angle)
+  {
+    if (count == entities.length)
+    {
+      int capacity = entities.length * 2;
+
+      entities = Arrays.copyOf(entities, capacity);
+      x = Arrays.copyOf(x, capacity);
+      y = Arrays.copyOf(y, capacity);
+      faceAngle = Arrays.copyOf(faceAngle, capacity);
+    }
+
+    entities[count] = entity;
+    x[count] = positionX;
+    y[count] = positionY;
+    faceAngle[count] = angle;
+    count++;
+  }
+
+  /*
+   * Remove all entities from the snapshot so it can be captured again
+   */
+  public void clear()
+  {
+    // Drop the entity references so entities removed from the game can be garbage collected
+    Arrays.fill(entities, 0, count, null);
+    count = 0;
+  }
+
+  /*
+   * Draw every entity in the snapshot at its captured position and face angle
+   */
+  public void draw(Graphics2D g)
+  {
+    for (int index = 0; index < count; index++)
+    {
+      entities[index].drawAt(g, x[index], y[index], faceAngle[index]);
+    }
+  }
+
+  public int size()
+  {
+    return count;
+  }
+
+  public long getFrameNumber()
+  {
+    return frameNumber;
+  }
+
+  public Entity2D getEntity(int index)
+  {
+    return entities[index];
+  }
+
+  public double getPositionX(int index)
+  {
+    return x[index];
+  }
+
+  public double getPositionY(int index)
+  {
+    return y[index];
+  }
+
+  public double getFaceAngle(int index)
+  {
+    return faceAngle[index];
+  }
+}
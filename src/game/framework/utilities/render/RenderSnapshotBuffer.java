@@ -0,0 +1,78 @@
+package game.framework.utilities.render;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Hands render snapshots from the game loop to the thread that draws them without either thread waiting on the other.
+ *
+ *         Three snapshots are used (triple buffering). The game loop captures the next frame into the write snapshot and publishes
+ *         it, which swaps it with the ready snapshot. The thread that draws takes the ready snapshot by swapping it with the
+ *         snapshot it drew last, but only when the ready snapshot is newer. Since each swap is a single atomic exchange, each
+ *         snapshot is only ever used by one thread at a time, the game loop never waits for a slow draw (it simply overwrites
+ *         the ready snapshot) and the drawing thread always gets the newest published frame.
+ *
+ *         NOTE: There must be only one thread capturing and publishing snapshots and only one thread acquiring them.
+ */
+public class RenderSnapshotBuffer
+{
+  private RenderSnapshot                  writeSnapshot;
+  private RenderSnapshot                  readSnapshot;
+  private AtomicReference<RenderSnapshot> readySnapshot;
+
+  private volatile long                   publishedFrameNumber;
+
+  public RenderSnapshotBuffer()
+  {
+    writeSnapshot = new RenderSnapshot();
+    readSnapshot = new RenderSnapshot();
+    readySnapshot = new AtomicReference<RenderSnapshot>(new RenderSnapshot());
+    publishedFrameNumber = 0;
+  }
+
+  /*
+   * Returns the snapshot the game loop should capture the next frame into. It is empty until entities are added to it.
+   */
+  public RenderSnapshot getWriteSnapshot()
+  {
+    return writeSnapshot;
+  }
+
+  /*
+   * Publish the write snapshot so it can be drawn. The game loop gets a new empty snapshot to capture the next frame into.
+   */
+  public void publish()
+  {
+    long frameNumber = publishedFrameNumber + 1;
+
+    writeSnapshot.frameNumber = frameNumber;
+    writeSnapshot = readySnapshot.getAndSet(writeSnapshot);
+    writeSnapshot.clear();
+
+    publishedFrameNumber = frameNumber;
+  }
+
+  /*
+   * The number of the newest published frame (0 if none has been published yet)
+   */
+  public long getPublishedFrameNumber()
+  {
+    return publishedFrameNumber;
+  }
+
+  /*
+   * Returns the newest published snapshot. If no new snapshot has been published since the last call, the same snapshot is
+   * returned again. The snapshot can be used until the next call to this method.
+   */
+  public RenderSnapshot acquireLatest()
+  {
+    if (readySnapshot.get().frameNumber > readSnapshot.frameNumber)
+    {
+      readSnapshot = readySnapshot.getAndSet(readSnapshot);
+    }
+
+    return readSnapshot;
+  }
+}
@@ -0,0 +1,176 @@
+package game.framework.entities;
+
+import java.awt.Rectangle;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A test of the bounding box collision methods of Entity2D. Run it as a Java application, it prints the result of each
+ *         check and exits with status 1 if a check fails.
+ *
+ *         1) Allocation: collidesWith(Entity2D) is called NUM_ALLOCATION_CALLS times between plain entities after a warm up. The
+ *            bytes allocated by the thread (com.sun.management.ThreadMXBean) must be 0 per call.
+ *
+ *         2) Same result as java.awt.Rectangle.intersects() for random boxes, including empty boxes and boxes whose far edge
+ *            overflows an int.
+ *
+ *         3) A subclass that overrides getBoundingRectangle() with a smaller hit box collides with that hit box, whichever side
+ *            of the test it is on and also through the bounding box getters.
+ */
+public class BoundingBoxCollisionTest
+{
+  private static final int NUM_ALLOCATION_CALLS = 1000000;
+  private static final int NUM_WARMUP_CALLS     = 200000;
+  private static final int NUM_RANDOM_CASES     = 1000000;
+  private static final int HIT_BOX_INSET        = 4;
+
+  private static int       numFailures;
+
+  public static void main(String[] args)
+  {
+    testAllocation();
+    testSameAsRectangle();
+    testOverriddenBoundingRectangle();
+
+    if (numFailures > 0)
+    {
+      System.out.println(numFailures + " check(s) failed");
+      System.exit(1);
+    }
+
+    System.out.println("All checks passed");
+  }
+
+  private static void testAllocation()
+  {
+    java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported())
+    {
+      System.out.println("  SKIP: the JVM does not measure the memory allocated by a thread");
+      return;
+    }
+
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    long threadId = Thread.currentThread().getId();
+
+    Entity2D[] entities = new Entity2D[64];
+    for (int i = 0; i < entities.length; i++)
+    {
+      entities[i] = createEntity(i * 7 % 50, i * 13 % 50, 10, 10);
+    }
+
+    int numCollisions = countCollisions(entities, NUM_WARMUP_CALLS);
+
+    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+    numCollisions += countCollisions(entities, NUM_ALLOCATION_CALLS);
+    long allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    System.out.println("Allocation: " + allocatedBytes + " bytes for " + NUM_ALLOCATION_CALLS + " calls (" + numCollisions + " collisions)");
+
+    // NOTE: The allocation counter itself may allocate a few bytes, which is far less than one byte per call
+    check(allocatedBytes < NUM_ALLOCATION_CALLS / 1000, "collidesWith(Entity2D) allocates 0 bytes per call (" + ((double) allocatedBytes / NUM_ALLOCATION_CALLS) + ")");
+  }
+
+  private static int countCollisions(Entity2D[] entities, int numCalls)
+  {
+    int numCollisions = 0;
+
+    for (int i = 0; i < numCalls; i++)
+    {
+      if (entities[i % entities.length].collidesWith(entities[(i / entities.length) % entities.length]))
+      {
+        numCollisions++;
+      }
+    }
+
+    return numCollisions;
+  }
+
+  private static void testSameAsRectangle()
+  {
+    Random random = new Random(42);
+    int numMismatches = 0;
+
+    for (int i = 0; i < NUM_RANDOM_CASES; i++)
+    {
+      Rectangle a = randomRectangle(random);
+      Rectangle b = randomRectangle(random);
+
+      Entity2D entity = createEntity(a.x, a.y, a.width, a.height);
+      boolean expected = a.intersects(b);
+
+      if ((entity.intersectsBoundingBox(b.x, b.y, b.width, b.height) != expected) || (entity.collidesWith(createEntity(b.x, b.y, b.width, b.height)) != expected))
+      {
+        numMismatches++;
+      }
+    }
+
+    check(numMismatches == 0, "the same result as Rectangle.intersects() for " + NUM_RANDOM_CASES + " random boxes (" + numMismatches + " mismatches)");
+  }
+
+  private static Rectangle randomRectangle(Random random)
+  {
+    // Mostly small boxes near each other, sometimes empty or negative sizes and boxes at the edge of the int range
+    int x = (random.nextInt(8) == 0) ? Integer.MAX_VALUE - random.nextInt(20) : random.nextInt(40) - 20;
+    int y = (random.nextInt(8) == 0) ? Integer.MAX_VALUE - random.nextInt(20) : random.nextInt(40) - 20;
+
+    return new Rectangle(x, y, random.nextInt(30) - 3, random.nextInt(30) - 3);
+  }
+
+  private static void testOverriddenBoundingRectangle()
+  {
+    // The full boxes overlap by 2 pixels, the hit box of the ship is inset by 4 pixels, so there is no collision
+    Entity2D ship = new HitBoxEntity();
+    ship.setPosition(0, 0);
+    ship.setDimensions(20, 20);
+
+    Entity2D rock = createEntity(18, 0, 20, 20);
+
+    check(!rock.collidesWith(ship), "an entity does not collide with the overridden bounding rectangle it misses");
+    check(!ship.collidesWith(rock), "an overridden bounding rectangle does not collide with an entity it misses");
+    check(!ship.intersectsBoundingBox(18, 0, 20, 20), "intersectsBoundingBox() uses the overridden bounding rectangle");
+    check((ship.getBoundingX() == HIT_BOX_INSET) && (ship.getBoundingWidth() == 20 - 2 * HIT_BOX_INSET), "the bounding box getters return the overridden bounding rectangle");
+
+    rock.setPosition(15, 0);
+
+    check(rock.collidesWith(ship), "an entity collides with the overridden bounding rectangle it overlaps");
+    check(ship.collidesWith(rock), "an overridden bounding rectangle collides with an entity it overlaps");
+  }
+
+  private static Entity2D createEntity(int x, int y, int width, int height)
+  {
+    Entity2D entity = new Entity2D();
+    entity.setPosition(x, y);
+    entity.setDimensions(width, height);
+
+    return entity;
+  }
+
+  /*
+   * An entity with a hit box smaller than its image, built from the default bounding rectangle
+   */
+  private static class HitBoxEntity extends Entity2D
+  {
+    @Override
+    public Rectangle getBoundingRectangle()
+    {
+      Rectangle boundingRectangle = super.getBoundingRectangle();
+      boundingRectangle.grow(-HIT_BOX_INSET, -HIT_BOX_INSET);
+
+      return boundingRectangle;
+    }
+  }
+
+  private static void check(boolean condition, String description)
+  {
+    System.out.println((condition ? "  PASS: " : "  FAIL: ") + description);
+
+    if (!condition)
+    {
+      numFailures++;
+    }
+  }
+}
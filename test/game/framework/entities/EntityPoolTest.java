@@ -0,0 +1,126 @@
+package game.framework.entities;
+
+import game.framework.interfaces.IEntityFactory;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A test of reusing entities through an EntityPool. Run it as a Java application, it prints the result of each check and
+ *         exits with status 1 if a check fails.
+ *
+ *         1) Lifetime: a shot with a life span of SHOT_LIFESPAN updates is killed half way through its life and released. The
+ *            shot acquired again must live for its whole life span, not only for the half that was left.
+ *
+ *         2) Interpolation: a shot moved directly through its position object before it died must not be interpolated from
+ *            its position before that move on the first frame after it is acquired again.
+ *
+ *         3) Double release: releasing a shot that is already in the pool must be rejected, so the pool never hands the same
+ *            shot out twice.
+ */
+public class EntityPoolTest
+{
+  private static final int SHOT_LIFESPAN = 10;
+
+  private static int       numFailures;
+
+  public static void main(String[] args)
+  {
+    testLifetime();
+    testInterpolation();
+    testDoubleRelease();
+
+    if (numFailures > 0)
+    {
+      System.out.println(numFailures + " check(s) failed");
+      System.exit(1);
+    }
+
+    System.out.println("All checks passed");
+  }
+
+  private static void testLifetime()
+  {
+    EntityPool<Entity2D> pool = createPool();
+    Entity2D shot = pool.acquire();
+    shot.setLifespan(SHOT_LIFESPAN);
+
+    for (int i = 0; i < SHOT_LIFESPAN / 2; i++)
+    {
+      shot.updateLifetime();
+    }
+
+    // The shot hits something half way through its life
+    shot.kill();
+    pool.release(shot);
+
+    Entity2D reusedShot = pool.acquire();
+    check(reusedShot == shot, "the released shot is reused");
+    check(reusedShot.getLifeage() == 0, "the life age of the reused shot starts over (" + reusedShot.getLifeage() + ")");
+
+    int numUpdatesAlive = 0;
+    while (reusedShot.isAlive() && (numUpdatesAlive <= 2 * SHOT_LIFESPAN))
+    {
+      reusedShot.updateLifetime();
+      numUpdatesAlive++;
+    }
+
+    // A shot dies in the update after its life span ran out
+    check(numUpdatesAlive == SHOT_LIFESPAN + 1, "the reused shot lives for its whole life span (" + numUpdatesAlive + " updates, " + (SHOT_LIFESPAN + 1) + " expected)");
+  }
+
+  private static void testInterpolation()
+  {
+    EntityPool<Entity2D> pool = createPool();
+    Entity2D shot = pool.acquire();
+    shot.setPosition(100, 100);
+
+    // The shot is moved directly through its position object, as GameUtility.collideWalls() does, and dies there
+    shot.getPosition().x = 300;
+    shot.getPosition().y = 50;
+    shot.kill();
+    pool.release(shot);
+
+    Entity2D reusedShot = pool.acquire();
+
+    check((reusedShot.getInterpolatedPositionX(0.0) == 300) && (reusedShot.getInterpolatedPositionY(0.0) == 50), "the reused shot is not interpolated from a position of its previous life (" + reusedShot.getInterpolatedPositionX(0.0) + ", " + reusedShot.getInterpolatedPositionY(0.0) + ")");
+  }
+
+  private static void testDoubleRelease()
+  {
+    EntityPool<Entity2D> pool = createPool();
+    Entity2D shot = pool.acquire();
+    shot.kill();
+
+    check(pool.release(shot), "a dead shot can be released");
+    check(!pool.release(shot), "releasing the same shot again is rejected");
+    check(pool.size() == 1, "the pool holds the shot once (" + pool.size() + ")");
+
+    Entity2D firstShot = pool.acquire();
+    Entity2D secondShot = pool.acquire();
+    check(firstShot != secondShot, "two acquired shots are different objects");
+
+    check(pool.release(firstShot), "an acquired shot can be released again");
+  }
+
+  private static EntityPool<Entity2D> createPool()
+  {
+    return new EntityPool<Entity2D>(Entity2D.class, new IEntityFactory<Entity2D>()
+    {
+      public Entity2D createEntity()
+      {
+        return new Entity2D();
+      }
+    });
+  }
+
+  private static void check(boolean condition, String description)
+  {
+    System.out.println((condition ? "  PASS: " : "  FAIL: ") + description);
+
+    if (!condition)
+    {
+      numFailures++;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package game.framework.planning;
+
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Compares BidirectionalAStar with AStar and IndexedAStar on three kinds of graphs. Run it as a Java application.
+ *
+ *         1) Maze: a MAZE_SIZE x MAZE_SIZE 4 neighbor grid graph where the walls of a random perfect maze are removed nodes, so there
+ *            is a single long winding path between any two cells.
+ *
+ *         2) Open field: a GRID_SIZE x GRID_SIZE 8 neighbor grid graph without obstacles.
+ *
+ *         3) Obstacles: the same grid with OBSTACLE_FRACTION of its nodes removed at random.
+ *
+ *         The searches run the same NUM_QUERIES queries between random connected nodes, after WARMUP_TIME of queries on the same
+ *         graph to let the JIT compile them. The mean number of expanded nodes and the mean time per query are printed, and the
+ *         number of queries where the path of BidirectionalAStar did not cost the same as the (optimal) one of IndexedAStar, which
+ *         should always be 0.
+ */
+public class BidirectionalAStarBenchmark
+{
+  private static final int    MAZE_SIZE         = 255;                                       // Odd, so the maze has walls all around
+  private static final int    GRID_SIZE         = 256;
+  private static final double OBSTACLE_FRACTION = 0.25;
+  private static final int    NUM_QUERIES       = 40;
+  private static final long   WARMUP_TIME       = 1000000000L;                               // 1 s per graph
+  private static final double COST_TOLERANCE    = 1e-6;
+  private static final long   STACK_SIZE        = 256L * 1024 * 1024;
+
+  public static void main(String[] args) throws InterruptedException
+  {
+    // NOTE: AStar builds its path recursively, one call per node, so the long paths of the maze need a larger stack than the
+    //       main thread has
+    Thread benchmark = new Thread(null, new Runnable()
+    {
+      public void run()
+      {
+        runGraphs();
+      }
+    }, "BidirectionalAStarBenchmark", STACK_SIZE);
+
+    benchmark.start();
+    benchmark.join();
+  }
+
+  private static void runGraphs()
+  {
+    System.out.println(String.format("%-24s %10s %10s %10s %10s %10s %10s %9s", "graph", "AStar exp", "Indexed", "Bidir exp", "AStar ms", "Indexed", "Bidir ms", "mismatch"));
+
+    Random random = new Random(23);
+    runGraph(String.format("maze %dx%d, 4n", MAZE_SIZE, MAZE_SIZE), createMaze(MAZE_SIZE, random), random);
+    runGraph(String.format("open field %dx%d, 8n", GRID_SIZE, GRID_SIZE), TestGraphs.createGridGraph(GRID_SIZE, GRID_SIZE, false, 0, random), random);
+    runGraph(String.format("%d%% obstacles %dx%d, 8n", (int) (OBSTACLE_FRACTION * 100), GRID_SIZE, GRID_SIZE), TestGraphs.createGridGraph(GRID_SIZE, GRID_SIZE, false, OBSTACLE_FRACTION, random), random);
+  }
+
+  private static void runGraph(String name, GraphUndirected graph, Random random)
+  {
+    IndexedAStar indexedAStar = new IndexedAStar(graph);
+    BidirectionalAStar bidirectionalAStar = new BidirectionalAStar(graph);
+
+    // Pick connected pairs of nodes
+    int[] sources = new int[NUM_QUERIES];
+    int[] targets = new int[NUM_QUERIES];
+    for (int query = 0; query < NUM_QUERIES; query++)
+    {
+      do
+      {
+        sources[query] = TestGraphs.randomPresentNode(graph, random);
+        targets[query] = TestGraphs.randomPresentNode(graph, random);
+      }
+      while ((sources[query] == targets[query]) || !indexedAStar.Search(sources[query], targets[query]));
+    }
+
+    long startTime = System.nanoTime();
+    for (int query = 0; System.nanoTime() - startTime < WARMUP_TIME; query = (query + 1) % NUM_QUERIES)
+    {
+      new AStar(graph, sources[query], targets[query]).Search();
+      indexedAStar.Search(sources[query], targets[query]);
+      bidirectionalAStar.Search(sources[query], targets[query]);
+    }
+
+    long aStarExpanded = 0, indexedExpanded = 0, bidirectionalExpanded = 0;
+    long aStarTime = 0, indexedTime = 0, bidirectionalTime = 0;
+    int numMismatches = 0;
+
+    for (int query = 0; query < NUM_QUERIES; query++)
+    {
+      startTime = System.nanoTime();
+      AStar aStar = new AStar(graph, sources[query], targets[query]);
+      aStar.Search();
+      aStarTime += System.nanoTime() - startTime;
+      aStarExpanded += aStar.getNumExpandedNodes();
+
+      startTime = System.nanoTime();
+      indexedAStar.Search(sources[query], targets[query]);
+      indexedTime += System.nanoTime() - startTime;
+      indexedExpanded += indexedAStar.getNumExpandedNodes();
+
+      startTime = System.nanoTime();
+      bidirectionalAStar.Search(sources[query], targets[query]);
+      bidirectionalTime += System.nanoTime() - startTime;
+      bidirectionalExpanded += bidirectionalAStar.getNumExpandedNodes();
+
+      if (Math.abs(bidirectionalAStar.getPathCost() - indexedAStar.getPathCost()) > COST_TOLERANCE)
+      {
+        numMismatches++;
+      }
+    }
+
+    System.out.println(String.format("%-24s %10.0f %10.0f %10.0f %10.2f %10.2f %10.2f %9d", name, (double) aStarExpanded / NUM_QUERIES, (double) indexedExpanded / NUM_QUERIES, (double) bidirectionalExpanded / NUM_QUERIES, aStarTime / 1e6 / NUM_QUERIES, indexedTime / 1e6 / NUM_QUERIES, bidirectionalTime / 1e6 / NUM_QUERIES, numMismatches));
+  }
+
+  /*
+   * A 4 neighbor grid graph where the cells with an odd row and column are rooms, and the walls between them are removed nodes
+   * except where a randomized depth first search (the recursive backtracker) carved a passage
+   */
+  private static GraphUndirected createMaze(int size, Random random)
+  {
+    boolean[] open = new boolean[size * size];
+    int[] stack = new int[size * size];
+    int stackSize = 0;
+    int[] rowSteps = { -2, 2, 0, 0 };
+    int[] colSteps = { 0, 0, -2, 2 };
+
+    open[size + 1] = true;
+    stack[stackSize++] = size + 1;
+
+    while (stackSize > 0)
+    {
+      int cell = stack[stackSize - 1];
+      int row = cell / size, col = cell % size;
+
+      // Move to a random unvisited room next to the current one, or back up if there is none
+      int numChoices = 0;
+      int[] choices = new int[4];
+      for (int direction = 0; direction < 4; direction++)
+      {
+        int nextRow = row + rowSteps[direction], nextCol = col + colSteps[direction];
+
+        if ((nextRow > 0) && (nextRow < size - 1) && (nextCol > 0) && (nextCol < size - 1) && !open[nextRow * size + nextCol])
+        {
+          choices[numChoices++] = direction;
+        }
+      }
+
+      if (numChoices == 0)
+      {
+        stackSize--;
+        continue;
+      }
+
+      int direction = choices[random.nextInt(numChoices)];
+      int nextCell = (row + rowSteps[direction]) * size + col + colSteps[direction];
+      open[(row + rowSteps[direction] / 2) * size + col + colSteps[direction] / 2] = true;
+      open[nextCell] = true;
+      stack[stackSize++] = nextCell;
+    }
+
+    GraphUndirected graph = TestGraphs.createGridGraph(size, size, true, 0, random);
+    for (int cell = 0; cell < size * size; cell++)
+    {
+      if (!open[cell])
+      {
+        graph.removeNode(cell);
+      }
+    }
+
+    return graph;
+  }
+}
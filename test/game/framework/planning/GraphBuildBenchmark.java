@@ -0,0 +1,114 @@
+package game.framework.planning;
+
+import game.framework.planning.utils.GraphGenerator;
+import game.framework.primitives.Position2D;
+
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Measures building GraphUndirected graphs and looking up their edges. Run it as a Java application.
+ *
+ *         1) Grid: a GRID_SIZE x GRID_SIZE 8 neighbor grid from GraphGenerator.generateGridGraph(), then NUM_LOOKUPS calls of
+ *            isEdgePresent() (about two thirds of them for edges that exist) and NUM_UPDATES calls of updateEdgeCost().
+ *
+ *         2) Dense: DENSE_NODES nodes where each node is connected to DENSE_DEGREE / 2 random nodes with AddEdge(), so every node
+ *            ends up with about DENSE_DEGREE edges, then NUM_LOOKUPS calls of getEdge() for random pairs of connected nodes.
+ *
+ *         Every case is run NUM_RUNS times and the fastest run is printed, so the first runs warm up the JIT.
+ */
+public class GraphBuildBenchmark
+{
+  private static final int GRID_SIZE    = 512;
+  private static final int DENSE_NODES  = 4096;
+  private static final int DENSE_DEGREE = 80;
+  private static final int NUM_LOOKUPS  = 2000000;
+  private static final int NUM_UPDATES  = 200000;
+  private static final int NUM_RUNS     = 4;
+
+  public static void main(String[] args)
+  {
+    double bestGridBuild = Double.POSITIVE_INFINITY, bestGridLookups = Double.POSITIVE_INFINITY, bestGridUpdates = Double.POSITIVE_INFINITY;
+    double bestDenseBuild = Double.POSITIVE_INFINITY, bestDenseLookups = Double.POSITIVE_INFINITY;
+    int numFound = 0;
+
+    for (int run = 0; run < NUM_RUNS; run++)
+    {
+      System.gc();
+
+      // Grid
+      long startTime = System.nanoTime();
+      GraphUndirected grid = new GraphUndirected(TestGraphs.EDGE_FACTORY);
+      GraphGenerator.generateGridGraph(grid, TestGraphs.NODE_FACTORY, TestGraphs.EDGE_FACTORY, 1, 0, 0, 10, 10, GRID_SIZE, GRID_SIZE, false, false);
+      bestGridBuild = Math.min(bestGridBuild, elapsedMilliseconds(startTime));
+
+      Random random = new Random(run);
+      startTime = System.nanoTime();
+      numFound = 0;
+      for (int i = 0; i < NUM_LOOKUPS; i++)
+      {
+        int source = random.nextInt(GRID_SIZE * GRID_SIZE);
+        int destination = source + (random.nextInt(3) - 1) * GRID_SIZE + 1 + random.nextInt(2);
+
+        if ((destination < GRID_SIZE * GRID_SIZE) && grid.isEdgePresent(source, destination))
+        {
+          numFound++;
+        }
+      }
+      bestGridLookups = Math.min(bestGridLookups, elapsedMilliseconds(startTime));
+
+      startTime = System.nanoTime();
+      for (int i = 0; i < NUM_UPDATES; i++)
+      {
+        int source = random.nextInt(GRID_SIZE * GRID_SIZE - GRID_SIZE);
+        grid.updateEdgeCost(source, source + GRID_SIZE, 1 + random.nextInt(20));
+      }
+      bestGridUpdates = Math.min(bestGridUpdates, elapsedMilliseconds(startTime));
+
+      grid = null;
+      System.gc();
+
+      // Dense
+      startTime = System.nanoTime();
+      GraphUndirected dense = new GraphUndirected(TestGraphs.EDGE_FACTORY);
+      int[] sources = new int[DENSE_NODES * DENSE_DEGREE / 2];
+      int[] destinations = new int[sources.length];
+      random = new Random(run);
+
+      for (int node = 0; node < DENSE_NODES; node++)
+      {
+        dense.AddNode(TestGraphs.NODE_FACTORY.createNode(node, new Position2D(node % 64, node / 64)));
+      }
+
+      for (int i = 0; i < sources.length; i++)
+      {
+        sources[i] = i / (DENSE_DEGREE / 2);
+        destinations[i] = random.nextInt(DENSE_NODES);
+        dense.AddEdge(TestGraphs.EDGE_FACTORY.createEdge(sources[i], destinations[i], 1.0));
+      }
+      bestDenseBuild = Math.min(bestDenseBuild, elapsedMilliseconds(startTime));
+
+      startTime = System.nanoTime();
+      for (int i = 0; i < NUM_LOOKUPS; i++)
+      {
+        int edge = random.nextInt(sources.length);
+
+        if (dense.getEdge(destinations[edge], sources[edge]) == null)
+        {
+          throw new IllegalStateException("The edge " + destinations[edge] + " -> " + sources[edge] + " is missing.");
+        }
+      }
+      bestDenseLookups = Math.min(bestDenseLookups, elapsedMilliseconds(startTime));
+    }
+
+    System.out.println(String.format("Grid %dx%d, 8 neighbors: build %.0f ms, %d isEdgePresent() %.0f ms (%d found), %d updateEdgeCost() %.0f ms", GRID_SIZE, GRID_SIZE, bestGridBuild, NUM_LOOKUPS, bestGridLookups, numFound, NUM_UPDATES, bestGridUpdates));
+    System.out.println(String.format("Dense %d nodes, degree %d: build %.0f ms, %d getEdge() %.0f ms", DENSE_NODES, DENSE_DEGREE, bestDenseBuild, NUM_LOOKUPS, bestDenseLookups));
+  }
+
+  private static double elapsedMilliseconds(long startTime)
+  {
+    return (System.nanoTime() - startTime) / 1000000.0;
+  }
+}
@@ -0,0 +1,99 @@
+package game.framework.planning;
+
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A test that HierarchicalPathfinder finds a path exactly when one exists. Run it as a Java application, it prints the
+ *         result of each check and exits with status 1 if a check fails.
+ *
+ *         Random 8 (and 4) connected grid graphs from GraphGenerator with many blocked nodes are searched with a freshly built
+ *         HierarchicalPathfinder and with IndexedAStar. Both must agree on whether the target can be reached, and the
+ *         hierarchical path can never be cheaper than the optimal one. Blocked nodes often leave diagonal edges that cross a
+ *         cluster border with both cut corners blocked, which must still connect the clusters.
+ */
+public class HierarchicalPathfinderReachabilityTest
+{
+  private static final int      NUM_GRIDS         = 40;
+  private static final int      NUM_QUERIES       = 200;
+  private static final double[] BLOCKED_FRACTIONS = { 0.2, 0.3, 0.4, 0.5 };
+
+  private static int            numFailures;
+
+  public static void main(String[] args)
+  {
+    for (boolean fourNeighbors : new boolean[] { false, true })
+    {
+      for (double blockedFraction : BLOCKED_FRACTIONS)
+      {
+        testGrids(fourNeighbors, blockedFraction);
+      }
+    }
+
+    if (numFailures > 0)
+    {
+      System.out.println(numFailures + " check(s) failed");
+      System.exit(1);
+    }
+
+    System.out.println("All checks passed");
+  }
+
+  private static void testGrids(boolean fourNeighbors, double blockedFraction)
+  {
+    Random random = new Random(17);
+    int numReachable = 0;
+    int numReachabilityMismatches = 0;
+    int numBelowOptimal = 0;
+
+    for (int grid = 0; grid < NUM_GRIDS; grid++)
+    {
+      int rows = 20 + random.nextInt(30);
+      int cols = 20 + random.nextInt(30);
+      int clusterSize = 3 + random.nextInt(8);
+
+      GraphUndirected graph = TestGraphs.createGridGraph(rows, cols, fourNeighbors, blockedFraction, random);
+      HierarchicalPathfinder hierarchicalSearch = new HierarchicalPathfinder(graph, rows, cols, clusterSize);
+      IndexedAStar search = new IndexedAStar(graph);
+
+      for (int query = 0; query < NUM_QUERIES; query++)
+      {
+        int source = TestGraphs.randomPresentNode(graph, random);
+        int target = TestGraphs.randomPresentNode(graph, random);
+
+        boolean found = search.Search(source, target);
+        boolean hierarchicalFound = hierarchicalSearch.Search(source, target);
+
+        if (found)
+        {
+          numReachable++;
+        }
+
+        if (found != hierarchicalFound)
+        {
+          numReachabilityMismatches++;
+        }
+        else if (found && (hierarchicalSearch.getPathCost() < search.getPathCost() - 1e-6))
+        {
+          numBelowOptimal++;
+        }
+      }
+    }
+
+    String grids = (fourNeighbors ? "4" : "8") + " connected, " + (int) (blockedFraction * 100) + "% blocked";
+    check(numReachabilityMismatches == 0, grids + ": the same reachability as IndexedAStar (" + numReachabilityMismatches + " of " + (NUM_GRIDS * NUM_QUERIES) + " queries differ, " + numReachable + " reachable)");
+    check(numBelowOptimal == 0, grids + ": no path is cheaper than the optimal one (" + numBelowOptimal + ")");
+  }
+
+  private static void check(boolean condition, String description)
+  {
+    System.out.println((condition ? "  PASS: " : "  FAIL: ") + description);
+
+    if (!condition)
+    {
+      numFailures++;
+    }
+  }
+}
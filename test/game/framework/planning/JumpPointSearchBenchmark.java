@@ -0,0 +1,91 @@
+package game.framework.planning;
+
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Compares JumpPointSearch with AStar on grid graphs with random obstacles. Run it as a Java application.
+ *
+ *         Each map is a GRID_SIZE x GRID_SIZE grid graph from GraphGenerator (4 or 8 neighbors) with a fraction of its nodes removed
+ *         as obstacles, and the matching WalkabilityGrid for JumpPointSearch. Both searches run the same NUM_QUERIES queries between
+ *         random nodes that are connected, after WARMUP_TIME of queries on the same map to let the JIT compile them.
+ *
+ *         For each map the mean number of expanded nodes and the mean time per query are printed, and the number of queries where
+ *         the path of JumpPointSearch cost more than the one of AStar, which should always be 0.
+ */
+public class JumpPointSearchBenchmark
+{
+  private static final int      GRID_SIZE          = 256;
+  private static final double[] OBSTACLE_FRACTIONS = { 0.0, 0.1, 0.25, 0.4 };
+  private static final int      NUM_QUERIES        = 30;
+  private static final long     WARMUP_TIME        = 1000000000L;                               // 1 s per map
+  private static final double   COST_TOLERANCE     = 1e-6;
+
+  public static void main(String[] args)
+  {
+    System.out.println(String.format("%-20s %12s %12s %12s %12s %10s %10s %6s", "map", "AStar exp", "JPS exp", "AStar ms", "JPS ms", "exp ratio", "speedup", "worse"));
+
+    for (boolean fourNeighbors : new boolean[] { false, true })
+    {
+      for (double obstacleFraction : OBSTACLE_FRACTIONS)
+      {
+        runMap(fourNeighbors, obstacleFraction);
+      }
+    }
+  }
+
+  private static void runMap(boolean fourNeighbors, double obstacleFraction)
+  {
+    Random random = new Random(GRID_SIZE + (int) (obstacleFraction * 100) + (fourNeighbors ? 1000 : 0));
+    GraphUndirected graph = TestGraphs.createGridGraph(GRID_SIZE, GRID_SIZE, fourNeighbors, obstacleFraction, random);
+    JumpPointSearch jumpPointSearch = new JumpPointSearch(WalkabilityGrid.fromGridGraph(graph, 0, 0, 10, 10, GRID_SIZE, GRID_SIZE), fourNeighbors);
+
+    // Pick connected pairs of nodes, JumpPointSearch is fast enough to reject the others
+    int[] sources = new int[NUM_QUERIES];
+    int[] targets = new int[NUM_QUERIES];
+    for (int query = 0; query < NUM_QUERIES; query++)
+    {
+      do
+      {
+        sources[query] = TestGraphs.randomPresentNode(graph, random);
+        targets[query] = TestGraphs.randomPresentNode(graph, random);
+      }
+      while ((sources[query] == targets[query]) || !jumpPointSearch.Search(sources[query], targets[query]));
+    }
+
+    long startTime = System.nanoTime();
+    for (int query = 0; System.nanoTime() - startTime < WARMUP_TIME; query = (query + 1) % NUM_QUERIES)
+    {
+      new AStar(graph, sources[query], targets[query]).Search();
+      jumpPointSearch.Search(sources[query], targets[query]);
+    }
+
+    long aStarExpanded = 0, jumpPointExpanded = 0;
+    long aStarTime = 0, jumpPointTime = 0;
+    int numWorse = 0;
+
+    for (int query = 0; query < NUM_QUERIES; query++)
+    {
+      startTime = System.nanoTime();
+      AStar aStar = new AStar(graph, sources[query], targets[query]);
+      aStar.Search();
+      aStarTime += System.nanoTime() - startTime;
+      aStarExpanded += aStar.getNumExpandedNodes();
+
+      startTime = System.nanoTime();
+      jumpPointSearch.Search(sources[query], targets[query]);
+      jumpPointTime += System.nanoTime() - startTime;
+      jumpPointExpanded += jumpPointSearch.getNumExpandedNodes();
+
+      if (jumpPointSearch.getPathCost() > TestGraphs.pathCost(graph, aStar.getPathAsListOfNodeIds()) + COST_TOLERANCE)
+      {
+        numWorse++;
+      }
+    }
+
+    String name = String.format("%dn %d%% obstacles", fourNeighbors ? 4 : 8, (int) (obstacleFraction * 100));
+    System.out.println(String.format("%-20s %12.0f %12.0f %12.2f %12.2f %10.1f %10.1f %6d", name, (double) aStarExpanded / NUM_QUERIES, (double) jumpPointExpanded / NUM_QUERIES, aStarTime / 1e6 / NUM_QUERIES, jumpPointTime / 1e6 / NUM_QUERIES, (double) aStarExpanded / Math.max(1, jumpPointExpanded), (double) aStarTime / Math.max(1, jumpPointTime), numWorse));
+  }
+}
@@ -0,0 +1,219 @@
+package game.framework.planning;
+
+import game.framework.planning.interfaces.graph.IEdge;
+import game.framework.planning.interfaces.graph.IEdgeFactory;
+import game.framework.planning.interfaces.graph.IIndexedGraph;
+import game.framework.planning.interfaces.graph.INode;
+import game.framework.planning.interfaces.graph.INodeFactory;
+import game.framework.planning.utils.GraphGenerator;
+import game.framework.primitives.Position2D;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Minimal nodes, edges and graphs for the planning tests and benchmarks. The framework leaves the node and edge classes to
+ *         the game, so these only store what the graphs and searches read.
+ */
+public class TestGraphs
+{
+  public static final INodeFactory NODE_FACTORY = new INodeFactory()
+  {
+    public INode createNode(int index, Position2D position)
+    {
+      return new TestNode(index, position);
+    }
+  };
+
+  public static final IEdgeFactory EDGE_FACTORY = new IEdgeFactory()
+  {
+    public IEdge createEdge(int sourceNodeIndex, int destinationNodeIndex)
+    {
+      return new TestEdge(sourceNodeIndex, destinationNodeIndex, 1.0);
+    }
+
+    public IEdge createEdge(int sourceNodeIndex, int destinationNodeIndex, double cost)
+    {
+      return new TestEdge(sourceNodeIndex, destinationNodeIndex, cost);
+    }
+  };
+
+  /*
+   * A grid graph from GraphGenerator with nodes 10 units apart, where the specified fraction of the nodes is removed at random
+   */
+  public static GraphUndirected createGridGraph(int rows, int cols, boolean fourNeighbors, double blockedFraction, Random random)
+  {
+    GraphUndirected graph = new GraphUndirected(EDGE_FACTORY);
+    GraphGenerator.generateGridGraph(graph, NODE_FACTORY, EDGE_FACTORY, 1, 0, 0, 10, 10, rows, cols, false, fourNeighbors);
+
+    int numBlocked = (int) (rows * cols * blockedFraction);
+    for (int i = 0; i < numBlocked; i++)
+    {
+      int nodeIndex = random.nextInt(rows * cols);
+
+      if (graph.isNodePresent(nodeIndex))
+      {
+        graph.removeNode(nodeIndex);
+      }
+    }
+
+    return graph;
+  }
+
+  /*
+   * A random node that is present in the graph
+   */
+  public static int randomPresentNode(IIndexedGraph graph, Random random)
+  {
+    int nodeIndex;
+
+    do
+    {
+      nodeIndex = random.nextInt(graph.getNodeCapacity());
+    }
+    while (!graph.isNodePresent(nodeIndex));
+
+    return nodeIndex;
+  }
+
+  /*
+   * The sum of the edge costs along a path of node indices (e.g., from AStar.getPathAsListOfNodeIds()), or infinity if the path
+   * is empty or uses an edge that is not in the graph
+   */
+  public static double pathCost(Graph graph, List<Integer> path)
+  {
+    if (path.isEmpty())
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    double cost = 0;
+
+    for (int i = 1; i < path.size(); i++)
+    {
+      IEdge edge = graph.getEdge(path.get(i - 1), path.get(i));
+
+      if (edge == null)
+      {
+        return Double.POSITIVE_INFINITY;
+      }
+
+      cost += edge.getCost();
+    }
+
+    return cost;
+  }
+
+  private static class TestNode implements INode
+  {
+    private int        index;
+    private Position2D position;
+
+    TestNode(int index, Position2D position)
+    {
+      this.index = index;
+      this.position = position;
+    }
+
+    public int getIndex()
+    {
+      return index;
+    }
+
+    public Position2D positionGet()
+    {
+      return position;
+    }
+
+    public Position2D centerGet()
+    {
+      return position;
+    }
+
+    public void setIndex(int nodeId)
+    {
+      index = nodeId;
+    }
+
+    public void positionSet(Position2D position)
+    {
+      this.position = position;
+    }
+
+    public void update(int type, int action)
+    {
+    }
+  }
+
+  private static class TestEdge implements IEdge
+  {
+    private int    source, destination;
+    private double cost;
+
+    TestEdge(int source, int destination, double cost)
+    {
+      this.source = source;
+      this.destination = destination;
+      this.cost = cost;
+    }
+
+    public void setIndex(int index)
+    {
+    }
+
+    public void setSource(int nodeId)
+    {
+      source = nodeId;
+    }
+
+    public void setDestination(int nodeId)
+    {
+      destination = nodeId;
+    }
+
+    public void setCost(double cost)
+    {
+      this.cost = cost;
+    }
+
+    public void setEndPoints(double x1, double y1, double x2, double y2)
+    {
+    }
+
+    public void setEndPoints(Position2D p1, Position2D p2)
+    {
+    }
+
+    public int getIndex()
+    {
+      return 0;
+    }
+
+    public int getSource()
+    {
+      return source;
+    }
+
+    public int getDestination()
+    {
+      return destination;
+    }
+
+    public double getCost()
+    {
+      return cost;
+    }
+
+    public boolean isEqual(IEdge edge)
+    {
+      return (edge.getSource() == source) && (edge.getDestination() == destination);
+    }
+
+    public void update(int type, int action)
+    {
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package game.framework.utilities;
+
+import game.framework.entities.Entity2D;
+import game.framework.entities.EntityList;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Measures the per frame cost of the entity list work done by the game engine, with the entities stored in a LinkedList
+ *         (as the engine did before) and in an EntityList. Run it as a Java application.
+ *
+ *         Each frame does what the engine does to one entity list:
+ *
+ *         1) Update: every entity is read with get(i) and its position, rotation and lifetime are updated (gameUpdate()).
+ *
+ *         2) Draw: every entity is read with get(i) again (gameDraw()).
+ *
+ *         3) Collisions: the player is tested against every entity read with get(i) (gameDetectCollisions()).
+ *
+ *         4) Clean up: DEAD_FRACTION of the entities are killed and removed (an iterator remove for the LinkedList, removeDead()
+ *            for the EntityList), and as many new entities are added to the end of the list.
+ *
+ *         NOTE: With a LinkedList, get(i) walks the list from its nearest end, so every pass is O(n^2). Each list is warmed up
+ *               and measured for as many frames as fit into WARMUP_TIME and MEASURE_TIME (at least WARMUP_FRAMES and
+ *               MIN_FRAMES).
+ */
+public class EntityListBenchmark
+{
+  private static final int[]  LIST_SIZES     = { 1000, 10000 };
+  private static final double DEAD_FRACTION  = 0.01;
+  private static final int    WARMUP_FRAMES  = 3;
+  private static final long   WARMUP_TIME    = 1000000000L;                              // 1 s per size and list
+  private static final int    MIN_FRAMES     = 5;
+  private static final long   MEASURE_TIME   = 2000000000L;                              // 2 s per size and list
+  private static final double DELTA          = 0.01;
+
+  public static void main(String[] args)
+  {
+    System.out.println("Microseconds per frame (update, draw, player collisions and clean up of one entity list)");
+    System.out.println(String.format("%10s %14s %14s %10s", "entities", "LinkedList", "EntityList", "speedup"));
+
+    for (int size : LIST_SIZES)
+    {
+      double linkedListTime = measure(new LinkedList<Entity2D>(), size);
+      double entityListTime = measure(new EntityList(), size);
+
+      System.out.println(String.format("%10d %14.1f %14.1f %9.1fx", size, linkedListTime, entityListTime, linkedListTime / entityListTime));
+    }
+  }
+
+  /*
+   * The mean time (in microseconds) of a frame
+   */
+  private static double measure(List<Entity2D> entities, int size)
+  {
+    Random random = new Random(1);
+
+    for (int i = 0; i < size; i++)
+    {
+      entities.add(createEntity(random));
+    }
+
+    Entity2D player = createEntity(random);
+
+    long warmupStartTime = System.nanoTime();
+    for (int frame = 0; (frame < WARMUP_FRAMES) || (System.nanoTime() - warmupStartTime < WARMUP_TIME); frame++)
+    {
+      runFrame(entities, player, random);
+    }
+
+    int numFrames = 0;
+    long startTime = System.nanoTime();
+    long elapsedTime;
+
+    do
+    {
+      runFrame(entities, player, random);
+      numFrames++;
+      elapsedTime = System.nanoTime() - startTime;
+    }
+    while ((numFrames < MIN_FRAMES) || (elapsedTime < MEASURE_TIME));
+
+    return elapsedTime / 1000.0 / numFrames;
+  }
+
+  private static int runFrame(List<Entity2D> entities, Entity2D player, Random random)
+  {
+    // Update
+    for (int i = 0; i < entities.size(); i++)
+    {
+      Entity2D entity = entities.get(i);
+      entity.updatePosition(DELTA);
+      entity.updateRotation(DELTA);
+      entity.updateLifetime();
+    }
+
+    // Draw
+    double sum = 0;
+    for (int i = 0; i < entities.size(); i++)
+    {
+      Entity2D entity = entities.get(i);
+      sum += entity.getPositionX() + entity.getPositionY();
+    }
+
+    // Collisions
+    int numCollisions = 0;
+    for (int i = 0; i < entities.size(); i++)
+    {
+      Entity2D entity = entities.get(i);
+
+      if (entity.isAlive() && player.collidesWith(entity))
+      {
+        numCollisions++;
+      }
+    }
+
+    // Clean up
+    int numDead = (int) (entities.size() * DEAD_FRACTION);
+    for (int i = 0; i < numDead; i++)
+    {
+      entities.get(random.nextInt(entities.size())).setAlive(false);
+    }
+
+    int sizeBefore = entities.size();
+
+    if (entities instanceof EntityList)
+    {
+      ((EntityList) entities).removeDead();
+    }
+    else
+    {
+      Iterator<Entity2D> entityIterator = entities.iterator();
+
+      while (entityIterator.hasNext())
+      {
+        if (!entityIterator.next().isAlive())
+        {
+          entityIterator.remove();
+        }
+      }
+    }
+
+    for (int i = entities.size(); i < sizeBefore; i++)
+    {
+      entities.add(createEntity(random));
+    }
+
+    return numCollisions + (int) Math.signum(sum);
+  }
+
+  private static Entity2D createEntity(Random random)
+  {
+    Entity2D entity = new Entity2D();
+    entity.setPosition(random.nextInt(800), random.nextInt(600));
+    entity.setDimensions(16, 16);
+    entity.setVelocity(random.nextInt(21) - 10, random.nextInt(21) - 10);
+    entity.setRotationRate(10);
+
+    return entity;
+  }
+}
@@ -0,0 +1,151 @@
+package game.framework.utilities;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A headless test of the frame pacer that measures the frame period jitter without opening a window. Run it as a Java
+ *         application, it prints the statistics of each case and exits with status 1 if a check fails.
+ *
+ *         1) Paced frames: the loop waits for NUM_FRAMES frames of FRAME_PERIOD with the default spin budget. The mean frame
+ *            period must be within MAX_MEAN_PERIOD_ERROR of the target. For comparison, the same frames are then timed with the
+ *            old Thread.sleep() of the time left in the frame truncated to whole milliseconds.
+ *
+ *         2) Missed deadlines: every frame does more work than the frame period, so every deadline is missed. The pacing error
+ *            of those frames must be recorded as how late they were, not as 0.
+ *
+ *         NOTE: The results depend on the machine and its load, so the limits are loose enough for a busy machine. The printed
+ *               jitter is what should be compared between machines and spin budgets.
+ */
+public class FramePacerJitterTest
+{
+  private static final long   FRAME_PERIOD          = 10000000L;                               // 10 ms, i.e., 100 frames per second
+  private static final int    NUM_FRAMES            = 500;
+  private static final double MAX_MEAN_PERIOD_ERROR = 0.02;                                    // 2% of the frame period
+
+  private static final long   MISSED_FRAME_WORK     = 15000000L;                               // 15 ms of work in a 10 ms frame
+  private static final int    NUM_MISSED_FRAMES     = 20;
+
+  private static int          numFailures;
+
+  public static void main(String[] args)
+  {
+    testPacedFrames();
+    testSleepTruncation();
+    testMissedDeadlines();
+
+    if (numFailures > 0)
+    {
+      System.out.println(numFailures + " check(s) failed");
+      System.exit(1);
+    }
+
+    System.out.println("All checks passed");
+  }
+
+  private static void testPacedFrames()
+  {
+    FramePacer pacer = new FramePacer();
+    pacer.start();
+
+    for (int i = 0; i < NUM_FRAMES; i++)
+    {
+      pacer.waitForNextFrame(FRAME_PERIOD);
+    }
+
+    System.out.println("FramePacer (spin budget " + (pacer.getSpinBudget() * GameEngineConstants.NANO_TO_MILLI) + "ms): " + pacer);
+    printFramePeriods(pacer.getMeanFramePeriod(), pacer.getMinFramePeriod(), pacer.getMaxFramePeriod(), pacer.getFramePeriodStandardDeviation());
+
+    check(pacer.getNumFrames() == NUM_FRAMES, "every frame is recorded (" + pacer.getNumFrames() + " of " + NUM_FRAMES + ")");
+    check(Math.abs(pacer.getMeanFramePeriod() - FRAME_PERIOD) <= FRAME_PERIOD * MAX_MEAN_PERIOD_ERROR, "the mean frame period is within " + (MAX_MEAN_PERIOD_ERROR * 100) + "% of the target");
+    check(pacer.getMeanPacingError() >= 0, "the mean pacing error is not negative (a wait never ends before its deadline)");
+  }
+
+  /*
+   * Not a check, the frame periods of the old game loop wait are printed for comparison
+   */
+  private static void testSleepTruncation()
+  {
+    long lastWakeTime = System.nanoTime();
+    long frameStartTime = lastWakeTime;
+    double meanFramePeriod = 0;
+    double sumSquaredDifferences = 0;
+    long minFramePeriod = Long.MAX_VALUE;
+    long maxFramePeriod = 0;
+
+    for (int i = 1; i <= NUM_FRAMES; i++)
+    {
+      long loopSleepTime = FRAME_PERIOD - (System.nanoTime() - frameStartTime);
+
+      try
+      {
+        Thread.sleep(Math.max(0, loopSleepTime / 1000000L));
+      }
+      catch (InterruptedException e)
+      {
+      }
+
+      long wakeTime = System.nanoTime();
+      long framePeriod = wakeTime - lastWakeTime;
+      lastWakeTime = wakeTime;
+      frameStartTime = wakeTime;
+
+      double previousMean = meanFramePeriod;
+      meanFramePeriod += (framePeriod - previousMean) / i;
+      sumSquaredDifferences += (framePeriod - previousMean) * (framePeriod - meanFramePeriod);
+      minFramePeriod = Math.min(minFramePeriod, framePeriod);
+      maxFramePeriod = Math.max(maxFramePeriod, framePeriod);
+    }
+
+    System.out.println("Thread.sleep() truncated to whole milliseconds:");
+    printFramePeriods(meanFramePeriod, minFramePeriod, maxFramePeriod, Math.sqrt(sumSquaredDifferences / (NUM_FRAMES - 1)));
+  }
+
+  private static void testMissedDeadlines()
+  {
+    FramePacer pacer = new FramePacer();
+    pacer.start();
+
+    for (int i = 0; i < NUM_MISSED_FRAMES; i++)
+    {
+      busyWait(MISSED_FRAME_WORK);
+      pacer.waitForNextFrame(FRAME_PERIOD);
+    }
+
+    System.out.println("Missed deadlines: " + pacer);
+
+    long minimumLateness = MISSED_FRAME_WORK - FRAME_PERIOD;
+
+    check(pacer.getNumMissedDeadlines() == NUM_MISSED_FRAMES, "every late frame is counted as a missed deadline (" + pacer.getNumMissedDeadlines() + " of " + NUM_MISSED_FRAMES + ")");
+    check(pacer.getMaxPacingError() >= minimumLateness, "the max pacing error includes the lateness of the missed frames");
+    check(pacer.getMeanPacingError() >= minimumLateness, "the mean pacing error includes the lateness of the missed frames");
+  }
+
+  private static void busyWait(long duration)
+  {
+    long endTime = System.nanoTime() + duration;
+    while (System.nanoTime() < endTime)
+    {
+    }
+  }
+
+  private static void printFramePeriods(double mean, long min, long max, double standardDeviation)
+  {
+    System.out.println("  frame period mean " + format(mean) + "ms, min " + format(min) + "ms, max " + format(max) + "ms, jitter (std dev) " + format(standardDeviation) + "ms, " + String.format("%.1f", 1000000000.0 / mean) + " FPS");
+  }
+
+  private static String format(double nanoseconds)
+  {
+    return String.format("%.3f", nanoseconds * GameEngineConstants.NANO_TO_MILLI);
+  }
+
+  private static void check(boolean condition, String description)
+  {
+    System.out.println((condition ? "  PASS: " : "  FAIL: ") + description);
+
+    if (!condition)
+    {
+      numFailures++;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package game.framework.utilities;
+
+import game.framework.GameEngine;
+import game.framework.entities.Entity2D;
+import game.framework.entities.EntityList;
+import game.framework.interfaces.IRender;
+
+import java.awt.Graphics2D;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         Finds the entity list size at which the parallel entity update becomes faster than the sequential one. Run it as a Java
+ *         application on the machine the game targets, the crossover depends on its number of cores.
+ *
+ *         Each list size is updated by a sequential updater (a threshold larger than the list, so every update stays on the
+ *         calling thread) and by parallel updaters with several chunk thresholds. Two workloads are measured:
+ *
+ *         1) Built in update only: position, rotation and lifetime, which is very little work per entity.
+ *
+ *         2) With a thread safe userGameUpdateEntity() doing some math for each entity (e.g., steering), passed to the updater
+ *            as thread safe so it runs on the worker threads.
+ *
+ *         The smallest list size where a parallel updater beats the sequential one is printed for each workload. It is a good
+ *         starting point for the threshold passed to GameEngine.enableParallelUpdate().
+ */
+public class ParallelUpdateCrossoverBenchmark
+{
+  private static final int[]  LIST_SIZES          = { 256, 1024, 4096, 16384, 65536, 262144 };
+  private static final int[]  CHUNK_THRESHOLDS    = { 1024, 4096, 16384 };
+  private static final long   WARMUP_TIME         = 100000000L;                                // 100 ms per size and updater
+  private static final long   MEASURE_TIME        = 50000000L;                                 // 50 ms per round
+  private static final int    NUM_ROUNDS          = 5;
+  private static final double DELTA               = 0.01;
+
+  public static void main(String[] args)
+  {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    System.out.println("Processors: " + parallelism);
+    if (parallelism == 1)
+    {
+      System.out.println("NOTE: With a single processor the parallel update can not be faster, any crossover found is measurement noise");
+    }
+
+    runWorkload("Built in update only", new BenchmarkGame(0), false, parallelism);
+    runWorkload("With a thread safe user update", new BenchmarkGame(8), true, parallelism);
+  }
+
+  private static void runWorkload(String name, BenchmarkGame game, boolean userUpdateThreadSafe, int parallelism)
+  {
+    System.out.println();
+    System.out.println(name + " (microseconds per update of the whole list)");
+
+    StringBuilder header = new StringBuilder(String.format("%10s %12s", "entities", "sequential"));
+    for (int threshold : CHUNK_THRESHOLDS)
+    {
+      header.append(String.format(" %16s", "parallel/" + threshold));
+    }
+    System.out.println(header);
+
+    ParallelEntityUpdater sequentialUpdater = new ParallelEntityUpdater(Integer.MAX_VALUE, userUpdateThreadSafe, 1);
+    ParallelEntityUpdater[] parallelUpdaters = new ParallelEntityUpdater[CHUNK_THRESHOLDS.length];
+    for (int i = 0; i < CHUNK_THRESHOLDS.length; i++)
+    {
+      parallelUpdaters[i] = new ParallelEntityUpdater(CHUNK_THRESHOLDS[i], userUpdateThreadSafe, parallelism);
+    }
+
+    int crossover = -1;
+
+    for (int size : LIST_SIZES)
+    {
+      EntityList entities = createEntities(size);
+
+      double sequentialTime = measure(sequentialUpdater, game, entities);
+      StringBuilder row = new StringBuilder(String.format("%10d %12.1f", size, sequentialTime));
+
+      for (int i = 0; i < parallelUpdaters.length; i++)
+      {
+        // A list smaller than the chunk threshold is updated sequentially, so it is not measured
+        if (size < CHUNK_THRESHOLDS[i])
+        {
+          row.append(String.format(" %16s", "-"));
+          continue;
+        }
+
+        double parallelTime = measure(parallelUpdaters[i], game, entities);
+        row.append(String.format(" %16.1f", parallelTime));
+
+        if ((crossover == -1) && (parallelTime < sequentialTime))
+        {
+          crossover = size;
+        }
+      }
+
+      System.out.println(row);
+    }
+
+    System.out.println((crossover == -1) ? "The parallel update was never faster on this machine" : "The parallel update pays off from " + crossover + " entities");
+
+    sequentialUpdater.shutdown();
+    for (ParallelEntityUpdater updater : parallelUpdaters)
+    {
+      updater.shutdown();
+    }
+  }
+
+  private static EntityList createEntities(int size)
+  {
+    EntityList entities = new EntityList();
+
+    for (int i = 0; i < size; i++)
+    {
+      Entity2D entity = new Entity2D();
+      entity.setVelocity(1 + i % 7, 1 + i % 5);
+      entity.setRotationRate(10);
+      entities.add(entity);
+    }
+
+    return entities;
+  }
+
+  /*
+   * The mean time (in microseconds) of an update of the whole list, in the fastest of several rounds to filter out JIT
+   * compilation and garbage collection
+   */
+  private static double measure(ParallelEntityUpdater updater, GameEngine game, EntityList entities)
+  {
+    long startTime = System.nanoTime();
+    while (System.nanoTime() - startTime < WARMUP_TIME)
+    {
+      updater.update(game, entities, DELTA);
+    }
+
+    double bestTime = Double.POSITIVE_INFINITY;
+
+    for (int round = 0; round < NUM_ROUNDS; round++)
+    {
+      int numUpdates = 0;
+      long elapsedTime;
+      startTime = System.nanoTime();
+
+      do
+      {
+        updater.update(game, entities, DELTA);
+        numUpdates++;
+        elapsedTime = System.nanoTime() - startTime;
+      }
+      while (elapsedTime < MEASURE_TIME);
+
+      bestTime = Math.min(bestTime, elapsedTime / 1000.0 / numUpdates);
+    }
+
+    return bestTime;
+  }
+
+  /*
+   * A game that does nothing but a configurable amount of math in userGameUpdateEntity(), which only changes the entity it is given
+   */
+  private static class BenchmarkGame extends GameEngine
+  {
+    private int userUpdateWork;
+
+    BenchmarkGame(int userUpdateWork)
+    {
+      super(new IRender()
+      {
+        public void renderScreen()
+        {
+        }
+      });
+
+      this.userUpdateWork = userUpdateWork;
+    }
+
+    public void userGameUpdateEntity(Entity2D entity)
+    {
+      double angle = entity.getFaceAngle();
+
+      for (int i = 0; i < userUpdateWork; i++)
+      {
+        angle = Math.sin(angle) + 1.0;
+      }
+
+      entity.setFaceAngle(angle);
+    }
+
+    public void userGameInit()
+    {
+    }
+
+    public void userGameStart()
+    {
+    }
+
+    public void userGamePreUpdate()
+    {
+    }
+
+    public void userHandleEntityCollision(Entity2D entity1, Entity2D entity2)
+    {
+    }
+
+    public void userProcessInput()
+    {
+    }
+
+    public void userGamePreDraw(Graphics2D g)
+    {
+    }
+
+    public void userGamePostDraw(Graphics2D g)
+    {
+    }
+
+    public void userGameShutdown()
+    {
+    }
+
+    public void gameKeyPressed(int keyCode)
+    {
+    }
+
+    public void gameKeyReleased(int keyCode)
+    {
+    }
+
+    public void gameKeyTyped(int keyCode)
+    {
+    }
+  }
+}
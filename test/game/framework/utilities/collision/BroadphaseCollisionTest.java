@@ -0,0 +1,257 @@
+package game.framework.utilities.collision;
+
+import game.framework.GameEngine;
+import game.framework.entities.Entity2D;
+import game.framework.entities.EntityList;
+import game.framework.interfaces.IRender;
+
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ *
+ * @author ggiger
+ *
+ *         A test that the player shot vs enemy collisions found with a SpatialGridBroadphase are exactly the ones found by the
+ *         brute force comparison of GameEngine.gameDetectCollisions(). Run it as a Java application, it prints the result of
+ *         each check and exits with status 1 if a check fails.
+ *
+ *         Two games are set up from the same seed, one without a broadphase and one with it, and run for NUM_FRAMES frames. The
+ *         entities are moved between frames and the collision handler, driven by its own seeded random numbers, kills, moves,
+ *         adds and removes enemies and moves, kills and adds player shots. Since both games make the same changes as long as they
+ *         see the same collisions, the collisions (in order) of every frame must be the same.
+ */
+public class BroadphaseCollisionTest
+{
+  private static final int SCREEN_WIDTH      = 800;
+  private static final int SCREEN_HEIGHT     = 600;
+  private static final int NUM_ENEMIES       = 300;
+  private static final int NUM_PLAYER_SHOTS  = 400;
+  private static final int NUM_FRAMES        = 200;
+  private static final int[] CELL_SIZES      = { 16, 64, 200 };
+
+  private static int       numFailures;
+
+  public static void main(String[] args)
+  {
+    for (int cellSize : CELL_SIZES)
+    {
+      for (long seed = 1; seed <= 3; seed++)
+      {
+        CollisionRecordingGame bruteForceGame = new CollisionRecordingGame(seed, null);
+        CollisionRecordingGame broadphaseGame = new CollisionRecordingGame(seed, new SpatialGridBroadphase(SCREEN_WIDTH, SCREEN_HEIGHT, cellSize));
+
+        int mismatchFrame = -1;
+        for (int frame = 0; (frame < NUM_FRAMES) && (mismatchFrame == -1); frame++)
+        {
+          bruteForceGame.runFrame();
+          broadphaseGame.runFrame();
+
+          if (!bruteForceGame.collisions.equals(broadphaseGame.collisions))
+          {
+            mismatchFrame = frame;
+          }
+        }
+
+        check(mismatchFrame == -1, "cell size " + cellSize + ", seed " + seed + ": the same " + bruteForceGame.numCollisions + " collisions as brute force" + ((mismatchFrame == -1) ? "" : " (first mismatch in frame " + mismatchFrame + ")"));
+      }
+    }
+
+    if (numFailures > 0)
+    {
+      System.out.println(numFailures + " check(s) failed");
+      System.exit(1);
+    }
+
+    System.out.println("All checks passed");
+  }
+
+  private static void check(boolean condition, String description)
+  {
+    System.out.println((condition ? "  PASS: " : "  FAIL: ") + description);
+
+    if (!condition)
+    {
+      numFailures++;
+    }
+  }
+
+  /*
+   * An entity with a label given in creation order, so the collisions of both games can be compared
+   */
+  private static class LabeledEntity extends Entity2D
+  {
+    private int label;
+
+    LabeledEntity(int label)
+    {
+      this.label = label;
+    }
+  }
+
+  /*
+   * A game that records the collisions of the player shots with the enemies and changes the entities when they collide
+   */
+  private static class CollisionRecordingGame extends GameEngine
+  {
+    private Random            random;
+    private int               nextLabel;
+    private ArrayList<String> collisions = new ArrayList<String>();
+    private int               numCollisions;
+
+    CollisionRecordingGame(long seed, SpatialGridBroadphase broadphase)
+    {
+      super(new IRender()
+      {
+        public void renderScreen()
+        {
+        }
+      });
+
+      random = new Random(seed);
+      gameInit();
+      setCollisionBroadphase(broadphase);
+
+      for (int i = 0; i < NUM_ENEMIES; i++)
+      {
+        getEnemyList().add(createEntity(20, 40));
+      }
+
+      for (int i = 0; i < NUM_PLAYER_SHOTS; i++)
+      {
+        getPlayerShotList().add(createEntity(2, 10));
+      }
+    }
+
+    private LabeledEntity createEntity(int minSize, int maxSize)
+    {
+      LabeledEntity entity = new LabeledEntity(nextLabel++);
+
+      // Some entities are partially off screen and a few have no area
+      entity.setPosition(random.nextInt(SCREEN_WIDTH + 100) - 50, random.nextInt(SCREEN_HEIGHT + 100) - 50);
+      entity.setDimensions((random.nextInt(50) == 0) ? 0 : minSize + random.nextInt(maxSize - minSize), minSize + random.nextInt(maxSize - minSize));
+
+      return entity;
+    }
+
+    void runFrame()
+    {
+      collisions.clear();
+
+      // Move the entities, take out the dead ones and bring the lists back to size, as a game update would
+      moveEntities(getEnemyList(), 8);
+      moveEntities(getPlayerShotList(), 30);
+      getEnemyList().removeDead();
+      getPlayerShotList().removeDead();
+
+      while (getEnemyList().size() < NUM_ENEMIES)
+      {
+        getEnemyList().add(createEntity(20, 40));
+      }
+      while (getPlayerShotList().size() < NUM_PLAYER_SHOTS)
+      {
+        getPlayerShotList().add(createEntity(2, 10));
+      }
+
+      gameDetectCollisions();
+    }
+
+    private void moveEntities(EntityList entities, int maxDistance)
+    {
+      for (int i = 0; i < entities.size(); i++)
+      {
+        Entity2D entity = entities.get(i);
+        entity.setPosition(entity.getPositionX() + random.nextInt(2 * maxDistance + 1) - maxDistance, entity.getPositionY() + random.nextInt(2 * maxDistance + 1) - maxDistance);
+      }
+    }
+
+    public void userHandleEntityCollision(Entity2D entity1, Entity2D entity2)
+    {
+      collisions.add(((LabeledEntity) entity1).label + ":" + ((LabeledEntity) entity2).label);
+      numCollisions++;
+
+      EntityList enemies = getEnemyList();
+
+      switch (random.nextInt(10))
+      {
+        case 0:
+          entity2.setAlive(false);
+          break;
+        case 1:
+          // Move the enemy that was hit, possibly onto the following player shots
+          entity2.setPosition(random.nextInt(SCREEN_WIDTH), random.nextInt(SCREEN_HEIGHT));
+          break;
+        case 2:
+          // Move another enemy (possibly one the player shot has not been tested against yet) onto the player shot
+          enemies.get(random.nextInt(enemies.size())).setPosition(entity1.getPositionX() - 5, entity1.getPositionY() - 5);
+          break;
+        case 3:
+          // Add an enemy on top of the player shot
+          LabeledEntity enemy = createEntity(20, 40);
+          enemy.setPosition(entity1.getPositionX() - 5, entity1.getPositionY() - 5);
+          enemies.add(enemy);
+          break;
+        case 4:
+          // Remove an enemy, which shifts the list indices of the following enemies
+          enemies.remove(random.nextInt(enemies.size()));
+          break;
+        case 5:
+          // Move the player shot, which keeps going through the remaining enemies
+          entity1.setPosition(random.nextInt(SCREEN_WIDTH), random.nextInt(SCREEN_HEIGHT));
+          break;
+        case 6:
+          getPlayerShotList().add(createEntity(2, 10));
+          break;
+        default:
+          entity1.setAlive(false);
+          entity2.setAlive(false);
+          break;
+      }
+    }
+
+    public void userGameUpdateEntity(Entity2D entity)
+    {
+    }
+
+    public void userGameInit()
+    {
+    }
+
+    public void userGameStart()
+    {
+    }
+
+    public void userGamePreUpdate()
+    {
+    }
+
+    public void userProcessInput()
+    {
+    }
+
+    public void userGamePreDraw(Graphics2D g)
+    {
+    }
+
+    public void userGamePostDraw(Graphics2D g)
+    {
+    }
+
+    public void userGameShutdown()
+    {
+    }
+
+    public void gameKeyPressed(int keyCode)
+    {
+    }
+
+    public void gameKeyReleased(int keyCode)
+    {
+    }
+
+    public void gameKeyTyped(int keyCode)
+    {
+    }
+  }
+}